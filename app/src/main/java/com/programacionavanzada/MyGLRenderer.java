@@ -3,6 +3,17 @@ package com.programacionavanzada;
 import android.opengl.GLES20;
 import android.opengl.GLSurfaceView;
 
+import com.programacionavanzada.geometria.Camera;
+import com.programacionavanzada.geometria.CircleLod;
+import com.programacionavanzada.gl.DirectBuffers;
+import com.programacionavanzada.gl.Gl;
+import com.programacionavanzada.gl.GlCapabilities;
+import com.programacionavanzada.gl.GlCounters;
+import com.programacionavanzada.gl.GlStateTracker;
+import com.programacionavanzada.gl.GpuBuffer;
+import com.programacionavanzada.gl.RenderTarget;
+import com.programacionavanzada.gl.Texture;
+import com.programacionavanzada.gl.ShaderProgramCache;
 import com.programacionavanzada.primitivas.Circle;
 import com.programacionavanzada.primitivas.Line;
 import com.programacionavanzada.primitivas.Lines;
@@ -11,6 +22,17 @@ import com.programacionavanzada.primitivas.Points;
 import com.programacionavanzada.primitivas.Square;
 import com.programacionavanzada.primitivas.Triangle;
 import com.programacionavanzada.primitivas.Triangles;
+import com.programacionavanzada.render.GeometryLoader;
+import com.programacionavanzada.render.Layer;
+import com.programacionavanzada.render.LayerCache;
+import com.programacionavanzada.render.LayerRenderer;
+import com.programacionavanzada.render.RenderQueue;
+import com.programacionavanzada.render.RenderScheduler;
+import com.programacionavanzada.render.Scene;
+import com.programacionavanzada.render.SdfBatch;
+import com.programacionavanzada.render.SdfBatchRenderer;
+import com.programacionavanzada.render.ShapeBatch;
+import com.programacionavanzada.render.ShapeBatchRenderer;
 
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
@@ -31,10 +53,114 @@ public class MyGLRenderer implements GLSurfaceView.Renderer {
     private Square sq;
 
     private Circle cr;
+    // Sube con cada onSurfaceCreated; un teselado de un contexto anterior se descarta
+    private int circleGeneration;
+
+    // Muchas figuras en una sola llamada de dibujo
+    private ShapeBatchRenderer batchRenderer;
+    private ShapeBatch batch;
+
+    // Circulos, anillos y lineas de la escena como un rectangulo con borde suave
+    private SdfBatchRenderer sdfRenderer;
+    private SdfBatch sdf;
+
+    // Lineas con grosor real (glLineWidth suele estar limitado a 1; ver onSurfaceCreated)
+    //private StrokeBatchRenderer strokeRenderer;
+    //private StrokeBatch strokes;
+
+    // Iconos y glifos de un atlas; los de una misma pagina salen en un draw call (ver onSurfaceCreated)
+    //private AtlasTextures atlasTextures;
+    //private TextureAtlas atlas;
+    //private SpriteBatchRenderer spriteRenderer;
+    //private SpriteBatch sprites;
+
+    // Miles de circulos con un solo abanico compartido (ver onSurfaceCreated)
+    //private CircleInstances circles;
+    //private InstancedCircleRenderer circleRenderer;
+
+    // Figuras retenidas; sobrevive a la perdida del contexto GL
+    private final Scene scene = new Scene();
+
+    // Fondo estatico: se dibuja una vez en una textura y despues solo se pega
+    private final Layer background = new Layer(-1f, -1f, 1f, 1f);
+    private LayerRenderer layerRenderer;
+    private LayerCache layers;
+
+    // Las figuras sueltas se dibujan ordenadas por programa y buffer
+    private final RenderQueue queue = new RenderQueue();
+
+    // Proyeccion y vista; cada figura aporta su matriz de modelo
+    private final Camera camera = new Camera();
+    private final float[] viewBounds = new float[4];
+    private int sceneViewVersion = -1;
+
+    // Opcional: decide cuando dibujar (ver MyGLSurfaceView)
+    private RenderScheduler scheduler;
+
+    // Teselado fuera del hilo GL; cada cuadro sube lo que cabe en UPLOAD_BUDGET_NANOS
+    private final GeometryLoader loader = new GeometryLoader();
+    static final long UPLOAD_BUDGET_NANOS = 2_000_000L;
+
+    public void setScheduler(RenderScheduler scheduler) {
+        this.scheduler = scheduler;
+        scene.setListener(scheduler);
+        background.setListener(scheduler);
+        loader.setListener(scheduler);
+    }
+
+    /**
+     * Camara de la escena. Se modifica desde el hilo GL (queueEvent).
+     */
+    public Camera getCamera() {
+        return camera;
+    }
+
+    public GeometryLoader getGeometryLoader() {
+        return loader;
+    }
+
+    /**
+     * Escena que se dibuja en cada cuadro. Se modifica desde el hilo GL
+     * (GLSurfaceView.queueEvent).
+     */
+    public Scene getScene() {
+        return scene;
+    }
+
+    /**
+     * Capa que se dibuja debajo de la escena; para lo que casi no cambia.
+     * Se modifica desde el hilo GL, igual que la escena.
+     */
+    public Layer getBackground() {
+        return background;
+    }
 
     @Override
     public void onDrawFrame(GL10 gl) {
-        GLES20.glClear(GLES20.GL_COLOR_BUFFER_BIT);
+        if (scheduler != null) {
+            scheduler.onFrame();
+        }
+        loader.uploadPending(UPLOAD_BUDGET_NANOS);
+        if (camera.version() != sceneViewVersion) {
+            // La escena recorta contra lo que la camara ve
+            sceneViewVersion = camera.version();
+            camera.getVisibleBounds(viewBounds);
+            scene.setView(viewBounds[0], viewBounds[1], viewBounds[2], viewBounds[3]);
+            // El borde suave mide un pixel con cualquier zoom
+            sdf.setAntialiasWidth(camera.worldUnitsPerPixel());
+            layers.setView(viewBounds[0], viewBounds[1], viewBounds[2], viewBounds[3]);
+            layers.setPixelSize(camera.worldUnitsPerPixel());
+        }
+        layers.nextFrame();
+        if (background.getScene().size() > 0) {
+            // Antes de tocar la pantalla: cambiar de framebuffer a medio cuadro cuesta en GPUs por bloques
+            layers.update(background);
+        }
+        // Las capas limpian sus texturas a transparente; el color de la pantalla se pone cada cuadro
+        Gl.api().glClearColor(1.0f, 1.0f, 1.0f, 1.0f);
+        Gl.api().glClear(GLES20.GL_COLOR_BUFFER_BIT);
+        // Las paginas que no se usen en este cuadro son las primeras en desalojarse
+        //atlas.nextFrame();
         //point.draw();
         //points.draw();
         //line.draw();
@@ -42,17 +168,64 @@ public class MyGLRenderer implements GLSurfaceView.Renderer {
         //trg.draw();
 //        trgs.draw();
 //        sq.draw();
-        cr.draw();
+        if (background.getScene().size() > 0) {
+            layers.draw(background);
+        }
+        if (cr != null) {
+            queue.submit(0, cr);
+        }
+        queue.flush(camera);
+        if (scene.size() > 0) {
+            // Solo los nodos que tocan la pantalla llegan al lote
+            batch.begin();
+            sdf.begin();
+            scene.draw(batch, sdf);
+            batch.end();
+            sdf.end();
+        }
+//        batch.begin();
+//        batch.addSquare(new float[]{0.00f, 0.25f, 0.25f, 1.0f});
+//        batch.addCircle(-0.5f, -0.5f, 0.25f, 25, new float[]{0.9f, 0.8f, 0.0f, 1.0f});
+//        batch.addLine(-0.5f, 0.5f, 0.5f, 0.5f, 0.02f, new float[]{0.0f, 0.0f, 0.0f, 1.0f});
+//        batch.end();
+//        circleRenderer.draw(circles);
+//        strokes.begin();
+//        strokes.addLines(new float[]{-0.5f, 0.5f, 0.5f, 0.5f, -0.5f, -0.30f, -0.5f, -0.70f}, 2, 10f,
+//                new float[]{0.0f, 0.0f, 0.0f, 1.0f});
+//        strokes.end();
+//        sprites.begin();
+//        TextureAtlas.Region icon = atlas.add("icono", bitmap);
+//        sprites.draw(icon, -0.5f, -0.5f, 0.25f, 0.25f, new float[]{1.0f, 1.0f, 1.0f, 1.0f});
+//        sprites.end();
+
+        GlCounters.endFrame();
     }
 
     @Override
     public void onSurfaceChanged(GL10 gl, int width, int height) {
-        GLES20.glViewport(0, 0, width, height);
+        Gl.api().glViewport(0, 0, width, height);
+        // Los circulos eligen sus segmentos segun el tamano real de la pantalla
+        CircleLod.setViewport(width, height);
+        // La proyeccion conserva la proporcion: nada se estira en pantallas no cuadradas
+        camera.setViewport(width, height);
+        //strokeRenderer.setViewport(width, height);
+        // Al terminar de dibujar una capa se vuelve a este viewport
+        layerRenderer.setViewport(width, height);
     }
 
     @Override
     public void onSurfaceCreated(GL10 gl, EGLConfig config) {
-        GLES20.glClearColor(1.0f, 1.0f, 1.0f, 1.0f);
+        // Contexto nuevo: los programas y buffers del contexto anterior ya no existen
+        ShaderProgramCache.shared().invalidate();
+        GpuBuffer.onContextLost();
+        Texture.onContextLost();
+        RenderTarget.onContextLost();
+        Circle.onContextLost();
+        GlCapabilities.onContextCreated();
+        // Las primitivas repiten estado en cada draw(); el tracker no deja pasar lo redundante
+        GlStateTracker.install();
+        // Los renderers del contexto anterior devuelven su memoria al pool antes de crear los nuevos
+        releaseRenderers();
         //point = new Point();
         //line = new Line();
         //trg = new Triangle();
@@ -67,6 +240,7 @@ public class MyGLRenderer implements GLSurfaceView.Renderer {
 //        };
 //
 //        trgs = new Triangles(coordsTrgs);
+//        // Los vertices repetidos se sueldan: IndexedTriangles.fromSoup(coordsTrgs) guarda 4 en vez de 6
 
 //        float[] coords = {
 //                -0.25f, 0.75f, 0.0f,   // Punto 1
@@ -86,15 +260,74 @@ public class MyGLRenderer implements GLSurfaceView.Renderer {
 //      lines = new Lines(coordsLinea);
 
 //        sq = new Square();
-        cr = new Circle(0.5f,25);
-    }
+        // El abanico se tesela en otro hilo; el circulo aparece cuando se sube.
+        // El del contexto anterior tiene un programa que ya no existe
+        if (cr != null) {
+            cr.release();
+            cr = null;
+        }
+        final int generation = ++circleGeneration;
+        final float radius = 0.5f;
+        final int segments = CircleLod.segmentsFor(radius);
+        loader.submit(() -> DirectBuffers.pack(Circle.createCircleCoords(radius, segments)), packed -> {
+            if (generation != circleGeneration) {
+                return;
+            }
+            cr = new Circle(radius, packed);
+            // La escena es estatica: los vertices se suben una sola vez a la GPU
+            cr.useGpuBuffers(GLES20.GL_STATIC_DRAW);
+        });
 
-    public static int loadShader(int type, String shaderCode) {
+        batchRenderer = new ShapeBatchRenderer();
+        batch = new ShapeBatch(batchRenderer);
+        batchRenderer.setViewProjection(camera.viewProjection());
 
-        int shader = GLES20.glCreateShader(type);
-        GLES20.glShaderSource(shader, shaderCode);
-        GLES20.glCompileShader(shader);
-        return shader;
+        sdfRenderer = new SdfBatchRenderer();
+        sdf = new SdfBatch(sdfRenderer);
+        sdfRenderer.setViewProjection(camera.viewProjection());
+        // El ancho del borde suave se pone en el proximo onDrawFrame
+        sceneViewVersion = -1;
 
+        // Cache nueva: las texturas de las capas se perdieron con el contexto, las capas no
+        layerRenderer = new LayerRenderer(camera, batchRenderer, batch, sdfRenderer, sdf);
+        layers = new LayerCache(layerRenderer);
+
+//        strokeRenderer = new StrokeBatchRenderer();
+//        strokes = new StrokeBatch(strokeRenderer);
+//        strokeRenderer.setViewProjection(camera.viewProjection());
+//        // Grosor en pixeles, como glLineWidth
+//        strokeRenderer.setScreenSpace(true);
+//        strokes.getStroker().setJoin(PolylineStroker.Join.ROUND);
+
+//        // Paginas potencia de dos: los mipmaps se generan en GLES 2.0
+//        atlasTextures = new AtlasTextures(true);
+//        atlas = new TextureAtlas(atlasTextures);
+//        spriteRenderer = new SpriteBatchRenderer(atlasTextures);
+//        sprites = new SpriteBatch(spriteRenderer);
+//        spriteRenderer.setViewProjection(camera.viewProjection());
+
+//        circles = new CircleInstances(1024);
+//        circleRenderer = new InstancedCircleRenderer(25);
+//        circleRenderer.setViewProjection(camera.viewProjection());
+//        // Mover o recolorear un circulo pide un cuadro nuevo
+//        circles.setListener(scheduler);
+    }
+
+    // Despues de los onContextLost: los handles viejos solo se olvidan, no se borran
+    private void releaseRenderers() {
+        if (layerRenderer != null) {
+            layerRenderer.release();
+        }
+        if (batchRenderer != null) {
+            batchRenderer.release();
+        }
+        if (sdfRenderer != null) {
+            sdfRenderer.release();
+        }
+    }
+
+    public static int loadShader(int type, String shaderCode) {
+        // Compila y verifica el estado; lanza IllegalStateException con el log si falla
+        return ShaderProgramCache.shared().compileShader(type, shaderCode);
     }
 }
\ No newline at end of file
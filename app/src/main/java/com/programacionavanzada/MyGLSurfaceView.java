@@ -1,10 +1,25 @@
 package com.programacionavanzada;
 import android.content.Context;
+import android.content.pm.ApplicationInfo;
 import android.opengl.GLSurfaceView;
+import android.util.Log;
+
+import com.programacionavanzada.gl.DirectBuffers;
+import com.programacionavanzada.metricas.FrameStatsExporter;
+import com.programacionavanzada.metricas.InstrumentedRenderer;
+import com.programacionavanzada.render.GeometryLoader;
+import com.programacionavanzada.render.RenderScheduler;
+
+import java.io.File;
+import java.io.IOException;
 
 public class MyGLSurfaceView extends GLSurfaceView {
 
     private final MyGLRenderer renderer;
+    // Mide cada cuadro de MyGLRenderer (CPU, GPU y llamadas GL)
+    private final InstrumentedRenderer instrumented;
+    // Pide cuadros solo cuando la escena cambia
+    private final RenderScheduler scheduler;
 
     public MyGLSurfaceView(Context context ) {
         super(context);
@@ -12,6 +27,58 @@ public class MyGLSurfaceView extends GLSurfaceView {
         setEGLContextClientVersion(2);
 
         renderer =new MyGLRenderer();
-        setRenderer(renderer);
+        instrumented = new InstrumentedRenderer(renderer);
+        setRenderer(instrumented);
+        // La escena es estatica: no se redibuja en cada refresco de la pantalla
+        setRenderMode(RENDERMODE_WHEN_DIRTY);
+
+        scheduler = new RenderScheduler(new RenderScheduler.Host() {
+            @Override
+            public void requestRender() {
+                MyGLSurfaceView.this.requestRender();
+            }
+
+            @Override
+            public void setContinuous(boolean continuous) {
+                setRenderMode(continuous ? RENDERMODE_CONTINUOUSLY : RENDERMODE_WHEN_DIRTY);
+            }
+        });
+        renderer.setScheduler(scheduler);
+
+        if ((context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            // En debug se avisa de cada buffer directo que no se devolvio al pool (hilo GL)
+            queueEvent(() -> DirectBuffers.pool().setLeakDetection(true, (sizeBytes, acquiredAt) ->
+                    Log.w("DirectBufferPool", "Buffer de " + sizeBytes + " bytes sin release()", acquiredAt)));
+        }
+    }
+
+    public RenderScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Dibuja de forma continua durante una animacion de {@code millis} ms.
+     */
+    public void animateFor(long millis) {
+        scheduler.animateFor(millis);
+    }
+
+    /**
+     * Genera geometria en un hilo de trabajo y la entrega en el hilo GL,
+     * repartida entre cuadros (ver GeometryLoader).
+     */
+    public <T> void loadInBackground(GeometryLoader.Job<T> job, GeometryLoader.Upload<T> upload) {
+        renderer.getGeometryLoader().submit(job, upload);
+    }
+
+    public void setStatsOverlayEnabled(boolean enabled) {
+        instrumented.setOverlayEnabled(enabled);
+    }
+
+    /**
+     * Guarda frame_stats.csv y frame_stats.json en la carpeta privada de la app.
+     */
+    public File exportFrameStats() throws IOException {
+        return FrameStatsExporter.export(getContext(), instrumented.getHistory());
     }
 }
\ No newline at end of file
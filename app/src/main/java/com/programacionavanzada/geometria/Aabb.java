@@ -0,0 +1,91 @@
+package com.programacionavanzada.geometria;
+
+/**
+ * Cajas alineadas a los ejes guardadas de 4 en 4 en un float[]:
+ * {minX, minY, maxX, maxY}. Asi miles de cajas caben en un solo arreglo y
+ * recorrerlas no crea objetos.
+ */
+public final class Aabb {
+
+    public static final int FLOATS = 4;
+
+    public static final int MIN_X = 0;
+    public static final int MIN_Y = 1;
+    public static final int MAX_X = 2;
+    public static final int MAX_Y = 3;
+
+    private Aabb() {
+    }
+
+    /**
+     * Caja de los vertices (x, y) de {@code coords}; la z y demas componentes
+     * se ignoran.
+     */
+    public static void of(float[] coords, int coordsPerVertex, float[] dst, int offset) {
+        if (coords.length < 2) {
+            set(dst, offset, 0f, 0f, 0f, 0f);
+            return;
+        }
+        float minX = Float.POSITIVE_INFINITY;
+        float minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY;
+        float maxY = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i + 1 < coords.length; i += coordsPerVertex) {
+            minX = Math.min(minX, coords[i]);
+            minY = Math.min(minY, coords[i + 1]);
+            maxX = Math.max(maxX, coords[i]);
+            maxY = Math.max(maxY, coords[i + 1]);
+        }
+        set(dst, offset, minX, minY, maxX, maxY);
+    }
+
+    public static void set(float[] dst, int offset, float minX, float minY, float maxX, float maxY) {
+        dst[offset + MIN_X] = minX;
+        dst[offset + MIN_Y] = minY;
+        dst[offset + MAX_X] = maxX;
+        dst[offset + MAX_Y] = maxY;
+    }
+
+    /**
+     * Caja (conservadora) de {@code local} despues de escalar, rotar y
+     * trasladar: la caja de sus cuatro esquinas transformadas.
+     */
+    public static void transform(float[] local, int localOffset, float x, float y, float scale,
+                                 float cos, float sin, float[] dst, int offset) {
+        float minX = local[localOffset + MIN_X] * scale;
+        float minY = local[localOffset + MIN_Y] * scale;
+        float maxX = local[localOffset + MAX_X] * scale;
+        float maxY = local[localOffset + MAX_Y] * scale;
+        // Centro y semiejes de la caja escalada; al rotar, los semiejes se proyectan
+        float cx = (minX + maxX) / 2;
+        float cy = (minY + maxY) / 2;
+        float hx = Math.abs(maxX - minX) / 2;
+        float hy = Math.abs(maxY - minY) / 2;
+        float ac = Math.abs(cos);
+        float as = Math.abs(sin);
+        float ex = hx * ac + hy * as;
+        float ey = hx * as + hy * ac;
+        float wx = x + cx * cos - cy * sin;
+        float wy = y + cx * sin + cy * cos;
+        set(dst, offset, wx - ex, wy - ey, wx + ex, wy + ey);
+    }
+
+    /**
+     * Agranda la caja {@code amount} hacia cada lado (grosor de lineas, puntos).
+     */
+    public static void expand(float[] box, int offset, float amount) {
+        box[offset + MIN_X] -= amount;
+        box[offset + MIN_Y] -= amount;
+        box[offset + MAX_X] += amount;
+        box[offset + MAX_Y] += amount;
+    }
+
+    /**
+     * true si la caja {@code i} toca el rectangulo (los bordes cuentan).
+     */
+    public static boolean intersects(float[] boxes, int i, float minX, float minY, float maxX, float maxY) {
+        int o = i * FLOATS;
+        return boxes[o + MIN_X] <= maxX && boxes[o + MAX_X] >= minX
+                && boxes[o + MIN_Y] <= maxY && boxes[o + MAX_Y] >= minY;
+    }
+}
@@ -0,0 +1,140 @@
+package com.programacionavanzada.geometria;
+
+/**
+ * Proyeccion y vista del renderer en {@code float[16]} ya reservados.
+ *
+ * <p>La proyeccion es ortografica y conserva la proporcion del viewport: el
+ * lado corto de la pantalla va de -1 a 1 en coordenadas de mundo, asi un
+ * circulo se ve redondo en cualquier pantalla. La vista mueve el centro y
+ * acerca o aleja ({@link #setZoom(float)}).</p>
+ *
+ * <p>{@link #version()} cambia cada vez que se recalcula la matriz; las
+ * {@link Transform} la usan para saber si su MVP sigue valiendo.</p>
+ */
+public final class Camera {
+
+    private int width = 1;
+    private int height = 1;
+    private float centerX;
+    private float centerY;
+    private float zoom = 1f;
+
+    private final float[] projection = new float[16];
+    private final float[] view = new float[16];
+    private final float[] viewProjection = new float[16];
+    private boolean projectionDirty = true;
+    private boolean viewDirty = true;
+    private int version;
+
+    // Se llama desde onSurfaceChanged
+    public void setViewport(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Viewport invalido: " + width + "x" + height);
+        }
+        if (width != this.width || height != this.height) {
+            this.width = width;
+            this.height = height;
+            projectionDirty = true;
+        }
+    }
+
+    public void setCenter(float x, float y) {
+        if (x != centerX || y != centerY) {
+            centerX = x;
+            centerY = y;
+            viewDirty = true;
+        }
+    }
+
+    public void pan(float dx, float dy) {
+        setCenter(centerX + dx, centerY + dy);
+    }
+
+    // 2 = todo se ve al doble de tamano
+    public void setZoom(float zoom) {
+        if (zoom <= 0f) {
+            throw new IllegalArgumentException("zoom debe ser positivo: " + zoom);
+        }
+        if (zoom != this.zoom) {
+            this.zoom = zoom;
+            viewDirty = true;
+        }
+    }
+
+    public float getZoom() {
+        return zoom;
+    }
+
+    public float getCenterX() {
+        return centerX;
+    }
+
+    public float getCenterY() {
+        return centerY;
+    }
+
+    // Mitad del ancho visible en unidades de mundo con zoom 1
+    private float halfWidth() {
+        return width >= height ? (float) width / height : 1f;
+    }
+
+    private float halfHeight() {
+        return width >= height ? 1f : (float) height / width;
+    }
+
+    /**
+     * Proyeccion * vista; no se debe modificar.
+     */
+    public float[] viewProjection() {
+        if (projectionDirty) {
+            Mat4.ortho(projection, -halfWidth(), halfWidth(), -halfHeight(), halfHeight(), -1f, 1f);
+        }
+        if (viewDirty) {
+            Mat4.transform2D(view, -centerX * zoom, -centerY * zoom, zoom, zoom, 0f);
+        }
+        if (projectionDirty || viewDirty) {
+            Mat4.multiply(viewProjection, projection, view);
+            projectionDirty = false;
+            viewDirty = false;
+            version++;
+        }
+        return viewProjection;
+    }
+
+    public int version() {
+        viewProjection();
+        return version;
+    }
+
+    /**
+     * Rectangulo visible en coordenadas de mundo (minX, minY, maxX, maxY),
+     * para Scene.setView.
+     */
+    public void getVisibleBounds(float[] out) {
+        float hw = halfWidth() / zoom;
+        float hh = halfHeight() / zoom;
+        out[0] = centerX - hw;
+        out[1] = centerY - hh;
+        out[2] = centerX + hw;
+        out[3] = centerY + hh;
+    }
+
+    /**
+     * Lo que mide un pixel en unidades de mundo (igual en x que en y), para
+     * SdfBatch.setAntialiasWidth.
+     */
+    public float worldUnitsPerPixel() {
+        return 2f * halfWidth() / zoom / width;
+    }
+
+    /**
+     * Pixel de la pantalla (origen arriba a la izquierda) a coordenadas de
+     * mundo, por ejemplo para Scene.hitTest con un toque.
+     */
+    public void screenToWorld(float px, float py, float[] out) {
+        float ndcX = 2f * px / width - 1f;
+        float ndcY = 1f - 2f * py / height;
+        out[0] = centerX + ndcX * halfWidth() / zoom;
+        out[1] = centerY + ndcY * halfHeight() / zoom;
+    }
+}
@@ -0,0 +1,135 @@
+package com.programacionavanzada.geometria;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Nivel de detalle para figuras curvas: decide cuantos segmentos usar segun
+ * el radio en pixeles y un error maximo en pixeles.
+ *
+ * <p>Un arco de radio r partido en n segmentos se separa del circulo real a
+ * lo mas r (1 - cos(pi / n)) (la sagita). Se toma el menor n que deja esa
+ * distancia por debajo de la tolerancia y se redondea hacia arriba a uno de
+ * los {@link #BUCKETS}, para que circulos de tamano parecido compartan la
+ * misma geometria unitaria ya teselada.</p>
+ *
+ * <p>El renderer actualiza el viewport desde onSurfaceChanged; cada cambio
+ * incrementa {@link #generation()} para que las figuras se vuelvan a teselar.</p>
+ */
+public final class CircleLod {
+
+    public static final int[] BUCKETS = {8, 12, 16, 24, 32, 48, 64, 96, 128, 192, 256, 384, 512};
+
+    public static final float DEFAULT_TOLERANCE_PX = 0.5f;
+
+    // Hasta el primer onSurfaceChanged se supone una pantalla tipica
+    private static int viewportWidth = 1080;
+    private static int viewportHeight = 1920;
+    private static float tolerancePx = DEFAULT_TOLERANCE_PX;
+    private static volatile int generation;
+
+    // Abanicos unitarios (x, y, z) por bucket, compartidos por todos los circulos
+    private static final AtomicReferenceArray<float[]> UNIT_FANS = new AtomicReferenceArray<>(BUCKETS.length);
+
+    private CircleLod() {
+    }
+
+    public static void setViewport(int width, int height) {
+        if (width != viewportWidth || height != viewportHeight) {
+            viewportWidth = width;
+            viewportHeight = height;
+            generation++;
+        }
+    }
+
+    public static void setTolerancePx(float tolerance) {
+        if (tolerance <= 0f) {
+            throw new IllegalArgumentException("La tolerancia debe ser positiva: " + tolerance);
+        }
+        if (tolerance != tolerancePx) {
+            tolerancePx = tolerance;
+            generation++;
+        }
+    }
+
+    /**
+     * Cambia cada vez que el viewport o la tolerancia cambian.
+     */
+    public static int generation() {
+        return generation;
+    }
+
+    /**
+     * Radio en pixeles de un radio dado en coordenadas -1..1. Se usa el eje
+     * mas largo porque sin matriz de proyeccion el circulo se estira en el.
+     */
+    public static float pixelRadius(float radius) {
+        return radius * Math.max(viewportWidth, viewportHeight) / 2f;
+    }
+
+    /**
+     * Segmentos para un radio en coordenadas -1..1 con el viewport actual.
+     */
+    public static int segmentsFor(float radius) {
+        return segmentsForPixelRadius(pixelRadius(radius), tolerancePx);
+    }
+
+    public static int segmentsForPixelRadius(float radiusPx, float tolerance) {
+        if (radiusPx <= tolerance) {
+            return BUCKETS[0];
+        }
+        double needed = Math.ceil(Math.PI / Math.acos(1.0 - tolerance / radiusPx));
+        for (int bucket : BUCKETS) {
+            if (bucket >= needed) {
+                return bucket;
+            }
+        }
+        return BUCKETS[BUCKETS.length - 1];
+    }
+
+    /**
+     * Abanico de radio 1 con el formato de {@code Circle} (x, y, z). Para los
+     * valores de {@link #BUCKETS} el arreglo es compartido: no se debe modificar.
+     */
+    public static float[] unitFan(int segments) {
+        int bucket = bucketIndex(segments);
+        if (bucket < 0) {
+            return buildFan(segments);
+        }
+        float[] fan = UNIT_FANS.get(bucket);
+        if (fan == null) {
+            fan = buildFan(segments);
+            if (!UNIT_FANS.compareAndSet(bucket, null, fan)) {
+                fan = UNIT_FANS.get(bucket);
+            }
+        }
+        return fan;
+    }
+
+    /**
+     * Abanico de radio {@code radius} escalando el unitario. Reutiliza
+     * {@code reuse} si tiene el tamano justo.
+     */
+    public static float[] fan(float radius, int segments, float[] reuse) {
+        float[] unit = unitFan(segments);
+        float[] dst = reuse != null && reuse.length == unit.length ? reuse : new float[unit.length];
+        for (int i = 0; i < unit.length; i++) {
+            dst[i] = unit[i] * radius;
+        }
+        return dst;
+    }
+
+    private static float[] buildFan(int segments) {
+        float[] fan = new float[CircleTessellator.fanVertexCount(segments) * 3];
+        CircleTessellator.fan(0f, 0f, 1f, segments, fan, 0, 3);
+        return fan;
+    }
+
+    private static int bucketIndex(int segments) {
+        for (int i = 0; i < BUCKETS.length; i++) {
+            if (BUCKETS[i] == segments) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
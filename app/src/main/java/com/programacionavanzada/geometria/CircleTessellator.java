@@ -0,0 +1,174 @@
+package com.programacionavanzada.geometria;
+
+import java.nio.FloatBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Genera los vertices de un circulo directamente en el arreglo o buffer de
+ * quien llama, sin crear objetos.
+ *
+ * <p>Los senos y cosenos de cada numero de segmentos se calculan una vez y
+ * se guardan en una tabla; por encima de {@link #MAX_CACHED_SEGMENTS} se usa
+ * la recurrencia de rotacion (x', y') = (x cos d - y sin d, x sin d + y cos d).</p>
+ *
+ * <p>Solo se escriben x e y de cada vertice; el resto de componentes
+ * (z, color...) se dejan como esten en el destino.</p>
+ */
+public final class CircleTessellator {
+
+    public static final int MAX_CACHED_SEGMENTS = 1024;
+
+    // tabla[n] = {cos 0, sin 0, cos d, sin d, ...} con d = 2pi/n, n + 1 pares
+    private static final AtomicReferenceArray<float[]> TABLES =
+            new AtomicReferenceArray<>(MAX_CACHED_SEGMENTS + 1);
+
+    private CircleTessellator() {
+    }
+
+    /**
+     * Vertices de un abanico: centro + segments + 1 puntos del borde.
+     */
+    public static int fanVertexCount(int segments) {
+        return segments + 2;
+    }
+
+    /**
+     * Abanico para GL_TRIANGLE_FAN, igual al de {@code Circle}: el centro y
+     * luego el borde, repitiendo el primer punto al final.
+     *
+     * @param stride floats entre un vertice y el siguiente (3 para x,y,z)
+     * @return offset siguiente al ultimo vertice escrito
+     */
+    public static int fan(float cx, float cy, float radius, int segments,
+                          float[] dst, int offset, int stride) {
+        dst[offset] = cx;
+        dst[offset + 1] = cy;
+        return writeRing(cx, cy, radius, segments, segments + 1, dst, offset + stride, stride);
+    }
+
+    /**
+     * Solo el borde, sin repetir el primer punto: sirve para GL_LINE_LOOP y
+     * como vertices de {@link #fanIndices}.
+     */
+    public static int ring(float cx, float cy, float radius, int segments,
+                           float[] dst, int offset, int stride) {
+        return writeRing(cx, cy, radius, segments, segments, dst, offset, stride);
+    }
+
+    /**
+     * Abanico escrito en un FloatBuffer desde su posicion actual, con
+     * {@code components} floats por vertice (2 = x,y; 3 = x,y,0).
+     */
+    public static void fan(float cx, float cy, float radius, int segments,
+                           FloatBuffer dst, int components) {
+        checkSegments(segments);
+        putVertex(dst, cx, cy, components);
+        float[] table = table(segments);
+        if (table != null) {
+            for (int i = 0; i <= segments; i++) {
+                putVertex(dst, cx + radius * table[i * 2], cy + radius * table[i * 2 + 1], components);
+            }
+            return;
+        }
+        double step = 2.0 * Math.PI / segments;
+        double c = Math.cos(step);
+        double s = Math.sin(step);
+        double x = radius;
+        double y = 0;
+        for (int i = 0; i <= segments; i++) {
+            putVertex(dst, (float) (cx + x), (float) (cy + y), components);
+            double nx = x * c - y * s;
+            y = x * s + y * c;
+            x = nx;
+        }
+    }
+
+    /**
+     * Indices de triangulos para un centro en {@code baseVertex} seguido de
+     * un {@link #ring} de {@code segments} vertices. Escribe segments * 3 indices.
+     */
+    public static int fanIndices(int baseVertex, int segments, short[] dst, int offset) {
+        for (int i = 0; i < segments; i++) {
+            int next = i + 1 == segments ? 0 : i + 1;
+            dst[offset++] = (short) baseVertex;
+            dst[offset++] = (short) (baseVertex + 1 + i);
+            dst[offset++] = (short) (baseVertex + 1 + next);
+        }
+        return offset;
+    }
+
+    /**
+     * Indices GL_LINES del contorno de un {@link #ring} que empieza en
+     * {@code baseVertex}. Escribe segments * 2 indices.
+     */
+    public static int outlineIndices(int baseVertex, int segments, short[] dst, int offset) {
+        for (int i = 0; i < segments; i++) {
+            int next = i + 1 == segments ? 0 : i + 1;
+            dst[offset++] = (short) (baseVertex + i);
+            dst[offset++] = (short) (baseVertex + next);
+        }
+        return offset;
+    }
+
+    private static int writeRing(float cx, float cy, float radius, int segments, int count,
+                                 float[] dst, int offset, int stride) {
+        checkSegments(segments);
+        float[] table = table(segments);
+        if (table != null) {
+            for (int i = 0; i < count; i++) {
+                dst[offset] = cx + radius * table[i * 2];
+                dst[offset + 1] = cy + radius * table[i * 2 + 1];
+                offset += stride;
+            }
+            return offset;
+        }
+        // Demasiados segmentos para guardar la tabla: rotacion incremental en double
+        double step = 2.0 * Math.PI / segments;
+        double c = Math.cos(step);
+        double s = Math.sin(step);
+        double x = radius;
+        double y = 0;
+        for (int i = 0; i < count; i++) {
+            dst[offset] = (float) (cx + x);
+            dst[offset + 1] = (float) (cy + y);
+            offset += stride;
+            double nx = x * c - y * s;
+            y = x * s + y * c;
+            x = nx;
+        }
+        return offset;
+    }
+
+    private static void checkSegments(int segments) {
+        if (segments < 3) {
+            throw new IllegalArgumentException("Un circulo necesita al menos 3 segmentos: " + segments);
+        }
+    }
+
+    private static float[] table(int segments) {
+        if (segments > MAX_CACHED_SEGMENTS) {
+            return null;
+        }
+        float[] table = TABLES.get(segments);
+        if (table == null) {
+            table = new float[(segments + 1) * 2];
+            double angle = 2.0 * Math.PI / segments;
+            for (int i = 0; i <= segments; i++) {
+                table[i * 2] = (float) Math.cos(angle * i);
+                table[i * 2 + 1] = (float) Math.sin(angle * i);
+            }
+            // Si otro hilo la creo primero se usa la suya; son iguales
+            if (!TABLES.compareAndSet(segments, null, table)) {
+                table = TABLES.get(segments);
+            }
+        }
+        return table;
+    }
+
+    private static void putVertex(FloatBuffer dst, float x, float y, int components) {
+        dst.put(x).put(y);
+        for (int i = 2; i < components; i++) {
+            dst.put(0f);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.programacionavanzada.geometria;
+
+/**
+ * Pruebas exactas de "el punto cae dentro de la figura" para confirmar los
+ * candidatos que devuelve {@link SpatialGrid}. Los arreglos usan el mismo
+ * formato que las primitivas ({@code Triangle}, {@code Triangles}, {@code Lines}).
+ */
+public final class HitTest {
+
+    private HitTest() {
+    }
+
+    public static boolean inCircle(float px, float py, float cx, float cy, float radius) {
+        float dx = px - cx;
+        float dy = py - cy;
+        return dx * dx + dy * dy <= radius * radius;
+    }
+
+    /**
+     * Punto dentro del triangulo (los bordes cuentan), sin importar si los
+     * vertices van en sentido horario o antihorario.
+     */
+    public static boolean inTriangle(float px, float py,
+                                     float ax, float ay, float bx, float by, float cx, float cy) {
+        float d1 = cross(ax, ay, bx, by, px, py);
+        float d2 = cross(bx, by, cx, cy, px, py);
+        float d3 = cross(cx, cy, ax, ay, px, py);
+        boolean negative = d1 < 0 || d2 < 0 || d3 < 0;
+        boolean positive = d1 > 0 || d2 > 0 || d3 > 0;
+        return !(negative && positive);
+    }
+
+    /**
+     * Primer triangulo de {@code coords} (de 3 en 3 vertices) que contiene al
+     * punto, o -1.
+     */
+    public static int triangleAt(float[] coords, int coordsPerVertex, float px, float py) {
+        int stride = coordsPerVertex * 3;
+        for (int i = 0; i + stride <= coords.length; i += stride) {
+            int b = i + coordsPerVertex;
+            int c = b + coordsPerVertex;
+            if (inTriangle(px, py, coords[i], coords[i + 1], coords[b], coords[b + 1], coords[c], coords[c + 1])) {
+                return i / stride;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Distancia al cuadrado del punto al segmento (x1, y1) - (x2, y2).
+     */
+    public static float distanceToSegmentSq(float px, float py, float x1, float y1, float x2, float y2) {
+        float dx = x2 - x1;
+        float dy = y2 - y1;
+        float lengthSq = dx * dx + dy * dy;
+        float t = lengthSq == 0f ? 0f : ((px - x1) * dx + (py - y1) * dy) / lengthSq;
+        t = Math.max(0f, Math.min(1f, t));
+        float ex = x1 + t * dx - px;
+        float ey = y1 + t * dy - py;
+        return ex * ex + ey * ey;
+    }
+
+    /**
+     * Primer segmento de {@code coords} (pares {x1,y1, x2,y2, ...}) a menos de
+     * {@code width / 2} del punto, o -1.
+     */
+    public static int segmentAt(float[] coords, float width, float px, float py) {
+        float h = width / 2;
+        for (int i = 0; i + 3 < coords.length; i += 4) {
+            if (distanceToSegmentSq(px, py, coords[i], coords[i + 1], coords[i + 2], coords[i + 3]) <= h * h) {
+                return i / 4;
+            }
+        }
+        return -1;
+    }
+
+    // Distancia de un punto a la caja i de un arreglo de Aabb; 0 si esta dentro
+    public static float distanceToBox(float[] boxes, int i, float px, float py) {
+        int o = i * Aabb.FLOATS;
+        float dx = Math.max(0f, Math.max(boxes[o + Aabb.MIN_X] - px, px - boxes[o + Aabb.MAX_X]));
+        float dy = Math.max(0f, Math.max(boxes[o + Aabb.MIN_Y] - py, py - boxes[o + Aabb.MAX_Y]));
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private static float cross(float ax, float ay, float bx, float by, float px, float py) {
+        return (bx - ax) * (py - ay) - (by - ay) * (px - ax);
+    }
+}
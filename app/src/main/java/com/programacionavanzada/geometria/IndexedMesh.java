@@ -0,0 +1,56 @@
+package com.programacionavanzada.geometria;
+
+/**
+ * Malla indexada: vertices sin repetir y triangulos como indices, lista
+ * para glDrawElements. La arma {@link MeshOptimizer}.
+ */
+public final class IndexedMesh {
+
+    // El mayor indice que cabe en GL_UNSIGNED_SHORT es 65535
+    public static final int MAX_SHORT_VERTICES = 65536;
+
+    public final float[] vertices;
+    public final int coordsPerVertex;
+    public final int[] indices;
+
+    public IndexedMesh(float[] vertices, int coordsPerVertex, int[] indices) {
+        this.vertices = vertices;
+        this.coordsPerVertex = coordsPerVertex;
+        this.indices = indices;
+    }
+
+    public int vertexCount() {
+        return vertices.length / coordsPerVertex;
+    }
+
+    public int indexCount() {
+        return indices.length;
+    }
+
+    /**
+     * Con mas de 65536 vertices los indices necesitan 32 bits
+     * (GLES 3.0 o la extension OES_element_index_uint).
+     */
+    public boolean needsIntIndices() {
+        return vertexCount() > MAX_SHORT_VERTICES;
+    }
+
+    // Bytes de los indices con el tipo mas chico que alcanza
+    public int indexBytes() {
+        return indices.length * (needsIntIndices() ? 4 : 2);
+    }
+
+    /**
+     * Los indices en 16 bits (sin signo, como los lee GL_UNSIGNED_SHORT).
+     */
+    public short[] toShortIndices() {
+        if (needsIntIndices()) {
+            throw new IllegalStateException("La malla tiene " + vertexCount() + " vertices; no cabe en 16 bits");
+        }
+        short[] out = new short[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            out[i] = (short) indices[i];
+        }
+        return out;
+    }
+}
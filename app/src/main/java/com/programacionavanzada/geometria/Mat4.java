@@ -0,0 +1,79 @@
+package com.programacionavanzada.geometria;
+
+/**
+ * Operaciones sobre matrices 4x4 en arreglos {@code float[16]} por columnas,
+ * el formato que espera glUniformMatrix4fv con transpose = false.
+ *
+ * <p>Ninguna operacion crea objetos: el resultado se escribe en un arreglo
+ * que el llamador ya tiene reservado.</p>
+ */
+public final class Mat4 {
+
+    private Mat4() {
+    }
+
+    public static void identity(float[] m) {
+        for (int i = 0; i < 16; i++) {
+            m[i] = 0f;
+        }
+        m[0] = 1f;
+        m[5] = 1f;
+        m[10] = 1f;
+        m[15] = 1f;
+    }
+
+    /**
+     * {@code dst = a * b}. {@code dst} no puede ser {@code a} ni {@code b}.
+     */
+    public static void multiply(float[] dst, float[] a, float[] b) {
+        for (int col = 0; col < 4; col++) {
+            float b0 = b[col * 4];
+            float b1 = b[col * 4 + 1];
+            float b2 = b[col * 4 + 2];
+            float b3 = b[col * 4 + 3];
+            for (int row = 0; row < 4; row++) {
+                dst[col * 4 + row] = a[row] * b0 + a[4 + row] * b1 + a[8 + row] * b2 + a[12 + row] * b3;
+            }
+        }
+    }
+
+    /**
+     * Proyeccion ortografica, igual que glOrtho.
+     */
+    public static void ortho(float[] m, float left, float right, float bottom, float top, float near, float far) {
+        identity(m);
+        m[0] = 2f / (right - left);
+        m[5] = 2f / (top - bottom);
+        m[10] = -2f / (far - near);
+        m[12] = -(right + left) / (right - left);
+        m[13] = -(top + bottom) / (top - bottom);
+        m[14] = -(far + near) / (far - near);
+    }
+
+    /**
+     * Transformacion 2D: primero escala, luego rota {@code radians} alrededor
+     * de z y al final traslada a (x, y).
+     */
+    public static void transform2D(float[] m, float x, float y, float scaleX, float scaleY, float radians) {
+        float cos = (float) Math.cos(radians);
+        float sin = (float) Math.sin(radians);
+        identity(m);
+        m[0] = cos * scaleX;
+        m[1] = sin * scaleX;
+        m[4] = -sin * scaleY;
+        m[5] = cos * scaleY;
+        m[12] = x;
+        m[13] = y;
+    }
+
+    /**
+     * Aplica {@code m} al punto (x, y, 0, 1) y deja x, y en {@code out}.
+     * Sin division por w: solo sirve para matrices afines y ortograficas.
+     */
+    public static void mapPoint(float[] m, float x, float y, float[] out) {
+        float px = m[0] * x + m[4] * y + m[12];
+        float py = m[1] * x + m[5] * y + m[13];
+        out[0] = px;
+        out[1] = py;
+    }
+}
@@ -0,0 +1,394 @@
+package com.programacionavanzada.geometria;
+
+import java.util.Arrays;
+
+/**
+ * Convierte polilineas en triangulos con grosor, uniones y remates, para no
+ * depender de glLineWidth: muchos drivers lo limitan a 1 y un mismo draw
+ * call no puede mezclar grosores.
+ *
+ * <p>Cada vertice sale como (x, y, ex, ey): el punto de la linea y hacia
+ * donde se empuja. La posicion final es {@code (x, y) + (ex, ey) * grosor / 2},
+ * asi el grosor se aplica despues (en el shader, en pixeles o en unidades
+ * del mundo) sin volver a generar la malla.</p>
+ *
+ * <p>No llama a OpenGL. La salida se acumula hasta {@link #clear()} y los
+ * arreglos se reutilizan; solo crecen si una polilinea no cabe. En el lado
+ * interior de cada vuelta los segmentos se traslapan: con colores
+ * translucidos esa zona se ve mas oscura.</p>
+ */
+public final class PolylineStroker {
+
+    public enum Join { MITER, BEVEL, ROUND }
+
+    public enum Cap { BUTT, SQUARE, ROUND }
+
+    public static final int FLOATS_PER_VERTEX = 4; // x, y, ex, ey
+
+    // Por debajo de esto dos segmentos se consideran alineados
+    private static final float EPSILON = 1e-6f;
+
+    private Join join = Join.MITER;
+    private Cap cap = Cap.BUTT;
+    private float miterLimit = 4f;
+    private int roundSegments = 8;
+
+    private float[] vertices;
+    private int[] indices;
+    private int vertexCount;
+    private int indexCount;
+
+    // Puntos de la polilinea sin repetidos
+    private float[] px = new float[16];
+    private float[] py = new float[16];
+
+    public PolylineStroker() {
+        this(256, 384);
+    }
+
+    public PolylineStroker(int initialVertices, int initialIndices) {
+        vertices = new float[Math.max(4, initialVertices) * FLOATS_PER_VERTEX];
+        indices = new int[Math.max(6, initialIndices)];
+    }
+
+    // ==================== CONFIGURACION ====================
+
+    public void setJoin(Join join) {
+        this.join = join;
+    }
+
+    public void setCap(Cap cap) {
+        this.cap = cap;
+    }
+
+    /**
+     * Largo maximo de una union en punta, en mitades del grosor. Las vueltas
+     * mas cerradas se cortan (bevel). El valor por defecto es 4, como en SVG.
+     */
+    public void setMiterLimit(float miterLimit) {
+        if (miterLimit < 1f) {
+            throw new IllegalArgumentException("miterLimit debe ser al menos 1: " + miterLimit);
+        }
+        this.miterLimit = miterLimit;
+    }
+
+    /**
+     * Segmentos por media vuelta en uniones y remates redondos.
+     */
+    public void setRoundSegments(int roundSegments) {
+        if (roundSegments < 1) {
+            throw new IllegalArgumentException("roundSegments debe ser al menos 1: " + roundSegments);
+        }
+        this.roundSegments = roundSegments;
+    }
+
+    public Join getJoin() {
+        return join;
+    }
+
+    public Cap getCap() {
+        return cap;
+    }
+
+    // ==================== SALIDA ====================
+
+    public void clear() {
+        vertexCount = 0;
+        indexCount = 0;
+    }
+
+    /**
+     * Vertices de {@link #FLOATS_PER_VERTEX} floats. El arreglo es interno:
+     * vale hasta la siguiente llamada a stroke o clear.
+     */
+    public float[] getVertices() {
+        return vertices;
+    }
+
+    // Triangulos, de tres en tres, con indices desde 0
+    public int[] getIndices() {
+        return indices;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public int getIndexCount() {
+        return indexCount;
+    }
+
+    // ==================== TRAZOS ====================
+
+    /**
+     * Varias lineas sueltas, mismo formato que {@code Lines} y {@code Line}:
+     * pares {x1,y1, x2,y2, ...} con {@code coordsPerVertex} floats por punto.
+     */
+    public void strokeSegments(float[] coords, int coordsPerVertex) {
+        for (int i = 0; i + coordsPerVertex + 1 < coords.length; i += coordsPerVertex * 2) {
+            stroke(coords, i, 2, coordsPerVertex, false);
+        }
+    }
+
+    /**
+     * Una polilinea de {@code pointCount} puntos que empieza en
+     * {@code points[offset]}; cada punto ocupa {@code stride} floats (x, y
+     * primero). Los puntos repetidos seguidos se ignoran.
+     *
+     * @param closed une el ultimo punto con el primero; no lleva remates
+     */
+    public void stroke(float[] points, int offset, int pointCount, int stride, boolean closed) {
+        int n = collectPoints(points, offset, pointCount, stride, closed);
+        if (n == 1) {
+            dot(px[0], py[0]);
+            return;
+        }
+        if (n < 2) {
+            return;
+        }
+        // Con dos puntos un trazo cerrado es ida y vuelta sobre la misma linea
+        boolean loop = closed && n > 2;
+        int segments = loop ? n : n - 1;
+
+        int firstSegment = vertexCount;
+        int previous = -1;
+        for (int s = 0; s < segments; s++) {
+            int a = s;
+            int b = s + 1 == n ? 0 : s + 1;
+            int current = segment(px[a], py[a], px[b], py[b]);
+            if (previous >= 0) {
+                join(px[a], py[a], previous, current);
+            }
+            previous = current;
+        }
+        if (loop) {
+            join(px[0], py[0], previous, firstSegment);
+        } else {
+            startCap(firstSegment);
+            endCap(previous);
+        }
+    }
+
+    private int collectPoints(float[] points, int offset, int pointCount, int stride, boolean closed) {
+        if (px.length < pointCount) {
+            px = new float[pointCount];
+            py = new float[pointCount];
+        }
+        int n = 0;
+        for (int i = 0; i < pointCount; i++) {
+            float x = points[offset + i * stride];
+            float y = points[offset + i * stride + 1];
+            if (n > 0 && x == px[n - 1] && y == py[n - 1]) {
+                continue;
+            }
+            px[n] = x;
+            py[n] = y;
+            n++;
+        }
+        if (closed && n > 1 && px[0] == px[n - 1] && py[0] == py[n - 1]) {
+            n--;
+        }
+        return n;
+    }
+
+    /**
+     * Rectangulo del segmento: 4 vertices (a+n, a-n, b+n, b-n) con n la
+     * normal a la izquierda. Devuelve el indice del primero.
+     */
+    private int segment(float ax, float ay, float bx, float by) {
+        float dx = bx - ax;
+        float dy = by - ay;
+        float length = (float) Math.sqrt(dx * dx + dy * dy);
+        float nx = -dy / length;
+        float ny = dx / length;
+        int v = vertex(ax, ay, nx, ny);
+        vertex(ax, ay, -nx, -ny);
+        vertex(bx, by, nx, ny);
+        vertex(bx, by, -nx, -ny);
+        triangle(v, v + 1, v + 2);
+        triangle(v + 2, v + 1, v + 3);
+        return v;
+    }
+
+    // Normal (izquierda) de un segmento ya escrito
+    private float normalX(int segment) {
+        return vertices[segment * FLOATS_PER_VERTEX + 2];
+    }
+
+    private float normalY(int segment) {
+        return vertices[segment * FLOATS_PER_VERTEX + 3];
+    }
+
+    /**
+     * Llena el hueco del lado exterior de la vuelta en (x, y) entre el final
+     * del segmento {@code in} y el inicio de {@code out}.
+     */
+    private void join(float x, float y, int in, int out) {
+        float nInX = normalX(in);
+        float nInY = normalY(in);
+        float nOutX = normalX(out);
+        float nOutY = normalY(out);
+        // Las normales giran igual que las direcciones
+        float cross = nInX * nOutY - nInY * nOutX;
+        float dot = nInX * nOutX + nInY * nOutY;
+        if (Math.abs(cross) < EPSILON && dot > 0f) {
+            return;
+        }
+        // Vuelta a la izquierda: el lado exterior es el derecho (-n)
+        float side = cross > 0f ? -1f : 1f;
+        int outerIn = side > 0f ? in + 2 : in + 3;
+        int outerOut = side > 0f ? out : out + 1;
+        int center = vertex(x, y, 0f, 0f);
+
+        switch (join) {
+            case MITER: {
+                // Punta: (nIn + nOut) / (1 + nIn.nOut) mide 1 / cos(angulo / 2)
+                float mx = nInX + nOutX;
+                float my = nInY + nOutY;
+                float scale = 1f + dot;
+                if (scale > EPSILON) {
+                    float length = (float) Math.sqrt(mx * mx + my * my) / scale;
+                    if (length <= miterLimit) {
+                        int tip = vertex(x, y, side * mx / scale, side * my / scale);
+                        triangle(center, outerIn, tip);
+                        triangle(center, tip, outerOut);
+                        return;
+                    }
+                }
+                triangle(center, outerIn, outerOut);
+                return;
+            }
+            case ROUND: {
+                float angle = (float) Math.atan2(Math.abs(cross), dot);
+                arc(x, y, center, outerIn, outerOut, -side, angle);
+                return;
+            }
+            default:
+                triangle(center, outerIn, outerOut);
+        }
+    }
+
+    // Remate al inicio: hacia atras del primer segmento
+    private void startCap(int segment) {
+        float nx = normalX(segment);
+        float ny = normalY(segment);
+        float x = vertices[segment * FLOATS_PER_VERTEX];
+        float y = vertices[segment * FLOATS_PER_VERTEX + 1];
+        // La direccion es la normal girada 90 grados a la derecha
+        float dx = ny;
+        float dy = -nx;
+        cap(x, y, segment, segment + 1, -dx, -dy);
+    }
+
+    // Remate al final: hacia adelante del ultimo segmento
+    private void endCap(int segment) {
+        float nx = normalX(segment);
+        float ny = normalY(segment);
+        float x = vertices[(segment + 2) * FLOATS_PER_VERTEX];
+        float y = vertices[(segment + 2) * FLOATS_PER_VERTEX + 1];
+        cap(x, y, segment + 3, segment + 2, ny, -nx);
+    }
+
+    /**
+     * @param from  vertice del lado desde el que gira el remate redondo
+     * @param to    vertice del otro lado
+     * @param ox    hacia afuera de la linea (unitario)
+     */
+    private void cap(float x, float y, int from, int to, float ox, float oy) {
+        switch (cap) {
+            case SQUARE: {
+                int ext = vertexCount;
+                float fx = vertices[from * FLOATS_PER_VERTEX + 2];
+                float fy = vertices[from * FLOATS_PER_VERTEX + 3];
+                vertex(x, y, fx + ox, fy + oy);
+                vertex(x, y, -fx + ox, -fy + oy);
+                triangle(from, ext, to);
+                triangle(to, ext, ext + 1);
+                return;
+            }
+            case ROUND: {
+                int center = vertex(x, y, 0f, 0f);
+                // De from a to pasando por (ox, oy): media vuelta a la izquierda
+                arc(x, y, center, from, to, 1f, (float) Math.PI);
+                return;
+            }
+            default:
+                // BUTT: el rectangulo termina justo en el punto
+        }
+    }
+
+    /**
+     * Abanico desde el vertice {@code from} hasta {@code to} alrededor de
+     * {@code center}, girando {@code angle} radianes ({@code direction} 1 a
+     * la izquierda, -1 a la derecha).
+     */
+    private void arc(float x, float y, int center, int from, int to, float direction, float angle) {
+        // El margen evita un paso de mas cuando el angulo es justo un multiplo
+        int steps = Math.max(1, (int) Math.ceil(angle / Math.PI * roundSegments - 1e-3));
+        float ax = vertices[from * FLOATS_PER_VERTEX + 2];
+        float ay = vertices[from * FLOATS_PER_VERTEX + 3];
+        // La extrusion del vertice from puede no ser unitaria (punta cuadrada); el arco si
+        float length = (float) Math.sqrt(ax * ax + ay * ay);
+        ax /= length;
+        ay /= length;
+        int last = from;
+        for (int i = 1; i < steps; i++) {
+            double t = direction * angle * i / steps;
+            float c = (float) Math.cos(t);
+            float s = (float) Math.sin(t);
+            int v = vertex(x, y, ax * c - ay * s, ax * s + ay * c);
+            triangle(center, last, v);
+            last = v;
+        }
+        triangle(center, last, to);
+    }
+
+    // Punto aislado: con remate cuadrado o redondo se dibuja como un punto grueso
+    private void dot(float x, float y) {
+        if (cap == Cap.BUTT) {
+            return;
+        }
+        if (cap == Cap.SQUARE) {
+            int v = vertex(x, y, -1f, -1f);
+            vertex(x, y, 1f, -1f);
+            vertex(x, y, 1f, 1f);
+            vertex(x, y, -1f, 1f);
+            triangle(v, v + 1, v + 2);
+            triangle(v, v + 2, v + 3);
+            return;
+        }
+        int center = vertex(x, y, 0f, 0f);
+        int count = roundSegments * 2;
+        for (int i = 0; i < count; i++) {
+            double t = 2.0 * Math.PI * i / count;
+            vertex(x, y, (float) Math.cos(t), (float) Math.sin(t));
+        }
+        for (int i = 0; i < count; i++) {
+            int next = i + 1 == count ? 0 : i + 1;
+            triangle(center, center + 1 + i, center + 1 + next);
+        }
+    }
+
+    // ==================== INTERNOS ====================
+
+    private int vertex(float x, float y, float ex, float ey) {
+        int i = vertexCount * FLOATS_PER_VERTEX;
+        if (i + FLOATS_PER_VERTEX > vertices.length) {
+            vertices = Arrays.copyOf(vertices, vertices.length * 2);
+        }
+        vertices[i] = x;
+        vertices[i + 1] = y;
+        vertices[i + 2] = ex;
+        vertices[i + 3] = ey;
+        return vertexCount++;
+    }
+
+    private void triangle(int a, int b, int c) {
+        if (indexCount + 3 > indices.length) {
+            indices = Arrays.copyOf(indices, indices.length * 2);
+        }
+        indices[indexCount++] = a;
+        indices[indexCount++] = b;
+        indices[indexCount++] = c;
+    }
+}
@@ -0,0 +1,343 @@
+package com.programacionavanzada.geometria;
+
+import java.util.Arrays;
+
+/**
+ * Indice espacial de cajas con una cuadricula uniforme sin limites (las
+ * celdas se guardan en una tabla hash). Responde "que cajas tocan este
+ * rectangulo" y "cual es la figura mas cercana a este punto" sin recorrer
+ * todas las figuras.
+ *
+ * <p>Todo vive en arreglos primitivos, sin un objeto por entrada: las cajas
+ * en un float[] (ver {@link Aabb}) y las listas de cada celda como enlaces
+ * int[] entrada / int[] siguiente. Asi caben millones de entradas.</p>
+ *
+ * <p>Una caja se agrega a cada celda que toca; las que tocarian demasiadas
+ * celdas van a una lista aparte que se revisa en cada consulta.</p>
+ */
+public final class SpatialGrid {
+
+    /**
+     * Distancia exacta de una figura a un punto, para {@link #nearest}.
+     */
+    public interface Distance {
+        float distance(int id, float x, float y);
+    }
+
+    // Mas celdas que esto y la caja se guarda en la lista de grandes
+    static final int MAX_CELLS_PER_ENTRY = 64;
+
+    private static final byte FREE = 0;
+    private static final byte IN_CELLS = 1;
+    private static final byte OVERSIZE = 2;
+
+    private final float inverseCell;
+    private final int mask;
+    private final int[] cellHead;
+
+    private float[] bounds;
+    private byte[] state;
+    private int[] mark;          // ultima consulta que ya vio la entrada
+    private int[] oversizeSlot;  // posicion en oversize
+    private int highWater;
+    private int size;
+    private int[] freeIds = new int[16];
+    private int freeCount;
+
+    private int[] linkEntry;
+    private int[] linkNext;
+    private int linkCount;
+    private int freeLink = -1;
+
+    private int[] oversize = new int[16];
+    private int oversizeCount;
+
+    private int queryStamp;
+    private int[] scratch = new int[64];
+
+    public SpatialGrid(float cellSize) {
+        this(cellSize, 4096, 256);
+    }
+
+    /**
+     * @param cellSize        lado de cada celda, parecido al tamano tipico de las figuras
+     * @param tableSize       celdas en la tabla hash (se redondea a potencia de 2)
+     * @param initialCapacity entradas antes de tener que crecer
+     */
+    public SpatialGrid(float cellSize, int tableSize, int initialCapacity) {
+        if (!(cellSize > 0f)) {
+            throw new IllegalArgumentException("cellSize debe ser positivo: " + cellSize);
+        }
+        this.inverseCell = 1f / cellSize;
+        int cells = Integer.highestOneBit(Math.max(16, tableSize - 1) << 1);
+        this.mask = cells - 1;
+        this.cellHead = new int[cells];
+        Arrays.fill(cellHead, -1);
+
+        int capacity = Math.max(16, initialCapacity);
+        bounds = new float[capacity * Aabb.FLOATS];
+        state = new byte[capacity];
+        mark = new int[capacity];
+        oversizeSlot = new int[capacity];
+        linkEntry = new int[capacity * 2];
+        linkNext = new int[capacity * 2];
+    }
+
+    // ==================== CAMBIOS ====================
+
+    /**
+     * Agrega una caja y devuelve su id, que no cambia hasta {@link #remove}.
+     */
+    public int insert(float minX, float minY, float maxX, float maxY) {
+        int id;
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+        } else {
+            if (highWater == state.length) {
+                growEntries(highWater * 2);
+            }
+            id = highWater++;
+        }
+        Aabb.set(bounds, id * Aabb.FLOATS, minX, minY, maxX, maxY);
+        link(id);
+        size++;
+        return id;
+    }
+
+    public void update(int id, float minX, float minY, float maxX, float maxY) {
+        checkId(id);
+        unlink(id);
+        Aabb.set(bounds, id * Aabb.FLOATS, minX, minY, maxX, maxY);
+        link(id);
+    }
+
+    public void remove(int id) {
+        checkId(id);
+        unlink(id);
+        state[id] = FREE;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = id;
+        size--;
+    }
+
+    public void clear() {
+        Arrays.fill(cellHead, -1);
+        Arrays.fill(state, 0, highWater, FREE);
+        highWater = 0;
+        size = 0;
+        freeCount = 0;
+        linkCount = 0;
+        freeLink = -1;
+        oversizeCount = 0;
+    }
+
+    // ==================== CONSULTAS ====================
+
+    /**
+     * Ids de las cajas que tocan el rectangulo (los bordes cuentan), sin
+     * repetir y sin orden. Si {@code out} se llena, se sigue contando pero ya
+     * no se escribe: el resultado mayor que out.length indica que falto espacio.
+     *
+     * @return cuantas cajas tocan el rectangulo
+     */
+    public int query(float minX, float minY, float maxX, float maxY, int[] out) {
+        int stamp = nextStamp();
+        int n = 0;
+        int c0x = cell(minX);
+        int c0y = cell(minY);
+        int c1x = cell(maxX);
+        int c1y = cell(maxY);
+        long cells = ((long) c1x - c0x + 1) * ((long) c1y - c0y + 1);
+
+        if (cells > cellHead.length) {
+            // Rectangulo enorme: sale mas barato revisar cada entrada una vez
+            for (int id = 0; id < highWater; id++) {
+                if (state[id] != FREE && Aabb.intersects(bounds, id, minX, minY, maxX, maxY)) {
+                    n = emit(out, n, id);
+                }
+            }
+            return n;
+        }
+
+        for (int cy = c0y; cy <= c1y; cy++) {
+            for (int cx = c0x; cx <= c1x; cx++) {
+                for (int link = cellHead[hash(cx, cy)]; link != -1; link = linkNext[link]) {
+                    int id = linkEntry[link];
+                    if (mark[id] != stamp) {
+                        mark[id] = stamp;
+                        if (Aabb.intersects(bounds, id, minX, minY, maxX, maxY)) {
+                            n = emit(out, n, id);
+                        }
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < oversizeCount; i++) {
+            int id = oversize[i];
+            if (Aabb.intersects(bounds, id, minX, minY, maxX, maxY)) {
+                n = emit(out, n, id);
+            }
+        }
+        return n;
+    }
+
+    // Cajas que contienen al punto
+    public int queryPoint(float x, float y, int[] out) {
+        return query(x, y, x, y, out);
+    }
+
+    /**
+     * Entrada mas cercana al punto a no mas de {@code maxDistance}.
+     *
+     * @param distance distancia exacta a cada figura; null usa la distancia a la caja
+     * @return el id, o -1 si no hay ninguna tan cerca
+     */
+    public int nearest(float x, float y, float maxDistance, Distance distance) {
+        int n;
+        while ((n = query(x - maxDistance, y - maxDistance, x + maxDistance, y + maxDistance, scratch)) > scratch.length) {
+            scratch = new int[Integer.highestOneBit(n) << 1];
+        }
+        int best = -1;
+        float bestDistance = maxDistance;
+        for (int i = 0; i < n; i++) {
+            int id = scratch[i];
+            float d = distance != null ? distance.distance(id, x, y) : HitTest.distanceToBox(bounds, id, x, y);
+            if (d < bestDistance || (d == bestDistance && best == -1)) {
+                best = id;
+                bestDistance = d;
+            }
+        }
+        return best;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int id) {
+        return id >= 0 && id < highWater && state[id] != FREE;
+    }
+
+    /**
+     * Arreglo interno de cajas: la del id i empieza en i * {@link Aabb#FLOATS}.
+     */
+    public float[] getBounds() {
+        return bounds;
+    }
+
+    // ==================== INTERNOS ====================
+
+    private void link(int id) {
+        int o = id * Aabb.FLOATS;
+        int c0x = cell(bounds[o + Aabb.MIN_X]);
+        int c0y = cell(bounds[o + Aabb.MIN_Y]);
+        int c1x = cell(bounds[o + Aabb.MAX_X]);
+        int c1y = cell(bounds[o + Aabb.MAX_Y]);
+        if (((long) c1x - c0x + 1) * ((long) c1y - c0y + 1) > MAX_CELLS_PER_ENTRY) {
+            state[id] = OVERSIZE;
+            if (oversizeCount == oversize.length) {
+                oversize = Arrays.copyOf(oversize, oversizeCount * 2);
+            }
+            oversizeSlot[id] = oversizeCount;
+            oversize[oversizeCount++] = id;
+            return;
+        }
+        state[id] = IN_CELLS;
+        for (int cy = c0y; cy <= c1y; cy++) {
+            for (int cx = c0x; cx <= c1x; cx++) {
+                int h = hash(cx, cy);
+                int link = newLink();
+                linkEntry[link] = id;
+                linkNext[link] = cellHead[h];
+                cellHead[h] = link;
+            }
+        }
+    }
+
+    private void unlink(int id) {
+        if (state[id] == OVERSIZE) {
+            int slot = oversizeSlot[id];
+            int moved = oversize[--oversizeCount];
+            oversize[slot] = moved;
+            oversizeSlot[moved] = slot;
+            return;
+        }
+        // Las mismas celdas que uso link(); la caja no cambio desde entonces
+        int o = id * Aabb.FLOATS;
+        int c0x = cell(bounds[o + Aabb.MIN_X]);
+        int c0y = cell(bounds[o + Aabb.MIN_Y]);
+        int c1x = cell(bounds[o + Aabb.MAX_X]);
+        int c1y = cell(bounds[o + Aabb.MAX_Y]);
+        for (int cy = c0y; cy <= c1y; cy++) {
+            for (int cx = c0x; cx <= c1x; cx++) {
+                int h = hash(cx, cy);
+                int prev = -1;
+                for (int link = cellHead[h]; link != -1; prev = link, link = linkNext[link]) {
+                    if (linkEntry[link] == id) {
+                        if (prev == -1) {
+                            cellHead[h] = linkNext[link];
+                        } else {
+                            linkNext[prev] = linkNext[link];
+                        }
+                        linkNext[link] = freeLink;
+                        freeLink = link;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private int newLink() {
+        if (freeLink != -1) {
+            int link = freeLink;
+            freeLink = linkNext[link];
+            return link;
+        }
+        if (linkCount == linkEntry.length) {
+            linkEntry = Arrays.copyOf(linkEntry, linkCount * 2);
+            linkNext = Arrays.copyOf(linkNext, linkCount * 2);
+        }
+        return linkCount++;
+    }
+
+    private void growEntries(int capacity) {
+        bounds = Arrays.copyOf(bounds, capacity * Aabb.FLOATS);
+        state = Arrays.copyOf(state, capacity);
+        mark = Arrays.copyOf(mark, capacity);
+        oversizeSlot = Arrays.copyOf(oversizeSlot, capacity);
+    }
+
+    private int nextStamp() {
+        if (++queryStamp == 0) {
+            // Dio la vuelta: se limpian las marcas para no confundir consultas viejas
+            Arrays.fill(mark, 0);
+            queryStamp = 1;
+        }
+        return queryStamp;
+    }
+
+    private static int emit(int[] out, int n, int id) {
+        if (n < out.length) {
+            out[n] = id;
+        }
+        return n + 1;
+    }
+
+    private int cell(float v) {
+        return (int) Math.floor(v * inverseCell);
+    }
+
+    private int hash(int cx, int cy) {
+        int h = cx * 0x9E3779B1 ^ cy * 0x85EBCA6B;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void checkId(int id) {
+        if (!contains(id)) {
+            throw new IllegalArgumentException("Id no esta en el indice: " + id);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.programacionavanzada.geometria;
+
+/**
+ * Posicion, escala y rotacion de una figura, convertidas a matriz de modelo
+ * solo cuando cambian.
+ *
+ * <p>La matriz MVP ({@link #mvp(Camera)}) tambien se guarda: se vuelve a
+ * multiplicar solo si cambio esta transformacion o la camara. Mover una
+ * figura cuesta subir un uniform en el siguiente draw(), no sus vertices.</p>
+ */
+public final class Transform {
+
+    private float x;
+    private float y;
+    private float scaleX = 1f;
+    private float scaleY = 1f;
+    private float rotation;
+
+    private final float[] model = new float[16];
+    private final float[] mvp = new float[16];
+    private boolean modelDirty = true;
+    // Cambia cada vez que se recalcula model
+    private int modelVersion;
+
+    // Con que se calculo mvp por ultima vez
+    private Camera mvpCamera;
+    private int mvpCameraVersion;
+    private int mvpModelVersion = -1;
+
+    // Multiplicaciones hechas; sirve para medir cuanto se ahorra
+    private int recomputes;
+
+    public void setPosition(float x, float y) {
+        if (x != this.x || y != this.y) {
+            this.x = x;
+            this.y = y;
+            modelDirty = true;
+        }
+    }
+
+    public void translate(float dx, float dy) {
+        setPosition(x + dx, y + dy);
+    }
+
+    public void setScale(float scale) {
+        setScale(scale, scale);
+    }
+
+    public void setScale(float scaleX, float scaleY) {
+        if (scaleX != this.scaleX || scaleY != this.scaleY) {
+            this.scaleX = scaleX;
+            this.scaleY = scaleY;
+            modelDirty = true;
+        }
+    }
+
+    public void setRotation(float radians) {
+        if (radians != rotation) {
+            rotation = radians;
+            modelDirty = true;
+        }
+    }
+
+    public float getX() {
+        return x;
+    }
+
+    public float getY() {
+        return y;
+    }
+
+    public float getScaleX() {
+        return scaleX;
+    }
+
+    public float getScaleY() {
+        return scaleY;
+    }
+
+    public float getRotation() {
+        return rotation;
+    }
+
+    /**
+     * Matriz de modelo; no se debe modificar.
+     */
+    public float[] model() {
+        if (modelDirty) {
+            Mat4.transform2D(model, x, y, scaleX, scaleY, rotation);
+            modelDirty = false;
+            modelVersion++;
+        }
+        return model;
+    }
+
+    /**
+     * Proyeccion * vista * modelo, lista para glUniformMatrix4fv; no se
+     * debe modificar. Sin camara ({@code null}) es solo la de modelo.
+     */
+    public float[] mvp(Camera camera) {
+        float[] m = model();
+        if (camera == null) {
+            return m;
+        }
+        float[] viewProjection = camera.viewProjection();
+        if (camera != mvpCamera || camera.version() != mvpCameraVersion || modelVersion != mvpModelVersion) {
+            Mat4.multiply(mvp, viewProjection, m);
+            mvpCamera = camera;
+            mvpCameraVersion = camera.version();
+            mvpModelVersion = modelVersion;
+            recomputes++;
+        }
+        return mvp;
+    }
+
+    public int getRecomputes() {
+        return recomputes;
+    }
+}
@@ -0,0 +1,742 @@
+package com.programacionavanzada.geometria;
+
+import java.util.Arrays;
+
+/**
+ * Triangula poligonos simples, concavos y con hoyos por recorte de orejas.
+ * Es el algoritmo de earcut (Mapbox) con la lista doblemente enlazada en
+ * arreglos de primitivos en lugar de objetos.
+ *
+ * <ul>
+ *     <li>Cada hoyo se une al contorno con un puente hacia el vertice
+ *     visible mas cercano y el conjunto queda como un solo contorno.</li>
+ *     <li>Con mas de 80 vertices los nodos se ordenan por curva Z: para ver
+ *     si una oreja contiene otro vertice solo se revisan los de su caja, y
+ *     el costo queda cerca de O(n log n) en la practica.</li>
+ *     <li>Si ya no hay orejas (contornos que se tocan o se cruzan) se quitan
+ *     intersecciones locales y, al final, se parte el poligono por una
+ *     diagonal valida.</li>
+ * </ul>
+ *
+ * <p>La salida son indices a los vertices de entrada, de tres en tres, para
+ * una {@link IndexedMesh} o para armar el arreglo de {@code Triangles}. La
+ * misma instancia se puede reutilizar; sus arreglos solo crecen.</p>
+ */
+public final class Triangulator {
+
+    private static final int NONE = -1;
+    // Por debajo de esto no vale la pena el indice por curva Z
+    private static final int HASH_THRESHOLD = 80;
+
+    // Nodos de la lista: vertice de entrada, coordenadas y enlaces
+    private int[] vertex = new int[0];
+    private double[] x = new double[0];
+    private double[] y = new double[0];
+    private int[] prev = new int[0];
+    private int[] next = new int[0];
+    private int[] z = new int[0];
+    private int[] prevZ = new int[0];
+    private int[] nextZ = new int[0];
+    private boolean[] steiner = new boolean[0];
+    private int nodeCount;
+
+    private int[] triangles = new int[0];
+    private int indexCount;
+
+    private double minX;
+    private double minY;
+    private double invSize;
+
+    /**
+     * Triangula un contorno y sus hoyos.
+     *
+     * @param coords          todos los vertices seguidos: primero el contorno y
+     *                        despues cada hoyo, {@code coordsPerVertex} floats cada uno
+     *                        (se usan x, y)
+     * @param holeStarts      vertice donde empieza cada hoyo, o {@code null}
+     * @return indices de vertice, de tres en tres
+     */
+    public int[] triangulate(float[] coords, int[] holeStarts, int coordsPerVertex) {
+        int count = coords.length / coordsPerVertex;
+        int holes = holeStarts != null ? holeStarts.length : 0;
+        // Los puentes de los hoyos y los cortes duplican nodos
+        reset(count + holes * 2 + 16);
+
+        int outerEnd = holes > 0 ? holeStarts[0] : count;
+        int outer = linkedList(coords, coordsPerVertex, 0, outerEnd, true);
+        if (outer == NONE || next[outer] == prev[outer]) {
+            return new int[0];
+        }
+        if (holes > 0) {
+            outer = eliminateHoles(coords, coordsPerVertex, holeStarts, count, outer);
+        }
+
+        invSize = 0;
+        if (count > HASH_THRESHOLD) {
+            double maxX = minX = coords[0];
+            double maxY = minY = coords[1];
+            for (int i = 1; i < outerEnd; i++) {
+                double px = coords[i * coordsPerVertex];
+                double py = coords[i * coordsPerVertex + 1];
+                minX = Math.min(minX, px);
+                minY = Math.min(minY, py);
+                maxX = Math.max(maxX, px);
+                maxY = Math.max(maxY, py);
+            }
+            // Coordenadas de la curva Z en 0..32767
+            invSize = Math.max(maxX - minX, maxY - minY);
+            invSize = invSize != 0 ? 32767 / invSize : 0;
+        }
+
+        ensureTriangles(Math.max(3, (count + holes * 2) * 3));
+        earcutLinked(outer, 0);
+        return Arrays.copyOf(triangles, indexCount);
+    }
+
+    public int[] triangulate(float[] coords, int coordsPerVertex) {
+        return triangulate(coords, null, coordsPerVertex);
+    }
+
+    /**
+     * Los triangulos en el formato de {@code Triangles}: {x,y,0, x,y,0, ...}.
+     */
+    public static float[] toTriangleCoords(float[] coords, int coordsPerVertex, int[] indices) {
+        float[] out = new float[indices.length * 3];
+        for (int i = 0; i < indices.length; i++) {
+            out[i * 3] = coords[indices[i] * coordsPerVertex];
+            out[i * 3 + 1] = coords[indices[i] * coordsPerVertex + 1];
+        }
+        return out;
+    }
+
+    /**
+     * Malla indexada con solo (x, y) de cada vertice, lista para IndexedTriangles.
+     */
+    public static IndexedMesh toIndexedMesh(float[] coords, int coordsPerVertex, int[] indices) {
+        int count = coords.length / coordsPerVertex;
+        float[] xy = new float[count * 2];
+        for (int i = 0; i < count; i++) {
+            xy[i * 2] = coords[i * coordsPerVertex];
+            xy[i * 2 + 1] = coords[i * coordsPerVertex + 1];
+        }
+        return new IndexedMesh(xy, 2, indices);
+    }
+
+    /**
+     * Diferencia relativa entre el area del poligono y la suma de las areas
+     * de los triangulos; 0 si la triangulacion cubre exactamente el poligono.
+     */
+    public static double deviation(float[] coords, int[] holeStarts, int coordsPerVertex, int[] indices) {
+        int count = coords.length / coordsPerVertex;
+        int holes = holeStarts != null ? holeStarts.length : 0;
+        int outerEnd = holes > 0 ? holeStarts[0] : count;
+        double polygonArea = Math.abs(signedArea(coords, coordsPerVertex, 0, outerEnd));
+        for (int h = 0; h < holes; h++) {
+            int end = h + 1 < holes ? holeStarts[h + 1] : count;
+            polygonArea -= Math.abs(signedArea(coords, coordsPerVertex, holeStarts[h], end));
+        }
+        double trianglesArea = 0;
+        for (int i = 0; i < indices.length; i += 3) {
+            int a = indices[i] * coordsPerVertex;
+            int b = indices[i + 1] * coordsPerVertex;
+            int c = indices[i + 2] * coordsPerVertex;
+            trianglesArea += Math.abs(
+                    ((double) coords[a] - coords[c]) * ((double) coords[b + 1] - coords[a + 1])
+                            - ((double) coords[a] - coords[b]) * ((double) coords[c + 1] - coords[a + 1])) / 2;
+        }
+        if (polygonArea == 0 && trianglesArea == 0) {
+            return 0;
+        }
+        return Math.abs((trianglesArea - polygonArea) / polygonArea);
+    }
+
+    // Area con signo de un anillo (formula del trapecio); positiva en sentido horario con y hacia arriba
+    private static double signedArea(float[] coords, int cpv, int start, int end) {
+        double sum = 0;
+        for (int i = start, j = end - 1; i < end; j = i++) {
+            sum += ((double) coords[j * cpv] - coords[i * cpv]) * ((double) coords[i * cpv + 1] + coords[j * cpv + 1]);
+        }
+        return sum / 2;
+    }
+
+    // ==================== LISTA ====================
+
+    private void reset(int capacity) {
+        nodeCount = 0;
+        indexCount = 0;
+        if (vertex.length < capacity) {
+            grow(capacity);
+        }
+    }
+
+    private void grow(int capacity) {
+        vertex = Arrays.copyOf(vertex, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        next = Arrays.copyOf(next, capacity);
+        z = Arrays.copyOf(z, capacity);
+        prevZ = Arrays.copyOf(prevZ, capacity);
+        nextZ = Arrays.copyOf(nextZ, capacity);
+        steiner = Arrays.copyOf(steiner, capacity);
+    }
+
+    private int createNode(int v, double px, double py) {
+        if (nodeCount == vertex.length) {
+            grow(vertex.length * 2);
+        }
+        int n = nodeCount++;
+        vertex[n] = v;
+        x[n] = px;
+        y[n] = py;
+        prev[n] = NONE;
+        next[n] = NONE;
+        z[n] = NONE;
+        prevZ[n] = NONE;
+        nextZ[n] = NONE;
+        steiner[n] = false;
+        return n;
+    }
+
+    private int insertNode(int v, double px, double py, int last) {
+        int p = createNode(v, px, py);
+        if (last == NONE) {
+            prev[p] = p;
+            next[p] = p;
+        } else {
+            next[p] = next[last];
+            prev[p] = last;
+            prev[next[last]] = p;
+            next[last] = p;
+        }
+        return p;
+    }
+
+    private void removeNode(int p) {
+        prev[next[p]] = prev[p];
+        next[prev[p]] = next[p];
+        if (prevZ[p] != NONE) {
+            nextZ[prevZ[p]] = nextZ[p];
+        }
+        if (nextZ[p] != NONE) {
+            prevZ[nextZ[p]] = prevZ[p];
+        }
+    }
+
+    /**
+     * Anillo de vertices [start, end) como lista circular con la orientacion
+     * pedida; devuelve el ultimo nodo.
+     */
+    private int linkedList(float[] coords, int cpv, int start, int end, boolean clockwise) {
+        int last = NONE;
+        if (clockwise == (signedArea(coords, cpv, start, end) > 0)) {
+            for (int i = start; i < end; i++) {
+                last = insertNode(i, coords[i * cpv], coords[i * cpv + 1], last);
+            }
+        } else {
+            for (int i = end - 1; i >= start; i--) {
+                last = insertNode(i, coords[i * cpv], coords[i * cpv + 1], last);
+            }
+        }
+        if (last != NONE && equals(last, next[last])) {
+            removeNode(last);
+            last = next[last];
+        }
+        return last;
+    }
+
+    /**
+     * Quita vertices repetidos y colineales entre start y end.
+     */
+    private int filterPoints(int start, int end) {
+        if (start == NONE) {
+            return start;
+        }
+        if (end == NONE) {
+            end = start;
+        }
+        int p = start;
+        boolean again;
+        do {
+            again = false;
+            if (!steiner[p] && (equals(p, next[p]) || area(prev[p], p, next[p]) == 0)) {
+                removeNode(p);
+                p = end = prev[p];
+                if (p == next[p]) {
+                    break;
+                }
+                again = true;
+            } else {
+                p = next[p];
+            }
+        } while (again || p != end);
+        return end;
+    }
+
+    // ==================== OREJAS ====================
+
+    private void earcutLinked(int ear, int pass) {
+        if (ear == NONE) {
+            return;
+        }
+        if (pass == 0 && invSize != 0) {
+            indexCurve(ear);
+        }
+        int stop = ear;
+        while (prev[ear] != next[ear]) {
+            int p = prev[ear];
+            int n = next[ear];
+            if (invSize != 0 ? isEarHashed(ear) : isEar(ear)) {
+                addTriangle(vertex[p], vertex[ear], vertex[n]);
+                removeNode(ear);
+                // Saltar un vertice deja orejas menos delgadas
+                ear = next[n];
+                stop = next[n];
+                continue;
+            }
+            ear = n;
+            if (ear == stop) {
+                // Se dio la vuelta sin encontrar orejas
+                if (pass == 0) {
+                    earcutLinked(filterPoints(ear, NONE), 1);
+                } else if (pass == 1) {
+                    ear = cureLocalIntersections(filterPoints(ear, NONE));
+                    earcutLinked(ear, 2);
+                } else {
+                    splitEarcut(ear);
+                }
+                break;
+            }
+        }
+    }
+
+    private boolean isEar(int ear) {
+        int a = prev[ear];
+        int b = ear;
+        int c = next[ear];
+        if (area(a, b, c) >= 0) {
+            return false; // reflejo
+        }
+        for (int p = next[c]; p != a; p = next[p]) {
+            if (pointInTriangle(x[a], y[a], x[b], y[b], x[c], y[c], x[p], y[p])
+                    && area(prev[p], p, next[p]) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isEarHashed(int ear) {
+        int a = prev[ear];
+        int b = ear;
+        int c = next[ear];
+        if (area(a, b, c) >= 0) {
+            return false;
+        }
+        double minTX = Math.min(x[a], Math.min(x[b], x[c]));
+        double minTY = Math.min(y[a], Math.min(y[b], y[c]));
+        double maxTX = Math.max(x[a], Math.max(x[b], x[c]));
+        double maxTY = Math.max(y[a], Math.max(y[b], y[c]));
+        // Solo los nodos con z dentro de la caja del triangulo pueden estar adentro
+        int minZ = zOrder(minTX, minTY);
+        int maxZ = zOrder(maxTX, maxTY);
+
+        int p = prevZ[ear];
+        int n = nextZ[ear];
+        while (p != NONE && z[p] >= minZ && n != NONE && z[n] <= maxZ) {
+            if (blocksEar(p, a, b, c)) {
+                return false;
+            }
+            p = prevZ[p];
+            if (blocksEar(n, a, b, c)) {
+                return false;
+            }
+            n = nextZ[n];
+        }
+        while (p != NONE && z[p] >= minZ) {
+            if (blocksEar(p, a, b, c)) {
+                return false;
+            }
+            p = prevZ[p];
+        }
+        while (n != NONE && z[n] <= maxZ) {
+            if (blocksEar(n, a, b, c)) {
+                return false;
+            }
+            n = nextZ[n];
+        }
+        return true;
+    }
+
+    private boolean blocksEar(int p, int a, int b, int c) {
+        return p != a && p != c
+                && pointInTriangle(x[a], y[a], x[b], y[b], x[c], y[c], x[p], y[p])
+                && area(prev[p], p, next[p]) >= 0;
+    }
+
+    /**
+     * Recorta los pares de aristas que se cruzan junto a un vertice (a-p y
+     * p.next-b) como un triangulo.
+     */
+    private int cureLocalIntersections(int start) {
+        int p = start;
+        do {
+            int a = prev[p];
+            int b = next[next[p]];
+            if (!equals(a, b) && intersects(a, p, next[p], b) && locallyInside(a, b) && locallyInside(b, a)) {
+                addTriangle(vertex[a], vertex[p], vertex[b]);
+                removeNode(p);
+                removeNode(next[p]);
+                p = start = b;
+            }
+            p = next[p];
+        } while (p != start);
+        return filterPoints(p, NONE);
+    }
+
+    // Parte el poligono en dos por una diagonal valida y triangula cada mitad
+    private void splitEarcut(int start) {
+        int a = start;
+        do {
+            int b = next[next[a]];
+            while (b != prev[a]) {
+                if (vertex[a] != vertex[b] && isValidDiagonal(a, b)) {
+                    int c = splitPolygon(a, b);
+                    a = filterPoints(a, next[a]);
+                    c = filterPoints(c, next[c]);
+                    earcutLinked(a, 0);
+                    earcutLinked(c, 0);
+                    return;
+                }
+                b = next[b];
+            }
+            a = next[a];
+        } while (a != start);
+    }
+
+    // ==================== HOYOS ====================
+
+    private int eliminateHoles(float[] coords, int cpv, int[] holeStarts, int count, int outer) {
+        int holes = holeStarts.length;
+        int[] queue = new int[holes];
+        int queued = 0;
+        for (int h = 0; h < holes; h++) {
+            int end = h + 1 < holes ? holeStarts[h + 1] : count;
+            int list = linkedList(coords, cpv, holeStarts[h], end, false);
+            if (list == NONE) {
+                continue;
+            }
+            if (list == next[list]) {
+                steiner[list] = true;
+            }
+            queue[queued++] = getLeftmost(list);
+        }
+        // De izquierda a derecha: cada puente ve el contorno ya unido a los anteriores
+        sortByX(queue, new int[queued], 0, queued);
+        for (int i = 0; i < queued; i++) {
+            outer = eliminateHole(queue[i], outer);
+        }
+        return outer;
+    }
+
+    // Merge sort de nodos por x, estable y sin cajas
+    private void sortByX(int[] nodes, int[] tmp, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        sortByX(nodes, tmp, from, mid);
+        sortByX(nodes, tmp, mid, to);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && x[nodes[i]] <= x[nodes[j]])) {
+                tmp[k] = nodes[i++];
+            } else {
+                tmp[k] = nodes[j++];
+            }
+        }
+        System.arraycopy(tmp, from, nodes, from, to - from);
+    }
+
+    private int eliminateHole(int hole, int outer) {
+        int bridge = findHoleBridge(hole, outer);
+        if (bridge == NONE) {
+            return outer;
+        }
+        int bridgeReverse = splitPolygon(bridge, hole);
+        filterPoints(bridgeReverse, next[bridgeReverse]);
+        return filterPoints(bridge, next[bridge]);
+    }
+
+    /**
+     * Vertice del contorno que se une con el vertice mas a la izquierda del
+     * hoyo: el primero que se ve con un rayo hacia la izquierda, o el de
+     * menor angulo dentro del triangulo que forma con ese punto.
+     */
+    private int findHoleBridge(int hole, int outer) {
+        int p = outer;
+        double hx = x[hole];
+        double hy = y[hole];
+        double qx = Double.NEGATIVE_INFINITY;
+        int m = NONE;
+        do {
+            int n = next[p];
+            if (hy <= y[p] && hy >= y[n] && y[n] != y[p]) {
+                double ix = x[p] + (hy - y[p]) * (x[n] - x[p]) / (y[n] - y[p]);
+                if (ix <= hx && ix > qx) {
+                    qx = ix;
+                    m = x[p] < x[n] ? p : n;
+                    if (ix == hx) {
+                        return m;
+                    }
+                }
+            }
+            p = n;
+        } while (p != outer);
+        if (m == NONE) {
+            return NONE;
+        }
+
+        int stop = m;
+        double mx = x[m];
+        double my = y[m];
+        double tanMin = Double.POSITIVE_INFINITY;
+        p = m;
+        do {
+            if (hx >= x[p] && x[p] >= mx && hx != x[p]
+                    && pointInTriangle(hy < my ? hx : qx, hy, mx, my, hy < my ? qx : hx, hy, x[p], y[p])) {
+                double tan = Math.abs(hy - y[p]) / (hx - x[p]);
+                if (locallyInside(p, hole)
+                        && (tan < tanMin || (tan == tanMin
+                        && (x[p] > x[m] || (x[p] == x[m] && sectorContainsSector(m, p)))))) {
+                    m = p;
+                    tanMin = tan;
+                }
+            }
+            p = next[p];
+        } while (p != stop);
+        return m;
+    }
+
+    private boolean sectorContainsSector(int m, int p) {
+        return area(prev[m], m, prev[p]) < 0 && area(next[p], m, next[m]) < 0;
+    }
+
+    private int getLeftmost(int start) {
+        int p = start;
+        int leftmost = start;
+        do {
+            if (x[p] < x[leftmost] || (x[p] == x[leftmost] && y[p] < y[leftmost])) {
+                leftmost = p;
+            }
+            p = next[p];
+        } while (p != start);
+        return leftmost;
+    }
+
+    // ==================== CURVA Z ====================
+
+    private void indexCurve(int start) {
+        int p = start;
+        do {
+            if (z[p] == NONE) {
+                z[p] = zOrder(x[p], y[p]);
+            }
+            prevZ[p] = prev[p];
+            nextZ[p] = next[p];
+            p = next[p];
+        } while (p != start);
+        nextZ[prevZ[p]] = NONE;
+        prevZ[p] = NONE;
+        sortLinked(p);
+    }
+
+    // Merge sort de la lista Z (sin memoria extra)
+    private void sortLinked(int list) {
+        int inSize = 1;
+        int numMerges;
+        do {
+            int p = list;
+            list = NONE;
+            int tail = NONE;
+            numMerges = 0;
+            while (p != NONE) {
+                numMerges++;
+                int q = p;
+                int pSize = 0;
+                for (int i = 0; i < inSize; i++) {
+                    pSize++;
+                    q = nextZ[q];
+                    if (q == NONE) {
+                        break;
+                    }
+                }
+                int qSize = inSize;
+                while (pSize > 0 || (qSize > 0 && q != NONE)) {
+                    int e;
+                    if (pSize != 0 && (qSize == 0 || q == NONE || z[p] <= z[q])) {
+                        e = p;
+                        p = nextZ[p];
+                        pSize--;
+                    } else {
+                        e = q;
+                        q = nextZ[q];
+                        qSize--;
+                    }
+                    if (tail != NONE) {
+                        nextZ[tail] = e;
+                    } else {
+                        list = e;
+                    }
+                    prevZ[e] = tail;
+                    tail = e;
+                }
+                p = q;
+            }
+            nextZ[tail] = NONE;
+            inSize *= 2;
+        } while (numMerges > 1);
+    }
+
+    // Intercala los bits de x e y (15 bits cada uno)
+    private int zOrder(double px, double py) {
+        int zx = (int) ((px - minX) * invSize);
+        int zy = (int) ((py - minY) * invSize);
+        zx = (zx | (zx << 8)) & 0x00FF00FF;
+        zx = (zx | (zx << 4)) & 0x0F0F0F0F;
+        zx = (zx | (zx << 2)) & 0x33333333;
+        zx = (zx | (zx << 1)) & 0x55555555;
+        zy = (zy | (zy << 8)) & 0x00FF00FF;
+        zy = (zy | (zy << 4)) & 0x0F0F0F0F;
+        zy = (zy | (zy << 2)) & 0x33333333;
+        zy = (zy | (zy << 1)) & 0x55555555;
+        return zx | (zy << 1);
+    }
+
+    // ==================== GEOMETRIA ====================
+
+    private static boolean pointInTriangle(double ax, double ay, double bx, double by,
+                                           double cx, double cy, double px, double py) {
+        return (cx - px) * (ay - py) >= (ax - px) * (cy - py)
+                && (ax - px) * (by - py) >= (bx - px) * (ay - py)
+                && (bx - px) * (cy - py) >= (cx - px) * (by - py);
+    }
+
+    private boolean isValidDiagonal(int a, int b) {
+        return vertex[next[a]] != vertex[b] && vertex[prev[a]] != vertex[b] && !intersectsPolygon(a, b)
+                && ((locallyInside(a, b) && locallyInside(b, a) && middleInside(a, b)
+                && (area(prev[a], a, prev[b]) != 0 || area(a, prev[b], b) != 0))
+                || (equals(a, b) && area(prev[a], a, next[a]) > 0 && area(prev[b], b, next[b]) > 0));
+    }
+
+    // Area con signo del triangulo pqr; negativa si gira a la izquierda
+    private double area(int p, int q, int r) {
+        return (y[q] - y[p]) * (x[r] - x[q]) - (x[q] - x[p]) * (y[r] - y[q]);
+    }
+
+    private boolean equals(int p, int q) {
+        return x[p] == x[q] && y[p] == y[q];
+    }
+
+    private boolean intersects(int p1, int q1, int p2, int q2) {
+        int o1 = sign(area(p1, q1, p2));
+        int o2 = sign(area(p1, q1, q2));
+        int o3 = sign(area(p2, q2, p1));
+        int o4 = sign(area(p2, q2, q1));
+        if (o1 != o2 && o3 != o4) {
+            return true;
+        }
+        return (o1 == 0 && onSegment(p1, p2, q1))
+                || (o2 == 0 && onSegment(p1, q2, q1))
+                || (o3 == 0 && onSegment(p2, p1, q2))
+                || (o4 == 0 && onSegment(p2, q1, q2));
+    }
+
+    // q sobre el segmento pr, sabiendo que los tres son colineales
+    private boolean onSegment(int p, int q, int r) {
+        return x[q] <= Math.max(x[p], x[r]) && x[q] >= Math.min(x[p], x[r])
+                && y[q] <= Math.max(y[p], y[r]) && y[q] >= Math.min(y[p], y[r]);
+    }
+
+    private static int sign(double v) {
+        return v > 0 ? 1 : v < 0 ? -1 : 0;
+    }
+
+    private boolean intersectsPolygon(int a, int b) {
+        int p = a;
+        do {
+            int n = next[p];
+            if (vertex[p] != vertex[a] && vertex[n] != vertex[a] && vertex[p] != vertex[b] && vertex[n] != vertex[b]
+                    && intersects(p, n, a, b)) {
+                return true;
+            }
+            p = n;
+        } while (p != a);
+        return false;
+    }
+
+    private boolean locallyInside(int a, int b) {
+        return area(prev[a], a, next[a]) < 0
+                ? area(a, b, next[a]) >= 0 && area(a, prev[a], b) >= 0
+                : area(a, b, prev[a]) < 0 || area(a, next[a], b) < 0;
+    }
+
+    // El punto medio de ab esta dentro del poligono (regla par-impar)
+    private boolean middleInside(int a, int b) {
+        int p = a;
+        boolean inside = false;
+        double px = (x[a] + x[b]) / 2;
+        double py = (y[a] + y[b]) / 2;
+        do {
+            int n = next[p];
+            if (((y[p] > py) != (y[n] > py)) && y[n] != y[p]
+                    && (px < (x[n] - x[p]) * (py - y[p]) / (y[n] - y[p]) + x[p])) {
+                inside = !inside;
+            }
+            p = n;
+        } while (p != a);
+        return inside;
+    }
+
+    /**
+     * Une a y b con una diagonal: el anillo se parte en dos. Devuelve la
+     * copia de b, que queda en el segundo anillo.
+     */
+    private int splitPolygon(int a, int b) {
+        int a2 = createNode(vertex[a], x[a], y[a]);
+        int b2 = createNode(vertex[b], x[b], y[b]);
+        int an = next[a];
+        int bp = prev[b];
+
+        next[a] = b;
+        prev[b] = a;
+
+        next[a2] = an;
+        prev[an] = a2;
+
+        next[b2] = a2;
+        prev[a2] = b2;
+
+        next[bp] = b2;
+        prev[b2] = bp;
+        return b2;
+    }
+
+    // ==================== SALIDA ====================
+
+    private void ensureTriangles(int capacity) {
+        if (triangles.length < capacity) {
+            triangles = new int[capacity];
+        }
+    }
+
+    private void addTriangle(int a, int b, int c) {
+        if (indexCount + 3 > triangles.length) {
+            triangles = Arrays.copyOf(triangles, triangles.length * 2);
+        }
+        triangles[indexCount++] = a;
+        triangles[indexCount++] = b;
+        triangles[indexCount++] = c;
+    }
+}
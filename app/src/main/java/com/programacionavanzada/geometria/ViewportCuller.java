@@ -0,0 +1,60 @@
+package com.programacionavanzada.geometria;
+
+/**
+ * Descarta las cajas que quedan fuera de la vista antes de hacer cualquier
+ * trabajo de GL. La vista esta en las mismas coordenadas que las cajas; por
+ * defecto es la pantalla completa en NDC (-1..1).
+ */
+public final class ViewportCuller {
+
+    private float minX = -1f;
+    private float minY = -1f;
+    private float maxX = 1f;
+    private float maxY = 1f;
+
+    public void setViewport(float minX, float minY, float maxX, float maxY) {
+        if (minX > maxX || minY > maxY) {
+            throw new IllegalArgumentException("Vista invalida: " + minX + "," + minY + " - " + maxX + "," + maxY);
+        }
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    public boolean isVisible(float[] boxes, int i) {
+        return Aabb.intersects(boxes, i, minX, minY, maxX, maxY);
+    }
+
+    /**
+     * Escribe en {@code visible} los indices de las cajas [0, count) que tocan
+     * la vista, en orden.
+     *
+     * @return cuantas cajas son visibles
+     */
+    public int cull(float[] boxes, int count, int[] visible) {
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (Aabb.intersects(boxes, i, minX, minY, maxX, maxY)) {
+                visible[n++] = i;
+            }
+        }
+        return n;
+    }
+
+    public float getMinX() {
+        return minX;
+    }
+
+    public float getMinY() {
+        return minY;
+    }
+
+    public float getMaxX() {
+        return maxX;
+    }
+
+    public float getMaxY() {
+        return maxY;
+    }
+}
@@ -0,0 +1,112 @@
+package com.programacionavanzada.gl;
+
+import java.nio.Buffer;
+
+/**
+ * Decorador que cuenta en {@link GlCounters} lo que cuesta cada cuadro:
+ * llamadas de dibujo, vertices enviados, cambios de programa y subidas
+ * de buffers. No cambia ninguna llamada, solo la cuenta.
+ */
+public final class CountingGL extends ForwardingGL {
+
+    private int currentProgram;
+    private boolean paused;
+
+    public CountingGL(GLApi gl) {
+        super(gl);
+    }
+
+    /**
+     * Mientras esta en pausa no cuenta nada; sirve para que el overlay de
+     * estadisticas no se mida a si mismo.
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    @Override
+    public void glUseProgram(int program) {
+        if (program != currentProgram) {
+            currentProgram = program;
+            if (!paused) {
+                GlCounters.countProgramSwitch();
+            }
+        }
+        gl.glUseProgram(program);
+    }
+
+    @Override
+    public void glDeleteProgram(int program) {
+        if (program == currentProgram) {
+            currentProgram = 0;
+        }
+        gl.glDeleteProgram(program);
+    }
+
+    @Override
+    public void glBufferData(int target, int size, Buffer data, int usage) {
+        if (!paused) {
+            GlCounters.countUpload(size);
+        }
+        gl.glBufferData(target, size, data, usage);
+    }
+
+    @Override
+    public void glBufferSubData(int target, int offset, int size, Buffer data) {
+        if (!paused) {
+            GlCounters.countUpload(size);
+        }
+        gl.glBufferSubData(target, offset, size, data);
+    }
+
+    // Las texturas se suben en RGBA de 8 bits: 4 bytes por pixel
+    @Override
+    public void glTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                             int format, int type, Buffer pixels) {
+        if (!paused && pixels != null) {
+            GlCounters.countUpload(width * height * 4);
+        }
+        gl.glTexImage2D(target, level, internalformat, width, height, border, format, type, pixels);
+    }
+
+    @Override
+    public void glTexSubImage2D(int target, int level, int xoffset, int yoffset, int width, int height,
+                                int format, int type, Buffer pixels) {
+        if (!paused) {
+            GlCounters.countUpload(width * height * 4);
+        }
+        gl.glTexSubImage2D(target, level, xoffset, yoffset, width, height, format, type, pixels);
+    }
+
+    @Override
+    public void glDrawArrays(int mode, int first, int count) {
+        if (!paused) {
+            GlCounters.countDraw(count);
+        }
+        gl.glDrawArrays(mode, first, count);
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, Buffer indices) {
+        if (!paused) {
+            GlCounters.countDraw(count);
+        }
+        gl.glDrawElements(mode, count, type, indices);
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, int offset) {
+        if (!paused) {
+            GlCounters.countDraw(count);
+        }
+        gl.glDrawElements(mode, count, type, offset);
+    }
+
+    @Override
+    public void glDrawArraysInstanced(int mode, int first, int count, int instanceCount) {
+        if (!paused) {
+            GlCounters.countDraw((long) count * instanceCount);
+        }
+        gl.glDrawArraysInstanced(mode, first, count, instanceCount);
+    }
+}
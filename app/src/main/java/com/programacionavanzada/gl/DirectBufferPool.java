@@ -0,0 +1,245 @@
+package com.programacionavanzada.gl;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Pool de buffers directos en orden nativo, por clases de tamano (potencias
+ * de 2 desde {@link #MIN_BYTES}). Crear un buffer directo es lento y su
+ * memoria nativa solo se libera cuando el GC recoge el objeto de Java; con
+ * el pool las figuras que se crean y se tiran reutilizan los mismos bloques.
+ *
+ * <p>Cada pool pertenece a un hilo (normalmente el hilo GL) y no usa locks:
+ * usarlo desde otro hilo lanza IllegalStateException. {@link DirectBuffers#pool()}
+ * da el pool del hilo actual.</p>
+ *
+ * <p>Con la deteccion de fugas activa ({@link #setLeakDetection}) se recuerda
+ * donde se pidio cada buffer; si el GC recoge uno que no se devolvio, se
+ * avisa al {@link LeakListener} con esa pila.</p>
+ */
+public final class DirectBufferPool {
+
+    /**
+     * Recibe cada buffer que se perdio sin llamar a release().
+     */
+    public interface LeakListener {
+        void onLeak(int sizeBytes, Throwable acquiredAt);
+    }
+
+    public static final int MIN_BYTES = 64;
+    // Los bloques mas grandes no se guardan: se crean y se sueltan directo
+    public static final int MAX_POOLED_BYTES = 1 << 24;
+    public static final long DEFAULT_MAX_RETAINED_BYTES = 8L << 20;
+
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_BYTES);
+    private static final int CLASSES = Integer.numberOfTrailingZeros(MAX_POOLED_BYTES) - MIN_SHIFT + 1;
+
+    private final Thread owner;
+    private final long maxRetainedBytes;
+
+    // Bloques libres por clase, usados como pila
+    private final PooledBuffer[][] free = new PooledBuffer[CLASSES][];
+    private final int[] freeCount = new int[CLASSES];
+
+    private long bytesInUse;
+    private long bytesRetained;
+    private long hits;
+    private long misses;
+
+    private boolean leakDetection;
+    private LeakListener leakListener;
+    private final ReferenceQueue<PooledBuffer> leakQueue = new ReferenceQueue<>();
+    private final Set<LeakRef> tracked = new HashSet<>();
+    private long leaks;
+
+    public DirectBufferPool() {
+        this(DEFAULT_MAX_RETAINED_BYTES);
+    }
+
+    /**
+     * @param maxRetainedBytes cuanta memoria libre puede guardar el pool como mucho
+     */
+    public DirectBufferPool(long maxRetainedBytes) {
+        this.owner = Thread.currentThread();
+        this.maxRetainedBytes = maxRetainedBytes;
+    }
+
+    /**
+     * Presta un buffer de al menos {@code sizeBytes} bytes. Su contenido es
+     * el que dejo el uso anterior, no ceros.
+     */
+    public PooledBuffer acquire(int sizeBytes) {
+        checkThread();
+        if (sizeBytes < 0) {
+            throw new IllegalArgumentException("sizeBytes negativo: " + sizeBytes);
+        }
+        if (leakDetection) {
+            pollLeaks();
+        }
+        int sizeClass = sizeClass(sizeBytes);
+        PooledBuffer buffer;
+        if (sizeClass >= 0 && freeCount[sizeClass] > 0) {
+            buffer = free[sizeClass][--freeCount[sizeClass]];
+            free[sizeClass][freeCount[sizeClass]] = null;
+            bytesRetained -= buffer.capacityBytes();
+            hits++;
+        } else {
+            int capacity = sizeClass >= 0 ? MIN_BYTES << sizeClass : sizeBytes;
+            buffer = new PooledBuffer(this, DirectBuffers.allocate(capacity), sizeClass);
+            misses++;
+        }
+        buffer.inUse = true;
+        buffer.sizeBytes = sizeBytes;
+        bytesInUse += buffer.capacityBytes();
+        if (leakDetection) {
+            LeakRef ref = new LeakRef(buffer, leakQueue, new Throwable("Buffer pedido aqui"));
+            buffer.leakRef = ref;
+            tracked.add(ref);
+        }
+        return buffer;
+    }
+
+    /**
+     * Devuelve el buffer al pool. Devolverlo dos veces lanza IllegalStateException.
+     */
+    public void release(PooledBuffer buffer) {
+        checkThread();
+        if (buffer.pool != this) {
+            throw new IllegalArgumentException("El buffer es de otro pool");
+        }
+        if (!buffer.inUse) {
+            throw new IllegalStateException("El buffer ya se habia devuelto");
+        }
+        buffer.inUse = false;
+        bytesInUse -= buffer.capacityBytes();
+        if (buffer.leakRef != null) {
+            LeakRef ref = (LeakRef) buffer.leakRef;
+            ref.clear();
+            tracked.remove(ref);
+            buffer.leakRef = null;
+        }
+        int sizeClass = buffer.sizeClass;
+        if (sizeClass < 0 || bytesRetained + buffer.capacityBytes() > maxRetainedBytes) {
+            // No se guarda: el GC libera la memoria nativa
+            return;
+        }
+        PooledBuffer[] stack = free[sizeClass];
+        if (stack == null) {
+            stack = free[sizeClass] = new PooledBuffer[4];
+        } else if (freeCount[sizeClass] == stack.length) {
+            stack = free[sizeClass] = Arrays.copyOf(stack, stack.length * 2);
+        }
+        stack[freeCount[sizeClass]++] = buffer;
+        bytesRetained += buffer.capacityBytes();
+    }
+
+    /**
+     * Suelta todos los bloques libres (por ejemplo en onTrimMemory).
+     */
+    public void trim() {
+        checkThread();
+        for (int c = 0; c < CLASSES; c++) {
+            if (free[c] != null) {
+                Arrays.fill(free[c], 0, freeCount[c], null);
+            }
+            freeCount[c] = 0;
+        }
+        bytesRetained = 0;
+    }
+
+    public void setLeakDetection(boolean enabled, LeakListener listener) {
+        checkThread();
+        leakDetection = enabled;
+        leakListener = listener;
+    }
+
+    /**
+     * Revisa si el GC ya recogio buffers que nunca se devolvieron.
+     *
+     * @return cuantas fugas nuevas encontro
+     */
+    public int pollLeaks() {
+        int found = 0;
+        LeakRef ref;
+        while ((ref = (LeakRef) leakQueue.poll()) != null) {
+            if (tracked.remove(ref)) {
+                found++;
+                leaks++;
+                // La memoria del bloque perdido ya no cuenta como en uso
+                bytesInUse -= ref.capacityBytes;
+                if (leakListener != null) {
+                    leakListener.onLeak(ref.sizeBytes, ref.acquiredAt);
+                }
+            }
+        }
+        return found;
+    }
+
+    // ==================== ESTADISTICAS ====================
+
+    // Bytes (por clase de tamano) prestados y sin devolver
+    public long getBytesInUse() {
+        return bytesInUse;
+    }
+
+    // Bytes libres guardados para reutilizar
+    public long getBytesRetained() {
+        return bytesRetained;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Fraccion de acquire() que se resolvieron sin crear memoria nueva.
+     */
+    public float getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0f : (float) hits / total;
+    }
+
+    public long getLeakCount() {
+        return leaks;
+    }
+
+    /**
+     * Clase de tamano para {@code sizeBytes}, o -1 si es mayor que
+     * {@link #MAX_POOLED_BYTES}.
+     */
+    static int sizeClass(int sizeBytes) {
+        if (sizeBytes > MAX_POOLED_BYTES) {
+            return -1;
+        }
+        if (sizeBytes <= MIN_BYTES) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(sizeBytes - 1) - MIN_SHIFT;
+    }
+
+    private void checkThread() {
+        if (Thread.currentThread() != owner) {
+            throw new IllegalStateException("DirectBufferPool usado fuera de su hilo: " + Thread.currentThread().getName());
+        }
+    }
+
+    private static final class LeakRef extends WeakReference<PooledBuffer> {
+        final int sizeBytes;
+        final int capacityBytes;
+        final Throwable acquiredAt;
+
+        LeakRef(PooledBuffer buffer, ReferenceQueue<PooledBuffer> queue, Throwable acquiredAt) {
+            super(buffer, queue);
+            this.sizeBytes = buffer.sizeBytes;
+            this.capacityBytes = buffer.capacityBytes();
+            this.acquiredAt = acquiredAt;
+        }
+    }
+}
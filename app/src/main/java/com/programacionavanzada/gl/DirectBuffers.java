@@ -0,0 +1,50 @@
+package com.programacionavanzada.gl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Punto unico para crear buffers directos en el orden nativo, que es lo
+ * que esperan las funciones glVertexAttribPointer/glBufferData.
+ * Los bytes pedidos se cuentan en {@link GlCounters#directBytesLastFrame()}.
+ *
+ * <p>Para memoria que se crea y se suelta seguido conviene pedirla a
+ * {@link #pool()} en vez de a {@link #allocate(int)}.</p>
+ */
+public final class DirectBuffers {
+
+    // Un pool por hilo: asi ninguno necesita locks
+    private static final ThreadLocal<DirectBufferPool> POOLS = new ThreadLocal<DirectBufferPool>() {
+        @Override
+        protected DirectBufferPool initialValue() {
+            return new DirectBufferPool();
+        }
+    };
+
+    private DirectBuffers() {
+    }
+
+    public static ByteBuffer allocate(int sizeBytes) {
+        GlCounters.countDirectAllocation(sizeBytes);
+        return ByteBuffer.allocateDirect(sizeBytes).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Copia {@code data} a un buffer directo listo para leer. Se puede llamar
+     * desde cualquier hilo; lo usan los hilos de trabajo de GeometryLoader.
+     */
+    public static FloatBuffer pack(float[] data) {
+        FloatBuffer buffer = allocate(data.length * 4).asFloatBuffer();
+        buffer.put(data);
+        buffer.position(0);
+        return buffer;
+    }
+
+    /**
+     * Pool del hilo actual; las figuras usan el del hilo GL.
+     */
+    public static DirectBufferPool pool() {
+        return POOLS.get();
+    }
+}
@@ -0,0 +1,131 @@
+package com.programacionavanzada.gl;
+
+import java.nio.Buffer;
+
+/**
+ * Subconjunto de OpenGL ES 2.0 que usan las clases de este paquete.
+ * Existe para poder reemplazar GLES20 por una implementacion falsa
+ * en las pruebas unitarias que corren en la JVM.
+ */
+public interface GLApi {
+
+    int glCreateShader(int type);
+
+    void glShaderSource(int shader, String source);
+
+    void glCompileShader(int shader);
+
+    void glGetShaderiv(int shader, int pname, int[] params, int offset);
+
+    String glGetShaderInfoLog(int shader);
+
+    void glDeleteShader(int shader);
+
+    int glCreateProgram();
+
+    void glAttachShader(int program, int shader);
+
+    void glDetachShader(int program, int shader);
+
+    void glLinkProgram(int program);
+
+    void glGetProgramiv(int program, int pname, int[] params, int offset);
+
+    String glGetProgramInfoLog(int program);
+
+    void glDeleteProgram(int program);
+
+    int glGetAttribLocation(int program, String name);
+
+    int glGetUniformLocation(int program, String name);
+
+    void glGenBuffers(int n, int[] buffers, int offset);
+
+    void glDeleteBuffers(int n, int[] buffers, int offset);
+
+    void glBindBuffer(int target, int buffer);
+
+    void glBufferData(int target, int size, Buffer data, int usage);
+
+    void glBufferSubData(int target, int offset, int size, Buffer data);
+
+    // Texturas
+
+    void glGenTextures(int n, int[] textures, int offset);
+
+    void glDeleteTextures(int n, int[] textures, int offset);
+
+    void glActiveTexture(int texture);
+
+    void glBindTexture(int target, int texture);
+
+    void glTexParameteri(int target, int pname, int param);
+
+    void glTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                      int format, int type, Buffer pixels);
+
+    void glTexSubImage2D(int target, int level, int xoffset, int yoffset, int width, int height,
+                         int format, int type, Buffer pixels);
+
+    void glGenerateMipmap(int target);
+
+    // Framebuffers (render to texture)
+
+    void glGenFramebuffers(int n, int[] framebuffers, int offset);
+
+    void glDeleteFramebuffers(int n, int[] framebuffers, int offset);
+
+    void glBindFramebuffer(int target, int framebuffer);
+
+    void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level);
+
+    int glCheckFramebufferStatus(int target);
+
+    void glClearColor(float red, float green, float blue, float alpha);
+
+    void glClear(int mask);
+
+    // Dibujo
+
+    void glUseProgram(int program);
+
+    void glEnableVertexAttribArray(int index);
+
+    void glDisableVertexAttribArray(int index);
+
+    void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, Buffer data);
+
+    void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, int offset);
+
+    void glUniform4fv(int location, int count, float[] value, int offset);
+
+    void glUniform1i(int location, int x);
+
+    void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset);
+
+    void glDrawArrays(int mode, int first, int count);
+
+    void glDrawElements(int mode, int count, int type, Buffer indices);
+
+    void glDrawElements(int mode, int count, int type, int offset);
+
+    void glLineWidth(float width);
+
+    // Estado fijo del pipeline
+
+    void glEnable(int cap);
+
+    void glDisable(int cap);
+
+    void glBlendFunc(int sfactor, int dfactor);
+
+    void glBlendFuncSeparate(int srcRGB, int dstRGB, int srcAlpha, int dstAlpha);
+
+    void glViewport(int x, int y, int width, int height);
+
+    // Solo GLES 3.0 (ver GlCapabilities.isEs3)
+
+    void glDrawArraysInstanced(int mode, int first, int count, int instanceCount);
+
+    void glVertexAttribDivisor(int index, int divisor);
+}
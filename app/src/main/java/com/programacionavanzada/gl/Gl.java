@@ -0,0 +1,21 @@
+package com.programacionavanzada.gl;
+
+/**
+ * GLApi que usan las primitivas para dibujar. Por defecto llama directo a
+ * GLES20; la instrumentacion lo reemplaza por un {@link CountingGL}.
+ */
+public final class Gl {
+
+    private static GLApi api = AndroidGL.INSTANCE;
+
+    private Gl() {
+    }
+
+    public static GLApi api() {
+        return api;
+    }
+
+    public static void setApi(GLApi gl) {
+        api = gl;
+    }
+}
@@ -0,0 +1,46 @@
+package com.programacionavanzada.gl;
+
+import android.opengl.GLES20;
+
+/**
+ * Lo que soporta el contexto GL actual. Se lee una vez en onSurfaceCreated
+ * con {@link #onContextCreated()}.
+ */
+public final class GlCapabilities {
+
+    private static int majorVersion = 2;
+    private static String extensions = "";
+
+    private GlCapabilities() {
+    }
+
+    public static void onContextCreated() {
+        majorVersion = parseMajorVersion(GLES20.glGetString(GLES20.GL_VERSION));
+        String ext = GLES20.glGetString(GLES20.GL_EXTENSIONS);
+        extensions = ext != null ? " " + ext + " " : "";
+    }
+
+    /**
+     * GLES 3.0 o mayor: instancing, divisores de atributos y queries.
+     */
+    public static boolean isEs3() {
+        return majorVersion >= 3;
+    }
+
+    public static boolean hasExtension(String name) {
+        return extensions.contains(" " + name + " ");
+    }
+
+    /**
+     * Version mayor a partir de GL_VERSION, que tiene la forma
+     * "OpenGL ES 3.2 ..." segun la especificacion.
+     */
+    static int parseMajorVersion(String version) {
+        String prefix = "OpenGL ES ";
+        if (version == null || !version.startsWith(prefix) || version.length() <= prefix.length()) {
+            return 2;
+        }
+        char major = version.charAt(prefix.length());
+        return Character.isDigit(major) ? major - '0' : 2;
+    }
+}
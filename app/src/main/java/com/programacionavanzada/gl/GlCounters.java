@@ -0,0 +1,179 @@
+package com.programacionavanzada.gl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores por cuadro de llamadas GL que nos interesa vigilar.
+ * El renderer llama a {@link #endFrame()} al terminar cada onDrawFrame.
+ *
+ * <p>Las llamadas de dibujo, cambios de programa y subidas solo se cuentan
+ * cuando {@link Gl#api()} es un {@link CountingGL}.</p>
+ */
+public final class GlCounters {
+
+    // Consultas glGetAttribLocation/glGetUniformLocation que llegaron al driver
+    private static int locationLookups;
+    private static int lastFrameLocationLookups;
+
+    private static int drawCalls;
+    private static int programSwitches;
+    private static int bufferUploads;
+    private static long uploadBytes;
+    private static long vertices;
+    private static int stateCallsIssued;
+    private static int stateCallsElided;
+
+    private static int lastFrameDrawCalls;
+    private static int lastFrameProgramSwitches;
+    private static int lastFrameBufferUploads;
+    private static long lastFrameUploadBytes;
+    private static long lastFrameVertices;
+    private static int lastFrameStateCallsIssued;
+    private static int lastFrameStateCallsElided;
+    private static long lastFrameDirectBytes;
+
+    // Capas de LayerCache: pegadas desde su textura (hit) o dibujadas otra vez (miss)
+    private static int layerHits;
+    private static int layerMisses;
+    private static int lastFrameLayerHits;
+    private static int lastFrameLayerMisses;
+    private static long layerBytes;
+
+    // Los buffers directos se pueden crear fuera del hilo GL
+    private static final AtomicLong directBytes = new AtomicLong();
+
+    private GlCounters() {
+    }
+
+    static void countLocationLookup() {
+        locationLookups++;
+    }
+
+    static void countDraw(long vertexCount) {
+        drawCalls++;
+        vertices += vertexCount;
+    }
+
+    static void countProgramSwitch() {
+        programSwitches++;
+    }
+
+    static void countUpload(int sizeBytes) {
+        bufferUploads++;
+        uploadBytes += sizeBytes;
+    }
+
+    // Cambios de estado que pasaron por GlStateTracker
+    static void countStateCall(boolean elided) {
+        if (elided) {
+            stateCallsElided++;
+        } else {
+            stateCallsIssued++;
+        }
+    }
+
+    static void countDirectAllocation(int sizeBytes) {
+        directBytes.addAndGet(sizeBytes);
+    }
+
+    // Publicos porque LayerCache vive en el paquete render y no llama a GL
+    public static void countLayer(boolean hit) {
+        if (hit) {
+            layerHits++;
+        } else {
+            layerMisses++;
+        }
+    }
+
+    public static void setLayerBytes(long bytes) {
+        layerBytes = bytes;
+    }
+
+    /**
+     * Cierra el cuadro actual: guarda sus valores y reinicia los contadores.
+     */
+    public static void endFrame() {
+        lastFrameLocationLookups = locationLookups;
+        lastFrameDrawCalls = drawCalls;
+        lastFrameProgramSwitches = programSwitches;
+        lastFrameBufferUploads = bufferUploads;
+        lastFrameUploadBytes = uploadBytes;
+        lastFrameVertices = vertices;
+        lastFrameStateCallsIssued = stateCallsIssued;
+        lastFrameStateCallsElided = stateCallsElided;
+        lastFrameDirectBytes = directBytes.getAndSet(0);
+        lastFrameLayerHits = layerHits;
+        lastFrameLayerMisses = layerMisses;
+        locationLookups = 0;
+        drawCalls = 0;
+        programSwitches = 0;
+        bufferUploads = 0;
+        uploadBytes = 0;
+        vertices = 0;
+        stateCallsIssued = 0;
+        stateCallsElided = 0;
+        layerHits = 0;
+        layerMisses = 0;
+    }
+
+    /**
+     * Consultas de ubicaciones en el ultimo cuadro; en estado estable es 0.
+     */
+    public static int locationLookupsLastFrame() {
+        return lastFrameLocationLookups;
+    }
+
+    public static int drawCallsLastFrame() {
+        return lastFrameDrawCalls;
+    }
+
+    // glUseProgram con un programa distinto al que ya estaba activo
+    public static int programSwitchesLastFrame() {
+        return lastFrameProgramSwitches;
+    }
+
+    // glBufferData y glBufferSubData
+    public static int bufferUploadsLastFrame() {
+        return lastFrameBufferUploads;
+    }
+
+    public static long uploadBytesLastFrame() {
+        return lastFrameUploadBytes;
+    }
+
+    // Vertices enviados a dibujar; en instancing cuenta vertices * instancias
+    public static long verticesLastFrame() {
+        return lastFrameVertices;
+    }
+
+    // Cambios de estado que GlStateTracker mando al driver
+    public static int stateCallsIssuedLastFrame() {
+        return lastFrameStateCallsIssued;
+    }
+
+    /**
+     * Cambios de estado redundantes que GlStateTracker no mando. Un cambio
+     * diferido cuenta en el cuadro en que se resuelve, no en el que se pidio.
+     */
+    public static int stateCallsElidedLastFrame() {
+        return lastFrameStateCallsElided;
+    }
+
+    // Bytes pedidos con DirectBuffers.allocate desde el cuadro anterior
+    public static long directBytesLastFrame() {
+        return lastFrameDirectBytes;
+    }
+
+    public static int layerHitsLastFrame() {
+        return lastFrameLayerHits;
+    }
+
+    public static int layerMissesLastFrame() {
+        return lastFrameLayerMisses;
+    }
+
+    // Memoria de GPU que ocupan las capas en cache; no se reinicia por cuadro
+    public static long layerBytes() {
+        return layerBytes;
+    }
+}
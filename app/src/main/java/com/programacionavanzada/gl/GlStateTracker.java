@@ -0,0 +1,436 @@
+package com.programacionavanzada.gl;
+
+import android.opengl.GLES20;
+
+import java.nio.Buffer;
+
+/**
+ * Decorador que recuerda el estado de GL y no repite llamadas que no lo
+ * cambian: programa activo, buffers enlazados, arreglos de atributos,
+ * divisores, grosor de linea, blending y viewport.
+ *
+ * <p>Los atributos y los enlaces de buffers se aplican tarde: las primitivas
+ * desactivan y desenlazan al terminar cada draw() y la siguiente vuelve a
+ * activar lo mismo, asi que el cambio solo se manda cuando algo lo necesita
+ * (un glDraw*, glVertexAttribPointer o una subida). Un par disable/enable
+ * seguido no llega al driver.</p>
+ *
+ * <p>Las llamadas que se mandaron y las que se ahorraron se cuentan en
+ * {@link GlCounters}. Un cambio diferido se cuenta cuando se resuelve: al
+ * aplicarse, o como ahorrado si otro pedido lo reemplaza antes. Con un contexto nuevo hay que llamar a
+ * {@link #invalidate()}.</p>
+ */
+public final class GlStateTracker extends ForwardingGL {
+
+    static final int MAX_ATTRIBS = 16;
+
+    private static final int UNKNOWN = -1;
+    // Capacidades de glEnable/glDisable que se siguen; las demas pasan directo
+    private static final int[] CAPS = {
+            GLES20.GL_BLEND, GLES20.GL_DEPTH_TEST, GLES20.GL_CULL_FACE, GLES20.GL_SCISSOR_TEST
+    };
+
+    private int program;
+
+    // Enlace que se pidio y el que tiene el driver, por target
+    private int arrayBuffer;
+    private int elementBuffer;
+    private int boundArrayBuffer;
+    private int boundElementBuffer;
+    // Hay un pedido sin contar todavia
+    private boolean arrayBufferPending;
+    private boolean elementBufferPending;
+
+    // 1 activo, 0 inactivo, UNKNOWN sin saber
+    private final int[] attribWanted = new int[MAX_ATTRIBS];
+    private final int[] attribActual = new int[MAX_ATTRIBS];
+    private final boolean[] attribPending = new boolean[MAX_ATTRIBS];
+    private final int[] divisors = new int[MAX_ATTRIBS];
+    private final int[] caps = new int[CAPS.length];
+
+    private float lineWidth;
+    // Factores de color y de alfa; glBlendFunc pone los mismos en los dos
+    private int blendSrc;
+    private int blendDst;
+    private int blendSrcAlpha;
+    private int blendDstAlpha;
+    private int viewportX;
+    private int viewportY;
+    private int viewportWidth;
+    private int viewportHeight;
+
+    private boolean paused;
+
+    public GlStateTracker(GLApi gl) {
+        super(gl);
+        invalidate();
+    }
+
+    /**
+     * Pone un tracker delante de {@link Gl#api()}, o invalida el que ya esta.
+     * Se llama desde onSurfaceCreated.
+     */
+    public static GlStateTracker install() {
+        GLApi current = Gl.api();
+        if (current instanceof GlStateTracker) {
+            GlStateTracker tracker = (GlStateTracker) current;
+            tracker.invalidate();
+            return tracker;
+        }
+        GlStateTracker tracker = new GlStateTracker(current);
+        Gl.setApi(tracker);
+        return tracker;
+    }
+
+    /**
+     * Olvida todo lo que se sabia del estado; la siguiente llamada de cada
+     * tipo llega al driver.
+     */
+    public void invalidate() {
+        program = UNKNOWN;
+        arrayBuffer = UNKNOWN;
+        elementBuffer = UNKNOWN;
+        boundArrayBuffer = UNKNOWN;
+        boundElementBuffer = UNKNOWN;
+        arrayBufferPending = false;
+        elementBufferPending = false;
+        for (int i = 0; i < MAX_ATTRIBS; i++) {
+            attribWanted[i] = UNKNOWN;
+            attribActual[i] = UNKNOWN;
+            attribPending[i] = false;
+            divisors[i] = UNKNOWN;
+        }
+        for (int i = 0; i < caps.length; i++) {
+            caps[i] = UNKNOWN;
+        }
+        lineWidth = Float.NaN;
+        blendSrc = UNKNOWN;
+        blendDst = UNKNOWN;
+        blendSrcAlpha = UNKNOWN;
+        blendDstAlpha = UNKNOWN;
+        viewportWidth = UNKNOWN;
+    }
+
+    // Igual que CountingGL.setPaused: el overlay no se mide a si mismo
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    private void issued() {
+        if (!paused) {
+            GlCounters.countStateCall(false);
+        }
+    }
+
+    private void elided() {
+        if (!paused) {
+            GlCounters.countStateCall(true);
+        }
+    }
+
+    // Programa
+
+    @Override
+    public void glUseProgram(int program) {
+        if (program == this.program) {
+            elided();
+            return;
+        }
+        this.program = program;
+        issued();
+        gl.glUseProgram(program);
+    }
+
+    @Override
+    public void glDeleteProgram(int program) {
+        if (program == this.program) {
+            // El handle se puede reutilizar para un programa nuevo
+            this.program = UNKNOWN;
+        }
+        gl.glDeleteProgram(program);
+    }
+
+    // Buffers
+
+    @Override
+    public void glBindBuffer(int target, int buffer) {
+        // Se cuenta al aplicarlo; el pedido anterior que no se aplico ya no llega al driver
+        if (target == GLES20.GL_ARRAY_BUFFER) {
+            superseded(arrayBufferPending);
+            arrayBuffer = buffer;
+            arrayBufferPending = true;
+        } else if (target == GLES20.GL_ELEMENT_ARRAY_BUFFER) {
+            superseded(elementBufferPending);
+            elementBuffer = buffer;
+            elementBufferPending = true;
+        } else {
+            gl.glBindBuffer(target, buffer);
+        }
+    }
+
+    private void flushArrayBuffer() {
+        boolean pending = arrayBufferPending;
+        arrayBufferPending = false;
+        if (arrayBuffer != boundArrayBuffer) {
+            boundArrayBuffer = arrayBuffer;
+            issued();
+            gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, arrayBuffer);
+        } else if (pending) {
+            elided();
+        }
+    }
+
+    private void flushElementBuffer() {
+        boolean pending = elementBufferPending;
+        elementBufferPending = false;
+        if (elementBuffer != boundElementBuffer) {
+            boundElementBuffer = elementBuffer;
+            issued();
+            gl.glBindBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, elementBuffer);
+        } else if (pending) {
+            elided();
+        }
+    }
+
+    private void flushBuffer(int target) {
+        if (target == GLES20.GL_ARRAY_BUFFER) {
+            flushArrayBuffer();
+        } else if (target == GLES20.GL_ELEMENT_ARRAY_BUFFER) {
+            flushElementBuffer();
+        }
+    }
+
+    // Un pedido diferido que otro reemplazo antes de aplicarse
+    private void superseded(boolean pending) {
+        if (pending) {
+            elided();
+        }
+    }
+
+    @Override
+    public void glBufferData(int target, int size, Buffer data, int usage) {
+        flushBuffer(target);
+        gl.glBufferData(target, size, data, usage);
+    }
+
+    @Override
+    public void glBufferSubData(int target, int offset, int size, Buffer data) {
+        flushBuffer(target);
+        gl.glBufferSubData(target, offset, size, data);
+    }
+
+    @Override
+    public void glDeleteBuffers(int n, int[] buffers, int offset) {
+        // GL deja en 0 el target de un buffer borrado que estaba enlazado
+        for (int i = 0; i < n; i++) {
+            int buffer = buffers[offset + i];
+            if (buffer == 0) {
+                continue;
+            }
+            if (buffer == boundArrayBuffer) {
+                boundArrayBuffer = 0;
+            }
+            if (buffer == arrayBuffer) {
+                arrayBuffer = 0;
+            }
+            if (buffer == boundElementBuffer) {
+                boundElementBuffer = 0;
+            }
+            if (buffer == elementBuffer) {
+                elementBuffer = 0;
+            }
+        }
+        gl.glDeleteBuffers(n, buffers, offset);
+    }
+
+    // Atributos
+
+    @Override
+    public void glEnableVertexAttribArray(int index) {
+        setAttrib(index, 1);
+    }
+
+    @Override
+    public void glDisableVertexAttribArray(int index) {
+        setAttrib(index, 0);
+    }
+
+    private void setAttrib(int index, int enabled) {
+        if (index < 0 || index >= MAX_ATTRIBS) {
+            // Ubicacion -1 u otra fuera de rango: que el driver decida
+            issued();
+            if (enabled == 1) {
+                gl.glEnableVertexAttribArray(index);
+            } else {
+                gl.glDisableVertexAttribArray(index);
+            }
+            return;
+        }
+        superseded(attribPending[index]);
+        attribWanted[index] = enabled;
+        attribPending[index] = true;
+    }
+
+    private void flushAttribs() {
+        for (int i = 0; i < MAX_ATTRIBS; i++) {
+            int wanted = attribWanted[i];
+            boolean pending = attribPending[i];
+            attribPending[i] = false;
+            if (wanted != UNKNOWN && wanted != attribActual[i]) {
+                attribActual[i] = wanted;
+                issued();
+                if (wanted == 1) {
+                    gl.glEnableVertexAttribArray(i);
+                } else {
+                    gl.glDisableVertexAttribArray(i);
+                }
+            } else if (pending) {
+                elided();
+            }
+        }
+    }
+
+    @Override
+    public void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, Buffer data) {
+        // Con memoria del cliente GL_ARRAY_BUFFER tiene que estar en 0
+        flushArrayBuffer();
+        gl.glVertexAttribPointer(index, size, type, normalized, stride, data);
+    }
+
+    @Override
+    public void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, int offset) {
+        flushArrayBuffer();
+        gl.glVertexAttribPointer(index, size, type, normalized, stride, offset);
+    }
+
+    @Override
+    public void glVertexAttribDivisor(int index, int divisor) {
+        if (index >= 0 && index < MAX_ATTRIBS) {
+            if (divisors[index] == divisor) {
+                elided();
+                return;
+            }
+            divisors[index] = divisor;
+        }
+        issued();
+        gl.glVertexAttribDivisor(index, divisor);
+    }
+
+    // Dibujo: todo lo pendiente se aplica antes
+
+    @Override
+    public void glDrawArrays(int mode, int first, int count) {
+        flushAttribs();
+        gl.glDrawArrays(mode, first, count);
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, Buffer indices) {
+        flushAttribs();
+        // Con indices del cliente GL_ELEMENT_ARRAY_BUFFER tiene que estar en 0
+        flushElementBuffer();
+        gl.glDrawElements(mode, count, type, indices);
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, int offset) {
+        flushAttribs();
+        flushElementBuffer();
+        gl.glDrawElements(mode, count, type, offset);
+    }
+
+    @Override
+    public void glDrawArraysInstanced(int mode, int first, int count, int instanceCount) {
+        flushAttribs();
+        gl.glDrawArraysInstanced(mode, first, count, instanceCount);
+    }
+
+    // Estado fijo
+
+    @Override
+    public void glLineWidth(float width) {
+        if (width == lineWidth) {
+            elided();
+            return;
+        }
+        lineWidth = width;
+        issued();
+        gl.glLineWidth(width);
+    }
+
+    @Override
+    public void glEnable(int cap) {
+        if (setCap(cap, 1)) {
+            gl.glEnable(cap);
+        }
+    }
+
+    @Override
+    public void glDisable(int cap) {
+        if (setCap(cap, 0)) {
+            gl.glDisable(cap);
+        }
+    }
+
+    // true si hay que mandar la llamada
+    private boolean setCap(int cap, int enabled) {
+        for (int i = 0; i < CAPS.length; i++) {
+            if (CAPS[i] == cap) {
+                if (caps[i] == enabled) {
+                    elided();
+                    return false;
+                }
+                caps[i] = enabled;
+                break;
+            }
+        }
+        issued();
+        return true;
+    }
+
+    @Override
+    public void glBlendFunc(int sfactor, int dfactor) {
+        if (sameBlend(sfactor, dfactor, sfactor, dfactor)) {
+            elided();
+            return;
+        }
+        issued();
+        gl.glBlendFunc(sfactor, dfactor);
+    }
+
+    @Override
+    public void glBlendFuncSeparate(int srcRGB, int dstRGB, int srcAlpha, int dstAlpha) {
+        if (sameBlend(srcRGB, dstRGB, srcAlpha, dstAlpha)) {
+            elided();
+            return;
+        }
+        issued();
+        gl.glBlendFuncSeparate(srcRGB, dstRGB, srcAlpha, dstAlpha);
+    }
+
+    // true si ya estaban esos factores; si no, los recuerda
+    private boolean sameBlend(int srcRGB, int dstRGB, int srcAlpha, int dstAlpha) {
+        if (srcRGB == blendSrc && dstRGB == blendDst && srcAlpha == blendSrcAlpha && dstAlpha == blendDstAlpha) {
+            return true;
+        }
+        blendSrc = srcRGB;
+        blendDst = dstRGB;
+        blendSrcAlpha = srcAlpha;
+        blendDstAlpha = dstAlpha;
+        return false;
+    }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height) {
+        if (x == viewportX && y == viewportY && width == viewportWidth && height == viewportHeight) {
+            elided();
+            return;
+        }
+        viewportX = x;
+        viewportY = y;
+        viewportWidth = width;
+        viewportHeight = height;
+        issued();
+        gl.glViewport(x, y, width, height);
+    }
+}
@@ -0,0 +1,173 @@
+package com.programacionavanzada.gl;
+
+import android.opengl.GLES20;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Buffer de vertices (GL_ARRAY_BUFFER) o de indices (GL_ELEMENT_ARRAY_BUFFER)
+ * que vive en la memoria de la GPU. Los datos se suben una vez y despues
+ * solo se enlaza el buffer antes de dibujar.
+ *
+ * <p>Se guarda una referencia al buffer del cliente: si el contexto GL se
+ * pierde ({@link #onContextLost()}) el siguiente {@link #bind()} lo vuelve
+ * a subir sin que la primitiva tenga que hacer nada.</p>
+ */
+public final class GpuBuffer {
+
+    // Cambia cada vez que se crea un contexto nuevo; los handles de otra generacion ya no valen
+    private static int contextGeneration;
+
+    // null: cada llamada va a Gl.api(); un objeto que sobrevive a un contexto usa el GLApi del nuevo
+    private final GLApi gl;
+    private final int target;
+    private final int usage;
+    private final int[] handle = new int[1];
+    private int generation = -1;
+
+    private Buffer source;
+    private int sizeBytes;
+
+    /**
+     * @param target GL_ARRAY_BUFFER o GL_ELEMENT_ARRAY_BUFFER
+     * @param usage  GL_STATIC_DRAW, GL_DYNAMIC_DRAW o GL_STREAM_DRAW
+     */
+    public GpuBuffer(GLApi gl, int target, int usage) {
+        this.gl = gl;
+        this.target = target;
+        this.usage = usage;
+    }
+
+    // Llama a GL por Gl.api() en cada operacion, no por el GLApi que habia al crearlo
+    public GpuBuffer(int target, int usage) {
+        this(null, target, usage);
+    }
+
+    private GLApi gl() {
+        return gl != null ? gl : Gl.api();
+    }
+
+    /**
+     * Se llama desde onSurfaceCreated: los buffers del contexto anterior
+     * desaparecieron junto con el.
+     */
+    public static void onContextLost() {
+        contextGeneration++;
+    }
+
+    public boolean isValid() {
+        return handle[0] != 0 && generation == contextGeneration;
+    }
+
+    public void upload(FloatBuffer data) {
+        upload(data, data.capacity() * 4);
+    }
+
+    public void upload(ShortBuffer data) {
+        upload(data, data.capacity() * 2);
+    }
+
+    /**
+     * Sube todo el contenido de {@code data} y deja el buffer enlazado.
+     */
+    public void upload(Buffer data, int sizeBytes) {
+        this.source = data;
+        this.sizeBytes = sizeBytes;
+        if (!isValid()) {
+            gl().glGenBuffers(1, handle, 0);
+            generation = contextGeneration;
+        }
+        gl().glBindBuffer(target, handle[0]);
+        data.position(0);
+        gl().glBufferData(target, sizeBytes, data, usage);
+    }
+
+    /**
+     * Vuelve a subir solo un rango del buffer del cliente que se paso a
+     * upload() (glBufferSubData). Si el contexto se perdio sube todo.
+     *
+     * @param offsetBytes inicio del rango; multiplo del tamano de elemento del buffer
+     */
+    public void update(int offsetBytes, int sizeBytes) {
+        if (source == null) {
+            throw new IllegalStateException("GpuBuffer sin datos: falta llamar a upload()");
+        }
+        if (offsetBytes < 0 || sizeBytes < 0 || offsetBytes + sizeBytes > this.sizeBytes) {
+            throw new IndexOutOfBoundsException("Rango " + offsetBytes + "+" + sizeBytes + " de " + this.sizeBytes);
+        }
+        if (!isValid()) {
+            handle[0] = 0;
+            upload(source, this.sizeBytes);
+            return;
+        }
+        gl().glBindBuffer(target, handle[0]);
+        // glBufferSubData lee desde la posicion actual del Buffer
+        source.position(offsetBytes / elementSize(source));
+        gl().glBufferSubData(target, offsetBytes, sizeBytes, source);
+        source.position(0);
+    }
+
+    private static int elementSize(Buffer buffer) {
+        if (buffer instanceof ByteBuffer) {
+            return 1;
+        }
+        if (buffer instanceof ShortBuffer) {
+            return 2;
+        }
+        // FloatBuffer e IntBuffer, lo unico que se sube a GL aparte de bytes y shorts
+        return 4;
+    }
+
+    /**
+     * Enlaza el buffer; si el contexto se perdio vuelve a subir los datos.
+     */
+    public void bind() {
+        if (!isValid()) {
+            if (source == null) {
+                throw new IllegalStateException("GpuBuffer sin datos: falta llamar a upload()");
+            }
+            handle[0] = 0;
+            upload(source, sizeBytes);
+            return;
+        }
+        gl().glBindBuffer(target, handle[0]);
+    }
+
+    public void unbind() {
+        gl().glBindBuffer(target, 0);
+    }
+
+    /**
+     * Borra el buffer de la GPU. Si el contexto ya se perdio solo se olvida el handle.
+     */
+    public void release() {
+        if (isValid()) {
+            gl().glDeleteBuffers(1, handle, 0);
+        }
+        handle[0] = 0;
+        source = null;
+    }
+
+    public int getHandle() {
+        return handle[0];
+    }
+
+    public int getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public int getUsage() {
+        return usage;
+    }
+
+    public static GpuBuffer vertices(int usage) {
+        return new GpuBuffer(GLES20.GL_ARRAY_BUFFER, usage);
+    }
+
+    public static GpuBuffer indices(int usage) {
+        return new GpuBuffer(GLES20.GL_ELEMENT_ARRAY_BUFFER, usage);
+    }
+}
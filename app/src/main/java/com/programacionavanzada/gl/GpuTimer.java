@@ -0,0 +1,77 @@
+package com.programacionavanzada.gl;
+
+import android.opengl.GLES20;
+import android.opengl.GLES30;
+
+/**
+ * Tiempo de GPU por cuadro con EXT_disjoint_timer_query (GLES 3.0).
+ *
+ * <p>Hay un anillo de {@link #LATENCY} queries para no bloquear esperando a
+ * la GPU: {@link #end()} devuelve el tiempo de un cuadro de hace
+ * LATENCY - 1 cuadros, o -1 si todavia no esta listo o no hay soporte.</p>
+ */
+public final class GpuTimer {
+
+    // Constantes de la extension; no estan en GLES30
+    static final int GL_TIME_ELAPSED_EXT = 0x88BF;
+    static final int GL_GPU_DISJOINT_EXT = 0x8FBB;
+
+    static final int LATENCY = 3;
+
+    private final boolean supported;
+    private final int[] queries = new int[LATENCY];
+    private final int[] scratch = new int[1];
+    private int frame;
+
+    // Se crea en onSurfaceCreated, despues de GlCapabilities.onContextCreated()
+    public GpuTimer() {
+        supported = GlCapabilities.isEs3()
+                && GlCapabilities.hasExtension("GL_EXT_disjoint_timer_query");
+        if (supported) {
+            GLES30.glGenQueries(LATENCY, queries, 0);
+        }
+    }
+
+    public boolean isSupported() {
+        return supported;
+    }
+
+    public void begin() {
+        if (supported) {
+            GLES30.glBeginQuery(GL_TIME_ELAPSED_EXT, queries[frame % LATENCY]);
+        }
+    }
+
+    /**
+     * Cierra la query del cuadro actual y lee la mas vieja del anillo.
+     *
+     * @return nanosegundos de GPU de un cuadro anterior, o -1
+     */
+    public long end() {
+        if (!supported) {
+            return -1;
+        }
+        GLES30.glEndQuery(GL_TIME_ELAPSED_EXT);
+        frame++;
+        if (frame < LATENCY) {
+            return -1;
+        }
+        // Es la query que se va a reutilizar en el siguiente begin()
+        int oldest = queries[frame % LATENCY];
+        GLES30.glGetQueryObjectuiv(oldest, GLES30.GL_QUERY_RESULT_AVAILABLE, scratch, 0);
+        if (scratch[0] == 0) {
+            return -1;
+        }
+        GLES30.glGetQueryObjectuiv(oldest, GLES30.GL_QUERY_RESULT, scratch, 0);
+        long nanos = scratch[0] & 0xFFFFFFFFL;
+        // Si la GPU cambio de frecuencia o se reinicio, el resultado no sirve
+        GLES20.glGetIntegerv(GL_GPU_DISJOINT_EXT, scratch, 0);
+        return scratch[0] != 0 ? -1 : nanos;
+    }
+
+    public void release() {
+        if (supported) {
+            GLES30.glDeleteQueries(LATENCY, queries, 0);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.programacionavanzada.gl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Un buffer directo prestado por un {@link DirectBufferPool}. Se devuelve con
+ * {@link #release()}; despues de eso no se debe seguir usando ni ninguna de
+ * sus vistas.
+ */
+public final class PooledBuffer {
+
+    final DirectBufferPool pool;
+    final ByteBuffer memory;
+    final int sizeClass;   // -1 = demasiado grande para el pool
+    boolean inUse;
+    int sizeBytes;
+    Object leakRef;
+
+    PooledBuffer(DirectBufferPool pool, ByteBuffer memory, int sizeClass) {
+        this.pool = pool;
+        this.memory = memory;
+        this.sizeClass = sizeClass;
+    }
+
+    /**
+     * Los bytes pedidos, en orden nativo, con posicion 0 y limite = tamano
+     * pedido. Cada llamada da una vista nueva con su propio cursor, igual que
+     * {@link #floats()}.
+     */
+    public ByteBuffer bytes() {
+        checkInUse();
+        ByteBuffer view = memory.duplicate().order(ByteOrder.nativeOrder());
+        view.limit(sizeBytes);
+        return view;
+    }
+
+    // Cada vista tiene capacidad = tamano pedido / tamano del elemento
+    public FloatBuffer floats() {
+        return bytes().asFloatBuffer();
+    }
+
+    public ShortBuffer shorts() {
+        return bytes().asShortBuffer();
+    }
+
+    public IntBuffer ints() {
+        return bytes().asIntBuffer();
+    }
+
+    public int sizeBytes() {
+        return sizeBytes;
+    }
+
+    // Capacidad real del bloque (su clase de tamano)
+    public int capacityBytes() {
+        return memory.capacity();
+    }
+
+    public void release() {
+        pool.release(this);
+    }
+
+    private void checkInUse() {
+        if (!inUse) {
+            throw new IllegalStateException("PooledBuffer ya fue devuelto al pool");
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.programacionavanzada.gl;
+
+/**
+ * Ubicaciones del layout de color plano que comparten las primitivas
+ * (vPosition, vColor y uMVPMatrix), resueltas una sola vez despues de
+ * enlazar. Las primitivas las leen en draw() como campos finales en lugar
+ * de preguntarle al driver en cada cuadro.
+ *
+ * <p>Los programas con otros nombres (color por vertice, instancias,
+ * texturas) no agregan campos aqui: cada renderer pide los suyos con
+ * {@link ShaderProgram#attribLocation(String)} y
+ * {@link ShaderProgram#uniformLocation(String)}, que tambien se cachean.</p>
+ *
+ * <p>Un nombre que el programa no declara queda en -1, igual que lo
+ * devolveria glGetAttribLocation/glGetUniformLocation.</p>
+ */
+public final class ProgramBinding {
+
+    public static final String POSITION = "vPosition";
+    public static final String COLOR = "vColor";
+    public static final String MVP = "uMVPMatrix";
+
+    public final int program;
+
+    public final int positionHandle;
+    public final int colorHandle;
+    public final int mvpHandle; // proyeccion * vista * modelo
+
+    ProgramBinding(ShaderProgram shaderProgram) {
+        program = shaderProgram.handle;
+        positionHandle = shaderProgram.attribLocation(POSITION);
+        colorHandle = shaderProgram.uniformLocation(COLOR);
+        mvpHandle = shaderProgram.uniformLocation(MVP);
+    }
+}
@@ -0,0 +1,122 @@
+package com.programacionavanzada.gl;
+
+import android.opengl.GLES20;
+
+/**
+ * Framebuffer con una {@link Texture} RGBA como color: lo que se dibuja entre
+ * {@link #begin()} y {@link #end(int, int)} queda en la textura y despues se
+ * puede pegar en pantalla como un cuadro texturizado.
+ *
+ * <p>No tiene buffer de profundidad; las figuras 2D no lo usan. Igual que
+ * {@link Texture}, el contenido no se guarda: si el contexto se pierde
+ * ({@link #onContextLost()}) el framebuffer se vuelve a crear vacio y el
+ * duenio tiene que volver a dibujarlo.</p>
+ */
+public final class RenderTarget {
+
+    // Igual que en GpuBuffer: los handles de otra generacion ya no valen
+    private static int contextGeneration;
+
+    // null: cada llamada va a Gl.api(); un objeto que sobrevive a un contexto usa el GLApi del nuevo
+    private final GLApi gl;
+    private final Texture texture;
+    private final int[] framebuffer = new int[1];
+    private int generation = -1;
+
+    public RenderTarget(GLApi gl, int width, int height) {
+        this.gl = gl;
+        // Sin mipmaps: cualquier tamano vale en GLES 2.0
+        this.texture = new Texture(gl, width, height, false);
+    }
+
+    public RenderTarget(int width, int height) {
+        this(null, width, height);
+    }
+
+    private GLApi gl() {
+        return gl != null ? gl : Gl.api();
+    }
+
+    /**
+     * Se llama desde onSurfaceCreated junto con Texture.onContextLost().
+     */
+    public static void onContextLost() {
+        contextGeneration++;
+    }
+
+    /**
+     * false si nunca se dibujo o si se perdio el contexto: la textura no
+     * tiene lo que se dibujo antes.
+     */
+    public boolean isValid() {
+        return framebuffer[0] != 0 && generation == contextGeneration && texture.isValid();
+    }
+
+    /**
+     * Enlaza el framebuffer (lo crea si hace falta), pone el viewport del
+     * tamano de la textura y la limpia a transparente.
+     */
+    public void begin() {
+        if (isValid()) {
+            gl().glBindFramebuffer(GLES20.GL_FRAMEBUFFER, framebuffer[0]);
+        } else {
+            create();
+        }
+        gl().glViewport(0, 0, texture.getWidth(), texture.getHeight());
+        gl().glClearColor(0f, 0f, 0f, 0f);
+        gl().glClear(GLES20.GL_COLOR_BUFFER_BIT);
+    }
+
+    /**
+     * Vuelve a dibujar en la pantalla con su viewport.
+     */
+    public void end(int viewportWidth, int viewportHeight) {
+        gl().glBindFramebuffer(GLES20.GL_FRAMEBUFFER, 0);
+        gl().glViewport(0, 0, viewportWidth, viewportHeight);
+    }
+
+    private void create() {
+        texture.create();
+        gl().glGenFramebuffers(1, framebuffer, 0);
+        generation = contextGeneration;
+        gl().glBindFramebuffer(GLES20.GL_FRAMEBUFFER, framebuffer[0]);
+        gl().glFramebufferTexture2D(GLES20.GL_FRAMEBUFFER, GLES20.GL_COLOR_ATTACHMENT0,
+                GLES20.GL_TEXTURE_2D, texture.getHandle(), 0);
+        int status = gl().glCheckFramebufferStatus(GLES20.GL_FRAMEBUFFER);
+        if (status != GLES20.GL_FRAMEBUFFER_COMPLETE) {
+            gl().glBindFramebuffer(GLES20.GL_FRAMEBUFFER, 0);
+            release();
+            throw new IllegalStateException("Framebuffer incompleto: 0x" + Integer.toHexString(status)
+                    + " (" + getWidth() + "x" + getHeight() + ")");
+        }
+    }
+
+    /**
+     * Borra el framebuffer y su textura. Si el contexto ya se perdio solo se
+     * olvidan los handles.
+     */
+    public void release() {
+        if (framebuffer[0] != 0 && generation == contextGeneration) {
+            gl().glDeleteFramebuffers(1, framebuffer, 0);
+        }
+        framebuffer[0] = 0;
+        texture.release();
+    }
+
+    public Texture getTexture() {
+        return texture;
+    }
+
+    public int getWidth() {
+        return texture.getWidth();
+    }
+
+    public int getHeight() {
+        return texture.getHeight();
+    }
+
+    // RGBA de 8 bits, sin mipmaps
+    public long sizeBytes() {
+        return (long) texture.getWidth() * texture.getHeight() * 4;
+    }
+}
@@ -0,0 +1,71 @@
+package com.programacionavanzada.gl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Programa de GPU ya enlazado y compartido por todas las figuras que usan
+ * el mismo par de shaders. Lo entrega {@link ShaderProgramCache}.
+ */
+public final class ShaderProgram {
+
+    // Identificador del programa en la GPU (lo que antes era mProgram)
+    public final int handle;
+
+    final String key;
+    int refCount;
+
+    private final ShaderProgramCache cache;
+    private final Map<String, Integer> attribLocations = new HashMap<>();
+    private final Map<String, Integer> uniformLocations = new HashMap<>();
+    private ProgramBinding binding;
+
+    ShaderProgram(ShaderProgramCache cache, String key, int handle) {
+        this.cache = cache;
+        this.key = key;
+        this.handle = handle;
+    }
+
+    /**
+     * Ubicacion de un atributo (por ejemplo "vPosition"). Solo la primera
+     * consulta llega al driver; las siguientes salen de la cache.
+     */
+    public int attribLocation(String name) {
+        Integer location = attribLocations.get(name);
+        if (location == null) {
+            location = cache.gl().glGetAttribLocation(handle, name);
+            GlCounters.countLocationLookup();
+            attribLocations.put(name, location);
+        }
+        return location;
+    }
+
+    /**
+     * Ubicacion de un uniform (por ejemplo "vColor"), cacheada igual que
+     * {@link #attribLocation(String)}.
+     */
+    public int uniformLocation(String name) {
+        Integer location = uniformLocations.get(name);
+        if (location == null) {
+            location = cache.gl().glGetUniformLocation(handle, name);
+            GlCounters.countLocationLookup();
+            uniformLocations.put(name, location);
+        }
+        return location;
+    }
+
+    /**
+     * Ubicaciones del layout estandar de las primitivas, compartidas por
+     * todas las figuras que usan este programa.
+     */
+    public ProgramBinding binding() {
+        if (binding == null) {
+            binding = new ProgramBinding(this);
+        }
+        return binding;
+    }
+
+    public int getRefCount() {
+        return refCount;
+    }
+}
@@ -0,0 +1,142 @@
+package com.programacionavanzada.gl;
+
+import android.opengl.GLES20;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache de programas de shaders. Todas las primitivas usan el mismo codigo
+ * de color plano, asi que en vez de compilar y enlazar un programa por
+ * figura se enlaza uno solo por cada par (vertex, fragment) distinto y se
+ * cuenta cuantas figuras lo estan usando.
+ */
+public final class ShaderProgramCache {
+
+    private static ShaderProgramCache shared;
+
+    // null: cada llamada va a Gl.api(), asi la ven CountingGL y GlStateTracker
+    private final GLApi gl;
+    private final Map<String, ShaderProgram> programs = new HashMap<>();
+    private final int[] status = new int[1];
+
+    public ShaderProgramCache(GLApi gl) {
+        this.gl = gl;
+    }
+
+    private ShaderProgramCache() {
+        this.gl = null;
+    }
+
+    /**
+     * Cache que usan las primitivas. Llama a GL por {@link Gl#api()} en cada
+     * operacion, no por el GLApi que habia al crearla.
+     */
+    public static ShaderProgramCache shared() {
+        if (shared == null) {
+            shared = new ShaderProgramCache();
+        }
+        return shared;
+    }
+
+    GLApi gl() {
+        return gl != null ? gl : Gl.api();
+    }
+
+    /**
+     * Devuelve el programa para este par de shaders, compilandolo y
+     * enlazandolo solo la primera vez. Cada llamada debe tener su
+     * {@link #release(ShaderProgram)}.
+     */
+    public ShaderProgram acquire(String vertexShaderCode, String fragmentShaderCode) {
+        String key = vertexShaderCode + '\0' + fragmentShaderCode;
+        ShaderProgram program = programs.get(key);
+        if (program == null) {
+            program = new ShaderProgram(this, key, link(vertexShaderCode, fragmentShaderCode));
+            programs.put(key, program);
+        }
+        program.refCount++;
+        return program;
+    }
+
+    /**
+     * Suelta una referencia; cuando nadie mas usa el programa se borra de la GPU.
+     */
+    public void release(ShaderProgram program) {
+        if (program.refCount <= 0 || programs.get(program.key) != program) {
+            return;
+        }
+        program.refCount--;
+        if (program.refCount == 0) {
+            programs.remove(program.key);
+            gl().glDeleteProgram(program.handle);
+        }
+    }
+
+    /**
+     * Olvida todos los programas sin llamar a GL. Se usa en onSurfaceCreated,
+     * cuando el contexto anterior se perdio y sus identificadores ya no valen.
+     */
+    public void invalidate() {
+        for (ShaderProgram program : programs.values()) {
+            program.refCount = 0;
+        }
+        programs.clear();
+    }
+
+    public int size() {
+        return programs.size();
+    }
+
+    /**
+     * Compila un shader y verifica GL_COMPILE_STATUS.
+     *
+     * @throws IllegalStateException con el log del compilador si falla
+     */
+    public int compileShader(int type, String shaderCode) {
+        GLApi gl = gl();
+        int shader = gl.glCreateShader(type);
+        gl.glShaderSource(shader, shaderCode);
+        gl.glCompileShader(shader);
+
+        gl.glGetShaderiv(shader, GLES20.GL_COMPILE_STATUS, status, 0);
+        if (status[0] == 0) {
+            String log = gl.glGetShaderInfoLog(shader);
+            gl.glDeleteShader(shader);
+            String kind = type == GLES20.GL_VERTEX_SHADER ? "vertex" : "fragment";
+            throw new IllegalStateException("Error compilando el " + kind + " shader: " + log);
+        }
+        return shader;
+    }
+
+    private int link(String vertexShaderCode, String fragmentShaderCode) {
+        GLApi gl = gl();
+        int vertexShader = compileShader(GLES20.GL_VERTEX_SHADER, vertexShaderCode);
+        int fragmentShader;
+        try {
+            fragmentShader = compileShader(GLES20.GL_FRAGMENT_SHADER, fragmentShaderCode);
+        } catch (IllegalStateException e) {
+            gl.glDeleteShader(vertexShader);
+            throw e;
+        }
+
+        int program = gl.glCreateProgram();
+        gl.glAttachShader(program, vertexShader);
+        gl.glAttachShader(program, fragmentShader);
+        gl.glLinkProgram(program);
+
+        // Una vez enlazado el programa los shaders ya no hacen falta
+        gl.glDetachShader(program, vertexShader);
+        gl.glDetachShader(program, fragmentShader);
+        gl.glDeleteShader(vertexShader);
+        gl.glDeleteShader(fragmentShader);
+
+        gl.glGetProgramiv(program, GLES20.GL_LINK_STATUS, status, 0);
+        if (status[0] == 0) {
+            String log = gl.glGetProgramInfoLog(program);
+            gl.glDeleteProgram(program);
+            throw new IllegalStateException("Error enlazando el programa: " + log);
+        }
+        return program;
+    }
+}
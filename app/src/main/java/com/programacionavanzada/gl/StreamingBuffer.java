@@ -0,0 +1,131 @@
+package com.programacionavanzada.gl;
+
+import android.opengl.GLES20;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Buffer de vertices que cambia seguido (particulas, graficas en vivo).
+ *
+ * <p>Los datos se escriben en una copia del cliente y se marcan los rangos
+ * modificados. En la GPU hay un anillo de {@link #DEFAULT_RING_SIZE} VBOs:
+ * cada cuadro con cambios dibuja con el siguiente, asi la CPU nunca escribe
+ * sobre el buffer que la GPU todavia esta leyendo. Cada VBO recuerda que
+ * rango le falta y solo sube eso con glBufferSubData; si le falta mas de la
+ * mitad lo sube entero con glBufferData, que le da memoria nueva al driver
+ * (orphaning) en vez de esperar a la GPU.</p>
+ */
+public final class StreamingBuffer {
+
+    public static final int DEFAULT_RING_SIZE = 3;
+
+    private final GpuBuffer[] ring;
+    private final PooledBuffer memory;
+    private final FloatBuffer data;
+    private final int capacity;
+
+    // Rango [start, end) en floats que le falta a cada VBO del anillo
+    private final int[] dirtyStart;
+    private final int[] dirtyEnd;
+    private boolean changed;
+    private int current;
+
+    // Los VBO llaman a GL por Gl.api() en cada operacion (ver GpuBuffer)
+    public StreamingBuffer(int capacityFloats) {
+        this(null, capacityFloats, DEFAULT_RING_SIZE);
+    }
+
+    public StreamingBuffer(GLApi gl, int capacityFloats, int ringSize) {
+        if (capacityFloats <= 0 || ringSize <= 0) {
+            throw new IllegalArgumentException("capacidad y anillo deben ser positivos");
+        }
+        capacity = capacityFloats;
+        memory = DirectBuffers.pool().acquire(capacityFloats * 4);
+        data = memory.floats();
+        ring = new GpuBuffer[ringSize];
+        dirtyStart = new int[ringSize];
+        dirtyEnd = new int[ringSize];
+        for (int i = 0; i < ringSize; i++) {
+            ring[i] = new GpuBuffer(gl, GLES20.GL_ARRAY_BUFFER, GLES20.GL_STREAM_DRAW);
+            // Ningun VBO tiene datos todavia
+            dirtyStart[i] = 0;
+            dirtyEnd[i] = capacity;
+        }
+        current = ringSize - 1;
+    }
+
+    /**
+     * Copia {@code count} floats de {@code src[srcOffset..]} a la posicion
+     * {@code dstOffset} del buffer y marca ese rango para subirlo.
+     */
+    public void write(float[] src, int srcOffset, int dstOffset, int count) {
+        if (dstOffset < 0 || count < 0 || dstOffset + count > capacity) {
+            throw new IndexOutOfBoundsException("Rango " + dstOffset + "+" + count + " de " + capacity);
+        }
+        data.position(dstOffset);
+        data.put(src, srcOffset, count);
+        data.position(0);
+        markDirty(dstOffset, count);
+    }
+
+    /**
+     * Marca un rango (en floats) como modificado.
+     */
+    public void markDirty(int offset, int count) {
+        if (count == 0) {
+            return;
+        }
+        for (int i = 0; i < ring.length; i++) {
+            dirtyStart[i] = Math.min(dirtyStart[i], offset);
+            dirtyEnd[i] = Math.max(dirtyEnd[i], offset + count);
+        }
+        changed = true;
+    }
+
+    /**
+     * Enlaza el VBO con los datos actuales. Si hubo cambios desde el ultimo
+     * bind pasa al siguiente VBO del anillo y le sube lo que le falta.
+     */
+    public void bind() {
+        if (!changed && ring[current].isValid()) {
+            ring[current].bind();
+            return;
+        }
+        changed = false;
+        current = (current + 1) % ring.length;
+        GpuBuffer vbo = ring[current];
+        int start = dirtyStart[current];
+        int end = dirtyEnd[current];
+        if (!vbo.isValid() || end - start > capacity / 2) {
+            vbo.upload(data, capacity * 4);
+        } else if (end > start) {
+            vbo.update(start * 4, (end - start) * 4);
+        } else {
+            vbo.bind();
+        }
+        dirtyStart[current] = capacity;
+        dirtyEnd[current] = 0;
+    }
+
+    public void unbind() {
+        ring[current].unbind();
+    }
+
+    public void release() {
+        for (GpuBuffer vbo : ring) {
+            vbo.release();
+        }
+        memory.release();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Copia del cliente; para leer valores, no para escribir (usar write()).
+     */
+    public FloatBuffer getData() {
+        return data;
+    }
+}
@@ -0,0 +1,153 @@
+package com.programacionavanzada.gl;
+
+import android.opengl.GLES20;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Textura RGBA de 8 bits que vive en la GPU. La memoria se reserva una vez
+ * (glTexImage2D sin datos) y despues se escriben rectangulos con
+ * glTexSubImage2D, como lo necesita un atlas.
+ *
+ * <p>Con mipmaps las subidas solo marcan la textura; los niveles se
+ * regeneran una vez en el siguiente {@link #bind(int)}, no en cada subida.
+ * En GLES 2.0 glGenerateMipmap pide lados potencia de dos.</p>
+ *
+ * <p>A diferencia de {@link GpuBuffer} no se guardan los pixeles: si el
+ * contexto se pierde ({@link #onContextLost()}) la textura se vuelve a
+ * crear vacia y el duenio tiene que volver a subirlos.</p>
+ */
+public final class Texture {
+
+    // Igual que en GpuBuffer: los handles de otra generacion ya no valen
+    private static int contextGeneration;
+
+    // null: cada llamada va a Gl.api(); un objeto que sobrevive a un contexto usa el GLApi del nuevo
+    private final GLApi gl;
+    private final int width;
+    private final int height;
+    private final boolean mipmaps;
+    private final int[] handle = new int[1];
+    private int generation = -1;
+    private boolean mipmapsDirty;
+
+    public Texture(GLApi gl, int width, int height, boolean mipmaps) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Tamano de textura invalido: " + width + "x" + height);
+        }
+        if (mipmaps && (!isPowerOfTwo(width) || !isPowerOfTwo(height))) {
+            throw new IllegalArgumentException("Los mipmaps en GLES 2.0 piden lados potencia de dos: "
+                    + width + "x" + height);
+        }
+        this.gl = gl;
+        this.width = width;
+        this.height = height;
+        this.mipmaps = mipmaps;
+    }
+
+    // Llama a GL por Gl.api() en cada operacion, no por el GLApi que habia al crearlo
+    public Texture(int width, int height, boolean mipmaps) {
+        this(null, width, height, mipmaps);
+    }
+
+    private GLApi gl() {
+        return gl != null ? gl : Gl.api();
+    }
+
+    /**
+     * Se llama desde onSurfaceCreated junto con GpuBuffer.onContextLost().
+     */
+    public static void onContextLost() {
+        contextGeneration++;
+    }
+
+    public static boolean isPowerOfTwo(int n) {
+        return n > 0 && (n & (n - 1)) == 0;
+    }
+
+    public boolean isValid() {
+        return handle[0] != 0 && generation == contextGeneration;
+    }
+
+    /**
+     * Crea la textura vacia si todavia no existe en este contexto. Deja la
+     * unidad activa con la textura enlazada.
+     *
+     * @return true si se creo ahora (el contenido anterior se perdio)
+     */
+    public boolean create() {
+        if (isValid()) {
+            return false;
+        }
+        gl().glGenTextures(1, handle, 0);
+        generation = contextGeneration;
+        gl().glBindTexture(GLES20.GL_TEXTURE_2D, handle[0]);
+        gl().glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER,
+                mipmaps ? GLES20.GL_LINEAR_MIPMAP_LINEAR : GLES20.GL_LINEAR);
+        gl().glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_LINEAR);
+        gl().glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_CLAMP_TO_EDGE);
+        gl().glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_T, GLES20.GL_CLAMP_TO_EDGE);
+        gl().glTexImage2D(GLES20.GL_TEXTURE_2D, 0, GLES20.GL_RGBA, width, height, 0,
+                GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, null);
+        // Los niveles de la textura vacia tambien tienen que existir para que este completa
+        mipmapsDirty = mipmaps;
+        return true;
+    }
+
+    /**
+     * Escribe un rectangulo de pixeles RGBA (4 bytes cada uno, fila por
+     * fila) desde la posicion actual de {@code rgba}.
+     */
+    public void upload(int x, int y, int w, int h, ByteBuffer rgba) {
+        if (x < 0 || y < 0 || x + w > width || y + h > height) {
+            throw new IndexOutOfBoundsException("Rectangulo " + x + "," + y + " " + w + "x" + h
+                    + " fuera de la textura " + width + "x" + height);
+        }
+        if (!create()) {
+            gl().glBindTexture(GLES20.GL_TEXTURE_2D, handle[0]);
+        }
+        gl().glTexSubImage2D(GLES20.GL_TEXTURE_2D, 0, x, y, w, h, GLES20.GL_RGBA, GLES20.GL_UNSIGNED_BYTE, rgba);
+        mipmapsDirty = mipmaps;
+    }
+
+    /**
+     * Enlaza la textura en la unidad {@code unit} (0 = GL_TEXTURE0) y, si
+     * cambio desde la ultima vez, regenera los mipmaps.
+     */
+    public void bind(int unit) {
+        gl().glActiveTexture(GLES20.GL_TEXTURE0 + unit);
+        if (!create()) {
+            gl().glBindTexture(GLES20.GL_TEXTURE_2D, handle[0]);
+        }
+        if (mipmapsDirty) {
+            gl().glGenerateMipmap(GLES20.GL_TEXTURE_2D);
+            mipmapsDirty = false;
+        }
+    }
+
+    /**
+     * Borra la textura de la GPU. Si el contexto ya se perdio solo se olvida el handle.
+     */
+    public void release() {
+        if (isValid()) {
+            gl().glDeleteTextures(1, handle, 0);
+        }
+        handle[0] = 0;
+    }
+
+    public int getHandle() {
+        return handle[0];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean hasMipmaps() {
+        return mipmaps;
+    }
+}
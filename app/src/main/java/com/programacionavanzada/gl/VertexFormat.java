@@ -0,0 +1,238 @@
+package com.programacionavanzada.gl;
+
+import android.opengl.GLES20;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Formato de un vertice intercalado: que atributos tiene, de que tipo y en
+ * que offset. Con el formato se configuran solos los glVertexAttribPointer
+ * ({@link #enable(GLApi, ShaderProgram, int)}) y {@link VertexPacker}
+ * convierte los arreglos de floats de las primitivas.
+ *
+ * <p>Posiciones de 2 floats en lugar de 3 ahorran un tercio; shorts
+ * normalizados con escala y desplazamiento en un uniform
+ * ({@link #POSITION_TRANSFORM}) ahorran dos tercios. El color
+ * por vertice va en 4 bytes RGBA normalizados y las coordenadas de textura
+ * en 2 shorts sin signo normalizados.</p>
+ */
+public final class VertexFormat {
+
+    // Nombres en los shaders: la posicion es ProgramBinding.POSITION, como en las primitivas
+    public static final String COLOR = "aColor";
+    public static final String TEX_COORD = "aTexCoord";
+    // vec4 uniform: escala (xy) y desplazamiento (zw) de las posiciones en short
+    public static final String POSITION_TRANSFORM = "uPosTransform";
+
+    // No estan en GLES20: half float es de GLES 3.0 o de OES_vertex_half_float
+    static final int GL_HALF_FLOAT = 0x140B;
+    static final int GL_HALF_FLOAT_OES = 0x8D61;
+
+    /**
+     * Un atributo del vertice.
+     */
+    public static final class Attribute {
+        public final String name;
+        public final int size;
+        public final int type;
+        public final boolean normalized;
+        public final int offset;
+
+        Attribute(String name, int size, int type, boolean normalized, int offset) {
+            this.name = name;
+            this.size = size;
+            this.type = type;
+            this.normalized = normalized;
+            this.offset = offset;
+        }
+
+        public int sizeBytes() {
+            return size * typeSize(type);
+        }
+    }
+
+    // El formato de siempre de Point, Triangle, Triangles, Square y Circle
+    public static final VertexFormat POSITION_3F = new VertexFormat(
+            position(3, GLES20.GL_FLOAT, false));
+    public static final VertexFormat POSITION_2F = new VertexFormat(
+            position(2, GLES20.GL_FLOAT, false));
+    public static final VertexFormat POSITION_2S = new VertexFormat(
+            position(2, GLES20.GL_SHORT, true));
+    public static final VertexFormat POSITION_2F_COLOR_4UB = new VertexFormat(
+            position(2, GLES20.GL_FLOAT, false), packedColor());
+    public static final VertexFormat POSITION_2S_COLOR_4UB = new VertexFormat(
+            position(2, GLES20.GL_SHORT, true), packedColor());
+    // Sprites: 16 bytes por vertice en lugar de 32 con todo en floats
+    public static final VertexFormat POSITION_2F_TEXCOORD_2US_COLOR_4UB = new VertexFormat(
+            position(2, GLES20.GL_FLOAT, false), texCoord(), packedColor());
+
+    private final Attribute[] attributes;
+    private final int stride;
+    private final Attribute position;
+    private final Attribute colorAttribute;
+    private final Attribute texCoordAttribute;
+
+    /**
+     * @param specs atributos en orden; los offsets se calculan aqui
+     */
+    public VertexFormat(Spec... specs) {
+        attributes = new Attribute[specs.length];
+        int offset = 0;
+        Attribute pos = null;
+        Attribute col = null;
+        Attribute tex = null;
+        for (int i = 0; i < specs.length; i++) {
+            Spec spec = specs[i];
+            Attribute a = new Attribute(spec.name, spec.size, spec.type, spec.normalized, offset);
+            attributes[i] = a;
+            // Cada atributo empieza alineado a 4 bytes, como recomiendan los drivers
+            offset += (a.sizeBytes() + 3) & ~3;
+            if (ProgramBinding.POSITION.equals(a.name)) {
+                pos = a;
+            } else if (COLOR.equals(a.name)) {
+                col = a;
+            } else if (TEX_COORD.equals(a.name)) {
+                tex = a;
+            }
+        }
+        if (pos == null) {
+            throw new IllegalArgumentException("El formato necesita " + ProgramBinding.POSITION);
+        }
+        stride = offset;
+        position = pos;
+        colorAttribute = col;
+        texCoordAttribute = tex;
+    }
+
+    /**
+     * Descripcion de un atributo para el constructor.
+     */
+    public static final class Spec {
+        final String name;
+        final int size;
+        final int type;
+        final boolean normalized;
+
+        public Spec(String name, int size, int type, boolean normalized) {
+            this.name = name;
+            this.size = size;
+            this.type = type;
+            this.normalized = normalized;
+        }
+    }
+
+    public static Spec position(int size, int type, boolean normalized) {
+        return new Spec(ProgramBinding.POSITION, size, type, normalized);
+    }
+
+    // RGBA en 4 bytes; el shader lo recibe como vec4 en 0..1
+    public static Spec packedColor() {
+        return new Spec(COLOR, 4, GLES20.GL_UNSIGNED_BYTE, true);
+    }
+
+    // (u, v) en 2 shorts sin signo; el shader los recibe en 0..1
+    public static Spec texCoord() {
+        return new Spec(TEX_COORD, 2, GLES20.GL_UNSIGNED_SHORT, true);
+    }
+
+    /**
+     * Posiciones (x, y) en half float. Solo con GLES 3.0 o la extension
+     * OES_vertex_half_float; si no hay, devuelve {@code null}.
+     */
+    public static VertexFormat positionHalf2() {
+        if (GlCapabilities.isEs3()) {
+            return new VertexFormat(position(2, GL_HALF_FLOAT, false));
+        }
+        if (GlCapabilities.hasExtension("GL_OES_vertex_half_float")) {
+            return new VertexFormat(position(2, GL_HALF_FLOAT_OES, false));
+        }
+        return null;
+    }
+
+    static int typeSize(int type) {
+        switch (type) {
+            case GLES20.GL_FLOAT:
+                return 4;
+            case GLES20.GL_SHORT:
+            case GLES20.GL_UNSIGNED_SHORT:
+            case GL_HALF_FLOAT:
+            case GL_HALF_FLOAT_OES:
+                return 2;
+            case GLES20.GL_BYTE:
+            case GLES20.GL_UNSIGNED_BYTE:
+                return 1;
+            default:
+                throw new IllegalArgumentException("Tipo de atributo no soportado: 0x" + Integer.toHexString(type));
+        }
+    }
+
+    public int stride() {
+        return stride;
+    }
+
+    public Attribute[] attributes() {
+        return attributes.clone();
+    }
+
+    public Attribute positionAttribute() {
+        return position;
+    }
+
+    // null si el color es un uniform
+    public Attribute colorAttribute() {
+        return colorAttribute;
+    }
+
+    public boolean hasColor() {
+        return colorAttribute != null;
+    }
+
+    // null si el formato no lleva coordenadas de textura
+    public Attribute texCoordAttribute() {
+        return texCoordAttribute;
+    }
+
+    // Las posiciones en short necesitan escala y desplazamiento (ver VertexPacker.bounds)
+    public boolean isQuantized() {
+        return position.type == GLES20.GL_SHORT;
+    }
+
+    /**
+     * Activa y apunta cada atributo que el programa declara, leyendo del VBO
+     * enlazado a partir de {@code baseOffset} bytes.
+     */
+    public void enable(GLApi gl, ShaderProgram program, int baseOffset) {
+        for (Attribute a : attributes) {
+            int location = program.attribLocation(a.name);
+            if (location >= 0) {
+                gl.glEnableVertexAttribArray(location);
+                gl.glVertexAttribPointer(location, a.size, a.type, a.normalized, stride, baseOffset + a.offset);
+            }
+        }
+    }
+
+    /**
+     * Igual que {@link #enable(GLApi, ShaderProgram, int)} pero desde la
+     * memoria del cliente.
+     */
+    public void enable(GLApi gl, ShaderProgram program, ByteBuffer data) {
+        for (Attribute a : attributes) {
+            int location = program.attribLocation(a.name);
+            if (location >= 0) {
+                data.position(a.offset);
+                gl.glEnableVertexAttribArray(location);
+                gl.glVertexAttribPointer(location, a.size, a.type, a.normalized, stride, data);
+            }
+        }
+        data.position(0);
+    }
+
+    public void disable(GLApi gl, ShaderProgram program) {
+        for (Attribute a : attributes) {
+            int location = program.attribLocation(a.name);
+            if (location >= 0) {
+                gl.glDisableVertexAttribArray(location);
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.programacionavanzada.gl;
+
+import android.opengl.GLES20;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Convierte los arreglos de floats de las primitivas a un
+ * {@link VertexFormat} compacto.
+ *
+ * <p>Las posiciones en short normalizado se guardan relativas a la caja de
+ * la figura: {@code posicion = n * escala + desplazamiento} con n en -1..1.
+ * {@link #bounds} calcula escala y desplazamiento y el shader los recibe en
+ * {@link VertexFormat#POSITION_TRANSFORM}. El error es de 1/32767 del
+ * tamano de la figura.</p>
+ */
+public final class VertexPacker {
+
+    private VertexPacker() {
+    }
+
+    /**
+     * Escala (x, y) y desplazamiento (x, y) de la caja de los vertices, en
+     * {@code scaleOffset[0..3]}. La posicion (x, y) es el inicio de cada vertice.
+     */
+    public static void bounds(float[] src, int floatsPerVertex, int vertexCount, float[] scaleOffset) {
+        float minX = Float.POSITIVE_INFINITY;
+        float minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY;
+        float maxY = Float.NEGATIVE_INFINITY;
+        for (int i = 0, o = 0; i < vertexCount; i++, o += floatsPerVertex) {
+            minX = Math.min(minX, src[o]);
+            maxX = Math.max(maxX, src[o]);
+            minY = Math.min(minY, src[o + 1]);
+            maxY = Math.max(maxY, src[o + 1]);
+        }
+        if (vertexCount == 0) {
+            minX = maxX = minY = maxY = 0f;
+        }
+        float halfX = (maxX - minX) / 2f;
+        float halfY = (maxY - minY) / 2f;
+        // Una figura plana en un eje no debe dividir entre cero
+        scaleOffset[0] = halfX > 0f ? halfX : 1f;
+        scaleOffset[1] = halfY > 0f ? halfY : 1f;
+        scaleOffset[2] = minX + halfX;
+        scaleOffset[3] = minY + halfY;
+    }
+
+    /**
+     * Escribe {@code vertexCount} vertices en {@code dst} desde su posicion
+     * actual y la deja al final.
+     *
+     * @param src             vertices de {@code floatsPerVertex} floats; la posicion va primero
+     * @param positionSize    floats de posicion en {@code src}: 2 (x, y) o 3 (x, y, z)
+     * @param colorOffset     donde empieza el RGBA dentro de cada vertice de {@code src}, o -1
+     * @param constantColor   RGBA para todos los vertices si {@code colorOffset} es -1
+     * @param scaleOffset     de {@link #bounds}; solo se usa con posiciones en short
+     */
+    public static void pack(VertexFormat format, float[] src, int floatsPerVertex, int positionSize, int colorOffset,
+                            int vertexCount, float[] scaleOffset, float[] constantColor, ByteBuffer dst) {
+        VertexFormat.Attribute position = format.positionAttribute();
+        VertexFormat.Attribute color = format.colorAttribute();
+        int stride = format.stride();
+        int base = dst.position();
+        if (format.isQuantized() && scaleOffset == null) {
+            throw new IllegalArgumentException("Las posiciones en short necesitan scaleOffset (ver bounds)");
+        }
+        if (color != null && colorOffset < 0 && constantColor == null) {
+            throw new IllegalArgumentException("El formato lleva color y no se paso ninguno");
+        }
+
+        for (int i = 0; i < vertexCount; i++) {
+            int s = i * floatsPerVertex;
+            int d = base + i * stride;
+
+            int p = d + position.offset;
+            for (int c = 0; c < position.size; c++) {
+                // Lo que src no trae (z en los arreglos 2D) queda en 0
+                float v = c < positionSize ? src[s + c] : 0f;
+                switch (position.type) {
+                    case GLES20.GL_FLOAT:
+                        dst.putFloat(p + c * 4, v);
+                        break;
+                    case GLES20.GL_SHORT:
+                        v = c < 2 ? (v - scaleOffset[2 + c]) / scaleOffset[c] : v;
+                        dst.putShort(p + c * 2, toNormalizedShort(v));
+                        break;
+                    default:
+                        // GL_HALF_FLOAT o GL_HALF_FLOAT_OES
+                        dst.putShort(p + c * 2, toHalf(v));
+                        break;
+                }
+            }
+
+            if (color != null) {
+                int q = d + color.offset;
+                for (int c = 0; c < 4; c++) {
+                    float v = colorOffset >= 0 ? src[s + colorOffset + c] : constantColor[c];
+                    dst.put(q + c, toUnsignedByte(v));
+                }
+            }
+        }
+        dst.position(base + vertexCount * stride);
+    }
+
+    // -1..1 a short con signo (GL_SHORT normalizado)
+    public static short toNormalizedShort(float v) {
+        float clamped = Math.max(-1f, Math.min(1f, v));
+        return (short) Math.round(clamped * 32767f);
+    }
+
+    // 0..1 a short sin signo (GL_UNSIGNED_SHORT normalizado)
+    public static short toUnsignedShort(float v) {
+        float clamped = Math.max(0f, Math.min(1f, v));
+        return (short) Math.round(clamped * 65535f);
+    }
+
+    // 0..1 a byte sin signo (GL_UNSIGNED_BYTE normalizado)
+    public static byte toUnsignedByte(float v) {
+        float clamped = Math.max(0f, Math.min(1f, v));
+        return (byte) Math.round(clamped * 255f);
+    }
+
+    /**
+     * float a half float IEEE 754 (1 bit de signo, 5 de exponente, 10 de
+     * mantisa), redondeando al mas cercano. Fuera de rango da infinito.
+     */
+    public static short toHalf(float v) {
+        int bits = Float.floatToIntBits(v);
+        int sign = (bits >>> 16) & 0x8000;
+        int exponent = ((bits >>> 23) & 0xFF) - 127 + 15;
+        int mantissa = bits & 0x7FFFFF;
+
+        if (exponent >= 0x1F) {
+            // Infinito, NaN o demasiado grande
+            boolean nan = ((bits >>> 23) & 0xFF) == 0xFF && mantissa != 0;
+            return (short) (sign | 0x7C00 | (nan ? 0x200 : 0));
+        }
+        if (exponent <= 0) {
+            if (exponent < -10) {
+                return (short) sign;
+            }
+            // Subnormal: se agrega el 1 implicito y se corre
+            mantissa |= 0x800000;
+            int shift = 14 - exponent;
+            int half = mantissa >> shift;
+            if (((mantissa >> (shift - 1)) & 1) != 0) {
+                half++;
+            }
+            return (short) (sign | half);
+        }
+        int half = sign | (exponent << 10) | (mantissa >> 13);
+        // Redondeo; si la mantisa se desborda sube el exponente, que es lo correcto
+        if ((mantissa & 0x1000) != 0) {
+            half++;
+        }
+        return (short) half;
+    }
+
+    public static float fromHalf(short h) {
+        int sign = (h & 0x8000) << 16;
+        int exponent = (h >>> 10) & 0x1F;
+        int mantissa = h & 0x3FF;
+        if (exponent == 0) {
+            float value = mantissa / 1024f / 16384f;
+            return sign != 0 ? -value : value;
+        }
+        if (exponent == 0x1F) {
+            return Float.intBitsToFloat(sign | 0x7F800000 | (mantissa << 13));
+        }
+        return Float.intBitsToFloat(sign | ((exponent - 15 + 127) << 23) | (mantissa << 13));
+    }
+}
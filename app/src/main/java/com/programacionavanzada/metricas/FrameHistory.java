@@ -0,0 +1,165 @@
+package com.programacionavanzada.metricas;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Anillo con las metricas de los ultimos N cuadros, sin locks.
+ *
+ * <p>Solo el hilo GL escribe ({@link #record(long[])}); cualquier otro hilo
+ * puede leer. El lector copia los cuadros y luego descarta los que el
+ * escritor pudo haber pisado mientras copiaba.</p>
+ */
+public final class FrameHistory {
+
+    // Campos de cada cuadro
+    public static final int CPU_NANOS = 0;
+    public static final int GPU_NANOS = 1;          // -1 si no se pudo medir
+    public static final int DRAW_CALLS = 2;
+    public static final int PROGRAM_SWITCHES = 3;
+    public static final int BUFFER_UPLOADS = 4;
+    public static final int UPLOAD_BYTES = 5;
+    public static final int VERTICES = 6;
+    public static final int DIRECT_BYTES = 7;
+    public static final int STATE_CALLS = 8;        // cambios de estado enviados
+    public static final int STATE_CALLS_ELIDED = 9; // cambios redundantes evitados
+    public static final int LAYER_HITS = 10;        // capas pegadas desde su textura
+    public static final int LAYER_MISSES = 11;      // capas que hubo que volver a dibujar
+    public static final int LAYER_BYTES = 12;       // memoria de las capas en cache
+    public static final int FIELDS = 13;
+
+    public static final String[] FIELD_NAMES = {
+            "cpuNanos", "gpuNanos", "drawCalls", "programSwitches",
+            "bufferUploads", "uploadBytes", "vertices", "directBytes",
+            "stateCalls", "stateCallsElided", "layerHits", "layerMisses", "layerBytes"
+    };
+
+    private final int capacity;
+    // Un slot extra: es el que el escritor puede estar llenando mientras se lee
+    private final int slotCount;
+    private final AtomicLongArray slots;
+    // Cuadros terminados; el cuadro n vive en el slot n % slotCount
+    private final AtomicLong written = new AtomicLong();
+
+    public FrameHistory(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity debe ser positiva: " + capacity);
+        }
+        this.capacity = capacity;
+        this.slotCount = capacity + 1;
+        this.slots = new AtomicLongArray(slotCount * FIELDS);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    // Total de cuadros registrados desde que se creo
+    public long frameCount() {
+        return written.get();
+    }
+
+    /**
+     * Agrega un cuadro. {@code frame} tiene {@link #FIELDS} valores y se copia.
+     * Solo lo debe llamar un hilo.
+     */
+    public void record(long[] frame) {
+        long n = written.get();
+        int base = (int) (n % slotCount) * FIELDS;
+        for (int i = 0; i < FIELDS; i++) {
+            slots.set(base + i, frame[i]);
+        }
+        written.set(n + 1);
+    }
+
+    /**
+     * Copia un campo de los cuadros guardados, del mas viejo al mas nuevo,
+     * sin crear objetos.
+     *
+     * @return cuantos valores se escribieron en {@code dst}
+     */
+    public int copyField(int field, long[] dst) {
+        long end = written.get();
+        long start = Math.max(0, end - Math.min(capacity, dst.length));
+        int count = (int) (end - start);
+        for (int i = 0; i < count; i++) {
+            dst[i] = slots.get((int) ((start + i) % slotCount) * FIELDS + field);
+        }
+        int skipped = overwritten(start, end);
+        System.arraycopy(dst, skipped, dst, 0, count - skipped);
+        return count - skipped;
+    }
+
+    /**
+     * Copia de todos los cuadros guardados, del mas viejo al mas nuevo.
+     */
+    public long[][] snapshot() {
+        long end = written.get();
+        long start = Math.max(0, end - capacity);
+        long[][] frames = new long[(int) (end - start)][FIELDS];
+        for (int f = 0; f < frames.length; f++) {
+            int base = (int) ((start + f) % slotCount) * FIELDS;
+            for (int i = 0; i < FIELDS; i++) {
+                frames[f][i] = slots.get(base + i);
+            }
+        }
+        int skipped = overwritten(start, end);
+        return Arrays.copyOfRange(frames, skipped, frames.length);
+    }
+
+    /**
+     * Cuantos de los cuadros copiados [start, end) pudo pisar el escritor
+     * durante la copia: el cuadro k se pisa al escribir el k + slotCount.
+     */
+    private int overwritten(long start, long end) {
+        long firstValid = written.get() - slotCount + 1;
+        return (int) Math.max(0, Math.min(end, firstValid) - start);
+    }
+
+    /**
+     * Percentiles 50, 95 y 99 de un campo sobre los cuadros guardados.
+     * Los valores negativos (por ejemplo GPU sin medir) se ignoran.
+     */
+    public Summary summarize(int field) {
+        long[] values = new long[capacity];
+        int count = copyField(field, values);
+        int valid = 0;
+        for (int i = 0; i < count; i++) {
+            if (values[i] >= 0) {
+                values[valid++] = values[i];
+            }
+        }
+        Arrays.sort(values, 0, valid);
+        return new Summary(valid,
+                percentile(values, valid, 0.50),
+                percentile(values, valid, 0.95),
+                percentile(values, valid, 0.99));
+    }
+
+    /**
+     * Percentil por rango mas cercano sobre los primeros {@code count}
+     * valores ya ordenados; -1 si no hay valores.
+     */
+    static long percentile(long[] sorted, int count, double p) {
+        if (count == 0) {
+            return -1;
+        }
+        int rank = (int) Math.ceil(p * count);
+        return sorted[Math.max(0, Math.min(count, rank) - 1)];
+    }
+
+    public static final class Summary {
+        public final int samples;
+        public final long p50;
+        public final long p95;
+        public final long p99;
+
+        Summary(int samples, long p50, long p95, long p99) {
+            this.samples = samples;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.p99 = p99;
+        }
+    }
+}
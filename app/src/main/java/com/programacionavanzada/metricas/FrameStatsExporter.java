@@ -0,0 +1,96 @@
+package com.programacionavanzada.metricas;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Vuelca un {@link FrameHistory} a CSV (un cuadro por fila) o a JSON
+ * (resumen con percentiles, acierto de la cache de capas y los cuadros).
+ */
+public final class FrameStatsExporter {
+
+    public static final String CSV_FILE = "frame_stats.csv";
+    public static final String JSON_FILE = "frame_stats.json";
+
+    private FrameStatsExporter() {
+    }
+
+    public static void writeCsv(FrameHistory history, Writer out) throws IOException {
+        out.write(String.join(",", FrameHistory.FIELD_NAMES));
+        out.write('\n');
+        for (long[] frame : history.snapshot()) {
+            for (int i = 0; i < frame.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write(Long.toString(frame[i]));
+            }
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    public static void writeJson(FrameHistory history, Writer out) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n  \"summary\": {");
+        for (int f = 0; f < FrameHistory.FIELDS; f++) {
+            FrameHistory.Summary s = history.summarize(f);
+            sb.append(f == 0 ? "\n" : ",\n")
+                    .append("    \"").append(FrameHistory.FIELD_NAMES[f]).append("\": {")
+                    .append("\"samples\": ").append(s.samples)
+                    .append(", \"p50\": ").append(s.p50)
+                    .append(", \"p95\": ").append(s.p95)
+                    .append(", \"p99\": ").append(s.p99)
+                    .append('}');
+        }
+        long[][] frames = history.snapshot();
+        sb.append("\n  },\n  \"layerHitRate\": ").append(layerHitRate(frames));
+        sb.append(",\n  \"frames\": [");
+        for (int i = 0; i < frames.length; i++) {
+            sb.append(i == 0 ? "\n    [" : ",\n    [");
+            for (int j = 0; j < frames[i].length; j++) {
+                if (j > 0) {
+                    sb.append(", ");
+                }
+                sb.append(frames[i][j]);
+            }
+            sb.append(']');
+        }
+        sb.append("\n  ]\n}\n");
+        out.write(sb.toString());
+        out.flush();
+    }
+
+    /**
+     * Fraccion de capas que se pegaron desde su textura en todos los
+     * cuadros; -1 si ningun cuadro uso capas.
+     */
+    static double layerHitRate(long[][] frames) {
+        long hits = 0;
+        long total = 0;
+        for (long[] frame : frames) {
+            hits += frame[FrameHistory.LAYER_HITS];
+            total += frame[FrameHistory.LAYER_HITS] + frame[FrameHistory.LAYER_MISSES];
+        }
+        return total == 0 ? -1 : (double) hits / total;
+    }
+
+    /**
+     * Escribe ambos archivos en el almacenamiento privado de la app
+     * ({@link Context#getFilesDir()}) y devuelve la carpeta.
+     */
+    public static File export(Context context, FrameHistory history) throws IOException {
+        File dir = context.getFilesDir();
+        try (Writer csv = new FileWriter(new File(dir, CSV_FILE))) {
+            writeCsv(history, csv);
+        }
+        try (Writer json = new FileWriter(new File(dir, JSON_FILE))) {
+            writeJson(history, json);
+        }
+        return dir;
+    }
+}
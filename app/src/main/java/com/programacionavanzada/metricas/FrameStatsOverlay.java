@@ -0,0 +1,51 @@
+package com.programacionavanzada.metricas;
+
+import com.programacionavanzada.render.ShapeBatch;
+import com.programacionavanzada.render.ShapeBatchRenderer;
+
+/**
+ * Grafica de barras con el tiempo de CPU de los ultimos cuadros, dibujada
+ * abajo de la pantalla con un solo {@link ShapeBatch}. Cada barra es un
+ * cuadro; la linea horizontal marca el presupuesto de 60 fps.
+ */
+public class FrameStatsOverlay {
+
+    private static final int BARS = 120;
+    private static final long BUDGET_NANOS = 16_666_667L;
+    // Altura (en NDC) de una barra que dura el doble del presupuesto
+    private static final float HEIGHT = 0.4f;
+
+    private static final float[] OK = {0.1f, 0.7f, 0.2f, 0.8f};
+    private static final float[] SLOW = {0.9f, 0.1f, 0.1f, 0.8f};
+    private static final float[] BUDGET = {0.0f, 0.0f, 0.0f, 0.8f};
+
+    private final ShapeBatchRenderer renderer;
+    private final ShapeBatch batch;
+    // Se reutiliza cada cuadro para no crear basura
+    private final long[] values = new long[BARS];
+
+    // Necesita un contexto GL: se crea en onSurfaceCreated
+    public FrameStatsOverlay() {
+        renderer = new ShapeBatchRenderer(BARS * 4 + 4, BARS * 6 + 6);
+        batch = new ShapeBatch(renderer, BARS * 4 + 4, BARS * 6 + 6);
+    }
+
+    public void draw(FrameHistory history) {
+        int count = history.copyField(FrameHistory.CPU_NANOS, values);
+        float width = 2.0f / BARS;
+        float bottom = -1.0f;
+
+        batch.begin();
+        for (int i = 0; i < count; i++) {
+            float h = Math.min(HEIGHT, HEIGHT * values[i] / (2.0f * BUDGET_NANOS));
+            float x = -1.0f + (BARS - count + i) * width;
+            batch.addQuad(x, bottom, width * 0.8f, h, values[i] > BUDGET_NANOS ? SLOW : OK);
+        }
+        batch.addQuad(-1.0f, bottom + HEIGHT / 2, 2.0f, 0.005f, BUDGET);
+        batch.end();
+    }
+
+    public void release() {
+        renderer.release();
+    }
+}
@@ -0,0 +1,107 @@
+package com.programacionavanzada.metricas;
+
+import android.opengl.GLSurfaceView;
+
+import com.programacionavanzada.gl.AndroidGL;
+import com.programacionavanzada.gl.CountingGL;
+import com.programacionavanzada.gl.Gl;
+import com.programacionavanzada.gl.GlCounters;
+import com.programacionavanzada.gl.GlStateTracker;
+import com.programacionavanzada.gl.GpuTimer;
+
+import javax.microedition.khronos.egl.EGLConfig;
+import javax.microedition.khronos.opengles.GL10;
+
+/**
+ * Envuelve al renderer de la app y guarda en un {@link FrameHistory} lo que
+ * costo cada cuadro: tiempo de CPU de onDrawFrame, tiempo de GPU (si hay
+ * EXT_disjoint_timer_query) y los contadores de {@link GlCounters}.
+ *
+ * <p>El renderer envuelto debe llamar a {@link GlCounters#endFrame()} al
+ * terminar su onDrawFrame, como hace MyGLRenderer.</p>
+ */
+public class InstrumentedRenderer implements GLSurfaceView.Renderer {
+
+    public static final int DEFAULT_FRAMES = 600;
+
+    private final GLSurfaceView.Renderer renderer;
+    private final FrameHistory history;
+    private final long[] frame = new long[FrameHistory.FIELDS];
+
+    private CountingGL counting;
+    private GpuTimer gpuTimer;
+    private FrameStatsOverlay overlay;
+    private volatile boolean overlayEnabled;
+
+    public InstrumentedRenderer(GLSurfaceView.Renderer renderer) {
+        this(renderer, DEFAULT_FRAMES);
+    }
+
+    public InstrumentedRenderer(GLSurfaceView.Renderer renderer, int frames) {
+        this.renderer = renderer;
+        this.history = new FrameHistory(frames);
+    }
+
+    public FrameHistory getHistory() {
+        return history;
+    }
+
+    // Se puede llamar desde el hilo de la UI
+    public void setOverlayEnabled(boolean enabled) {
+        overlayEnabled = enabled;
+    }
+
+    @Override
+    public void onSurfaceCreated(GL10 gl, EGLConfig config) {
+        // Todo lo que dibuja pasa por Gl.api(), asi que se cuenta desde aqui
+        counting = new CountingGL(AndroidGL.INSTANCE);
+        Gl.setApi(counting);
+        renderer.onSurfaceCreated(gl, config);
+        // Despues del renderer: GlCapabilities ya leyo el contexto nuevo
+        gpuTimer = new GpuTimer();
+        overlay = new FrameStatsOverlay();
+    }
+
+    @Override
+    public void onSurfaceChanged(GL10 gl, int width, int height) {
+        renderer.onSurfaceChanged(gl, width, height);
+    }
+
+    @Override
+    public void onDrawFrame(GL10 gl) {
+        long start = System.nanoTime();
+        gpuTimer.begin();
+        renderer.onDrawFrame(gl);
+        long gpuNanos = gpuTimer.end();
+        long cpuNanos = System.nanoTime() - start;
+
+        frame[FrameHistory.CPU_NANOS] = cpuNanos;
+        frame[FrameHistory.GPU_NANOS] = gpuNanos;
+        frame[FrameHistory.DRAW_CALLS] = GlCounters.drawCallsLastFrame();
+        frame[FrameHistory.PROGRAM_SWITCHES] = GlCounters.programSwitchesLastFrame();
+        frame[FrameHistory.BUFFER_UPLOADS] = GlCounters.bufferUploadsLastFrame();
+        frame[FrameHistory.UPLOAD_BYTES] = GlCounters.uploadBytesLastFrame();
+        frame[FrameHistory.VERTICES] = GlCounters.verticesLastFrame();
+        frame[FrameHistory.DIRECT_BYTES] = GlCounters.directBytesLastFrame();
+        frame[FrameHistory.STATE_CALLS] = GlCounters.stateCallsIssuedLastFrame();
+        frame[FrameHistory.STATE_CALLS_ELIDED] = GlCounters.stateCallsElidedLastFrame();
+        frame[FrameHistory.LAYER_HITS] = GlCounters.layerHitsLastFrame();
+        frame[FrameHistory.LAYER_MISSES] = GlCounters.layerMissesLastFrame();
+        frame[FrameHistory.LAYER_BYTES] = GlCounters.layerBytes();
+        history.record(frame);
+
+        if (overlayEnabled) {
+            // El overlay no debe aparecer en las metricas que dibuja
+            setPaused(true);
+            overlay.draw(history);
+            setPaused(false);
+        }
+    }
+
+    private void setPaused(boolean paused) {
+        counting.setPaused(paused);
+        if (Gl.api() instanceof GlStateTracker) {
+            ((GlStateTracker) Gl.api()).setPaused(paused);
+        }
+    }
+}
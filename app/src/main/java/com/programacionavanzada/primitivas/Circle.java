@@ -1,19 +1,30 @@
 package com.programacionavanzada.primitivas;
 
-import static com.programacionavanzada.MyGLRenderer.loadShader;
-
 import android.opengl.GLES20;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import com.programacionavanzada.geometria.Camera;
+import com.programacionavanzada.geometria.CircleLod;
+import com.programacionavanzada.geometria.CircleTessellator;
+import com.programacionavanzada.gl.DirectBuffers;
+import com.programacionavanzada.gl.GLApi;
+import com.programacionavanzada.gl.Gl;
+import com.programacionavanzada.gl.PooledBuffer;
+import com.programacionavanzada.gl.ProgramBinding;
+import com.programacionavanzada.gl.ShaderProgram;
+import com.programacionavanzada.gl.ShaderProgramCache;
+
 import java.nio.FloatBuffer;
-import java.util.ArrayList;
-import java.util.List;
-public class Circle {
+import java.util.Arrays;
+
+public class Circle extends Shape {
 
-    private final FloatBuffer vertexBuffer;
+    private FloatBuffer vertexBuffer;
 
     private final int mProgram;
+    private final ShaderProgram program;
+    private final ProgramBinding binding;
+    private VertexSource source; // vertices propios en memoria del cliente o VBO; null = abanico compartido
+    private PooledBuffer vertexMemory; // prestada por el pool del hilo GL; null si se adopto el buffer
 
     private int positionHandle;
     private int colorHandle;
@@ -21,34 +32,130 @@ public class Circle {
     static final int COORD_POR_VERTEX = 3;
     float color[] = {0.9f, 0.8f, 0.0f, 1.0f};
     private final int vertexStride = COORD_POR_VERTEX * 4;
-    private final int vertexCount;
-    private float circleCoords[];
+    private int vertexCount;
 
-    public Circle(float radius, int numPoints) {
+    // Nivel de detalle automatico (ver CircleLod)
+    private final float radius;
+    private boolean autoLod;
+    private int lodGeneration;
+    // > 0: se dibuja el abanico unitario compartido de ese bucket, escalado por radius en la MVP
+    private int fanSegments;
+
+    // Abanicos unitarios de CircleLod en la GPU, uno por bucket, para todos los circulos con LOD automatico
+    private static final VertexSource[] UNIT_FANS = new VertexSource[CircleLod.BUCKETS.length];
 
-        circleCoords = createCircleCoords(radius,numPoints);
-        vertexCount = circleCoords.length/COORD_POR_VERTEX;
+    public Circle(float radius, int numPoints) {
 
-        ByteBuffer byteBuffer = ByteBuffer.allocateDirect(circleCoords.length * 4);
-        byteBuffer.order(ByteOrder.nativeOrder());
-        vertexBuffer = byteBuffer.asFloatBuffer();
-        vertexBuffer.put(circleCoords);
+        this.radius = radius;
+        float[] coords = createCircleCoords(radius, numPoints);
+        vertexCount = coords.length / COORD_POR_VERTEX;
+        vertexMemory = DirectBuffers.pool().acquire(coords.length * 4);
+        vertexBuffer = vertexMemory.floats();
+        vertexBuffer.put(coords);
         vertexBuffer.position(0);
+        source = new VertexSource(vertexBuffer);
+
+        program = ShaderProgramCache.shared().acquire(vertexShaderCode, fragmentShaderCode);
+        mProgram = program.handle;
+        binding = program.binding();
+
+    }
+
+    /**
+     * Circulo cuyo numero de segmentos depende de su tamano en pantalla. No
+     * tiene vertices propios: dibuja el abanico unitario de su bucket, que
+     * comparten todos los circulos de ese bucket en un solo VBO, y el radio
+     * se aplica como escala en la MVP. Cambiar de nivel no tesela ni sube nada.
+     */
+    public Circle(float radius) {
+        this.radius = radius;
+        autoLod = true;
+        lodGeneration = CircleLod.generation();
+        useUnitFan(CircleLod.segmentsFor(radius));
+
+        program = ShaderProgramCache.shared().acquire(vertexShaderCode, fragmentShaderCode);
+        mProgram = program.handle;
+        binding = program.binding();
+    }
+
+    /**
+     * Circulo con nivel de detalle automatico cuyo abanico ya se teselo y
+     * empaco en otro hilo (ver GeometryLoader). Si el viewport cambio
+     * mientras tanto, el primer draw() pasa al abanico compartido del nuevo
+     * bucket, igual que {@link #Circle(float)}.
+     */
+    public Circle(float radius, FloatBuffer packed) {
+        this.radius = radius;
+        vertexBuffer = packed;
+        source = new VertexSource(packed);
+        vertexCount = packed.remaining() / COORD_POR_VERTEX;
+        autoLod = true;
+        // Fuerza a revisar los segmentos en el primer draw()
+        lodGeneration = CircleLod.generation() - 1;
+
+        program = ShaderProgramCache.shared().acquire(vertexShaderCode, fragmentShaderCode);
+        mProgram = program.handle;
+        binding = program.binding();
+    }
 
-        int vertexShader = loadShader(GLES20.GL_VERTEX_SHADER, vertexShaderCode);
-        int fragmentShader = loadShader(GLES20.GL_FRAGMENT_SHADER, fragmentShaderCode);
+    private void updateLod() {
+        lodGeneration = CircleLod.generation();
+        int segments = CircleLod.segmentsFor(radius);
+        if (CircleTessellator.fanVertexCount(segments) != vertexCount) {
+            useUnitFan(segments);
+        }
+    }
 
-        mProgram = GLES20.glCreateProgram();
-        GLES20.glAttachShader(mProgram, vertexShader);
-        GLES20.glAttachShader(mProgram, fragmentShader);
-        GLES20.glLinkProgram(mProgram);
+    // Deja los vertices propios y pasa al abanico compartido del bucket
+    private void useUnitFan(int segments) {
+        fanSegments = segments;
+        vertexCount = CircleTessellator.fanVertexCount(segments);
+        releaseOwnVertices();
+    }
 
+    private void releaseOwnVertices() {
+        if (source != null) {
+            source.releaseGpuBuffers();
+            source = null;
+        }
+        vertexBuffer = null;
+        if (vertexMemory != null) {
+            vertexMemory.release();
+            vertexMemory = null;
+        }
+    }
+
+    // El abanico unitario del bucket; se sube a la GPU la primera vez que se usa
+    private static VertexSource unitFan(int segments) {
+        int bucket = Arrays.binarySearch(CircleLod.BUCKETS, segments);
+        VertexSource fan = UNIT_FANS[bucket];
+        if (fan == null) {
+            fan = new VertexSource(DirectBuffers.pack(CircleLod.unitFan(segments)));
+            fan.useGpuBuffers(GLES20.GL_STATIC_DRAW);
+            UNIT_FANS[bucket] = fan;
+        }
+        return fan;
+    }
+
+    /**
+     * Olvida los VBO de los abanicos compartidos; se llama desde
+     * onSurfaceCreated, como GpuBuffer.onContextLost(). El siguiente draw()
+     * de cada bucket los vuelve a subir.
+     */
+    public static void onContextLost() {
+        Arrays.fill(UNIT_FANS, null);
+    }
+
+    // Lo que se dibuja: los vertices propios o el abanico compartido
+    private VertexSource vertices() {
+        return source != null ? source : unitFan(fanSegments);
     }
 
     private final String vertexShaderCode =
             "attribute vec4 vPosition;" +
+                    "uniform mat4 uMVPMatrix;" +
                     "void main(){" +
-                    "gl_Position = vPosition;" +
+                    "gl_Position = uMVPMatrix * vPosition;" +
                     "gl_PointSize = 50.0;" +
                     "}";
 
@@ -59,52 +166,70 @@ public class Circle {
                     "gl_FragColor = vColor;" +
                     "}";
 
-    private float[] createCircleCoords(float radius, int numPoints) {
-
-        List<Float> coords = new ArrayList<>();
-        coords.add(0.0f); //para el centro en x
-        coords.add(0.0f); //para el centro en y
-        coords.add(0.0f); //para el centro en z
+    /**
+     * Vertices (x, y, z) de un abanico centrado en el origen: primero el centro
+     * y luego numPoints + 1 puntos del borde (el ultimo repite al primero).
+     */
+    public static float[] createCircleCoords(float radius, int numPoints) {
+        // z queda en 0.0f porque el arreglo es nuevo; el tessellator solo escribe x, y
+        float[] arrayV = new float[CircleTessellator.fanVertexCount(numPoints) * COORD_POR_VERTEX];
+        CircleTessellator.fan(0.0f, 0.0f, radius, numPoints, arrayV, 0, COORD_POR_VERTEX);
+        return arrayV;
+    }
 
-        double angle = 2.0 * Math.PI / numPoints; // calculo del angulo dependiendo del numero de puntos
+    @Override
+    public int getProgramHandle() {
+        return mProgram;
+    }
 
-        for (int i = 0; i <= numPoints; i++) {
-            double angle2 = angle * i;
-            coords.add((float) (radius * Math.cos(angle2)));
-            coords.add((float) (radius * Math.sin(angle2)));
-            coords.add(0.0f);
+    @Override
+    public int getBufferHandle() {
+        return vertices().getBufferHandle();
+    }
 
+    @Override
+    public void draw(Camera camera){
+        GLApi gl = Gl.api();
+        if (autoLod && lodGeneration != CircleLod.generation()) {
+            updateLod();
         }
 
-        float[] arrayV = new float[coords.size()];
-        for(int i = 0; i<coords.size(); i++){
-            arrayV[i] = coords.get(i);
-        }
+        gl.glUseProgram(mProgram);
 
-        return arrayV;
-    }
+        VertexSource vertices = vertices();
+        positionHandle = binding.positionHandle;
+        vertices.enable(gl, positionHandle, COORD_POR_VERTEX, vertexStride);
 
-    public void draw(){
-        GLES20.glUseProgram(mProgram);
+        colorHandle = binding.colorHandle;
+        gl.glUniform4fv(colorHandle, 1, color, 0);
+        if (source != null) {
+            uploadMvp(gl, binding.mvpHandle, camera);
+        } else {
+            uploadMvp(gl, binding.mvpHandle, camera, radius);
+        }
 
-        positionHandle = GLES20.glGetAttribLocation(mProgram, "vPosition");
-        GLES20.glEnableVertexAttribArray(positionHandle);
+        gl.glDrawArrays(GLES20.GL_TRIANGLE_FAN, 0, vertexCount);
 
-        GLES20.glVertexAttribPointer(
-                positionHandle, //GUARDA LOS DATOS DE LA VARIABLE 'vPosition'
-                COORD_POR_VERTEX, //CADA PUNTO TIENE 3 COORDENADAS (XYZ)
-                GLES20.GL_FLOAT, //Los datos son numeros decimales (floats)
-                false, //No normalizamos los numeros
-                vertexStride, //Cada punto ocupa 12 bytes en la memoria
-                vertexBuffer //Lee los datos de este contenedor de memoria
-        );
+        vertices.disable(gl, positionHandle);
 
-        colorHandle = GLES20.glGetUniformLocation(mProgram, "vColor");
-        GLES20.glUniform4fv(colorHandle, 1, color, 0);
+    }
 
-        GLES20.glDrawArrays(GLES20.GL_TRIANGLE_FAN, 0, vertexCount);
+    // Con LOD automatico el abanico compartido ya esta en un VBO
+    public void useGpuBuffers(int usage) {
+        if (source != null) {
+            source.useGpuBuffers(usage);
+        }
+    }
 
-        GLES20.glDisableVertexAttribArray(positionHandle);
+    public void releaseGpuBuffers() {
+        if (source != null) {
+            source.releaseGpuBuffers();
+        }
+    }
 
+    // Suelta el programa compartido cuando la figura ya no se va a dibujar
+    public void release() {
+        ShaderProgramCache.shared().release(program);
+        releaseOwnVertices();
     }
 }
@@ -0,0 +1,175 @@
+package com.programacionavanzada.primitivas;
+
+import android.opengl.GLES20;
+
+import com.programacionavanzada.geometria.Camera;
+import com.programacionavanzada.gl.DirectBuffers;
+import com.programacionavanzada.gl.GLApi;
+import com.programacionavanzada.gl.Gl;
+import com.programacionavanzada.gl.GpuBuffer;
+import com.programacionavanzada.gl.PooledBuffer;
+import com.programacionavanzada.gl.ProgramBinding;
+import com.programacionavanzada.gl.ShaderProgram;
+import com.programacionavanzada.gl.ShaderProgramCache;
+import com.programacionavanzada.gl.VertexFormat;
+import com.programacionavanzada.gl.VertexPacker;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Figura estatica con los vertices en un {@link VertexFormat} compacto,
+ * siempre en un VBO (GL_STATIC_DRAW).
+ *
+ * <p>Sirve para mallas grandes que no cambian: con
+ * {@link VertexFormat#POSITION_2S} un vertice ocupa 4 bytes en lugar de
+ * los 12 de Triangles. Si el formato no trae color se usa
+ * {@link #setColor(float, float, float, float)} para toda la figura.</p>
+ */
+public class CompactShape extends Shape {
+
+    private static final String vertexShaderCode =
+            "attribute vec4 vPosition;" +
+                    "uniform mat4 uMVPMatrix;" +
+                    "uniform vec4 uPosTransform;" +
+                    "void main(){" +
+                    "gl_Position = uMVPMatrix * vec4(vPosition.xy * uPosTransform.xy + uPosTransform.zw, 0.0, 1.0);" +
+                    "}";
+
+    private static final String fragmentShaderCode =
+            "precision mediump float;" +
+                    "uniform vec4 vColor;" +
+                    "void main(){" +
+                    "gl_FragColor = vColor;" +
+                    "}";
+
+    // Con color por vertice
+    private static final String colorVertexShaderCode =
+            "attribute vec4 vPosition;" +
+                    "attribute vec4 aColor;" +
+                    "uniform mat4 uMVPMatrix;" +
+                    "uniform vec4 uPosTransform;" +
+                    "varying vec4 vVertexColor;" +
+                    "void main(){" +
+                    "gl_Position = uMVPMatrix * vec4(vPosition.xy * uPosTransform.xy + uPosTransform.zw, 0.0, 1.0);" +
+                    "vVertexColor = aColor;" +
+                    "}";
+
+    private static final String colorFragmentShaderCode =
+            "precision mediump float;" +
+                    "varying vec4 vVertexColor;" +
+                    "void main(){" +
+                    "gl_FragColor = vVertexColor;" +
+                    "}";
+
+    private final int mode;
+    private final VertexFormat format;
+    private final int vertexCount;
+    // Escala (xy) y desplazamiento (zw); identidad si las posiciones no son short
+    private final float[] positionTransform = {1f, 1f, 0f, 0f};
+
+    private final ShaderProgram program;
+    private final ProgramBinding binding;
+    private final int positionTransformHandle;
+    // Se conserva para volver a subir el VBO si se pierde el contexto
+    private final PooledBuffer vertexMemory;
+    private final GpuBuffer vbo = GpuBuffer.vertices(GLES20.GL_STATIC_DRAW);
+
+    float color[] = {0.0f, 0.0f, 0.0f, 1.0f};
+
+    /**
+     * @param mode            GL_TRIANGLES, GL_LINES, GL_POINTS...
+     * @param coords          vertices de {@code floatsPerVertex} floats, la posicion primero
+     * @param positionSize    floats de posicion en {@code coords} (2 o 3; z se ignora)
+     * @param colorOffset     donde empieza el RGBA dentro de cada vertice, o -1 si no hay
+     */
+    public CompactShape(int mode, VertexFormat format, float[] coords, int floatsPerVertex,
+                        int positionSize, int colorOffset) {
+        if (format.hasColor() && colorOffset < 0) {
+            throw new IllegalArgumentException("El formato lleva color y coords no");
+        }
+        this.mode = mode;
+        this.format = format;
+        this.vertexCount = coords.length / floatsPerVertex;
+
+        if (format.isQuantized()) {
+            VertexPacker.bounds(coords, floatsPerVertex, vertexCount, positionTransform);
+        }
+        vertexMemory = DirectBuffers.pool().acquire(vertexCount * format.stride());
+        ByteBuffer bytes = vertexMemory.bytes();
+        VertexPacker.pack(format, coords, floatsPerVertex, positionSize, colorOffset, vertexCount,
+                positionTransform, null, bytes);
+        vbo.upload(bytes, vertexCount * format.stride());
+        vbo.unbind();
+
+        if (format.hasColor()) {
+            program = ShaderProgramCache.shared().acquire(colorVertexShaderCode, colorFragmentShaderCode);
+        } else {
+            program = ShaderProgramCache.shared().acquire(vertexShaderCode, fragmentShaderCode);
+        }
+        binding = program.binding();
+        positionTransformHandle = program.uniformLocation(VertexFormat.POSITION_TRANSFORM);
+    }
+
+    /**
+     * Triangulos con solo posicion, en el formato de Triangles (x, y, z).
+     */
+    public static CompactShape triangles(VertexFormat format, float[] coords) {
+        return new CompactShape(GLES20.GL_TRIANGLES, format, coords, 3, 3, -1);
+    }
+
+    public void setColor(float r, float g, float b, float a) {
+        color[0] = r;
+        color[1] = g;
+        color[2] = b;
+        color[3] = a;
+    }
+
+    public VertexFormat getFormat() {
+        return format;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    // Bytes que ocupan los vertices en la GPU
+    public int getSizeBytes() {
+        return vertexCount * format.stride();
+    }
+
+    @Override
+    public int getProgramHandle() {
+        return binding.program;
+    }
+
+    @Override
+    public int getBufferHandle() {
+        return vbo.getHandle();
+    }
+
+    @Override
+    public void draw(Camera camera) {
+        GLApi gl = Gl.api();
+        gl.glUseProgram(binding.program);
+
+        vbo.bind();
+        format.enable(gl, program, 0);
+
+        if (!format.hasColor()) {
+            gl.glUniform4fv(binding.colorHandle, 1, color, 0);
+        }
+        uploadMvp(gl, binding.mvpHandle, camera);
+        gl.glUniform4fv(positionTransformHandle, 1, positionTransform, 0);
+
+        gl.glDrawArrays(mode, 0, vertexCount);
+
+        format.disable(gl, program);
+        vbo.unbind();
+    }
+
+    public void release() {
+        ShaderProgramCache.shared().release(program);
+        vbo.release();
+        vertexMemory.release();
+    }
+}
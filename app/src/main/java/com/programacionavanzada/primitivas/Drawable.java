@@ -0,0 +1,19 @@
+package com.programacionavanzada.primitivas;
+
+import com.programacionavanzada.geometria.Camera;
+
+/**
+ * Lo que una figura necesita ofrecer para entrar en una
+ * {@link com.programacionavanzada.render.RenderQueue}: dibujarse y decir
+ * con que programa y buffer lo hace, para ordenar por estado.
+ */
+public interface Drawable {
+
+    void draw(Camera camera);
+
+    // Programa de GPU que usa draw()
+    int getProgramHandle();
+
+    // VBO que usa draw(); 0 si dibuja desde la memoria del cliente
+    int getBufferHandle();
+}
@@ -0,0 +1,28 @@
+package com.programacionavanzada.primitivas;
+
+import android.opengl.GLES20;
+
+/**
+ * Como {@link Lines}, pero las lineas se pueden cambiar en cada cuadro.
+ * Mismo formato: pares {x1,y1, x2,y2, ...}.
+ */
+public class DynamicLines extends DynamicShape {
+
+    static final int COORDS_POR_VERTEX = 2;
+
+    private static final String vertexShaderCode = "attribute vec4 vPosition;" +
+            "uniform mat4 uMVPMatrix;" +
+            "void main(){" +
+            "gl_Position = uMVPMatrix * vPosition;" +
+            "}";
+
+    public DynamicLines(int maxVertices) {
+        super(GLES20.GL_LINES, COORDS_POR_VERTEX, maxVertices, vertexShaderCode);
+    }
+
+    public DynamicLines(float[] coords) {
+        this(coords.length / COORDS_POR_VERTEX);
+        update(coords, 0, coords.length);
+        setVertexCount(coords.length / COORDS_POR_VERTEX);
+    }
+}
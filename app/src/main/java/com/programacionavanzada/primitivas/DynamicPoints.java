@@ -0,0 +1,30 @@
+package com.programacionavanzada.primitivas;
+
+import android.opengl.GLES20;
+
+/**
+ * Como {@link Points}, pero los puntos se pueden mover en cada cuadro
+ * (particulas, graficas en vivo). Mismo formato: {x1,y1,z1, x2,y2,z2, ...}.
+ */
+public class DynamicPoints extends DynamicShape {
+
+    static final int COORDS_POR_VERTEX = 3;
+
+    private static final String vertexShaderCode = "attribute vec4 vPosition;" +
+            "uniform mat4 uMVPMatrix;" +
+            "void main(){" +
+            "gl_Position = uMVPMatrix * vPosition;" +
+            "gl_PointSize = 10.0;" +
+            "}";
+
+    public DynamicPoints(int maxPoints) {
+        super(GLES20.GL_POINTS, COORDS_POR_VERTEX, maxPoints, vertexShaderCode);
+    }
+
+    // Todos los puntos de una vez
+    public DynamicPoints(float[] coords) {
+        this(coords.length / COORDS_POR_VERTEX);
+        update(coords, 0, coords.length);
+        setVertexCount(coords.length / COORDS_POR_VERTEX);
+    }
+}
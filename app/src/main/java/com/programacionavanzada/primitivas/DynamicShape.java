@@ -0,0 +1,121 @@
+package com.programacionavanzada.primitivas;
+
+import android.opengl.GLES20;
+
+import com.programacionavanzada.geometria.Camera;
+import com.programacionavanzada.gl.GLApi;
+import com.programacionavanzada.gl.Gl;
+import com.programacionavanzada.gl.ProgramBinding;
+import com.programacionavanzada.gl.ShaderProgram;
+import com.programacionavanzada.gl.ShaderProgramCache;
+import com.programacionavanzada.gl.StreamingBuffer;
+
+/**
+ * Base de las primitivas cuyos vertices cambian en cada cuadro
+ * ({@link DynamicPoints}, {@link DynamicLines}, {@link DynamicTriangles}).
+ *
+ * <p>A diferencia de Points, Lines y Triangles, los vertices se pueden
+ * reescribir con {@link #update(float[], int, int)} sin crear otra figura:
+ * solo se sube a la GPU el rango que cambio (ver {@link StreamingBuffer}).</p>
+ */
+public abstract class DynamicShape extends Shape {
+
+    private final int mode;
+    private final int coordsPerVertex;
+    private final int maxVertices;
+
+    private final ShaderProgram program;
+    private final ProgramBinding binding;
+    private final StreamingBuffer buffer;
+
+    private int vertexCount;
+    float color[] = {0.0f, 0.0f, 0.0f, 1.0f};
+
+    private static final String fragmentShaderCode =
+            "precision mediump float;" +
+                    "uniform vec4 vColor;" +
+                    "void main(){" +
+                    "gl_FragColor = vColor;" +
+                    "}";
+
+    /**
+     * @param mode        GL_POINTS, GL_LINES, GL_TRIANGLES...
+     * @param maxVertices vertices que caben; se reserva todo desde el inicio
+     */
+    protected DynamicShape(int mode, int coordsPerVertex, int maxVertices, String vertexShaderCode) {
+        this.mode = mode;
+        this.coordsPerVertex = coordsPerVertex;
+        this.maxVertices = maxVertices;
+        buffer = new StreamingBuffer(maxVertices * coordsPerVertex);
+        program = ShaderProgramCache.shared().acquire(vertexShaderCode, fragmentShaderCode);
+        binding = program.binding();
+    }
+
+    /**
+     * Copia {@code src[offset .. offset + count)} a las mismas posiciones de
+     * la figura. {@code src} tiene el mismo formato que el arreglo del
+     * constructor de la primitiva estatica (coordsPerVertex floats por vertice).
+     */
+    public void update(float[] src, int offset, int count) {
+        buffer.write(src, offset, offset, count);
+    }
+
+    /**
+     * Cuantos vertices se dibujan, como mucho los del constructor.
+     */
+    public void setVertexCount(int count) {
+        if (count < 0 || count > maxVertices) {
+            throw new IllegalArgumentException("vertexCount fuera de rango: " + count);
+        }
+        vertexCount = count;
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public void setColor(float r, float g, float b, float a) {
+        color[0] = r;
+        color[1] = g;
+        color[2] = b;
+        color[3] = a;
+    }
+
+    @Override
+    public int getProgramHandle() {
+        return program.handle;
+    }
+
+    // El VBO rota entre cuadros (StreamingBuffer): no sirve para ordenar
+    @Override
+    public int getBufferHandle() {
+        return 0;
+    }
+
+    @Override
+    public void draw(Camera camera) {
+        if (vertexCount == 0) {
+            return;
+        }
+        GLApi gl = Gl.api();
+        gl.glUseProgram(program.handle);
+
+        int positionHandle = binding.positionHandle;
+        gl.glEnableVertexAttribArray(positionHandle);
+        buffer.bind();
+        gl.glVertexAttribPointer(positionHandle, coordsPerVertex, GLES20.GL_FLOAT, false, coordsPerVertex * 4, 0);
+
+        gl.glUniform4fv(binding.colorHandle, 1, color, 0);
+        uploadMvp(gl, binding.mvpHandle, camera);
+        gl.glDrawArrays(mode, 0, vertexCount);
+
+        gl.glDisableVertexAttribArray(positionHandle);
+        buffer.unbind();
+    }
+
+    // Suelta el programa compartido y los VBOs
+    public void release() {
+        ShaderProgramCache.shared().release(program);
+        buffer.release();
+    }
+}
@@ -0,0 +1,28 @@
+package com.programacionavanzada.primitivas;
+
+import android.opengl.GLES20;
+
+/**
+ * Como {@link Triangles}, pero los vertices se pueden cambiar en cada cuadro.
+ * Mismo formato: {x1,y1,z1, x2,y2,z2, x3,y3,z3, ...}.
+ */
+public class DynamicTriangles extends DynamicShape {
+
+    static final int COORDS_POR_VERTEX = 3;
+
+    private static final String vertexShaderCode = "attribute vec4 vPosition;" +
+            "uniform mat4 uMVPMatrix;" +
+            "void main(){" +
+            "gl_Position = uMVPMatrix * vPosition;" +
+            "}";
+
+    public DynamicTriangles(int maxVertices) {
+        super(GLES20.GL_TRIANGLES, COORDS_POR_VERTEX, maxVertices, vertexShaderCode);
+    }
+
+    public DynamicTriangles(float[] coords) {
+        this(coords.length / COORDS_POR_VERTEX);
+        update(coords, 0, coords.length);
+        setVertexCount(coords.length / COORDS_POR_VERTEX);
+    }
+}
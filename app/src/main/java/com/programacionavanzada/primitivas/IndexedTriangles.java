@@ -0,0 +1,152 @@
+package com.programacionavanzada.primitivas;
+
+import android.opengl.GLES20;
+
+import com.programacionavanzada.geometria.Camera;
+import com.programacionavanzada.geometria.IndexedMesh;
+import com.programacionavanzada.geometria.MeshOptimizer;
+import com.programacionavanzada.geometria.Triangulator;
+import com.programacionavanzada.gl.DirectBuffers;
+import com.programacionavanzada.gl.GLApi;
+import com.programacionavanzada.gl.Gl;
+import com.programacionavanzada.gl.GlCapabilities;
+import com.programacionavanzada.gl.GpuBuffer;
+import com.programacionavanzada.gl.PooledBuffer;
+import com.programacionavanzada.gl.ProgramBinding;
+import com.programacionavanzada.gl.ShaderProgram;
+import com.programacionavanzada.gl.ShaderProgramCache;
+
+/**
+ * Lo mismo que {@link Triangles} pero indexado, como {@link Square}: cada
+ * vertice se guarda una vez y se dibuja con glDrawElements desde un VBO y
+ * un IBO estaticos.
+ *
+ * <p>{@link #fromSoup(float[])} pasa las coordenadas de Triangles por
+ * {@link MeshOptimizer}. Los indices van en 16 bits si alcanzan; si no, en
+ * 32 bits, que necesitan GLES 3.0 o OES_element_index_uint.</p>
+ */
+public class IndexedTriangles extends Shape {
+
+    private final ShaderProgram program;
+    private final ProgramBinding binding;
+    private final int coordsPerVertex;
+    private final int indexCount;
+    private final int indexType;
+
+    // Se conservan para volver a subir si se pierde el contexto
+    private final PooledBuffer vertexMemory;
+    private final PooledBuffer indexMemory;
+    private final GpuBuffer vbo = GpuBuffer.vertices(GLES20.GL_STATIC_DRAW);
+    private final GpuBuffer ibo = GpuBuffer.indices(GLES20.GL_STATIC_DRAW);
+
+    float color[] = {0.0f, 0.0f, 0.0f, 1.0f};
+
+    // Los mismos shaders que Triangles: comparten programa en la cache
+    private final String vertexShaderCode =
+            "attribute vec4 vPosition;"+
+                    "uniform mat4 uMVPMatrix;"+
+                    "void main(){" +
+                    "gl_Position = uMVPMatrix * vPosition;"+
+                    "}";
+
+    private final String fragmentShaderCode =
+            "precision mediump float;"+
+                    "uniform vec4 vColor;" +
+                    "void main(){"+
+                    "gl_FragColor = vColor;"+
+                    "}";
+
+    public IndexedTriangles(IndexedMesh mesh) {
+        coordsPerVertex = mesh.coordsPerVertex;
+        indexCount = mesh.indexCount();
+
+        vertexMemory = DirectBuffers.pool().acquire(mesh.vertices.length * 4);
+        vertexMemory.floats().put(mesh.vertices);
+        vbo.upload(vertexMemory.bytes(), mesh.vertices.length * 4);
+        vbo.unbind();
+
+        if (mesh.needsIntIndices()) {
+            if (!GlCapabilities.isEs3() && !GlCapabilities.hasExtension("GL_OES_element_index_uint")) {
+                throw new IllegalStateException("La malla tiene " + mesh.vertexCount()
+                        + " vertices y el driver no soporta indices de 32 bits");
+            }
+            indexType = GLES20.GL_UNSIGNED_INT;
+            indexMemory = DirectBuffers.pool().acquire(indexCount * 4);
+            indexMemory.ints().put(mesh.indices);
+        } else {
+            indexType = GLES20.GL_UNSIGNED_SHORT;
+            indexMemory = DirectBuffers.pool().acquire(indexCount * 2);
+            indexMemory.shorts().put(mesh.toShortIndices());
+        }
+        ibo.upload(indexMemory.bytes(), mesh.indexBytes());
+        ibo.unbind();
+
+        program = ShaderProgramCache.shared().acquire(vertexShaderCode, fragmentShaderCode);
+        binding = program.binding();
+    }
+
+    /**
+     * Triangulos sueltos con el formato de {@link Triangles}
+     * ({x1,y1,z1, x2,y2,z2, x3,y3,z3, ...}), soldados y reordenados.
+     */
+    public static IndexedTriangles fromSoup(float[] coords) {
+        return new IndexedTriangles(MeshOptimizer.optimize(coords, 3, MeshOptimizer.DEFAULT_EPSILON, null));
+    }
+
+    /**
+     * Poligono relleno, concavo o con hoyos, triangulado con {@link Triangulator}.
+     *
+     * @param xy         contorno y despues cada hoyo, {x1,y1, x2,y2, ...}
+     * @param holeStarts vertice donde empieza cada hoyo, o {@code null}
+     */
+    public static IndexedTriangles fromPolygon(float[] xy, int[] holeStarts) {
+        int[] indices = new Triangulator().triangulate(xy, holeStarts, 2);
+        return new IndexedTriangles(Triangulator.toIndexedMesh(xy, 2, indices));
+    }
+
+    public void setColor(float r, float g, float b, float a) {
+        color[0] = r;
+        color[1] = g;
+        color[2] = b;
+        color[3] = a;
+    }
+
+    @Override
+    public int getProgramHandle() {
+        return binding.program;
+    }
+
+    @Override
+    public int getBufferHandle() {
+        return vbo.getHandle();
+    }
+
+    @Override
+    public void draw(Camera camera) {
+        GLApi gl = Gl.api();
+        gl.glUseProgram(binding.program);
+
+        gl.glEnableVertexAttribArray(binding.positionHandle);
+        vbo.bind();
+        gl.glVertexAttribPointer(binding.positionHandle, coordsPerVertex, GLES20.GL_FLOAT, false,
+                coordsPerVertex * 4, 0);
+
+        gl.glUniform4fv(binding.colorHandle, 1, color, 0);
+        uploadMvp(gl, binding.mvpHandle, camera);
+
+        ibo.bind();
+        gl.glDrawElements(GLES20.GL_TRIANGLES, indexCount, indexType, 0);
+
+        gl.glDisableVertexAttribArray(binding.positionHandle);
+        vbo.unbind();
+        ibo.unbind();
+    }
+
+    public void release() {
+        ShaderProgramCache.shared().release(program);
+        vbo.release();
+        ibo.release();
+        vertexMemory.release();
+        indexMemory.release();
+    }
+}
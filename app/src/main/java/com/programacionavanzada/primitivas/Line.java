@@ -1,13 +1,26 @@
 package com.programacionavanzada.primitivas;
 import android.opengl.GLES20;
 
+import com.programacionavanzada.geometria.Camera;
+import com.programacionavanzada.gl.DirectBuffers;
+import com.programacionavanzada.gl.GLApi;
+import com.programacionavanzada.gl.Gl;
+import com.programacionavanzada.gl.PooledBuffer;
+import com.programacionavanzada.gl.ProgramBinding;
+import com.programacionavanzada.gl.ShaderProgram;
+import com.programacionavanzada.gl.ShaderProgramCache;
+
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 
-public class Line {
+public class Line extends Shape {
     private final FloatBuffer vertexBuffer;
     private final int mProgram;
+    private final ShaderProgram program;
+    private final ProgramBinding binding;
+    private final VertexSource source; // memoria del cliente o VBO
+    private final PooledBuffer vertexMemory; // prestada por el pool del hilo GL
 
     private int positionHandle, colorHandle;
 
@@ -21,7 +34,8 @@ public class Line {
 
     public Line(){
         //reserva de memoria para que la gpu lo lea directo + rápido
-        ByteBuffer byteBuffer = ByteBuffer.allocateDirect(lineCoord.length*4);
+        vertexMemory = DirectBuffers.pool().acquire(lineCoord.length*4);
+        ByteBuffer byteBuffer = vertexMemory.bytes();
         //que la ejecución utilice el orden propuesto
         byteBuffer.order(ByteOrder.nativeOrder());
 
@@ -30,35 +44,20 @@ public class Line {
         vertexBuffer.put(lineCoord);
         //situar el cursor en el centro
         vertexBuffer.position(0);
+        source = new VertexSource(vertexBuffer);
 
-        //Se encarga del primer shader
-        //Se repite en todas las primitivas
-        int vertexShader = loadShader(GLES20.GL_VERTEX_SHADER, vertexShaderCode);
-        int fragmentShader = loadShader(GLES20.GL_FRAGMENT_SHADER, fragmentShaderCode);
-
-        //Crear el programa vacio en la GPU
-        //Es un contenedor que une los dos shaders, fragment y vertex
-        mProgram = GLES20.glCreateProgram();
-        //Agrega los dos shaders al programa
-        GLES20.glAttachShader(mProgram, vertexShader);
-        GLES20.glAttachShader(mProgram, fragmentShader);
-        //Revisar que los shaders sean compatibles
-        GLES20.glLinkProgram(mProgram);
+        //Programa compartido con las demas primitivas
+        //Solo se compila la primera vez que se pide
+        program = ShaderProgramCache.shared().acquire(vertexShaderCode, fragmentShaderCode);
+        mProgram = program.handle;
+        binding = program.binding();
 
     }
-    private int loadShader(int type, String shaderCode){
-        //type puede ser vertex o fragment, a shader se le da un id
-        int shader = GLES20.glCreateShader(type);
-        //shaderCode en string interpretado por GLES20
-        GLES20.glShaderSource(shader, shaderCode);
-        //Implementar completamente el shader
-        GLES20.glCompileShader(shader);
-        return shader;
-    }
     private final String vertexShaderCode =
             "attribute vec4 vPosition;"+
+                    "uniform mat4 uMVPMatrix;"+
                     "void main(){" +
-                    "gl_Position = vPosition;"+
+                    "gl_Position = uMVPMatrix * vPosition;"+
                     "}"; //A cada coordenada de pantalla se asocia con una real
 
     //La presicion da informacion precisa del grafico
@@ -69,33 +68,53 @@ public class Line {
                     "gl_FragColor = vColor;"+
                     "}";
 
-    public void draw(){
+    @Override
+    public int getProgramHandle() {
+        return mProgram;
+    }
+
+    @Override
+    public int getBufferHandle() {
+        return source.getBufferHandle();
+    }
+
+    @Override
+    public void draw(Camera camera){
+        GLApi gl = Gl.api();
+
+        gl.glUseProgram(mProgram);
+
+        positionHandle = binding.positionHandle;
+        source.enable(gl, positionHandle, 2, 0);
 
-        GLES20.glUseProgram(mProgram);
+        colorHandle = binding.colorHandle;
+        gl.glUniform4fv(colorHandle, 1,color, 0);
+        uploadMvp(gl, binding.mvpHandle, camera);
 
-        positionHandle = GLES20.glGetAttribLocation(mProgram,"vPosition");
-        GLES20.glEnableVertexAttribArray(positionHandle);
+        // Muchos drivers lo limitan a 1; para grosores reales ver StrokeBatch
+        gl.glLineWidth(10);
 
-        GLES20.glVertexAttribPointer(
-                positionHandle,
-                2,
-                GLES20.GL_FLOAT,
-                false,
-                0,
-                vertexBuffer
-        );
+        gl.glDrawArrays(GLES20.GL_LINES, 0, 2);
 
-        colorHandle = GLES20.glGetUniformLocation(mProgram, "vColor");
-        GLES20.glUniform4fv(colorHandle, 1,color, 0);
+        source.disable(gl, positionHandle);
 
-        GLES20.glLineWidth(10);
 
-        GLES20.glDrawArrays(GLES20.GL_LINES, 0, 2);
 
-        GLES20.glDisableVertexAttribArray(positionHandle);
 
+    }
 
+    public void useGpuBuffers(int usage) {
+        source.useGpuBuffers(usage);
+    }
 
+    public void releaseGpuBuffers() {
+        source.releaseGpuBuffers();
+    }
 
+    // Suelta el programa compartido cuando la figura ya no se va a dibujar
+    public void release() {
+        ShaderProgramCache.shared().release(program);
+        releaseGpuBuffers();
+        vertexMemory.release();
     }
 }
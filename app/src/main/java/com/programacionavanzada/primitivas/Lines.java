@@ -1,14 +1,28 @@
 package com.programacionavanzada.primitivas;
 
 import android.opengl.GLES20;
+
+import com.programacionavanzada.geometria.Camera;
+import com.programacionavanzada.gl.DirectBuffers;
+import com.programacionavanzada.gl.GLApi;
+import com.programacionavanzada.gl.Gl;
+import com.programacionavanzada.gl.PooledBuffer;
+import com.programacionavanzada.gl.ProgramBinding;
+import com.programacionavanzada.gl.ShaderProgram;
+import com.programacionavanzada.gl.ShaderProgramCache;
+
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 
-public class Lines{
+public class Lines extends Shape {
 
     private final FloatBuffer vertexBuffer;
     private final int mProgram;
+    private final ShaderProgram program;
+    private final ProgramBinding binding;
+    private final VertexSource source; // memoria del cliente o VBO
+    private final PooledBuffer vertexMemory; // prestada por el pool del hilo GL; null si se adopto el buffer
 
     private int positionHandle, colorHandle;
 
@@ -25,8 +39,9 @@ public class Lines{
 
     private final String vertexShaderCode =
             "attribute vec4 vPosition;" +
+                    "uniform mat4 uMVPMatrix;" +
                     "void main(){" +
-                    "   gl_Position = vPosition;" + // Posición en 2D
+                    "   gl_Position = uMVPMatrix * vPosition;" + // Posición en 2D
                     "}";
 
     private final String fragmentShaderCode =
@@ -59,62 +74,73 @@ public class Lines{
         this.vertexStride = COORDS_POR_VERTEX * 4;
 
         // PREPARAR el buffer de vértices con TODAS las coordenadas
-        ByteBuffer bb = ByteBuffer.allocateDirect(coords.length * 4);
+        vertexMemory = DirectBuffers.pool().acquire(coords.length * 4);
+        ByteBuffer bb = vertexMemory.bytes();
         bb.order(ByteOrder.nativeOrder());
 
         vertexBuffer = bb.asFloatBuffer();
         vertexBuffer.put(coords);  // Copiamos TODAS las coordenadas de TODAS las líneas
         vertexBuffer.position(0);  // Preparamos para leer desde el inicio
+        source = new VertexSource(vertexBuffer);
 
-        // COMPILACIÓN de shaders (igual que antes)
-        int vertexShader = loadShader(GLES20.GL_VERTEX_SHADER, vertexShaderCode);
-        int fragmentShader = loadShader(GLES20.GL_FRAGMENT_SHADER, fragmentShaderCode);
-
-        // CREACIÓN del programa OpenGL
-        mProgram = GLES20.glCreateProgram();
-        GLES20.glAttachShader(mProgram, vertexShader);
-        GLES20.glAttachShader(mProgram, fragmentShader);
-        GLES20.glLinkProgram(mProgram);
+        // PROGRAMA de shaders compartido (se compila una sola vez)
+        program = ShaderProgramCache.shared().acquire(vertexShaderCode, fragmentShaderCode);
+        mProgram = program.handle;
+        binding = program.binding();
     }
 
-    // Método para compilar shaders (sin cambios)
-    private int loadShader(int type, String shaderCode) {
-        int shader = GLES20.glCreateShader(type);
-        GLES20.glShaderSource(shader, shaderCode);
-        GLES20.glCompileShader(shader);
-        return shader;
+
+    /**
+     * Adopta vertices ya empacados en otro hilo (ver GeometryLoader y
+     * DirectBuffers.pack); no se copian.
+     */
+    public Lines(FloatBuffer packed) {
+        this.pointCoord = null;
+        this.vertexCount = packed.remaining() / COORDS_POR_VERTEX;
+        this.vertexStride = COORDS_POR_VERTEX * 4;
+        vertexMemory = null;
+        vertexBuffer = packed;
+        source = new VertexSource(vertexBuffer);
+
+        program = ShaderProgramCache.shared().acquire(vertexShaderCode, fragmentShaderCode);
+        mProgram = program.handle;
+        binding = program.binding();
     }
 
     // =============================================
     // MÉTODO draw() - DIBUJA MÚLTIPLES LÍNEAS
     // =============================================
-    public void draw() {
+    @Override
+    public int getProgramHandle() {
+        return mProgram;
+    }
+
+    @Override
+    public int getBufferHandle() {
+        return source.getBufferHandle();
+    }
+
+    @Override
+    public void draw(Camera camera) {
+        GLApi gl = Gl.api();
         // ACTIVAR nuestro programa de shaders
-        GLES20.glUseProgram(mProgram);
+        gl.glUseProgram(mProgram);
 
         // OBTENER la ubicación de la variable de posición en el shader
-        positionHandle = GLES20.glGetAttribLocation(mProgram, "vPosition");
+        positionHandle = binding.positionHandle;
 
         // ACTIVAR el uso del arreglo de vértices
-        GLES20.glEnableVertexAttribArray(positionHandle);
-
-        // EXPLICAR cómo OpenGL debe leer los datos de vértices:
-        GLES20.glVertexAttribPointer(
-                positionHandle,      // Dónde guardar las posiciones
-                COORDS_POR_VERTEX,   // 2 coordenadas por vértice (x,y)
-                GLES20.GL_FLOAT,     // Tipo de datos: números decimales
-                false,               // No normalizar
-                vertexStride,        // 8 bytes entre cada vértice
-                vertexBuffer         // Buffer con TODOS los vértices
-        );
+        source.enable(gl, positionHandle, COORDS_POR_VERTEX, vertexStride);
 
         // CONFIGURAR el color de la línea
-        colorHandle = GLES20.glGetUniformLocation(mProgram, "vColor");
-        GLES20.glUniform4fv(colorHandle, 1, color, 0);
+        colorHandle = binding.colorHandle;
+        gl.glUniform4fv(colorHandle, 1, color, 0);
+        uploadMvp(gl, binding.mvpHandle, camera);
 
         // --- CARACTERÍSTICA ESPECIAL PARA LÍNEAS ---
         // Definir el GROSOR de todas las líneas (10 píxeles de ancho)
-        GLES20.glLineWidth(10);
+        // Muchos drivers lo limitan a 1; para grosores reales ver StrokeBatch
+        gl.glLineWidth(10);
 
         // --- DIBUJADO DE MÚLTIPLES LÍNEAS - LA PARTE MÁS IMPORTANTE ---
         // GL_LINES: modo de dibujo para líneas
@@ -126,10 +152,10 @@ public class Lines{
         // - Vértices 2-3: forman la segunda línea
         // - Vértices 4-5: forman la tercera línea
         // ¡Y así sucesivamente!
-        GLES20.glDrawArrays(GLES20.GL_LINES, 0, vertexCount);
+        gl.glDrawArrays(GLES20.GL_LINES, 0, vertexCount);
 
         // LIMPIEZA: desactivar el arreglo de vértices
-        GLES20.glDisableVertexAttribArray(positionHandle);
+        source.disable(gl, positionHandle);
     }
 
     // =============================================
@@ -141,4 +167,21 @@ public class Lines{
 //        this.color[2] = blue;   // Componente azul (0.0 a 1.0)
 //        this.color[3] = alpha;  // Transparencia (0.0 transparente, 1.0 opaco)
 //    }
+
+    public void useGpuBuffers(int usage) {
+        source.useGpuBuffers(usage);
+    }
+
+    public void releaseGpuBuffers() {
+        source.releaseGpuBuffers();
+    }
+
+    // Suelta el programa compartido cuando la figura ya no se va a dibujar
+    public void release() {
+        ShaderProgramCache.shared().release(program);
+        releaseGpuBuffers();
+        if (vertexMemory != null) {
+            vertexMemory.release();
+        }
+    }
 }
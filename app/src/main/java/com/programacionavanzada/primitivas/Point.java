@@ -3,13 +3,22 @@ package com.programacionavanzada.primitivas;
 
 import android.opengl.GLES20;
 
+import com.programacionavanzada.geometria.Camera;
+import com.programacionavanzada.gl.DirectBuffers;
+import com.programacionavanzada.gl.GLApi;
+import com.programacionavanzada.gl.Gl;
+import com.programacionavanzada.gl.PooledBuffer;
+import com.programacionavanzada.gl.ProgramBinding;
+import com.programacionavanzada.gl.ShaderProgram;
+import com.programacionavanzada.gl.ShaderProgramCache;
+
 //Importamos herramientas para manejar datos en memoria de forma eficiente
 import java.nio.ByteBuffer; //Para crear contenedores de bytes
 import java.nio.ByteBuffer; //Para asegurar el orden correcto de los bytes
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer; //Para manejar numeros decimales(floats) en memoria
 
-public class Point {
+public class Point extends Shape {
     //==================================
     //VARIABLES PRINCIPALES DE LA CLASE
     //==================================
@@ -21,6 +30,10 @@ public class Point {
     //Este numero indentifica nuestro "programa de graficos" en la GPU
     //Un programa es la combinacion de un vertex shader y un fragment shader
     private final int mProgram;
+    private final ShaderProgram program;
+    private final ProgramBinding binding;
+    private final VertexSource source; // memoria del cliente o VBO
+    private final PooledBuffer vertexMemory; // prestada por el pool del hilo GL
 
     //Estos numeros son como "llaves" que nos permiten acceder a las variables
     //dentro de nuestros shaders (programas de graficos)
@@ -62,7 +75,8 @@ public class Point {
 
         //Reservamos un bloque de memoria especial que la GPU puede leer directamente
         //pointCoord.lenght*4 = 3 coordenas  * 4 bytes cada uno 12 bytes total
-        ByteBuffer byteBuffer = ByteBuffer.allocateDirect(pointCoord.length * 4);
+        vertexMemory = DirectBuffers.pool().acquire(pointCoord.length * 4);
+        ByteBuffer byteBuffer = vertexMemory.bytes();
 
         //Aseguramos que los bytes esten en el orden que espera nuestro dispositivo
         //(algunos dispositivos leen bytes de izquierda a derecha, otros al reves)
@@ -78,106 +92,73 @@ public class Point {
         //Movemos el "cursor" de lectura al inicio del contenedor
         //para que cuando la GPU lea, empiece desde el principio
         vertexBuffer.position(0);
+        source = new VertexSource(vertexBuffer);
 
-        //PASO 2 : COMPILAR LOS PROGRAMAS DE GRAFICOS (SHADERS)
-
-        //Compilamos el VERTEX SHADER - se encarga de las POSICIONES
-        //GLES20.GL_VERTEX_SHADER le dice que compile un programa para posiciones
-        //vertexShaderCode es el codigo fuente del programa (esta al final de  la clase)
-        int vertexShader = loadShader(GLES20.GL_VERTEX_SHADER, vertexShaderCode);
-
-        //Copilamos el FRAGMENT SHADER - se encarga de los COLORES
-        //GLES20.GL_FRAGMENT_SHADER le dice que compile un programa para colores
-        //fragmentShaderCode es el codigo fuente del programa (esta al final de la clase)
-        int fragmentShader = loadShader(GLES20.GL_FRAGMENT_SHADER, fragmentShaderCode);
-
-        //PASO 3: CREAR Y CONFIGURAR EL PROGRMA FINAL
-
-        //Creamos un "programa vacio" en la GPU qu luego llenaremos de nuestros shaders
-        mProgram = GLES20.glCreateProgram();
-
-        //Conectamos (adjuntamos) nuestro vertex shader al progrma principal
-        GLES20.glAttachShader(mProgram, vertexShader);
+        //PASO 2 : OBTENER EL PROGRAMA DE GRAFICOS (SHADERS)
 
-        //Conectamos (adjuntamos) nuestro fragment shder al programa principal
-        GLES20.glAttachShader(mProgram, fragmentShader);
-
-        //Unimos todo y verificamos que los shaders sean compatibles entre si
-        //Si hay errores, aqui es donde se detectarian
-        GLES20.glLinkProgram(mProgram);
+        //Pedimos el programa a la cache compartida: si otra figura ya compilo
+        //estos mismos shaders se reutiliza, si no se compila y enlaza aqui
+        //vertexShaderCode y fragmentShaderCode estan al final de la clase
+        program = ShaderProgramCache.shared().acquire(vertexShaderCode, fragmentShaderCode);
+        mProgram = program.handle;
+        binding = program.binding();
     }
 
     // =============================================
     // METODO draw - Se llama CADA VEZ que queremos dibujar el punto
     // =============================================
 
-    public void draw() {
+    @Override
+    public int getProgramHandle() {
+        return mProgram;
+    }
+
+    @Override
+    public int getBufferHandle() {
+        return source.getBufferHandle();
+    }
+
+    @Override
+    public void draw(Camera camera) {
+        GLApi gl = Gl.api();
         //PASO 1 : ACTIVAR NUESTRO PROGRAMA DE GRAFICOS
 
         //Le decimos a la GPU: "A partir de ahora, usa este programa para dibujar"
         //Es como cambiar de herramienta en un progrma de diseño
-        GLES20.glUseProgram(mProgram);
+        gl.glUseProgram(mProgram);
 
         //PASO 2: CONFIGURAR LA POSICION DEL PUNTO
 
         //Obtenemos la "llave" para acceder a la variable 'vPosition' en nuestro shader
         //'vPosition' es donde guardamos las coordenadas de nuestro punto
-        positionHandle = GLES20.glGetAttribLocation(mProgram, "vPosition");
+        positionHandle = binding.positionHandle;
 
         //Activamos el uso del arreglo de vertices (coordenas)
         //Es como decir: "OK, GPU, ahora vas a recibir datos de posicion"
-        GLES20.glEnableVertexAttribArray(positionHandle);
-
-        //Le explicamos a la GPU como debe leer nuestros datos de posicion:
-        GLES20.glVertexAttribPointer(
-                positionHandle, //GUARDA LOS DATOS DE LA VARIABLE 'vPosition'
-                COORD_POR_VERTEX, //CADA PUNTO TIENE 3 COORDENADAS (XYZ)
-                GLES20.GL_FLOAT, //Los datos son numeros decimales (floats)
-                false, //No normalizamos los numeros
-                vertexStride, //Cada punto ocupa 12 bytes en la memoria
-                vertexBuffer //Lee los datos de este contenedor de memoria
-        );
+        source.enable(gl, positionHandle, COORD_POR_VERTEX, vertexStride);
 
         //PASO 3: CONFIGURAR EL COLOR DEL PUNTO
 
         //Obtenemos la "llave" para acceder a la variable'vColor' en nuestro shader
         //'vColor' es donde guardamos el color de nuestro punto
-        colorHandle = GLES20.glGetUniformLocation(mProgram, "vColor");
+        colorHandle = binding.colorHandle;
 
         //Enviamos el color a la GPU
         //Toma este array de color y asignalo a la variable 'vColor'
         //El 1 significa: envia solo 1 color, el 0 significa: empieza desde el primer elemento
-        GLES20.glUniform4fv(colorHandle, 1, color, 0);
+        gl.glUniform4fv(colorHandle, 1, color, 0);
+        uploadMvp(gl, binding.mvpHandle, camera);
 
         //PASO 4: DIBUJAMOS
 
         //Le decimos a la GPU: "Dibuja Puntos, empieza desde el vertice 0, dibuja 1 punto"
-        GLES20.glDrawArrays(GLES20.GL_POINTS, 0, vertexCount);
+        gl.glDrawArrays(GLES20.GL_POINTS, 0, vertexCount);
 
         //Paso 5: LIMPIEZA
 
         //Desactivamos el arreglo de vertices para liberar recursos
         //es como guardar una herramienta despues de usarla
-        GLES20.glDisableVertexAttribArray(positionHandle);
-    }
-
-    // =============================================
-    // MÉTODO AUXILIAR: Compilar shaders (programas de graficos)
-    // =============================================
-
-    private int loadShader(int type, String shaderCode) {
-        //Creamos un shader vacio del tipo especificado (vertex o fragment)
-        int shader = GLES20.glCreateShader(type);
-
-        //Asignamos el codigo fuente (texto) a nuestro shader
-        GLES20.glShaderSource(shader, shaderCode);
-
-        //Compilamos el shader: convertimos el texto en instrucciones que la GPU entienda
-        //Si hay errores en el codigo, aqui es donde fallaria
-        GLES20.glCompileShader(shader);
-
-        //Devolvemos el ID del shader compilado
-        return shader;
+        source.disable(gl, positionHandle);
     }
 
     //Se trata las posiciones
@@ -185,8 +166,9 @@ public class Point {
     //w siempre es 1
     private final String vertexShaderCode =
             "attribute vec4 vPosition;" +
+                    "uniform mat4 uMVPMatrix;" +
                     "void main(){" +
-                    "gl_Position = vPosition;" +
+                    "gl_Position = uMVPMatrix * vPosition;" +
                     "gl_PointSize = 50.0;" +
                     "}"; //A cada coordenada de pantalla se asocia con una real
 
@@ -198,4 +180,18 @@ public class Point {
                     "gl_FragColor = vColor;" +
                     "}";
 
-}
\ No newline at end of file
+    public void useGpuBuffers(int usage) {
+        source.useGpuBuffers(usage);
+    }
+
+    public void releaseGpuBuffers() {
+        source.releaseGpuBuffers();
+    }
+
+    // Suelta el programa compartido cuando la figura ya no se va a dibujar
+    public void release() {
+        ShaderProgramCache.shared().release(program);
+        releaseGpuBuffers();
+        vertexMemory.release();
+    }
+}
@@ -1,6 +1,16 @@
 package com.programacionavanzada.primitivas;
 
 import android.opengl.GLES20;
+
+import com.programacionavanzada.geometria.Camera;
+import com.programacionavanzada.gl.DirectBuffers;
+import com.programacionavanzada.gl.GLApi;
+import com.programacionavanzada.gl.Gl;
+import com.programacionavanzada.gl.PooledBuffer;
+import com.programacionavanzada.gl.ProgramBinding;
+import com.programacionavanzada.gl.ShaderProgram;
+import com.programacionavanzada.gl.ShaderProgramCache;
+
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
@@ -8,11 +18,15 @@ import java.nio.FloatBuffer;
 //===========================================================================
 // Clase para VARIOS PUNTOS
 //===========================================================================
-public class Points {
+public class Points extends Shape {
 
     // Variables que forman parte de cualquier primitiva
     private final FloatBuffer vertexBuffer;
     private final int mProgram;
+    private final ShaderProgram program;
+    private final ProgramBinding binding;
+    private final VertexSource source; // memoria del cliente o VBO
+    private final PooledBuffer vertexMemory; // prestada por el pool del hilo GL
     private int positionHandle, colorHandle;
 
     // Atributos que trabajan con los vertices
@@ -35,8 +49,9 @@ public class Points {
 
     // Shaders (se asume que loadShader existe y GLES20 está importado)
     private final String vertexShaderCode = "attribute vec4 vPosition;" +
+            "uniform mat4 uMVPMatrix;" +
             "void main(){" +
-            "gl_Position = vPosition;" +
+            "gl_Position = uMVPMatrix * vPosition;" +
             "gl_PointSize = 100.0;" + // Tamaño de punto razonable
             "}";
     private final String fragmentShaderCode = "precision mediump float;" +
@@ -64,64 +79,57 @@ public class Points {
 
 
         // 1. Creación del buffer CON LAS NUEVAS COORDENADAS
-        ByteBuffer buteBuffer = ByteBuffer.allocateDirect(pointCoord.length * 4);
+        vertexMemory = DirectBuffers.pool().acquire(pointCoord.length * 4);
+        ByteBuffer buteBuffer = vertexMemory.bytes();
         buteBuffer.order(ByteOrder.nativeOrder());
         vertexBuffer = buteBuffer.asFloatBuffer();
         vertexBuffer.put(pointCoord); // Aquí ponemos TODAS las coordenadas de TODOS los puntos
         vertexBuffer.position(0);
+        source = new VertexSource(vertexBuffer);
 
-        // 2. Cargar shaders (igual que antes)
-        int vertexShader = loadShader(GLES20.GL_VERTEX_SHADER, vertexShaderCode);
-        int fragmentShader = loadShader(GLES20.GL_FRAGMENT_SHADER, fragmentShaderCode);
-
-        // 3. Crear programa OpenGL (igual que antes)
-        mProgram = GLES20.glCreateProgram();
-        GLES20.glAttachShader(mProgram, vertexShader);
-        GLES20.glAttachShader(mProgram, fragmentShader);
-        GLES20.glLinkProgram(mProgram);
+        // 2. Obtener el programa de la cache compartida
+        program = ShaderProgramCache.shared().acquire(vertexShaderCode, fragmentShaderCode);
+        mProgram = program.handle;
+        binding = program.binding();
     }
 
 
     // =============================================
     // MÉTODO draw() MODIFICADO - DIBUJA MÚLTIPLES PUNTOS
     // =============================================
-    public void draw() {
-        GLES20.glUseProgram(mProgram);
+    @Override
+    public int getProgramHandle() {
+        return mProgram;
+    }
+
+    @Override
+    public int getBufferHandle() {
+        return source.getBufferHandle();
+    }
+
+    @Override
+    public void draw(Camera camera) {
+        GLApi gl = Gl.api();
+        gl.glUseProgram(mProgram);
 
         // 1. Obtener y activar el handle de posición (igual que antes)
-        positionHandle = GLES20.glGetAttribLocation(mProgram, "vPosition");
-        GLES20.glEnableVertexAttribArray(positionHandle);
-
-        // 2. Especificar cómo leer los datos del buffer (igual que antes)
-        GLES20.glVertexAttribPointer(
-                positionHandle,
-                COORDS_POR_VERTEX,
-                GLES20.GL_FLOAT,
-                false,
-                vertexStride,
-                vertexBuffer
-        );
+        positionHandle = binding.positionHandle;
+        source.enable(gl, positionHandle, COORDS_POR_VERTEX, vertexStride);
 
         // 3. Establecer el color (igual que antes)
-        colorHandle = GLES20.glGetUniformLocation(mProgram, "vColor");
-        GLES20.glUniform4fv(colorHandle, 1, color, 0);
+        colorHandle = binding.colorHandle;
+        gl.glUniform4fv(colorHandle, 1, color, 0);
+        uploadMvp(gl, binding.mvpHandle, camera);
 
         // 4. DIBUJAR TODOS LOS PUNTOS - ¡ESTO ES LO MÁS IMPORTANTE!
-        // ANTES: GLES20.glDrawArrays(GLES20.GL_POINTS, 0, 1); ← Solo 1 punto
+        // ANTES: gl.glDrawArrays(GLES20.GL_POINTS, 0, 1); ← Solo 1 punto
         // AHORA: Usamos 'vertexCount' que puede ser 1, 2, 3, o más puntos
-        GLES20.glDrawArrays(GLES20.GL_POINTS, 0, vertexCount);
+        gl.glDrawArrays(GLES20.GL_POINTS, 0, vertexCount);
 
         // 5. Finalizar (igual que antes)
-        GLES20.glDisableVertexAttribArray(positionHandle);
+        source.disable(gl, positionHandle);
     }
 
-    // El método loadShader() se mantiene igual
-    private int loadShader(int type, String shaderCode) {
-        int shader = GLES20.glCreateShader(type);
-        GLES20.glShaderSource(shader, shaderCode);
-        GLES20.glCompileShader(shader);
-        return shader;
-    }
 
     // Método auxiliar para establecer un color diferente
 //    public void setColor(float r, float g, float b, float a) {
@@ -130,4 +138,19 @@ public class Points {
 //        this.color[2] = b;
 //        this.color[3] = a;
 //    }
+
+    public void useGpuBuffers(int usage) {
+        source.useGpuBuffers(usage);
+    }
+
+    public void releaseGpuBuffers() {
+        source.releaseGpuBuffers();
+    }
+
+    // Suelta el programa compartido cuando la figura ya no se va a dibujar
+    public void release() {
+        ShaderProgramCache.shared().release(program);
+        releaseGpuBuffers();
+        vertexMemory.release();
+    }
 }
@@ -0,0 +1,50 @@
+package com.programacionavanzada.primitivas;
+
+import com.programacionavanzada.geometria.Camera;
+import com.programacionavanzada.geometria.Transform;
+import com.programacionavanzada.gl.GLApi;
+
+/**
+ * Base de las primitivas que se colocan con una matriz de modelo: guarda su
+ * {@link Transform} (posicion, escala y rotacion) y la sube al shader junto
+ * con la camara como uMVPMatrix.
+ */
+public abstract class Shape implements Drawable {
+
+    private final Transform transform = new Transform();
+    private final float[] scaledMvp = new float[16];
+
+    public Transform getTransform() {
+        return transform;
+    }
+
+    // Sin camara: se dibuja en NDC
+    public void draw() {
+        draw(null);
+    }
+
+    /**
+     * Dibuja con la camara del renderer; la posicion, escala y rotacion
+     * salen de {@link #getTransform()}. Sin camara se dibuja en NDC.
+     */
+    @Override
+    public abstract void draw(Camera camera);
+
+    // proyeccion * vista * modelo; la MVP solo se recalcula si algo cambio
+    protected void uploadMvp(GLApi gl, int mvpHandle, Camera camera) {
+        gl.glUniformMatrix4fv(mvpHandle, 1, false, transform.mvp(camera), 0);
+    }
+
+    /**
+     * Igual, pero escala x e y por {@code localScale} antes del modelo: para
+     * geometria unitaria compartida (ver Circle). Con la matriz por columnas
+     * basta multiplicar las dos primeras columnas.
+     */
+    protected void uploadMvp(GLApi gl, int mvpHandle, Camera camera, float localScale) {
+        System.arraycopy(transform.mvp(camera), 0, scaledMvp, 0, 16);
+        for (int i = 0; i < 8; i++) {
+            scaledMvp[i] *= localScale;
+        }
+        gl.glUniformMatrix4fv(mvpHandle, 1, false, scaledMvp, 0);
+    }
+}
@@ -1,19 +1,31 @@
 package com.programacionavanzada.primitivas;
 
-import static com.programacionavanzada.MyGLRenderer.loadShader;
-
 import android.opengl.GLES20;
 
+import com.programacionavanzada.geometria.Camera;
+import com.programacionavanzada.gl.DirectBuffers;
+import com.programacionavanzada.gl.GLApi;
+import com.programacionavanzada.gl.Gl;
+import com.programacionavanzada.gl.PooledBuffer;
+import com.programacionavanzada.gl.ProgramBinding;
+import com.programacionavanzada.gl.ShaderProgram;
+import com.programacionavanzada.gl.ShaderProgramCache;
+
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 import java.nio.ShortBuffer;
 
-public class Square {
+public class Square extends Shape {
 
     private final FloatBuffer vertexBuffer;
 
     private final int mProgram;
+    private final ShaderProgram program;
+    private final ProgramBinding binding;
+    private final VertexSource source; // memoria del cliente o VBO
+    private final PooledBuffer vertexMemory; // prestada por el pool del hilo GL
+    private final PooledBuffer indexMemory;
 
     private int positionHandle;
     private int colorHandle;
@@ -26,7 +38,7 @@ public class Square {
     private final int vertexStride = COORD_POR_VERTEX * 4;
 
     float color[] = {0.00f, 0.25f, 0.25f, 1.0f};
-    static float squareCoord[] = {
+    private static final float squareCoord[] = {
             // (0) sup izquierdo
             0.25f, 0.75f, 0.0f,
             // (1) inf izquierdo
@@ -40,16 +52,26 @@ public class Square {
 
     //especifico el orden de los triangulos para formar el cuadrado
         // 0 1 2 luego 0 2 3
-    private final short drawOrder[] = {
+    private static final short drawOrder[] = {
             0,1,2, //primer triangulo
             0,2,3  //segundo
     };
 
     private final ShortBuffer shortBuffer;
 
+    // Geometria compartida con ShapeBatch; copias, para que nadie cambie la de todos
+    public static float[] getCoords() {
+        return squareCoord.clone();
+    }
+
+    public static short[] getDrawOrder() {
+        return drawOrder.clone();
+    }
+
     public Square(){
 
-        ByteBuffer byteBuffer = ByteBuffer.allocateDirect(squareCoord.length * 4);
+        vertexMemory = DirectBuffers.pool().acquire(squareCoord.length * 4);
+        ByteBuffer byteBuffer = vertexMemory.bytes();
         byteBuffer.order(ByteOrder.nativeOrder());
         vertexBuffer = byteBuffer.asFloatBuffer();
         vertexBuffer.put(squareCoord);
@@ -57,27 +79,28 @@ public class Square {
 
         //para el shortBuffer
 
-        ByteBuffer sb =ByteBuffer.allocateDirect(drawOrder.length*4);
+        // 2 bytes por indice (short)
+        indexMemory = DirectBuffers.pool().acquire(drawOrder.length * 2);
+        ByteBuffer sb = indexMemory.bytes();
         sb.order(ByteOrder.nativeOrder());
         shortBuffer = sb.asShortBuffer();
         shortBuffer.put(drawOrder);
         shortBuffer.position(0);
+        source = new VertexSource(vertexBuffer, shortBuffer);
 
 
-        int vertexShader = loadShader(GLES20.GL_VERTEX_SHADER, vertexShaderCode);
-        int fragmentShader = loadShader(GLES20.GL_FRAGMENT_SHADER, fragmentShaderCode);
-        mProgram = GLES20.glCreateProgram();
-        GLES20.glAttachShader(mProgram, vertexShader);
-        GLES20.glAttachShader(mProgram, fragmentShader);
-        GLES20.glLinkProgram(mProgram);
+        program = ShaderProgramCache.shared().acquire(vertexShaderCode, fragmentShaderCode);
+        mProgram = program.handle;
+        binding = program.binding();
 
 
     }
 
     private final String vertexShaderCode =
             "attribute vec4 vPosition;" +
+                    "uniform mat4 uMVPMatrix;" +
                     "void main(){" +
-                    "gl_Position = vPosition;" +
+                    "gl_Position = uMVPMatrix * vPosition;" +
                     "gl_PointSize = 50.0;" +
                     "}";
 
@@ -88,44 +111,56 @@ public class Square {
                     "gl_FragColor = vColor;" +
                     "}";
 
-    public void draw(){
+    @Override
+    public int getProgramHandle() {
+        return mProgram;
+    }
+
+    @Override
+    public int getBufferHandle() {
+        return source.getBufferHandle();
+    }
 
-        GLES20.glUseProgram(mProgram);
+    @Override
+    public void draw(Camera camera){
+        GLApi gl = Gl.api();
 
-        positionHandle = GLES20.glGetAttribLocation(mProgram, "vPosition");
+        gl.glUseProgram(mProgram);
 
-        GLES20.glEnableVertexAttribArray(positionHandle);
+        positionHandle = binding.positionHandle;
 
-        GLES20.glVertexAttribPointer(
-                positionHandle, //GUARDA LOS DATOS DE LA VARIABLE 'vPosition'
-                COORD_POR_VERTEX, //CADA PUNTO TIENE 3 COORDENADAS (XYZ)
-                GLES20.GL_FLOAT, //Los datos son numeros decimales (floats)
-                false, //No normalizamos los numeros
-                vertexStride, //Cada punto ocupa 12 bytes en la memoria
-                vertexBuffer //Lee los datos de este contenedor de memoria
-        );
+        source.enable(gl, positionHandle, COORD_POR_VERTEX, vertexStride);
 
-        colorHandle = GLES20.glGetUniformLocation(mProgram, "vColor");
+        colorHandle = binding.colorHandle;
 
-        GLES20.glUniform4fv(colorHandle, 1, color, 0);
+        gl.glUniform4fv(colorHandle, 1, color, 0);
+        uploadMvp(gl, binding.mvpHandle, camera);
          // atributos
         // 1) primitiva que voy a dibujar
         // 2) numero de indices que se van a dibujar
         // 3) el tipo de dato
-        // 4)
-        GLES20.glDrawElements(
-                GLES20.GL_TRIANGLES,
-                drawOrder.length,
-                GLES20.GL_UNSIGNED_SHORT,
-                shortBuffer
-        );
+        // 4) los indices: el IBO (offset 0) o el buffer del cliente
+        source.drawElements(gl, GLES20.GL_TRIANGLES, drawOrder.length);
 
-        GLES20.glDisableVertexAttribArray(positionHandle);
+        source.disable(gl, positionHandle);
 
 
 
     }
 
+    public void useGpuBuffers(int usage) {
+        source.useGpuBuffers(usage);
+    }
 
+    public void releaseGpuBuffers() {
+        source.releaseGpuBuffers();
+    }
 
+    // Suelta el programa compartido cuando la figura ya no se va a dibujar
+    public void release() {
+        ShaderProgramCache.shared().release(program);
+        releaseGpuBuffers();
+        vertexMemory.release();
+        indexMemory.release();
+    }
 }
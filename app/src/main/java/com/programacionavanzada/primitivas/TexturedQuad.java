@@ -0,0 +1,187 @@
+package com.programacionavanzada.primitivas;
+
+import android.opengl.GLES20;
+
+import com.programacionavanzada.geometria.Camera;
+import com.programacionavanzada.gl.DirectBuffers;
+import com.programacionavanzada.gl.GLApi;
+import com.programacionavanzada.gl.Gl;
+import com.programacionavanzada.gl.GpuBuffer;
+import com.programacionavanzada.gl.PooledBuffer;
+import com.programacionavanzada.gl.ProgramBinding;
+import com.programacionavanzada.gl.ShaderProgram;
+import com.programacionavanzada.gl.ShaderProgramCache;
+import com.programacionavanzada.gl.Texture;
+import com.programacionavanzada.gl.VertexFormat;
+
+import java.nio.FloatBuffer;
+
+/**
+ * El cuadrado de {@link Square} (mismos 4 vertices y mismo drawOrder) con
+ * una textura: cada vertice lleva (u, v) ademas de (x, y, z). El color
+ * tine los pixeles; blanco los deja igual.
+ *
+ * <p>Para un icono suelto. Muchos sprites del mismo atlas salen mejor en un
+ * solo draw call con {@code SpriteBatch}; con un atlas, la textura es
+ * {@code AtlasTextures.getPage(region.page)} y las coordenadas las de la region.</p>
+ */
+public class TexturedQuad extends Shape {
+
+    private static final int COORDS_PER_VERTEX = 3;
+    private static final int FLOATS_PER_VERTEX = COORDS_PER_VERTEX + 2; // x, y, z, u, v
+    private static final int STRIDE = FLOATS_PER_VERTEX * 4;
+    private static final float[] SQUARE_COORDS = Square.getCoords();
+    private static final short[] SQUARE_ORDER = Square.getDrawOrder();
+    // sampler2D; la textura siempre va en la unidad 0
+    private static final String TEXTURE = "uTexture";
+
+    private final String vertexShaderCode =
+            "attribute vec4 vPosition;" +
+                    "attribute vec2 aTexCoord;" +
+                    "uniform mat4 uMVPMatrix;" +
+                    "varying vec2 vTexCoord;" +
+                    "void main(){" +
+                    "gl_Position = uMVPMatrix * vPosition;" +
+                    "vTexCoord = aTexCoord;" +
+                    "}";
+
+    private final String fragmentShaderCode =
+            "precision mediump float;" +
+                    "uniform sampler2D uTexture;" +
+                    "uniform vec4 vColor;" +
+                    "varying vec2 vTexCoord;" +
+                    "void main(){" +
+                    "gl_FragColor = texture2D(uTexture, vTexCoord) * vColor;" +
+                    "}";
+
+    private final ShaderProgram program;
+    private final ProgramBinding binding;
+    private final int texCoordHandle;
+    private final int textureHandle;
+    private Texture texture;
+
+    private final PooledBuffer vertexMemory;
+    private final PooledBuffer indexMemory;
+    private final FloatBuffer vertexBuffer;
+    private final GpuBuffer vbo = GpuBuffer.vertices(GLES20.GL_STATIC_DRAW);
+    private final GpuBuffer ibo = GpuBuffer.indices(GLES20.GL_STATIC_DRAW);
+
+    float color[] = {1.0f, 1.0f, 1.0f, 1.0f};
+    private boolean premultipliedAlpha;
+
+    /**
+     * Toda la textura sobre el cuadrado.
+     */
+    public TexturedQuad(Texture texture) {
+        this(texture, 0f, 0f, 1f, 1f);
+    }
+
+    /**
+     * @param u0 v0 esquina superior izquierda en la textura; u1 v1 la inferior derecha
+     */
+    public TexturedQuad(Texture texture, float u0, float v0, float u1, float v1) {
+        this.texture = texture;
+        float[] coords = SQUARE_COORDS;
+        short[] order = SQUARE_ORDER;
+
+        vertexMemory = DirectBuffers.pool().acquire(4 * STRIDE);
+        vertexBuffer = vertexMemory.floats();
+        writeVertices(coords, u0, v0, u1, v1);
+        vbo.upload(vertexBuffer, 4 * STRIDE);
+        vbo.unbind();
+
+        indexMemory = DirectBuffers.pool().acquire(order.length * 2);
+        indexMemory.shorts().put(order);
+        ibo.upload(indexMemory.shorts(), order.length * 2);
+        ibo.unbind();
+
+        program = ShaderProgramCache.shared().acquire(vertexShaderCode, fragmentShaderCode);
+        binding = program.binding();
+        texCoordHandle = program.attribLocation(VertexFormat.TEX_COORD);
+        textureHandle = program.uniformLocation(TEXTURE);
+    }
+
+    // Orden de Square: sup izq, inf izq, inf der, sup der
+    private void writeVertices(float[] coords, float u0, float v0, float u1, float v1) {
+        float[] uv = {u0, v0, u0, v1, u1, v1, u1, v0};
+        vertexBuffer.clear();
+        for (int i = 0; i < 4; i++) {
+            vertexBuffer.put(coords, i * COORDS_PER_VERTEX, COORDS_PER_VERTEX);
+            vertexBuffer.put(uv, i * 2, 2);
+        }
+        vertexBuffer.position(0);
+    }
+
+    /**
+     * Cambia la textura y las coordenadas (por ejemplo, otra region del atlas).
+     */
+    public void setTexture(Texture texture, float u0, float v0, float u1, float v1) {
+        this.texture = texture;
+        writeVertices(SQUARE_COORDS, u0, v0, u1, v1);
+        vbo.update(0, 4 * STRIDE);
+        vbo.unbind();
+    }
+
+    public void setColor(float r, float g, float b, float a) {
+        color[0] = r;
+        color[1] = g;
+        color[2] = b;
+        color[3] = a;
+    }
+
+    /**
+     * {@code true} si el color de la textura ya viene multiplicado por su
+     * alfa, como lo que se dibuja con mezcla en un RenderTarget transparente.
+     */
+    public void setPremultipliedAlpha(boolean premultipliedAlpha) {
+        this.premultipliedAlpha = premultipliedAlpha;
+    }
+
+    @Override
+    public int getProgramHandle() {
+        return binding.program;
+    }
+
+    @Override
+    public int getBufferHandle() {
+        return vbo.getHandle();
+    }
+
+    @Override
+    public void draw(Camera camera) {
+        GLApi gl = Gl.api();
+        gl.glUseProgram(binding.program);
+
+        texture.bind(0);
+        gl.glUniform1i(textureHandle, 0);
+
+        vbo.bind();
+        gl.glEnableVertexAttribArray(binding.positionHandle);
+        gl.glVertexAttribPointer(binding.positionHandle, COORDS_PER_VERTEX, GLES20.GL_FLOAT, false, STRIDE, 0);
+        gl.glEnableVertexAttribArray(texCoordHandle);
+        gl.glVertexAttribPointer(texCoordHandle, 2, GLES20.GL_FLOAT, false, STRIDE, COORDS_PER_VERTEX * 4);
+
+        gl.glUniform4fv(binding.colorHandle, 1, color, 0);
+        uploadMvp(gl, binding.mvpHandle, camera);
+
+        gl.glEnable(GLES20.GL_BLEND);
+        gl.glBlendFunc(premultipliedAlpha ? GLES20.GL_ONE : GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
+        ibo.bind();
+        gl.glDrawElements(GLES20.GL_TRIANGLES, SQUARE_ORDER.length, GLES20.GL_UNSIGNED_SHORT, 0);
+        gl.glDisable(GLES20.GL_BLEND);
+
+        gl.glDisableVertexAttribArray(binding.positionHandle);
+        gl.glDisableVertexAttribArray(texCoordHandle);
+        vbo.unbind();
+        ibo.unbind();
+    }
+
+    // La textura es del que la creo (o del atlas); no se borra aqui
+    public void release() {
+        ShaderProgramCache.shared().release(program);
+        vbo.release();
+        ibo.release();
+        vertexMemory.release();
+        indexMemory.release();
+    }
+}
@@ -2,17 +2,28 @@ package com.programacionavanzada.primitivas;
 
 import android.opengl.GLES20;
 
-import com.programacionavanzada.MyGLRenderer;
+import com.programacionavanzada.geometria.Camera;
+import com.programacionavanzada.gl.DirectBuffers;
+import com.programacionavanzada.gl.GLApi;
+import com.programacionavanzada.gl.Gl;
+import com.programacionavanzada.gl.PooledBuffer;
+import com.programacionavanzada.gl.ProgramBinding;
+import com.programacionavanzada.gl.ShaderProgram;
+import com.programacionavanzada.gl.ShaderProgramCache;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 
-public class Triangle {
+public class Triangle extends Shape {
 
     private FloatBuffer vertexBuffer;
 
     private final int mProgram ;
+    private final ShaderProgram program;
+    private final ProgramBinding binding;
+    private final VertexSource source; // memoria del cliente o VBO
+    private final PooledBuffer vertexMemory; // prestada por el pool del hilo GL
 
     private int positionHandle,colorHandle;
 
@@ -31,27 +42,25 @@ public class Triangle {
 
     public Triangle(){
 
-        ByteBuffer byteBuffer = ByteBuffer.allocateDirect(triangleCoord.length*4);
+        vertexMemory = DirectBuffers.pool().acquire(triangleCoord.length*4);
+        ByteBuffer byteBuffer = vertexMemory.bytes();
         byteBuffer.order(ByteOrder.nativeOrder());
 
         vertexBuffer = byteBuffer.asFloatBuffer();
         vertexBuffer.put(triangleCoord);
         vertexBuffer.position(0);
+        source = new VertexSource(vertexBuffer);
 
-        int vertexShader = MyGLRenderer.loadShader(GLES20.GL_VERTEX_SHADER, vertexShaderCode);
-        int fragmentShader = MyGLRenderer.loadShader(GLES20.GL_FRAGMENT_SHADER, fragmentShaderCode);
-
-        mProgram = GLES20.glCreateProgram();
-
-        GLES20.glAttachShader(mProgram, vertexShader);
-        GLES20.glAttachShader(mProgram, fragmentShader);
-        GLES20.glLinkProgram(mProgram);
+        program = ShaderProgramCache.shared().acquire(vertexShaderCode, fragmentShaderCode);
+        mProgram = program.handle;
+        binding = program.binding();
     }
 
     private final String vertexShaderCode =
             "attribute vec4 vPosition;"+
+                    "uniform mat4 uMVPMatrix;"+
                     "void main(){" +
-                    "gl_Position = vPosition;"+
+                    "gl_Position = uMVPMatrix * vPosition;"+
                     "}";
 
     private final String fragmentShaderCode =
@@ -61,30 +70,50 @@ public class Triangle {
                     "gl_FragColor = vColor;"+
                     "}";
 
-    public void draw(){
+    @Override
+    public int getProgramHandle() {
+        return mProgram;
+    }
+
+    @Override
+    public int getBufferHandle() {
+        return source.getBufferHandle();
+    }
+
+    @Override
+    public void draw(Camera camera){
+        GLApi gl = Gl.api();
 
-        GLES20.glUseProgram(mProgram);
+        gl.glUseProgram(mProgram);
         //obtener los vertices
-        positionHandle = GLES20.glGetAttribLocation(mProgram, "vPosition");
-        GLES20.glEnableVertexAttribArray(positionHandle);
-        GLES20.glVertexAttribPointer(positionHandle, //Posicion
-                COORDS_POR_VERTEX, //Coordenadas de los vertices
-                GLES20.GL_FLOAT, //Que tipo de datos se usa
-                false, //Si necesitar normalizar los datos
-                vertexStride, //tamaño de memoria de cada uno de los vertices
-                vertexBuffer //De donde tomarlos
-        );
-        colorHandle = GLES20.glGetUniformLocation(mProgram, "vColor");
-
-        GLES20.glUniform4fv(colorHandle, 1,color, 0);
+        positionHandle = binding.positionHandle;
+        source.enable(gl, positionHandle, COORDS_POR_VERTEX, vertexStride);
+        colorHandle = binding.colorHandle;
+
+        gl.glUniform4fv(colorHandle, 1,color, 0);
+        uploadMvp(gl, binding.mvpHandle, camera);
 
         // basico GL_TRIANGLES
         // GL_TRIANGLE_STRIP comparte bordes entre ellos
         //GL_TRIANGLE_FAN todos los triangulos comparten un vertice central
 
-        GLES20.glDrawArrays(GLES20.GL_TRIANGLES, 0, vertexCount);
+        gl.glDrawArrays(GLES20.GL_TRIANGLES, 0, vertexCount);
+
+        source.disable(gl, positionHandle);
+    }
+
+    public void useGpuBuffers(int usage) {
+        source.useGpuBuffers(usage);
+    }
 
-        GLES20.glDisableVertexAttribArray(positionHandle);
+    public void releaseGpuBuffers() {
+        source.releaseGpuBuffers();
     }
 
+    // Suelta el programa compartido cuando la figura ya no se va a dibujar
+    public void release() {
+        ShaderProgramCache.shared().release(program);
+        releaseGpuBuffers();
+        vertexMemory.release();
+    }
 }
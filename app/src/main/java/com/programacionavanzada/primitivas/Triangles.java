@@ -1,15 +1,28 @@
 package com.programacionavanzada.primitivas;
 
 import android.opengl.GLES20;
-import com.programacionavanzada.MyGLRenderer;
+
+import com.programacionavanzada.geometria.Camera;
+import com.programacionavanzada.gl.DirectBuffers;
+import com.programacionavanzada.gl.GLApi;
+import com.programacionavanzada.gl.Gl;
+import com.programacionavanzada.gl.PooledBuffer;
+import com.programacionavanzada.gl.ProgramBinding;
+import com.programacionavanzada.gl.ShaderProgram;
+import com.programacionavanzada.gl.ShaderProgramCache;
+
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 
-public class Triangles{
+public class Triangles extends Shape {
 
     private FloatBuffer vertexBuffer;
     private final int mProgram;
+    private final ShaderProgram program;
+    private final ProgramBinding binding;
+    private final VertexSource source; // memoria del cliente o VBO
+    private final PooledBuffer vertexMemory; // prestada por el pool del hilo GL; null si se adopto el buffer
     private int positionHandle, colorHandle;
 
     static final int COORDS_POR_VERTEX = 3; // Cada vértice tiene (x, y, z)
@@ -49,29 +62,44 @@ public class Triangles{
         this.vertexStride = COORDS_POR_VERTEX * 4;
 
         // PREPARAR el buffer de vértices con TODAS las coordenadas
-        ByteBuffer byteBuffer = ByteBuffer.allocateDirect(coords.length * 4);
+        vertexMemory = DirectBuffers.pool().acquire(coords.length * 4);
+        ByteBuffer byteBuffer = vertexMemory.bytes();
         byteBuffer.order(ByteOrder.nativeOrder());
 
         vertexBuffer = byteBuffer.asFloatBuffer();
         vertexBuffer.put(coords);  // Copiamos TODAS las coordenadas de TODOS los triángulos
         vertexBuffer.position(0);  // Preparamos para leer desde el inicio
+        source = new VertexSource(vertexBuffer);
+
+        // PROGRAMA de shaders compartido (se compila una sola vez)
+        program = ShaderProgramCache.shared().acquire(vertexShaderCode, fragmentShaderCode);
+        mProgram = program.handle;
+        binding = program.binding();
+    }
 
-        // COMPILACIÓN de shaders usando el método de MyGLRenderer
-        int vertexShader = MyGLRenderer.loadShader(GLES20.GL_VERTEX_SHADER, vertexShaderCode);
-        int fragmentShader = MyGLRenderer.loadShader(GLES20.GL_FRAGMENT_SHADER, fragmentShaderCode);
+    /**
+     * Adopta vertices ya empacados en otro hilo (ver GeometryLoader y
+     * DirectBuffers.pack); no se copian.
+     */
+    public Triangles(FloatBuffer packed) {
+        this.triangleCoords = null;
+        this.vertexCount = packed.remaining() / COORDS_POR_VERTEX;
+        this.vertexStride = COORDS_POR_VERTEX * 4;
+        vertexMemory = null;
+        vertexBuffer = packed;
+        source = new VertexSource(vertexBuffer);
 
-        // CREACIÓN del programa OpenGL
-        mProgram = GLES20.glCreateProgram();
-        GLES20.glAttachShader(mProgram, vertexShader);
-        GLES20.glAttachShader(mProgram, fragmentShader);
-        GLES20.glLinkProgram(mProgram);
+        program = ShaderProgramCache.shared().acquire(vertexShaderCode, fragmentShaderCode);
+        mProgram = program.handle;
+        binding = program.binding();
     }
 
     // Shaders (sin cambios - funcionan para cualquier cantidad de triángulos)
     private final String vertexShaderCode =
             "attribute vec4 vPosition;"+
+                    "uniform mat4 uMVPMatrix;"+
                     "void main(){" +
-                    "gl_Position = vPosition;"+ // Transforma la posición del vértice
+                    "gl_Position = uMVPMatrix * vPosition;"+ // Transforma la posición del vértice
                     "}";
 
     private final String fragmentShaderCode =
@@ -84,29 +112,32 @@ public class Triangles{
     // =============================================
     // MÉTODO draw() - DIBUJA MÚLTIPLES TRIÁNGULOS
     // =============================================
-    public void draw(){
+    @Override
+    public int getProgramHandle() {
+        return mProgram;
+    }
+
+    @Override
+    public int getBufferHandle() {
+        return source.getBufferHandle();
+    }
+
+    @Override
+    public void draw(Camera camera){
+        GLApi gl = Gl.api();
         // ACTIVAR nuestro programa de shaders
-        GLES20.glUseProgram(mProgram);
+        gl.glUseProgram(mProgram);
 
         // OBTENER la ubicación de la variable de posición en el shader
-        positionHandle = GLES20.glGetAttribLocation(mProgram, "vPosition");
+        positionHandle = binding.positionHandle;
 
         // ACTIVAR el uso del arreglo de vértices
-        GLES20.glEnableVertexAttribArray(positionHandle);
-
-        // EXPLICAR cómo OpenGL debe leer los datos de vértices:
-        GLES20.glVertexAttribPointer(
-                positionHandle,      // Dónde guardar las posiciones
-                COORDS_POR_VERTEX,   // 3 coordenadas por vértice (x,y,z)
-                GLES20.GL_FLOAT,     // Tipo de datos: números decimales
-                false,               // No normalizar los valores
-                vertexStride,        // 12 bytes entre cada vértice
-                vertexBuffer         // Buffer con TODOS los vértices
-        );
+        source.enable(gl, positionHandle, COORDS_POR_VERTEX, vertexStride);
 
         // CONFIGURAR el color de todos los triángulos
-        colorHandle = GLES20.glGetUniformLocation(mProgram, "vColor");
-        GLES20.glUniform4fv(colorHandle, 1, color, 0);
+        colorHandle = binding.colorHandle;
+        gl.glUniform4fv(colorHandle, 1, color, 0);
+        uploadMvp(gl, binding.mvpHandle, camera);
 
         // --- DIBUJADO DE MÚLTIPLES TRIÁNGULOS - LA PARTE MÁS IMPORTANTE ---
         // GL_TRIANGLES: modo de dibujo para triángulos INDEPENDIENTES
@@ -118,10 +149,26 @@ public class Triangles{
         // - Vértices 3-4-5: forman el segundo triángulo
         // - Vértices 6-7-8: forman el tercer triángulo
         // ¡Y así sucesivamente!
-        GLES20.glDrawArrays(GLES20.GL_TRIANGLES, 0, vertexCount);
+        gl.glDrawArrays(GLES20.GL_TRIANGLES, 0, vertexCount);
 
         // LIMPIEZA: desactivar el arreglo de vértices
-        GLES20.glDisableVertexAttribArray(positionHandle);
+        source.disable(gl, positionHandle);
+    }
+
+    public void useGpuBuffers(int usage) {
+        source.useGpuBuffers(usage);
+    }
+
+    public void releaseGpuBuffers() {
+        source.releaseGpuBuffers();
     }
 
+    // Suelta el programa compartido cuando la figura ya no se va a dibujar
+    public void release() {
+        ShaderProgramCache.shared().release(program);
+        releaseGpuBuffers();
+        if (vertexMemory != null) {
+            vertexMemory.release();
+        }
+    }
 }
@@ -0,0 +1,102 @@
+package com.programacionavanzada.primitivas;
+
+import android.opengl.GLES20;
+
+import com.programacionavanzada.gl.GLApi;
+import com.programacionavanzada.gl.GpuBuffer;
+
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Vertices (y, si hay, indices) de una primitiva: en la memoria del cliente
+ * o, despues de {@link #useGpuBuffers(int)}, en un VBO/IBO. draw() los usa
+ * igual en los dos casos.
+ */
+final class VertexSource {
+
+    private final FloatBuffer vertices;
+    private final int vertexBytes;
+    private final ShortBuffer indices; // null = se dibuja con glDrawArrays
+    private GpuBuffer vbo; // null = se dibuja desde la memoria del cliente
+    private GpuBuffer ibo;
+
+    VertexSource(FloatBuffer vertices) {
+        this(vertices, null);
+    }
+
+    VertexSource(FloatBuffer vertices, ShortBuffer indices) {
+        this.vertices = vertices;
+        this.vertexBytes = vertices.capacity() * 4;
+        this.indices = indices;
+    }
+
+    /**
+     * Sube los datos una sola vez a la GPU; desde entonces draw() ya no los
+     * reenvia en cada cuadro.
+     *
+     * @param usage GLES20.GL_STATIC_DRAW, GL_DYNAMIC_DRAW o GL_STREAM_DRAW
+     */
+    void useGpuBuffers(int usage) {
+        releaseGpuBuffers();
+        vbo = GpuBuffer.vertices(usage);
+        vbo.upload(vertices, vertexBytes);
+        vbo.unbind();
+        if (indices != null) {
+            ibo = GpuBuffer.indices(usage);
+            ibo.upload(indices);
+            ibo.unbind();
+        }
+    }
+
+    // Vuelve a dibujar desde la memoria del cliente
+    void releaseGpuBuffers() {
+        if (vbo != null) {
+            vbo.release();
+            vbo = null;
+        }
+        if (ibo != null) {
+            ibo.release();
+            ibo = null;
+        }
+    }
+
+    // VBO de los vertices; 0 si estan en la memoria del cliente
+    int getBufferHandle() {
+        return vbo != null ? vbo.getHandle() : 0;
+    }
+
+    /**
+     * Activa el atributo de posicion y lo apunta a los vertices: en el VBO
+     * desde el offset 0, o en la memoria del cliente.
+     */
+    void enable(GLApi gl, int positionHandle, int coordsPerVertex, int stride) {
+        gl.glEnableVertexAttribArray(positionHandle);
+        if (vbo != null) {
+            vbo.bind();
+            gl.glVertexAttribPointer(positionHandle, coordsPerVertex, GLES20.GL_FLOAT, false, stride, 0);
+        } else {
+            gl.glVertexAttribPointer(positionHandle, coordsPerVertex, GLES20.GL_FLOAT, false, stride, vertices);
+        }
+    }
+
+    // glDrawElements con los indices del IBO o de la memoria del cliente
+    void drawElements(GLApi gl, int mode, int count) {
+        if (ibo != null) {
+            ibo.bind();
+            gl.glDrawElements(mode, count, GLES20.GL_UNSIGNED_SHORT, 0);
+        } else {
+            gl.glDrawElements(mode, count, GLES20.GL_UNSIGNED_SHORT, indices);
+        }
+    }
+
+    void disable(GLApi gl, int positionHandle) {
+        gl.glDisableVertexAttribArray(positionHandle);
+        if (vbo != null) {
+            vbo.unbind();
+        }
+        if (ibo != null) {
+            ibo.unbind();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.programacionavanzada.render;
+
+import java.util.Arrays;
+
+/**
+ * Empaquetador skyline para una pagina de atlas: guarda el borde superior
+ * de lo ya ocupado como segmentos horizontales (x, y, ancho) y pone cada
+ * rectangulo nuevo donde su borde de arriba queda mas bajo (bottom-left).
+ * Los huecos debajo del skyline no se reutilizan; a cambio, insertar es
+ * O(segmentos) y no hay que guardar los rectangulos libres como en maxrects.
+ *
+ * <p>No llama a OpenGL; {@link TextureAtlas} lo usa por pagina.</p>
+ */
+public final class AtlasPacker {
+
+    private final int width;
+    private final int height;
+
+    // Segmentos del skyline ordenados por x; cubren 0..width sin huecos
+    private int[] segmentX = new int[16];
+    private int[] segmentY = new int[16];
+    private int[] segmentWidth = new int[16];
+    private int segments;
+
+    private long usedArea;
+
+    public AtlasPacker(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Tamano de pagina invalido: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        reset();
+    }
+
+    /**
+     * Deja la pagina vacia.
+     */
+    public void reset() {
+        segments = 1;
+        segmentX[0] = 0;
+        segmentY[0] = 0;
+        segmentWidth[0] = width;
+        usedArea = 0;
+    }
+
+    /**
+     * Busca lugar para un rectangulo de {@code w} x {@code h}.
+     *
+     * @param out recibe (x, y) de la esquina superior izquierda
+     * @return false si no cabe; la pagina no cambia
+     */
+    public boolean insert(int w, int h, int[] out) {
+        if (w <= 0 || h <= 0) {
+            throw new IllegalArgumentException("Rectangulo invalido: " + w + "x" + h);
+        }
+        int best = -1;
+        int bestTop = Integer.MAX_VALUE;
+        int bestWidth = Integer.MAX_VALUE;
+        int bestY = 0;
+        for (int i = 0; i < segments; i++) {
+            int y = fit(i, w, h);
+            if (y < 0) {
+                continue;
+            }
+            // El mas bajo; si empatan, el segmento mas angosto deja menos desperdicio
+            int top = y + h;
+            if (top < bestTop || (top == bestTop && segmentWidth[i] < bestWidth)) {
+                best = i;
+                bestTop = top;
+                bestWidth = segmentWidth[i];
+                bestY = y;
+            }
+        }
+        if (best < 0) {
+            return false;
+        }
+        out[0] = segmentX[best];
+        out[1] = bestY;
+        place(best, segmentX[best], bestY + h, w);
+        usedArea += (long) w * h;
+        return true;
+    }
+
+    /**
+     * Altura a la que quedaria el rectangulo empezando en el segmento
+     * {@code i}: la mas alta de los segmentos que cubre. -1 si no cabe.
+     */
+    private int fit(int i, int w, int h) {
+        int x = segmentX[i];
+        if (x + w > width) {
+            return -1;
+        }
+        int y = 0;
+        int remaining = w;
+        while (remaining > 0) {
+            y = Math.max(y, segmentY[i]);
+            if (y + h > height) {
+                return -1;
+            }
+            remaining -= segmentWidth[i];
+            i++;
+        }
+        return y;
+    }
+
+    // Agrega el segmento (x, top, w) en la posicion index y recorta los que tapa
+    private void place(int index, int x, int top, int w) {
+        ensureCapacity(segments + 1);
+        System.arraycopy(segmentX, index, segmentX, index + 1, segments - index);
+        System.arraycopy(segmentY, index, segmentY, index + 1, segments - index);
+        System.arraycopy(segmentWidth, index, segmentWidth, index + 1, segments - index);
+        segmentX[index] = x;
+        segmentY[index] = top;
+        segmentWidth[index] = w;
+        segments++;
+
+        int end = x + w;
+        int i = index + 1;
+        while (i < segments && segmentX[i] < end) {
+            int shrink = end - segmentX[i];
+            if (shrink >= segmentWidth[i]) {
+                remove(i);
+            } else {
+                segmentX[i] += shrink;
+                segmentWidth[i] -= shrink;
+                break;
+            }
+        }
+        merge();
+    }
+
+    // Une segmentos vecinos a la misma altura
+    private void merge() {
+        int i = 0;
+        while (i + 1 < segments) {
+            if (segmentY[i] == segmentY[i + 1]) {
+                segmentWidth[i] += segmentWidth[i + 1];
+                remove(i + 1);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private void remove(int i) {
+        System.arraycopy(segmentX, i + 1, segmentX, i, segments - i - 1);
+        System.arraycopy(segmentY, i + 1, segmentY, i, segments - i - 1);
+        System.arraycopy(segmentWidth, i + 1, segmentWidth, i, segments - i - 1);
+        segments--;
+    }
+
+    private void ensureCapacity(int n) {
+        if (n > segmentX.length) {
+            int capacity = Math.max(n, segmentX.length * 2);
+            segmentX = Arrays.copyOf(segmentX, capacity);
+            segmentY = Arrays.copyOf(segmentY, capacity);
+            segmentWidth = Arrays.copyOf(segmentWidth, capacity);
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Fraccion del area de la pagina ocupada por rectangulos (0..1).
+     */
+    public float occupancy() {
+        return (float) ((double) usedArea / ((long) width * height));
+    }
+
+    // Segmentos del skyline; para pruebas
+    int segmentCount() {
+        return segments;
+    }
+}
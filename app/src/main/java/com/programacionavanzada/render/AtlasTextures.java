@@ -0,0 +1,72 @@
+package com.programacionavanzada.render;
+
+import com.programacionavanzada.gl.DirectBuffers;
+import com.programacionavanzada.gl.PooledBuffer;
+import com.programacionavanzada.gl.Texture;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lado GL de {@link TextureAtlas}: una {@link Texture} RGBA por pagina. Los
+ * pixeles ARGB se convierten a RGBA en un buffer directo del pool antes de
+ * glTexSubImage2D.
+ *
+ * <p>Con mipmaps, las imagenes que se agregan en un cuadro regeneran los
+ * niveles una sola vez, al enlazar la pagina para dibujar.</p>
+ */
+public class AtlasTextures implements TextureAtlas.PageStore {
+
+    private final boolean mipmaps;
+    private final List<Texture> pages = new ArrayList<>();
+
+    public AtlasTextures(boolean mipmaps) {
+        this.mipmaps = mipmaps;
+    }
+
+    @Override
+    public void createPage(int page, int size) {
+        pages.add(new Texture(size, size, mipmaps));
+    }
+
+    @Override
+    public void upload(int page, int x, int y, int width, int height, int[] argb) {
+        PooledBuffer memory = DirectBuffers.pool().acquire(width * height * 4);
+        ByteBuffer rgba = memory.bytes();
+        for (int i = 0; i < width * height; i++) {
+            int c = argb[i];
+            rgba.put((byte) (c >> 16));
+            rgba.put((byte) (c >> 8));
+            rgba.put((byte) c);
+            rgba.put((byte) (c >>> 24));
+        }
+        rgba.position(0);
+        pages.get(page).upload(x, y, width, height, rgba);
+        memory.release();
+    }
+
+    /**
+     * Enlaza la pagina en la unidad {@code unit}; si se perdio el contexto la
+     * textura se vuelve a crear vacia (ver {@link TextureAtlas#onContextLost()}).
+     */
+    public void bind(int page, int unit) {
+        pages.get(page).bind(unit);
+    }
+
+    // Textura de una pagina, para TexturedQuad
+    public Texture getPage(int page) {
+        return pages.get(page);
+    }
+
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    public void release() {
+        for (Texture texture : pages) {
+            texture.release();
+        }
+        pages.clear();
+    }
+}
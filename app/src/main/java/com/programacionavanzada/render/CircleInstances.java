@@ -0,0 +1,200 @@
+package com.programacionavanzada.render;
+
+/**
+ * Datos por instancia de muchos circulos: centro, radio y color RGBA,
+ * guardados juntos en un solo float[] que se sube tal cual a la GPU.
+ *
+ * <p>Los setters escriben en el mismo arreglo, asi que se pueden animar
+ * todos los circulos cada cuadro sin crear objetos. Solo se reserva memoria
+ * nueva cuando se supera la capacidad.</p>
+ *
+ * <p>Cada cambio sube {@link #version()} y marca la instancia con esa
+ * version: quien sube los datos a la GPU guarda la version que subio y
+ * despues solo vuelve a subir las instancias modificadas desde entonces
+ * (ver {@link #firstModifiedSince(int)}). Asi varios renderers pueden
+ * dibujar el mismo contenedor sin pisarse.</p>
+ */
+public class CircleInstances {
+
+    public static final int FLOATS_PER_INSTANCE = 7; // cx, cy, radius, r, g, b, a
+
+    private float[] data;
+    private int count;
+    private boolean dirty;
+    private int version;
+    // Version del ultimo cambio de cada instancia
+    private int[] modified;
+    private SceneListener listener;
+
+    public CircleInstances(int initialCapacity) {
+        data = new float[Math.max(1, initialCapacity) * FLOATS_PER_INSTANCE];
+        modified = new int[Math.max(1, initialCapacity)];
+    }
+
+    /**
+     * Agrega un circulo y devuelve su indice.
+     */
+    public int add(float cx, float cy, float radius, float r, float g, float b, float a) {
+        if ((count + 1) * FLOATS_PER_INSTANCE > data.length) {
+            float[] bigger = new float[data.length * 2];
+            System.arraycopy(data, 0, bigger, 0, count * FLOATS_PER_INSTANCE);
+            data = bigger;
+            int[] stamps = new int[modified.length * 2];
+            System.arraycopy(modified, 0, stamps, 0, count);
+            modified = stamps;
+        }
+        int index = count++;
+        set(index, cx, cy, radius, r, g, b, a);
+        return index;
+    }
+
+    public void set(int index, float cx, float cy, float radius, float r, float g, float b, float a) {
+        int i = offset(index);
+        data[i] = cx;
+        data[i + 1] = cy;
+        data[i + 2] = radius;
+        data[i + 3] = r;
+        data[i + 4] = g;
+        data[i + 5] = b;
+        data[i + 6] = a;
+        markDirty(index);
+    }
+
+    public void setCenter(int index, float cx, float cy) {
+        int i = offset(index);
+        data[i] = cx;
+        data[i + 1] = cy;
+        markDirty(index);
+    }
+
+    public void setRadius(int index, float radius) {
+        data[offset(index) + 2] = radius;
+        markDirty(index);
+    }
+
+    public void setColor(int index, float r, float g, float b, float a) {
+        int i = offset(index) + 3;
+        data[i] = r;
+        data[i + 1] = g;
+        data[i + 2] = b;
+        data[i + 3] = a;
+        markDirty(index);
+    }
+
+    /**
+     * Quita el circulo moviendo el ultimo a su lugar (el orden no se conserva).
+     *
+     * @return el indice anterior del circulo que se movio, o -1 si no se movio ninguno
+     */
+    public int remove(int index) {
+        offset(index);
+        int last = --count;
+        if (index == last) {
+            // Solo se acorta: no hay datos nuevos que subir
+            markDirty();
+            return -1;
+        }
+        System.arraycopy(data, last * FLOATS_PER_INSTANCE, data, index * FLOATS_PER_INSTANCE, FLOATS_PER_INSTANCE);
+        markDirty(index);
+        return last;
+    }
+
+    public void clear() {
+        count = 0;
+        markDirty();
+    }
+
+    public float getCenterX(int index) {
+        return data[offset(index)];
+    }
+
+    public float getCenterY(int index) {
+        return data[offset(index) + 1];
+    }
+
+    public float getRadius(int index) {
+        return data[offset(index) + 2];
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int capacity() {
+        return data.length / FLOATS_PER_INSTANCE;
+    }
+
+    /**
+     * Arreglo interno, valido en [0, size() * FLOATS_PER_INSTANCE).
+     */
+    public float[] getData() {
+        return data;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public void clearDirty() {
+        dirty = false;
+    }
+
+    /**
+     * Cambia con cada modificacion, incluso las que solo quitan circulos.
+     */
+    public int version() {
+        return version;
+    }
+
+    /**
+     * Primera instancia modificada despues de {@code version}; size() si ninguna.
+     */
+    public int firstModifiedSince(int version) {
+        for (int i = 0; i < count; i++) {
+            if (modified[i] > version) {
+                return i;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Una despues de la ultima instancia modificada despues de {@code version};
+     * 0 si ninguna.
+     */
+    public int endModifiedSince(int version) {
+        for (int i = count; i > 0; i--) {
+            if (modified[i - 1] > version) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Se avisa en cada cambio; normalmente es el {@link RenderScheduler}.
+     */
+    public void setListener(SceneListener listener) {
+        this.listener = listener;
+    }
+
+    private void markDirty(int index) {
+        markDirty();
+        modified[index] = version;
+    }
+
+    private void markDirty() {
+        version++;
+        dirty = true;
+        if (listener != null) {
+            listener.onSceneChanged();
+        }
+    }
+
+    private int offset(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Circulo " + index + " de " + count);
+        }
+        return index * FLOATS_PER_INSTANCE;
+    }
+}
@@ -0,0 +1,176 @@
+package com.programacionavanzada.render;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Genera geometria en hilos de trabajo y la entrega al hilo GL.
+ *
+ * <ul>
+ *     <li>{@link Job#build()} corre en un hilo de trabajo: tesela y empaca
+ *     los vertices (por ejemplo con DirectBuffers.pack). No puede tocar GL.</li>
+ *     <li>El resultado espera en una cola sin locks hasta que el hilo GL llama
+ *     a {@link #uploadPending(long)} al inicio del cuadro.</li>
+ *     <li>{@link Upload#upload(Object)} corre en el hilo GL: crea la figura o
+ *     sube el VBO.</li>
+ * </ul>
+ *
+ * <p>A diferencia de GLSurfaceView.queueEvent, que corre todos los eventos
+ * antes del siguiente cuadro, aqui cada cuadro sube solo lo que cabe en su
+ * presupuesto de tiempo; lo demas queda para el siguiente.</p>
+ */
+public final class GeometryLoader {
+
+    /**
+     * Trabajo pesado sin GL; corre fuera del hilo GL.
+     */
+    public interface Job<T> {
+        T build();
+    }
+
+    /**
+     * Recibe el resultado en el hilo GL.
+     */
+    public interface Upload<T> {
+        void upload(T result);
+    }
+
+    private final Executor executor;
+    private final LongSupplier clock;
+    private final ConcurrentLinkedQueue<Ready<?>> ready = new ConcurrentLinkedQueue<>();
+    // Trabajos enviados que todavia no se subieron
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile SceneListener listener;
+
+    private long uploadsLastFrame;
+
+    /**
+     * Usa un hilo por nucleo (menos el del hilo GL). Los hilos son daemon y
+     * terminan solos si no hay trabajo.
+     */
+    public GeometryLoader() {
+        this(defaultExecutor(), System::nanoTime);
+    }
+
+    /**
+     * @param clock tiempo en nanosegundos para medir el presupuesto
+     */
+    public GeometryLoader(Executor executor, LongSupplier clock) {
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    private static Executor defaultExecutor() {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread thread = new Thread(r, "geometria-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            // Que no le quite CPU al hilo GL ni al de la interfaz
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        };
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads,
+                10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Recibe un aviso cuando hay geometria lista, para pedir un cuadro.
+     */
+    public void setListener(SceneListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Manda a generar geometria; se puede llamar desde cualquier hilo.
+     */
+    public <T> void submit(Job<T> job, Upload<T> upload) {
+        inFlight.incrementAndGet();
+        executor.execute(() -> {
+            Ready<T> result = new Ready<>(upload);
+            try {
+                result.value = job.build();
+            } catch (RuntimeException | Error e) {
+                result.failure = e;
+            }
+            ready.offer(result);
+            notifyListener();
+        });
+    }
+
+    /**
+     * Hilo GL: sube resultados hasta agotar {@code budgetNanos}. Siempre sube
+     * al menos uno para que la cola avance aunque un resultado sea lento.
+     * Si quedan pendientes pide otro cuadro.
+     *
+     * @return cuantos resultados se subieron
+     * @throws IllegalStateException si un Job fallo en el hilo de trabajo
+     */
+    public int uploadPending(long budgetNanos) {
+        long start = clock.getAsLong();
+        int uploaded = 0;
+        Ready<?> next;
+        while ((next = ready.poll()) != null) {
+            inFlight.decrementAndGet();
+            uploaded++;
+            next.deliver();
+            if (clock.getAsLong() - start >= budgetNanos) {
+                break;
+            }
+        }
+        uploadsLastFrame = uploaded;
+        if (!ready.isEmpty()) {
+            notifyListener();
+        }
+        return uploaded;
+    }
+
+    private void notifyListener() {
+        SceneListener l = listener;
+        if (l != null) {
+            l.onSceneChanged();
+        }
+    }
+
+    /**
+     * Trabajos enviados que todavia no llegaron a la GPU.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    // Resultados listos esperando al hilo GL
+    public int getReadyCount() {
+        return ready.size();
+    }
+
+    public long getUploadsLastFrame() {
+        return uploadsLastFrame;
+    }
+
+    private static final class Ready<T> {
+        final Upload<T> upload;
+        T value;
+        Throwable failure;
+
+        Ready(Upload<T> upload) {
+            this.upload = upload;
+        }
+
+        void deliver() {
+            if (failure != null) {
+                // Se relanza en el hilo GL, igual que si se hubiera generado ahi
+                throw new IllegalStateException("Fallo al generar geometria", failure);
+            }
+            upload.upload(value);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.programacionavanzada.render;
+
+import android.opengl.GLES20;
+
+import com.programacionavanzada.geometria.CircleTessellator;
+import com.programacionavanzada.gl.DirectBuffers;
+import com.programacionavanzada.gl.GLApi;
+import com.programacionavanzada.gl.Gl;
+import com.programacionavanzada.gl.GlCapabilities;
+import com.programacionavanzada.gl.GpuBuffer;
+import com.programacionavanzada.gl.PooledBuffer;
+import com.programacionavanzada.gl.ProgramBinding;
+import com.programacionavanzada.gl.ShaderProgram;
+import com.programacionavanzada.gl.ShaderProgramCache;
+import com.programacionavanzada.gl.VertexFormat;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Dibuja todos los circulos de un {@link CircleInstances} con un solo
+ * abanico unitario compartido.
+ *
+ * <p>Con GLES 3.0 se usa glDrawArraysInstanced: el abanico va en un VBO
+ * estatico y centro/radio/color son atributos con divisor 1. En GLES 2.0
+ * cada circulo se expande a vertices dentro de un {@link ShapeBatch}.</p>
+ */
+public class InstancedCircleRenderer {
+
+    private static final int UNIT_STRIDE = 2 * 4;
+    private static final int INSTANCE_STRIDE = CircleInstances.FLOATS_PER_INSTANCE * 4;
+    // Centro (xy) y radio (z) de cada circulo
+    static final String INSTANCE = "aInstance";
+
+    private final String vertexShaderCode =
+            "attribute vec2 vPosition;" +      // punto del circulo unitario
+                    "attribute vec3 aInstance;" +    // centro (xy) y radio (z)
+                    "attribute vec4 aColor;" +
+                    "uniform mat4 uMVPMatrix;" +
+                    "varying vec4 vVertexColor;" +
+                    "void main(){" +
+                    "gl_Position = uMVPMatrix * vec4(aInstance.xy + vPosition * aInstance.z, 0.0, 1.0);" +
+                    "vVertexColor = aColor;" +
+                    "}";
+
+    private final String fragmentShaderCode =
+            "precision mediump float;" +
+                    "varying vec4 vVertexColor;" +
+                    "void main(){" +
+                    "gl_FragColor = vVertexColor;" +
+                    "}";
+
+    private final int numPoints;
+    private final boolean instanced;
+
+    // Ruta GLES 3.0
+    private ShaderProgram program;
+    private int positionHandle;
+    private int instanceHandle;
+    private int colorHandle;
+    private int mvpHandle;
+    private GpuBuffer unitFan;
+    private GpuBuffer instanceBuffer;
+    private FloatBuffer instanceData;
+    private PooledBuffer instanceMemory;
+    // Contenedor y version que tiene el VBO de instancias
+    private CircleInstances uploaded;
+    private int uploadedVersion;
+
+    // Ruta GLES 2.0
+    private ShapeBatchRenderer batchRenderer;
+    private ShapeBatch batch;
+    private final float[] color = new float[4];
+
+    private float[] viewProjection = ShapeBatchRenderer.IDENTITY;
+
+    /**
+     * @param numPoints segmentos del abanico compartido
+     */
+    public InstancedCircleRenderer(int numPoints) {
+        this.numPoints = numPoints;
+        this.instanced = GlCapabilities.isEs3();
+
+        if (instanced) {
+            FloatBuffer unit = DirectBuffers.allocate(CircleTessellator.fanVertexCount(numPoints) * UNIT_STRIDE)
+                    .asFloatBuffer();
+            CircleTessellator.fan(0f, 0f, 1f, numPoints, unit, 2);
+            unitFan = GpuBuffer.vertices(GLES20.GL_STATIC_DRAW);
+            unitFan.upload(unit);
+            unitFan.unbind();
+            instanceBuffer = GpuBuffer.vertices(GLES20.GL_STREAM_DRAW);
+
+            program = ShaderProgramCache.shared().acquire(vertexShaderCode, fragmentShaderCode);
+            positionHandle = program.attribLocation(ProgramBinding.POSITION);
+            instanceHandle = program.attribLocation(INSTANCE);
+            colorHandle = program.attribLocation(VertexFormat.COLOR);
+            mvpHandle = program.uniformLocation(ProgramBinding.MVP);
+        } else {
+            batchRenderer = new ShapeBatchRenderer();
+            batch = new ShapeBatch(batchRenderer);
+        }
+    }
+
+    /**
+     * Matriz de la camara, igual que en {@link ShapeBatchRenderer#setViewProjection(float[])}.
+     */
+    public void setViewProjection(float[] matrix) {
+        viewProjection = matrix != null ? matrix : ShapeBatchRenderer.IDENTITY;
+        if (batchRenderer != null) {
+            batchRenderer.setViewProjection(matrix);
+        }
+    }
+
+    public boolean isInstanced() {
+        return instanced;
+    }
+
+    public void draw(CircleInstances circles) {
+        if (circles.size() == 0) {
+            return;
+        }
+        if (instanced) {
+            drawInstanced(circles);
+        } else {
+            drawExpanded(circles);
+        }
+    }
+
+    private void drawInstanced(CircleInstances circles) {
+        GLApi gl = Gl.api();
+        int capacityBytes = circles.capacity() * INSTANCE_STRIDE;
+        if (instanceData == null || instanceData.capacity() * 4 < capacityBytes) {
+            // Solo crece cuando cambia la capacidad del contenedor
+            if (instanceMemory != null) {
+                instanceMemory.release();
+            }
+            instanceMemory = DirectBuffers.pool().acquire(capacityBytes);
+            instanceData = instanceMemory.floats();
+        }
+
+        gl.glUseProgram(program.handle);
+        gl.glUniformMatrix4fv(mvpHandle, 1, false, viewProjection, 0);
+
+        unitFan.bind();
+        gl.glEnableVertexAttribArray(positionHandle);
+        gl.glVertexAttribPointer(positionHandle, 2, GLES20.GL_FLOAT, false, UNIT_STRIDE, 0);
+
+        uploadInstances(circles);
+        gl.glEnableVertexAttribArray(instanceHandle);
+        gl.glVertexAttribPointer(instanceHandle, 3, GLES20.GL_FLOAT, false, INSTANCE_STRIDE, 0);
+        gl.glVertexAttribDivisor(instanceHandle, 1);
+        gl.glEnableVertexAttribArray(colorHandle);
+        gl.glVertexAttribPointer(colorHandle, 4, GLES20.GL_FLOAT, false, INSTANCE_STRIDE, 3 * 4);
+        gl.glVertexAttribDivisor(colorHandle, 1);
+
+        gl.glDrawArraysInstanced(GLES20.GL_TRIANGLE_FAN, 0, numPoints + 2, circles.size());
+
+        // Los divisores son estado global: se dejan en 0 para las demas primitivas
+        gl.glVertexAttribDivisor(instanceHandle, 0);
+        gl.glVertexAttribDivisor(colorHandle, 0);
+        gl.glDisableVertexAttribArray(positionHandle);
+        gl.glDisableVertexAttribArray(instanceHandle);
+        gl.glDisableVertexAttribArray(colorHandle);
+        instanceBuffer.unbind();
+    }
+
+    /**
+     * Deja enlazado el VBO de instancias con los datos actuales. Solo se sube
+     * el rango que cambio desde la version que ya tiene (glBufferSubData, como
+     * StreamingBuffer); el VBO entero solo si tenia otro contenedor, si crecio
+     * el contenedor o si se perdio el contexto.
+     */
+    private void uploadInstances(CircleInstances circles) {
+        float[] data = circles.getData();
+        int capacityBytes = circles.capacity() * INSTANCE_STRIDE;
+        int version = circles.version();
+        if (circles != uploaded || !instanceBuffer.isValid() || instanceBuffer.getSizeBytes() != capacityBytes) {
+            int floats = circles.size() * CircleInstances.FLOATS_PER_INSTANCE;
+            instanceData.clear();
+            instanceData.put(data, 0, floats);
+            instanceBuffer.upload(instanceData, capacityBytes);
+            uploaded = circles;
+            uploadedVersion = version;
+            return;
+        }
+        if (version == uploadedVersion) {
+            instanceBuffer.bind();
+            return;
+        }
+        int start = circles.firstModifiedSince(uploadedVersion);
+        int end = circles.endModifiedSince(uploadedVersion);
+        uploadedVersion = version;
+        if (end <= start) {
+            instanceBuffer.bind();
+            return;
+        }
+        int offset = start * CircleInstances.FLOATS_PER_INSTANCE;
+        int floats = (end - start) * CircleInstances.FLOATS_PER_INSTANCE;
+        instanceData.position(offset);
+        instanceData.put(data, offset, floats);
+        instanceData.position(0);
+        instanceBuffer.update(offset * 4, floats * 4);
+    }
+
+    private void drawExpanded(CircleInstances circles) {
+        float[] data = circles.getData();
+        batch.begin();
+        for (int i = 0; i < circles.size(); i++) {
+            int o = i * CircleInstances.FLOATS_PER_INSTANCE;
+            color[0] = data[o + 3];
+            color[1] = data[o + 4];
+            color[2] = data[o + 5];
+            color[3] = data[o + 6];
+            batch.addCircle(data[o], data[o + 1], data[o + 2], numPoints, color);
+        }
+        batch.end();
+    }
+
+    public void release() {
+        if (instanced) {
+            ShaderProgramCache.shared().release(program);
+            unitFan.release();
+            instanceBuffer.release();
+            uploaded = null;
+            if (instanceMemory != null) {
+                instanceMemory.release();
+            }
+        } else {
+            batchRenderer.release();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.programacionavanzada.render;
+
+/**
+ * Grupo de figuras que casi no cambia (un fondo, una cuadricula, un mapa)
+ * y que {@link LayerCache} puede dibujar una vez en una textura y despues
+ * pegar como un solo cuadro.
+ *
+ * <p>Las figuras van en su propia {@link Scene} ({@link #getScene()}).
+ * Cualquier cambio en esa escena sube {@link #version()}; la cache compara
+ * la version con la que dibujo y solo entonces vuelve a dibujar la capa.
+ * Todo lo que se dibuja fuera de {@link #getMinX()}..{@link #getMaxY()} se
+ * recorta.</p>
+ *
+ * <p>La capa no tiene nada de GL: sobrevive a la perdida del contexto.</p>
+ */
+public class Layer {
+
+    private final Scene scene;
+    private float minX;
+    private float minY;
+    private float maxX;
+    private float maxY;
+    private int version;
+    private SceneListener listener;
+
+    public Layer(float minX, float minY, float maxX, float maxY) {
+        this(new Scene(), minX, minY, maxX, maxY);
+    }
+
+    public Layer(Scene scene, float minX, float minY, float maxX, float maxY) {
+        this.scene = scene;
+        setBounds(minX, minY, maxX, maxY);
+        scene.setListener(this::invalidate);
+    }
+
+    public Scene getScene() {
+        return scene;
+    }
+
+    /**
+     * Rectangulo en coordenadas de mundo que cubre la textura de la capa.
+     */
+    public void setBounds(float minX, float minY, float maxX, float maxY) {
+        if (!(maxX > minX) || !(maxY > minY)) {
+            throw new IllegalArgumentException("Limites de capa invalidos: " + minX + "," + minY
+                    + " " + maxX + "," + maxY);
+        }
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        // La escena de la capa descarta contra la capa, no contra la camara
+        scene.setView(minX, minY, maxX, maxY);
+        invalidate();
+    }
+
+    /**
+     * Marca la capa para volver a dibujarla; la escena lo hace sola cuando
+     * un nodo cambia.
+     */
+    public void invalidate() {
+        version++;
+        if (listener != null) {
+            listener.onSceneChanged();
+        }
+    }
+
+    public int version() {
+        return version;
+    }
+
+    /**
+     * Se avisa cuando la capa cambia; normalmente es el {@link RenderScheduler}.
+     */
+    public void setListener(SceneListener listener) {
+        this.listener = listener;
+    }
+
+    public boolean intersects(float minX, float minY, float maxX, float maxY) {
+        return this.minX <= maxX && this.maxX >= minX && this.minY <= maxY && this.maxY >= minY;
+    }
+
+    public float getMinX() {
+        return minX;
+    }
+
+    public float getMinY() {
+        return minY;
+    }
+
+    public float getMaxX() {
+        return maxX;
+    }
+
+    public float getMaxY() {
+        return maxY;
+    }
+
+    public float getWidth() {
+        return maxX - minX;
+    }
+
+    public float getHeight() {
+        return maxY - minY;
+    }
+}
@@ -0,0 +1,356 @@
+package com.programacionavanzada.render;
+
+import com.programacionavanzada.gl.GlCounters;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache de {@link Layer}: cada capa se dibuja una vez en una superficie
+ * fuera de pantalla y en los cuadros siguientes solo se pega como un
+ * cuadro, hasta que algo de su escena cambia.
+ *
+ * <ul>
+ *     <li>La resolucion sale de {@link #setPixelSize(float)} redondeada a la
+ *     potencia de dos de pixeles por unidad de arriba: un zoom pequeno no
+ *     vuelve a dibujar la capa, solo la escala un poco al pegarla. Se limita a
+ *     {@link #MAX_LAYER_SIZE} por lado.</li>
+ *     <li>Las capas caben en un presupuesto de bytes (RGBA, 4 por pixel). Si
+ *     una capa nueva no cabe se desaloja la que lleva mas tiempo sin usarse;
+ *     las que ya se usaron en este cuadro no se desalojan. Si ni asi cabe,
+ *     la capa se dibuja directo en pantalla como si no hubiera cache.</li>
+ *     <li>Cada {@link #draw(Layer)} cuenta como acierto (se pego una textura
+ *     de un cuadro anterior) o fallo (hubo que dibujar la escena en este
+ *     cuadro); se suman en {@link GlCounters} para las metricas.</li>
+ * </ul>
+ *
+ * <p>Una capa que cambia en cada cuadro sale mas cara en cache que sin ella:
+ * se dibuja y ademas se pega. Solo conviene para contenido casi estatico.</p>
+ *
+ * <p>No llama a OpenGL; {@link LayerRenderer} es el Backend.</p>
+ */
+public class LayerCache {
+
+    /**
+     * Donde viven las superficies. {@code slot} identifica la superficie de
+     * una capa; los slots libres se reutilizan.
+     */
+    public interface Backend {
+        // Dibuja la escena de la capa en la superficie; la crea si no existe o si cambio el tamano
+        void render(int slot, Layer layer, int width, int height);
+
+        // Pega la superficie sobre los limites de la capa, con la camara actual
+        void composite(int slot, Layer layer);
+
+        // Dibuja la escena de la capa en pantalla, sin superficie
+        void drawDirect(Layer layer);
+
+        void release(int slot);
+    }
+
+    // Dos capas a pantalla completa en 1080x1920
+    public static final long DEFAULT_BUDGET_BYTES = 16L * 1024 * 1024;
+    // Lo que cualquier GPU con GLES 2.0 de los ultimos anos acepta como textura
+    public static final int MAX_LAYER_SIZE = 2048;
+    // Un pixel con la camara por defecto en una pantalla de unos 1000 pixeles
+    public static final float DEFAULT_PIXEL_SIZE = 0.002f;
+
+    private static final class Entry {
+        final Layer layer;
+        final int slot;
+        final int width;
+        final int height;
+        int version;
+        int lastUsed;
+        // -1 hasta que se dibuja por primera vez
+        int renderedFrame = -1;
+
+        Entry(Layer layer, int slot, int width, int height) {
+            this.layer = layer;
+            this.slot = slot;
+            this.width = width;
+            this.height = height;
+        }
+
+        long bytes() {
+            return (long) width * height * 4;
+        }
+    }
+
+    private final Backend backend;
+    private long budgetBytes;
+    private final Map<Layer, Entry> entries = new HashMap<>();
+    // Entrada de cada slot; null = libre
+    private final List<Entry> slots = new ArrayList<>();
+
+    private float pixelsPerUnit;
+    private float viewMinX = -1f;
+    private float viewMinY = -1f;
+    private float viewMaxX = 1f;
+    private float viewMaxY = 1f;
+
+    private int frame;
+    private long bytesHeld;
+    private long hits;
+    private long misses;
+    private int evictions;
+
+    public LayerCache(Backend backend) {
+        this(backend, DEFAULT_BUDGET_BYTES);
+    }
+
+    public LayerCache(Backend backend, long budgetBytes) {
+        if (budgetBytes <= 0) {
+            throw new IllegalArgumentException("Presupuesto invalido: " + budgetBytes);
+        }
+        this.backend = backend;
+        this.budgetBytes = budgetBytes;
+        setPixelSize(DEFAULT_PIXEL_SIZE);
+    }
+
+    /**
+     * Avanza el reloj del LRU; se llama una vez por cuadro antes de dibujar.
+     */
+    public void nextFrame() {
+        frame++;
+    }
+
+    /**
+     * Lo que mide un pixel de pantalla en unidades de mundo
+     * (Camera.worldUnitsPerPixel()). Cambia con el zoom y con el tamano del
+     * viewport en onSurfaceChanged.
+     */
+    public void setPixelSize(float worldUnitsPerPixel) {
+        if (!(worldUnitsPerPixel > 0f)) {
+            throw new IllegalArgumentException("Tamano de pixel invalido: " + worldUnitsPerPixel);
+        }
+        float exact = 1f / worldUnitsPerPixel;
+        float rounded = Math.scalb(1f, Math.getExponent(exact));
+        pixelsPerUnit = rounded == exact ? rounded : rounded * 2f;
+    }
+
+    /**
+     * Vista de la camara en coordenadas de mundo; las capas que no la tocan
+     * no se dibujan ni cuentan.
+     */
+    public void setView(float minX, float minY, float maxX, float maxY) {
+        viewMinX = minX;
+        viewMinY = minY;
+        viewMaxX = maxX;
+        viewMaxY = maxY;
+    }
+
+    /**
+     * Dibuja la capa en su superficie si cambio, si no estaba o si cambio la
+     * resolucion; si no, no hace nada. Conviene llamarlo antes del glClear de
+     * la pantalla: cambiar de framebuffer a mitad del cuadro obliga a las GPU
+     * por bloques a guardar y recargar lo que ya se dibujo.
+     */
+    public void update(Layer layer) {
+        if (layer.intersects(viewMinX, viewMinY, viewMaxX, viewMaxY)) {
+            prepare(layer);
+        }
+    }
+
+    /**
+     * Pega la capa desde su superficie (antes la dibuja si hace falta, como
+     * {@link #update(Layer)}). Se llama fuera de los begin()/end() de los
+     * lotes que usa el Backend, en el orden en que deben quedar. Es acierto
+     * si la superficie no se dibujo en este cuadro.
+     */
+    public void draw(Layer layer) {
+        if (!layer.intersects(viewMinX, viewMinY, viewMaxX, viewMaxY)) {
+            return;
+        }
+        Entry entry = prepare(layer);
+        boolean hit = entry != null && entry.renderedFrame != frame;
+        if (hit) {
+            hits++;
+        } else {
+            misses++;
+        }
+        GlCounters.countLayer(hit);
+        if (entry == null) {
+            backend.drawDirect(layer);
+        } else {
+            backend.composite(entry.slot, layer);
+        }
+    }
+
+    // La entrada al dia de la capa, o null si no cabe en el presupuesto
+    private Entry prepare(Layer layer) {
+        int width = pixels(layer.getWidth());
+        int height = pixels(layer.getHeight());
+        int version = layer.version();
+        Entry entry = entries.get(layer);
+        if (entry != null && (entry.width != width || entry.height != height)) {
+            // Otra resolucion: la superficie vieja no sirve
+            release(entry);
+            entry = null;
+        }
+        if (entry == null) {
+            if (!makeRoom((long) width * height * 4)) {
+                return null;
+            }
+            entry = add(layer, width, height);
+        }
+        entry.lastUsed = frame;
+        if (entry.version != version || entry.renderedFrame < 0) {
+            backend.render(entry.slot, layer, width, height);
+            entry.version = version;
+            entry.renderedFrame = frame;
+        }
+        return entry;
+    }
+
+    private int pixels(float worldSize) {
+        return Math.max(1, Math.min(MAX_LAYER_SIZE, (int) Math.ceil(worldSize * pixelsPerUnit)));
+    }
+
+    private Entry add(Layer layer, int width, int height) {
+        int slot = slots.indexOf(null);
+        if (slot < 0) {
+            slot = slots.size();
+            slots.add(null);
+        }
+        Entry entry = new Entry(layer, slot, width, height);
+        slots.set(slot, entry);
+        entries.put(layer, entry);
+        setBytesHeld(bytesHeld + entry.bytes());
+        return entry;
+    }
+
+    // Desaloja las menos usadas hasta que quepan bytes; false si no se puede
+    private boolean makeRoom(long bytes) {
+        if (bytes > budgetBytes) {
+            return false;
+        }
+        while (bytesHeld + bytes > budgetBytes) {
+            Entry oldest = leastRecentlyUsed(frame);
+            if (oldest == null) {
+                return false;
+            }
+            release(oldest);
+            evictions++;
+        }
+        return true;
+    }
+
+    // La entrada usada hace mas tiempo, sin contar las usadas desde el cuadro before
+    private Entry leastRecentlyUsed(int before) {
+        Entry best = null;
+        for (Entry entry : slots) {
+            if (entry != null && entry.lastUsed < before && (best == null || entry.lastUsed < best.lastUsed)) {
+                best = entry;
+            }
+        }
+        return best;
+    }
+
+    private void release(Entry entry) {
+        backend.release(entry.slot);
+        slots.set(entry.slot, null);
+        entries.remove(entry.layer);
+        setBytesHeld(bytesHeld - entry.bytes());
+    }
+
+    private void setBytesHeld(long bytes) {
+        bytesHeld = bytes;
+        GlCounters.setLayerBytes(bytes);
+    }
+
+    /**
+     * Cambia el presupuesto y desaloja (de la menos usada a la mas usada)
+     * hasta quedar dentro, aunque se hayan usado en este cuadro. Sirve para
+     * onTrimMemory.
+     */
+    public void setBudgetBytes(long budgetBytes) {
+        if (budgetBytes <= 0) {
+            throw new IllegalArgumentException("Presupuesto invalido: " + budgetBytes);
+        }
+        this.budgetBytes = budgetBytes;
+        while (bytesHeld > budgetBytes) {
+            release(leastRecentlyUsed(Integer.MAX_VALUE));
+            evictions++;
+        }
+    }
+
+    /**
+     * Olvida una capa que ya no se va a dibujar y libera su superficie.
+     */
+    public void remove(Layer layer) {
+        Entry entry = entries.get(layer);
+        if (entry != null) {
+            release(entry);
+        }
+    }
+
+    /**
+     * Libera todas las superficies; la siguiente vez cada capa se vuelve a dibujar.
+     */
+    public void clear() {
+        for (Entry entry : slots) {
+            if (entry != null) {
+                backend.release(entry.slot);
+            }
+        }
+        slots.clear();
+        entries.clear();
+        setBytesHeld(0);
+    }
+
+    /**
+     * Las superficies del contexto anterior ya no tienen lo que se dibujo:
+     * se olvidan todas, igual que {@link #clear()}.
+     */
+    public void onContextLost() {
+        clear();
+    }
+
+    // true si la capa tiene superficie y esta al dia
+    public boolean isCached(Layer layer) {
+        Entry entry = entries.get(layer);
+        return entry != null && entry.renderedFrame >= 0 && entry.version == layer.version();
+    }
+
+    public long getHitCount() {
+        return hits;
+    }
+
+    public long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Fraccion de {@link #draw(Layer)} que solo pegaron la textura; 0 si
+     * todavia no se dibujo ninguna capa.
+     */
+    public float getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0f : (float) hits / total;
+    }
+
+    public long getBytesHeld() {
+        return bytesHeld;
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    public int getEvictionCount() {
+        return evictions;
+    }
+
+    // Capas con superficie en este momento
+    public int getLayerCount() {
+        return entries.size();
+    }
+
+    // Pixeles por unidad de mundo con que se dibujan las capas
+    public float getPixelsPerUnit() {
+        return pixelsPerUnit;
+    }
+}
@@ -0,0 +1,168 @@
+package com.programacionavanzada.render;
+
+import android.opengl.GLES20;
+
+import com.programacionavanzada.geometria.Camera;
+import com.programacionavanzada.geometria.Mat4;
+import com.programacionavanzada.gl.GLApi;
+import com.programacionavanzada.gl.RenderTarget;
+import com.programacionavanzada.primitivas.Square;
+import com.programacionavanzada.primitivas.TexturedQuad;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lado GL de {@link LayerCache}: cada slot es un {@link RenderTarget} y un
+ * {@link TexturedQuad} que lo pega sobre los limites de la capa.
+ *
+ * <p>Las capas se dibujan con los mismos lotes que la escena principal
+ * ({@link ShapeBatch} y {@link SdfBatch}), cambiando por un momento su
+ * matriz a una ortografica sobre la capa y el antialiasing al pixel de la
+ * capa. Dentro de la capa los lotes mezclan con {@link #blend(GLApi, boolean)}:
+ * la textura queda con el color multiplicado por alfa y el alfa acumulado,
+ * asi que pegarla con GL_ONE da lo mismo que dibujar la escena directo.</p>
+ */
+public class LayerRenderer implements LayerCache.Backend {
+
+    private static final float[] SQUARE_COORDS = Square.getCoords();
+
+    private final Camera camera;
+    private final ShapeBatchRenderer shapeRenderer;
+    private final ShapeBatch shapes;
+    private final SdfBatchRenderer sdfRenderer;
+    private final SdfBatch sdf;
+
+    private final List<RenderTarget> targets = new ArrayList<>();
+    private final List<TexturedQuad> quads = new ArrayList<>();
+    private final float[] layerProjection = new float[16];
+    private int viewportWidth = 1;
+    private int viewportHeight = 1;
+
+    /**
+     * Los renderers deben ser los de los lotes y tener la matriz de {@code camera}.
+     */
+    public LayerRenderer(Camera camera, ShapeBatchRenderer shapeRenderer, ShapeBatch shapes,
+                         SdfBatchRenderer sdfRenderer, SdfBatch sdf) {
+        this.camera = camera;
+        this.shapeRenderer = shapeRenderer;
+        this.shapes = shapes;
+        this.sdfRenderer = sdfRenderer;
+        this.sdf = sdf;
+    }
+
+    /**
+     * Viewport de la pantalla, para restaurarlo despues de dibujar una capa.
+     * Se llama desde onSurfaceChanged.
+     */
+    public void setViewport(int width, int height) {
+        viewportWidth = width;
+        viewportHeight = height;
+    }
+
+    @Override
+    public void render(int slot, Layer layer, int width, int height) {
+        RenderTarget target = target(slot, width, height);
+        target.begin();
+
+        Mat4.ortho(layerProjection, layer.getMinX(), layer.getMaxX(), layer.getMinY(), layer.getMaxY(), -1f, 1f);
+        shapeRenderer.setViewProjection(layerProjection);
+        sdfRenderer.setViewProjection(layerProjection);
+        float antialiasWidth = sdf.getAntialiasWidth();
+        sdf.setAntialiasWidth(layer.getWidth() / width);
+        shapeRenderer.setDrawingLayer(true);
+        sdfRenderer.setDrawingLayer(true);
+        drawScene(layer);
+        shapeRenderer.setDrawingLayer(false);
+        sdfRenderer.setDrawingLayer(false);
+        sdf.setAntialiasWidth(antialiasWidth);
+        shapeRenderer.setViewProjection(camera.viewProjection());
+        sdfRenderer.setViewProjection(camera.viewProjection());
+
+        target.end(viewportWidth, viewportHeight);
+    }
+
+    /**
+     * Mezcla con alfa normal (color sin premultiplicar). Dentro de una capa
+     * el alfa del destino se acumula con GL_ONE en vez de multiplicarse otra
+     * vez por si mismo: sobre el transparente del clear queda rgb = c * a y
+     * alfa = a, lo que espera el pegado premultiplicado.
+     */
+    static void blend(GLApi gl, boolean intoLayer) {
+        if (intoLayer) {
+            gl.glBlendFuncSeparate(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA,
+                    GLES20.GL_ONE, GLES20.GL_ONE_MINUS_SRC_ALPHA);
+        } else {
+            gl.glBlendFunc(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
+        }
+    }
+
+    @Override
+    public void composite(int slot, Layer layer) {
+        TexturedQuad quad = quads.get(slot);
+        fit(quad, layer);
+        quad.draw(camera);
+    }
+
+    @Override
+    public void drawDirect(Layer layer) {
+        drawScene(layer);
+    }
+
+    private void drawScene(Layer layer) {
+        shapes.begin();
+        sdf.begin();
+        layer.getScene().draw(shapes, sdf);
+        shapes.end();
+        sdf.end();
+    }
+
+    // El target del slot, nuevo si no hay o si tiene otro tamano
+    private RenderTarget target(int slot, int width, int height) {
+        while (targets.size() <= slot) {
+            targets.add(null);
+            quads.add(null);
+        }
+        RenderTarget target = targets.get(slot);
+        if (target != null && target.getWidth() == width && target.getHeight() == height) {
+            return target;
+        }
+        release(slot);
+        target = new RenderTarget(width, height);
+        // La fila 0 de la textura es la parte de abajo de la capa
+        TexturedQuad quad = new TexturedQuad(target.getTexture(), 0f, 1f, 1f, 0f);
+        quad.setPremultipliedAlpha(true);
+        targets.set(slot, target);
+        quads.set(slot, quad);
+        return target;
+    }
+
+    // Escala y mueve el cuadrado de Square para que cubra los limites de la capa
+    private static void fit(TexturedQuad quad, Layer layer) {
+        float[] coords = SQUARE_COORDS;
+        // Vertices 1 (inf izq) y 3 (sup der), 3 coordenadas cada uno
+        float left = coords[3];
+        float bottom = coords[4];
+        float scaleX = layer.getWidth() / (coords[9] - left);
+        float scaleY = layer.getHeight() / (coords[10] - bottom);
+        quad.getTransform().setScale(scaleX, scaleY);
+        quad.getTransform().setPosition(layer.getMinX() - left * scaleX, layer.getMinY() - bottom * scaleY);
+    }
+
+    @Override
+    public void release(int slot) {
+        if (slot >= targets.size() || targets.get(slot) == null) {
+            return;
+        }
+        targets.get(slot).release();
+        quads.get(slot).release();
+        targets.set(slot, null);
+        quads.set(slot, null);
+    }
+
+    public void release() {
+        for (int slot = 0; slot < targets.size(); slot++) {
+            release(slot);
+        }
+    }
+}
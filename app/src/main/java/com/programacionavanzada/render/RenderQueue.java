@@ -0,0 +1,230 @@
+package com.programacionavanzada.render;
+
+import com.programacionavanzada.geometria.Camera;
+import com.programacionavanzada.primitivas.Drawable;
+
+/**
+ * Cola de dibujo ordenada por estado. Cada figura entra con una llave de
+ * 64 bits y en {@link #flush(Camera)} se dibujan de menor a mayor llave,
+ * asi las que comparten programa y buffer quedan juntas.
+ *
+ * <pre>
+ * opaca:       capa(8) | 0 | programa(16) | buffer(16) | profundidad(23)
+ * translucida: capa(8) | 1 | profundidad invertida(23) | programa(16) | buffer(16)
+ * </pre>
+ *
+ * <p>La capa manda sobre todo lo demas, y dentro de una capa lo opaco va
+ * antes que lo translucido. Lo translucido se dibuja de atras hacia
+ * adelante aunque eso cueste cambios de programa. El orden es radix LSD
+ * (estable): figuras con la misma llave salen en el orden en que entraron.</p>
+ *
+ * <p>Los arreglos se reutilizan entre cuadros; solo crecen si un cuadro
+ * trae mas figuras que cualquiera de los anteriores.</p>
+ */
+public final class RenderQueue {
+
+    public static final int MAX_LAYER = (1 << 8) - 1;
+    public static final int MAX_DEPTH = (1 << 23) - 1;
+
+    private static final int RADIX_BITS = 8;
+    private static final int PASSES = 64 / RADIX_BITS;
+
+    private long[] keys;
+    // Dos copias de trabajo para el radix (origen y destino de cada pasada)
+    private long[] keyScratch;
+    private long[] keySorted;
+    private int[] order;
+    private int[] orderScratch;
+    private Drawable[] commands;
+    private final int[] histogram = new int[1 << RADIX_BITS];
+    private int count;
+
+    private int lastProgramSwitches;
+    private int lastBufferSwitches;
+
+    public RenderQueue() {
+        this(256);
+    }
+
+    public RenderQueue(int initialCapacity) {
+        allocate(Math.max(1, initialCapacity));
+    }
+
+    private void allocate(int capacity) {
+        long[] oldKeys = keys;
+        Drawable[] oldCommands = commands;
+        keys = new long[capacity];
+        keyScratch = new long[capacity];
+        keySorted = new long[capacity];
+        order = new int[capacity];
+        orderScratch = new int[capacity];
+        commands = new Drawable[capacity];
+        if (oldKeys != null) {
+            System.arraycopy(oldKeys, 0, keys, 0, count);
+            System.arraycopy(oldCommands, 0, commands, 0, count);
+        }
+    }
+
+    /**
+     * Llave de una figura opaca: se agrupa por programa y buffer, y dentro de
+     * eso de adelante hacia atras.
+     */
+    public static long opaqueKey(int layer, int program, int buffer, int depth) {
+        return ((long) clamp(layer, MAX_LAYER) << 56)
+                | ((long) (program & 0xFFFF) << 39)
+                | ((long) (buffer & 0xFFFF) << 23)
+                | clamp(depth, MAX_DEPTH);
+    }
+
+    /**
+     * Llave de una figura translucida: de atras hacia adelante (mayor
+     * profundidad primero) y despues por programa y buffer.
+     */
+    public static long translucentKey(int layer, int depth, int program, int buffer) {
+        return ((long) clamp(layer, MAX_LAYER) << 56)
+                | (1L << 55)
+                | ((long) (MAX_DEPTH - clamp(depth, MAX_DEPTH)) << 32)
+                | ((long) (program & 0xFFFF) << 16)
+                | (buffer & 0xFFFF);
+    }
+
+    /**
+     * Profundidad de {@code z} entre {@code near} y {@code far}, en 0..MAX_DEPTH.
+     */
+    public static int quantizeDepth(float z, float near, float far) {
+        float t = (z - near) / (far - near);
+        return (int) (Math.max(0f, Math.min(1f, t)) * MAX_DEPTH);
+    }
+
+    private static int clamp(int value, int max) {
+        return value < 0 ? 0 : Math.min(value, max);
+    }
+
+    public void submit(long key, Drawable command) {
+        if (count == keys.length) {
+            allocate(keys.length * 2);
+        }
+        keys[count] = key;
+        commands[count] = command;
+        count++;
+    }
+
+    /**
+     * Figura opaca en 2D: la llave sale de su programa y su buffer.
+     */
+    public void submit(int layer, Drawable command) {
+        submit(opaqueKey(layer, command.getProgramHandle(), command.getBufferHandle(), 0), command);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Ordena, dibuja todo con {@code camera} y deja la cola vacia.
+     */
+    public void flush(Camera camera) {
+        sort();
+        int programSwitches = 0;
+        int bufferSwitches = 0;
+        int lastProgram = -1;
+        int lastBuffer = -1;
+        for (int i = 0; i < count; i++) {
+            Drawable command = commands[order[i]];
+            int program = command.getProgramHandle();
+            int buffer = command.getBufferHandle();
+            if (program != lastProgram) {
+                programSwitches++;
+                lastProgram = program;
+            }
+            if (buffer != lastBuffer) {
+                bufferSwitches++;
+                lastBuffer = buffer;
+            }
+            command.draw(camera);
+        }
+        lastProgramSwitches = programSwitches;
+        lastBufferSwitches = bufferSwitches;
+        clear();
+    }
+
+    // Suelta las referencias para no retener figuras que ya no se dibujan
+    public void clear() {
+        for (int i = 0; i < count; i++) {
+            commands[i] = null;
+        }
+        count = 0;
+    }
+
+    /**
+     * Deja en {@link #sortedIndex(int)} el orden de dibujo. Cada pasada ve 8
+     * bits de la llave; si todas las llaves comparten ese byte se salta.
+     */
+    void sort() {
+        int n = count;
+        // Se ordena una copia de las llaves; keys conserva el orden de entrada
+        long[] srcKeys = keyScratch;
+        long[] dstKeys = keySorted;
+        int[] src = order;
+        int[] dst = orderScratch;
+        System.arraycopy(keys, 0, srcKeys, 0, n);
+        for (int i = 0; i < n; i++) {
+            src[i] = i;
+        }
+
+        int[] h = histogram;
+        for (int pass = 0; pass < PASSES && n > 0; pass++) {
+            int shift = pass * RADIX_BITS;
+            for (int i = 0; i < h.length; i++) {
+                h[i] = 0;
+            }
+            for (int i = 0; i < n; i++) {
+                h[(int) (srcKeys[i] >>> shift) & 0xFF]++;
+            }
+            if (h[(int) (srcKeys[0] >>> shift) & 0xFF] == n) {
+                continue;
+            }
+            int sum = 0;
+            for (int i = 0; i < h.length; i++) {
+                int c = h[i];
+                h[i] = sum;
+                sum += c;
+            }
+            for (int i = 0; i < n; i++) {
+                long key = srcKeys[i];
+                int slot = h[(int) (key >>> shift) & 0xFF]++;
+                dstKeys[slot] = key;
+                dst[slot] = src[i];
+            }
+            long[] tk = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = tk;
+            int[] ti = src;
+            src = dst;
+            dst = ti;
+        }
+        if (src != order) {
+            System.arraycopy(src, 0, order, 0, n);
+        }
+    }
+
+    // Indice de entrada de la i-esima figura en orden de dibujo (despues de sort)
+    int sortedIndex(int i) {
+        return order[i];
+    }
+
+    /**
+     * Cambios de programa en el ultimo flush (el primero cuenta).
+     */
+    public int getLastProgramSwitches() {
+        return lastProgramSwitches;
+    }
+
+    public int getLastBufferSwitches() {
+        return lastBufferSwitches;
+    }
+}
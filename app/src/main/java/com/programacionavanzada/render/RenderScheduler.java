@@ -0,0 +1,130 @@
+package com.programacionavanzada.render;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Decide cuando hay que dibujar un cuadro. El GLSurfaceView queda en
+ * RENDERMODE_WHEN_DIRTY y solo se pide un cuadro cuando la escena cambio.
+ *
+ * <ul>
+ *     <li>{@link #onSceneChanged()} se puede llamar desde cualquier hilo; varios
+ *     cambios seguidos antes del siguiente cuadro piden un solo cuadro.</li>
+ *     <li>{@link #animateFor(long)} dibuja de forma continua hasta un limite de
+ *     tiempo, para animaciones.</li>
+ *     <li>El renderer llama a {@link #onFrame()} al inicio de cada onDrawFrame.</li>
+ * </ul>
+ */
+public class RenderScheduler implements SceneListener {
+
+    /**
+     * Lo que el scheduler necesita de la vista (MyGLSurfaceView).
+     */
+    public interface Host {
+        void requestRender();
+
+        void setContinuous(boolean continuous);
+    }
+
+    public static final long DEFAULT_FRAME_INTERVAL_NANOS = 16_666_667L; // 60 Hz
+
+    private final Host host;
+    private final LongSupplier clock;
+    private final long frameIntervalNanos;
+
+    // true desde el primer cambio hasta que el cuadro pedido empieza
+    private final AtomicBoolean requested = new AtomicBoolean();
+    private long continuousUntil;
+    private volatile boolean continuous;
+    private long lastFrameNanos = -1;
+
+    private volatile long framesRendered;
+    private volatile long framesSkipped;
+    private final AtomicLong changesCoalesced = new AtomicLong();
+
+    public RenderScheduler(Host host) {
+        this(host, System::nanoTime, DEFAULT_FRAME_INTERVAL_NANOS);
+    }
+
+    /**
+     * @param clock              tiempo en nanosegundos
+     * @param frameIntervalNanos periodo de refresco de la pantalla
+     */
+    public RenderScheduler(Host host, LongSupplier clock, long frameIntervalNanos) {
+        this.host = host;
+        this.clock = clock;
+        this.frameIntervalNanos = frameIntervalNanos;
+    }
+
+    @Override
+    public void onSceneChanged() {
+        if (requested.compareAndSet(false, true)) {
+            host.requestRender();
+        } else {
+            changesCoalesced.incrementAndGet();
+        }
+    }
+
+    /**
+     * Dibuja de forma continua durante {@code millis} ms a partir de ahora.
+     * Si ya habia una animacion, se queda con el limite mas lejano.
+     */
+    public synchronized void animateFor(long millis) {
+        long until = clock.getAsLong() + millis * 1_000_000L;
+        if (!continuous || until - continuousUntil > 0) {
+            continuousUntil = until;
+        }
+        if (!continuous) {
+            continuous = true;
+            host.setContinuous(true);
+        }
+    }
+
+    /**
+     * Inicio de un cuadro (hilo GL): consume el pedido pendiente, termina la
+     * animacion si ya vencio y cuenta los refrescos que se dejaron pasar.
+     */
+    public void onFrame() {
+        requested.set(false);
+        long now = clock.getAsLong();
+        if (lastFrameNanos >= 0) {
+            // Refrescos de pantalla que pasaron sin dibujar nada
+            long intervals = (now - lastFrameNanos + frameIntervalNanos / 2) / frameIntervalNanos;
+            if (intervals > 1) {
+                framesSkipped += intervals - 1;
+            }
+        }
+        lastFrameNanos = now;
+        framesRendered++;
+
+        synchronized (this) {
+            if (continuous && now - continuousUntil >= 0) {
+                continuous = false;
+                host.setContinuous(false);
+            }
+        }
+    }
+
+    public boolean isContinuous() {
+        return continuous;
+    }
+
+    public long getFramesRendered() {
+        return framesRendered;
+    }
+
+    /**
+     * Cuadros que el modo continuo habria dibujado y que se ahorraron.
+     */
+    public long getFramesSkipped() {
+        return framesSkipped;
+    }
+
+    /**
+     * Cambios que no pidieron cuadro porque ya habia uno pendiente.
+     */
+    public long getChangesCoalesced() {
+        return changesCoalesced.get();
+    }
+}
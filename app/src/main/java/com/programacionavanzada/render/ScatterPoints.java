@@ -0,0 +1,161 @@
+package com.programacionavanzada.render;
+
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Datos de una grafica de dispersion: puntos con tamano y color propios,
+ * agregados por bloques.
+ *
+ * <p>Cada {@link #append} agrega un bloque que usa los arreglos o buffers
+ * de quien llama tal cual, sin copiarlos; no hay que modificarlos despues.
+ * {@link ScatterRenderer} sube cada bloque una sola vez a su propio VBO
+ * estatico, asi agregar datos no vuelve a subir los anteriores.</p>
+ *
+ * <p>Los tamanos son en pixeles y los colores RGBA en 4 bytes (ver
+ * {@link #rgba}). Un bloque sin tamanos o sin colores usa los valores por
+ * defecto.</p>
+ */
+public class ScatterPoints {
+
+    /**
+     * Un bloque de puntos; los buffers se leen desde 0 hasta su limite.
+     */
+    public static final class Chunk {
+        public final FloatBuffer positions; // x, y
+        public final FloatBuffer sizes;     // null = tamano por defecto
+        public final IntBuffer colors;      // null = color por defecto
+        public final int count;
+
+        Chunk(FloatBuffer positions, FloatBuffer sizes, IntBuffer colors, int count) {
+            this.positions = positions;
+            this.sizes = sizes;
+            this.colors = colors;
+            this.count = count;
+        }
+    }
+
+    private final List<Chunk> chunks = new ArrayList<>();
+    private int count;
+    // Cambia con clear(): lo subido antes ya no vale
+    private int version;
+
+    private float defaultSize = 4f;
+    private final float[] defaultColor = {0f, 0f, 0f, 1f};
+    private SceneListener listener;
+
+    /**
+     * Agrega {@code xy.length / 2} puntos.
+     *
+     * @param sizes  un tamano por punto, o {@code null}
+     * @param colors un RGBA de {@link #rgba} por punto, o {@code null}
+     */
+    public void append(float[] xy, float[] sizes, int[] colors) {
+        append(FloatBuffer.wrap(xy),
+                sizes != null ? FloatBuffer.wrap(sizes) : null,
+                colors != null ? IntBuffer.wrap(colors) : null);
+    }
+
+    /**
+     * Igual que {@link #append(float[], float[], int[])} con buffers (por
+     * ejemplo directos, leidos de un archivo). Se usan desde la posicion 0
+     * hasta el limite.
+     */
+    public void append(FloatBuffer xy, FloatBuffer sizes, IntBuffer colors) {
+        int n = xy.limit() / 2;
+        if (sizes != null && sizes.limit() < n) {
+            throw new IllegalArgumentException("Faltan tamanos: " + sizes.limit() + " para " + n + " puntos");
+        }
+        if (colors != null && colors.limit() < n) {
+            throw new IllegalArgumentException("Faltan colores: " + colors.limit() + " para " + n + " puntos");
+        }
+        if (n == 0) {
+            return;
+        }
+        chunks.add(new Chunk(xy, sizes, colors, n));
+        count += n;
+        notifyListener();
+    }
+
+    public void clear() {
+        chunks.clear();
+        count = 0;
+        version++;
+        notifyListener();
+    }
+
+    /**
+     * RGBA 0..1 empacado en un int cuyos bytes en memoria son R, G, B, A,
+     * como los lee GL_UNSIGNED_BYTE.
+     */
+    public static int rgba(float r, float g, float b, float a) {
+        int ri = Math.round(Math.max(0f, Math.min(1f, r)) * 255f);
+        int gi = Math.round(Math.max(0f, Math.min(1f, g)) * 255f);
+        int bi = Math.round(Math.max(0f, Math.min(1f, b)) * 255f);
+        int ai = Math.round(Math.max(0f, Math.min(1f, a)) * 255f);
+        if (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN) {
+            return (ai << 24) | (bi << 16) | (gi << 8) | ri;
+        }
+        return (ri << 24) | (gi << 16) | (bi << 8) | ai;
+    }
+
+    // Tamano en pixeles de los bloques sin tamanos
+    public void setDefaultSize(float size) {
+        defaultSize = size;
+        notifyListener();
+    }
+
+    public void setDefaultColor(float r, float g, float b, float a) {
+        defaultColor[0] = r;
+        defaultColor[1] = g;
+        defaultColor[2] = b;
+        defaultColor[3] = a;
+        notifyListener();
+    }
+
+    public float getDefaultSize() {
+        return defaultSize;
+    }
+
+    public float[] getDefaultColor() {
+        return defaultColor;
+    }
+
+    // Puntos en total
+    public int size() {
+        return count;
+    }
+
+    public int chunkCount() {
+        return chunks.size();
+    }
+
+    public Chunk getChunk(int index) {
+        return chunks.get(index);
+    }
+
+    public int version() {
+        return version;
+    }
+
+    /**
+     * Se avisa en cada cambio; normalmente es el {@link RenderScheduler}.
+     */
+    public void setListener(SceneListener listener) {
+        this.listener = listener;
+    }
+
+    // El renderer lo pide cuando le quedan bloques por subir
+    void requestFrame() {
+        notifyListener();
+    }
+
+    private void notifyListener() {
+        if (listener != null) {
+            listener.onSceneChanged();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.programacionavanzada.render;
+
+import android.opengl.GLES20;
+
+import com.programacionavanzada.gl.GLApi;
+import com.programacionavanzada.gl.Gl;
+import com.programacionavanzada.gl.GpuBuffer;
+import com.programacionavanzada.gl.ProgramBinding;
+import com.programacionavanzada.gl.ShaderProgram;
+import com.programacionavanzada.gl.ShaderProgramCache;
+import com.programacionavanzada.gl.VertexFormat;
+
+import java.nio.Buffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dibuja un {@link ScatterPoints} con GL_POINTS: un glDrawArrays por bloque,
+ * con tamano y color por vertice y bordes redondos suavizados en el
+ * fragment shader. Solo usa GLES 2.0.
+ *
+ * <p>Cada bloque vive en VBOs estaticos (posiciones 8 bytes, tamano 4,
+ * color 4 por punto); despues de subirlo dibujar un millon de puntos no
+ * manda nada por el bus. Las subidas se reparten entre cuadros segun
+ * {@link #setUploadBudget(int)}.</p>
+ *
+ * <p>El tamano maximo de un punto depende del driver
+ * (GL_ALIASED_POINT_SIZE_RANGE); lo que pase de ahi se recorta.</p>
+ */
+public class ScatterRenderer {
+
+    static final String SIZE = "aSize";
+    static final String PARAMS = "uScatterParams";
+
+    public static final int DEFAULT_UPLOAD_BUDGET_BYTES = 4 << 20;
+
+    private final String vertexShaderCode =
+            "attribute vec4 vPosition;" +
+                    "attribute float aSize;" +
+                    "attribute vec4 aColor;" +
+                    "uniform mat4 uMVPMatrix;" +
+                    "uniform vec4 vColor;" +
+                    // tamano por defecto (x), 1 si hay aSize (y), 1 si hay aColor (z)
+                    "uniform vec4 uScatterParams;" +
+                    "varying vec4 vPointColor;" +
+                    "varying float vPointSize;" +
+                    "void main(){" +
+                    "gl_Position = uMVPMatrix * vec4(vPosition.xy, 0.0, 1.0);" +
+                    "float size = mix(uScatterParams.x, aSize, uScatterParams.y);" +
+                    // Un pixel mas para el borde suavizado
+                    "vPointSize = size + 1.0;" +
+                    "gl_PointSize = vPointSize;" +
+                    "vPointColor = mix(vColor, aColor, uScatterParams.z);" +
+                    "}";
+
+    private final String fragmentShaderCode =
+            "precision mediump float;" +
+                    "varying vec4 vPointColor;" +
+                    "varying float vPointSize;" +
+                    "void main(){" +
+                    "vec2 c = gl_PointCoord * 2.0 - 1.0;" +
+                    // Distancia al borde en pixeles: la cobertura baja de 1 a 0 en un pixel
+                    "float coverage = clamp((1.0 - length(c)) * vPointSize * 0.5, 0.0, 1.0);" +
+                    "if (coverage <= 0.0) discard;" +
+                    "gl_FragColor = vec4(vPointColor.rgb, vPointColor.a * coverage);" +
+                    "}";
+
+    private final ShaderProgram program;
+    private final ProgramBinding binding;
+    private final int sizeHandle;
+    private final int colorAttribHandle;
+    private final int paramsHandle;
+
+    // Un arreglo {posiciones, tamanos, colores} por bloque subido; null si el bloque no los trae
+    private final List<GpuBuffer[]> uploaded = new ArrayList<>();
+    private int uploadedVersion;
+    private int uploadBudgetBytes = DEFAULT_UPLOAD_BUDGET_BYTES;
+    private int uploadsLastFrame;
+
+    private final float[] params = new float[4];
+    private float[] viewProjection = ShapeBatchRenderer.IDENTITY;
+
+    public ScatterRenderer() {
+        program = ShaderProgramCache.shared().acquire(vertexShaderCode, fragmentShaderCode);
+        binding = program.binding();
+        sizeHandle = program.attribLocation(SIZE);
+        colorAttribHandle = program.attribLocation(VertexFormat.COLOR);
+        paramsHandle = program.uniformLocation(PARAMS);
+    }
+
+    /**
+     * Igual que {@link ShapeBatchRenderer#setViewProjection(float[])}.
+     */
+    public void setViewProjection(float[] viewProjection) {
+        this.viewProjection = viewProjection != null ? viewProjection : ShapeBatchRenderer.IDENTITY;
+    }
+
+    /**
+     * Bytes que se suben como mucho por cuadro; siempre se sube al menos un
+     * bloque para que la grafica avance.
+     */
+    public void setUploadBudget(int bytes) {
+        uploadBudgetBytes = bytes;
+    }
+
+    public void draw(ScatterPoints points) {
+        if (points.version() != uploadedVersion) {
+            releaseChunks();
+            uploadedVersion = points.version();
+        }
+        uploadPending(points);
+        if (uploaded.isEmpty()) {
+            return;
+        }
+
+        GLApi gl = Gl.api();
+        gl.glEnable(GLES20.GL_BLEND);
+        gl.glBlendFunc(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
+        gl.glUseProgram(binding.program);
+        gl.glUniformMatrix4fv(binding.mvpHandle, 1, false, viewProjection, 0);
+        gl.glUniform4fv(binding.colorHandle, 1, points.getDefaultColor(), 0);
+        params[0] = points.getDefaultSize();
+
+        for (int i = 0; i < uploaded.size(); i++) {
+            GpuBuffer[] vbos = uploaded.get(i);
+            params[1] = vbos[1] != null ? 1f : 0f;
+            params[2] = vbos[2] != null ? 1f : 0f;
+            gl.glUniform4fv(paramsHandle, 1, params, 0);
+
+            vbos[0].bind();
+            gl.glEnableVertexAttribArray(binding.positionHandle);
+            gl.glVertexAttribPointer(binding.positionHandle, 2, GLES20.GL_FLOAT, false, 8, 0);
+            if (vbos[1] != null) {
+                vbos[1].bind();
+                gl.glEnableVertexAttribArray(sizeHandle);
+                gl.glVertexAttribPointer(sizeHandle, 1, GLES20.GL_FLOAT, false, 4, 0);
+            } else {
+                gl.glDisableVertexAttribArray(sizeHandle);
+            }
+            if (vbos[2] != null) {
+                vbos[2].bind();
+                gl.glEnableVertexAttribArray(colorAttribHandle);
+                gl.glVertexAttribPointer(colorAttribHandle, 4, GLES20.GL_UNSIGNED_BYTE, true, 4, 0);
+            } else {
+                gl.glDisableVertexAttribArray(colorAttribHandle);
+            }
+            gl.glDrawArrays(GLES20.GL_POINTS, 0, points.getChunk(i).count);
+        }
+
+        gl.glDisableVertexAttribArray(binding.positionHandle);
+        gl.glDisableVertexAttribArray(sizeHandle);
+        gl.glDisableVertexAttribArray(colorAttribHandle);
+        gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+        gl.glDisable(GLES20.GL_BLEND);
+    }
+
+    private void uploadPending(ScatterPoints points) {
+        int bytes = 0;
+        int uploads = 0;
+        while (uploaded.size() < points.chunkCount() && (uploads == 0 || bytes < uploadBudgetBytes)) {
+            ScatterPoints.Chunk chunk = points.getChunk(uploaded.size());
+            GpuBuffer[] vbos = new GpuBuffer[3];
+            vbos[0] = upload(chunk.positions, chunk.count * 8);
+            if (chunk.sizes != null) {
+                vbos[1] = upload(chunk.sizes, chunk.count * 4);
+            }
+            if (chunk.colors != null) {
+                vbos[2] = upload(chunk.colors, chunk.count * 4);
+            }
+            uploaded.add(vbos);
+            bytes += chunk.count * 16;
+            uploads++;
+        }
+        uploadsLastFrame = uploads;
+        if (uploaded.size() < points.chunkCount()) {
+            // Quedan bloques: que se pida otro cuadro
+            points.requestFrame();
+        }
+    }
+
+    private static GpuBuffer upload(Buffer data, int sizeBytes) {
+        GpuBuffer vbo = GpuBuffer.vertices(GLES20.GL_STATIC_DRAW);
+        vbo.upload(data, sizeBytes);
+        return vbo;
+    }
+
+    // Bloques que ya estan en la GPU
+    public int getUploadedChunks() {
+        return uploaded.size();
+    }
+
+    public int getUploadsLastFrame() {
+        return uploadsLastFrame;
+    }
+
+    private void releaseChunks() {
+        for (GpuBuffer[] vbos : uploaded) {
+            for (GpuBuffer vbo : vbos) {
+                if (vbo != null) {
+                    vbo.release();
+                }
+            }
+        }
+        uploaded.clear();
+    }
+
+    public void release() {
+        ShaderProgramCache.shared().release(program);
+        releaseChunks();
+    }
+}
@@ -0,0 +1,259 @@
+package com.programacionavanzada.render;
+
+import com.programacionavanzada.geometria.Aabb;
+import com.programacionavanzada.geometria.SpatialGrid;
+import com.programacionavanzada.geometria.ViewportCuller;
+
+import java.util.Arrays;
+
+/**
+ * Escena retenida: guarda todos los {@link SceneNode} y en cada cuadro solo
+ * manda al {@link ShapeBatch} los que tocan la vista.
+ *
+ * <p>Las cajas de los nodos viven en un {@link SpatialGrid}; solo se
+ * recalculan las de los nodos que cambiaron desde el cuadro anterior. El
+ * descarte consulta solo las celdas que cubre la vista, asi que el costo de
+ * cada cuadro depende de los nodos visibles y no del total.</p>
+ *
+ * <p>No es segura entre hilos: se modifica desde el hilo GL (por ejemplo con
+ * GLSurfaceView.queueEvent).</p>
+ */
+public class Scene {
+
+    public static final float DEFAULT_CELL_SIZE = 0.25f;
+
+    private SceneNode[] nodes = new SceneNode[16];
+    private int[] visible = new int[16];
+    private int[] hits = new int[16];
+    private int count;
+
+    private final SpatialGrid grid;
+    // Nodo de cada id del indice
+    private SceneNode[] byGridId = new SceneNode[16];
+    private final float[] box = new float[Aabb.FLOATS];
+
+    // Nodos cuya caja hay que recalcular antes del siguiente descarte
+    private SceneNode[] dirty = new SceneNode[16];
+    private int dirtyCount;
+
+    private final ViewportCuller culler = new ViewportCuller();
+    private int visibleCount;
+    private SceneListener listener;
+
+    public Scene() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * @param cellSize celda del indice espacial, en las coordenadas de los nodos
+     */
+    public Scene(float cellSize) {
+        grid = new SpatialGrid(cellSize);
+    }
+
+    public SceneNode add(SceneNode node) {
+        if (node.scene != null) {
+            throw new IllegalArgumentException("El nodo ya esta en una escena");
+        }
+        if (count == nodes.length) {
+            grow(count * 2);
+        }
+        node.scene = this;
+        node.index = count;
+        node.boundsDirty = false;
+        nodes[count++] = node;
+        onNodeChanged(node, true);
+        return node;
+    }
+
+    /**
+     * Quita el nodo sin cambiar el orden de los demas: el orden en que se
+     * agregaron es el orden de dibujo y el de {@link #hitTest(float, float)}.
+     * Recorre los nodos que estaban despues del quitado.
+     */
+    public void remove(SceneNode node) {
+        if (node.scene != this) {
+            throw new IllegalArgumentException("El nodo no es de esta escena");
+        }
+        int i = node.index;
+        int last = --count;
+        System.arraycopy(nodes, i + 1, nodes, i, last - i);
+        for (int j = i; j < last; j++) {
+            nodes[j].index = j;
+        }
+        nodes[last] = null;
+        if (node.gridId != -1) {
+            grid.remove(node.gridId);
+            byGridId[node.gridId] = null;
+            node.gridId = -1;
+        }
+        node.scene = null;
+        node.index = -1;
+        notifyListener();
+    }
+
+    public void clear() {
+        for (int i = 0; i < count; i++) {
+            nodes[i].scene = null;
+            nodes[i].index = -1;
+            nodes[i].gridId = -1;
+            nodes[i] = null;
+        }
+        count = 0;
+        grid.clear();
+        Arrays.fill(byGridId, null);
+        for (int i = 0; i < dirtyCount; i++) {
+            dirty[i].boundsDirty = false;
+            dirty[i] = null;
+        }
+        dirtyCount = 0;
+        notifyListener();
+    }
+
+    void onNodeChanged(SceneNode node, boolean moved) {
+        if (moved && !node.boundsDirty) {
+            node.boundsDirty = true;
+            if (dirtyCount == dirty.length) {
+                SceneNode[] bigger = new SceneNode[dirty.length * 2];
+                System.arraycopy(dirty, 0, bigger, 0, dirtyCount);
+                dirty = bigger;
+            }
+            dirty[dirtyCount++] = node;
+        }
+        notifyListener();
+    }
+
+    /**
+     * Vista en coordenadas de mundo; por defecto la pantalla en NDC (-1..1).
+     */
+    public void setView(float minX, float minY, float maxX, float maxY) {
+        culler.setViewport(minX, minY, maxX, maxY);
+        notifyListener();
+    }
+
+    /**
+     * Se avisa en cada cambio; normalmente es el {@link RenderScheduler}.
+     */
+    public void setListener(SceneListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Actualiza las cajas pendientes y calcula los nodos visibles.
+     *
+     * @return cuantos nodos tocan la vista
+     */
+    public int cull() {
+        updateBounds();
+        int n;
+        while ((n = grid.query(culler.getMinX(), culler.getMinY(), culler.getMaxX(), culler.getMaxY(), visible)) > visible.length) {
+            visible = new int[Integer.highestOneBit(n) << 1];
+        }
+        // El indice no conserva el orden; se dibujan en el orden en que se agregaron
+        for (int i = 0; i < n; i++) {
+            visible[i] = byGridId[visible[i]].index;
+        }
+        Arrays.sort(visible, 0, n);
+        visibleCount = n;
+        return visibleCount;
+    }
+
+    /**
+     * El nodo de mas arriba (el ultimo que se dibuja) cuya figura contiene
+     * al punto, o null.
+     */
+    public SceneNode hitTest(float x, float y) {
+        updateBounds();
+        int n;
+        while ((n = grid.queryPoint(x, y, hits)) > hits.length) {
+            hits = new int[Integer.highestOneBit(n) << 1];
+        }
+        SceneNode best = null;
+        for (int i = 0; i < n; i++) {
+            SceneNode node = byGridId[hits[i]];
+            if ((best == null || node.index > best.index) && node.contains(x, y)) {
+                best = node;
+            }
+        }
+        return best;
+    }
+
+    private void updateBounds() {
+        for (int i = 0; i < dirtyCount; i++) {
+            SceneNode node = dirty[i];
+            // Pudo quitarse de la escena despues de cambiar
+            if (node.scene == this) {
+                node.updateWorld(box, 0);
+                if (node.gridId == -1) {
+                    node.gridId = grid.insert(box[Aabb.MIN_X], box[Aabb.MIN_Y], box[Aabb.MAX_X], box[Aabb.MAX_Y]);
+                    if (node.gridId >= byGridId.length) {
+                        byGridId = Arrays.copyOf(byGridId, byGridId.length * 2);
+                    }
+                    byGridId[node.gridId] = node;
+                } else {
+                    grid.update(node.gridId, box[Aabb.MIN_X], box[Aabb.MIN_Y], box[Aabb.MAX_X], box[Aabb.MAX_Y]);
+                }
+            }
+            node.boundsDirty = false;
+            dirty[i] = null;
+        }
+        dirtyCount = 0;
+    }
+
+    /**
+     * Agrega al lote los nodos visibles. El lote ya debe estar en begin().
+     */
+    public void draw(ShapeBatch batch) {
+        draw(batch, null);
+    }
+
+    /**
+     * Como {@link #draw(ShapeBatch)}, pero los nodos con
+     * {@link SceneNode#setSdf(boolean)} van a {@code sdf} (si no es
+     * {@code null}). Cada lote respeta el orden de los nodos; entre lotes,
+     * el que se vacie despues queda encima.
+     */
+    public void draw(ShapeBatch batch, SdfBatch sdf) {
+        cull();
+        for (int i = 0; i < visibleCount; i++) {
+            SceneNode node = nodes[visible[i]];
+            if (sdf != null && node.isSdf()) {
+                node.emit(sdf);
+            } else {
+                node.emit(batch);
+            }
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public SceneNode get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Nodo " + index + " de " + count);
+        }
+        return nodes[index];
+    }
+
+    // Nodos visibles en el ultimo cull()
+    public int getVisibleCount() {
+        return visibleCount;
+    }
+
+    public int getCulledCount() {
+        return count - visibleCount;
+    }
+
+    private void notifyListener() {
+        if (listener != null) {
+            listener.onSceneChanged();
+        }
+    }
+
+    private void grow(int capacity) {
+        SceneNode[] biggerNodes = new SceneNode[capacity];
+        System.arraycopy(nodes, 0, biggerNodes, 0, count);
+        nodes = biggerNodes;
+    }
+}
@@ -0,0 +1,10 @@
+package com.programacionavanzada.render;
+
+/**
+ * Recibe un aviso cada vez que cambia algo que se ve en pantalla
+ * (una figura se agrega, se mueve o cambia de color).
+ */
+public interface SceneListener {
+
+    void onSceneChanged();
+}
@@ -0,0 +1,256 @@
+package com.programacionavanzada.render;
+
+import com.programacionavanzada.geometria.Aabb;
+import com.programacionavanzada.geometria.HitTest;
+
+/**
+ * Una figura dentro de una {@link Scene}: geometria local en (x, y), un color
+ * y una transformacion (posicion, escala uniforme y rotacion).
+ *
+ * <p>La geometria transformada y la caja en coordenadas de mundo se guardan
+ * y solo se recalculan cuando cambia la transformacion, no en cada cuadro.</p>
+ *
+ * <p>Circulos, lineas y puntos se pueden dibujar con {@link SdfBatch}
+ * ({@link #setSdf(boolean)}): un rectangulo por figura con borde suave en
+ * lugar de triangulos.</p>
+ */
+public class SceneNode {
+
+    public enum Kind {
+        CIRCLE,     // size = radio
+        TRIANGLES,  // coords de 3 en 3 vertices
+        LINES,      // pares de puntos, size = grosor
+        POINTS      // size = lado del cuadrado de cada punto
+    }
+
+    private final Kind kind;
+    private final float[] coords;
+    private final float size;
+    private final float[] color = new float[4];
+    private final float[] localBounds = new float[Aabb.FLOATS];
+
+    private float x;
+    private float y;
+    private float scale = 1f;
+    private float rotation;
+    private float cos = 1f;
+    private float sin = 0f;
+    private boolean sdf;
+
+    // coords ya transformados; se reutiliza mientras no cambie el tamano
+    private float[] world;
+
+    // Los maneja Scene
+    Scene scene;
+    int index = -1;
+    int gridId = -1;
+    boolean boundsDirty;
+
+    private SceneNode(Kind kind, float[] coords, float size, float[] color) {
+        this.kind = kind;
+        this.coords = coords;
+        this.size = size;
+        System.arraycopy(color, 0, this.color, 0, 4);
+        if (kind == Kind.CIRCLE) {
+            Aabb.set(localBounds, 0, -size, -size, size, size);
+        } else {
+            Aabb.of(coords, 2, localBounds, 0);
+            this.world = new float[coords.length];
+        }
+    }
+
+    public static SceneNode circle(float radius, float[] color) {
+        return new SceneNode(Kind.CIRCLE, new float[0], radius, color);
+    }
+
+    /**
+     * Triangulos sueltos, en el formato de {@code Triangles} si
+     * coordsPerVertex = 3 (la z se ignora).
+     */
+    public static SceneNode triangles(float[] coords, int coordsPerVertex, float[] color) {
+        return new SceneNode(Kind.TRIANGLES, toXY(coords, coordsPerVertex), 0f, color);
+    }
+
+    // Cuadrado de lado side centrado en el origen
+    public static SceneNode square(float side, float[] color) {
+        float h = side / 2;
+        return new SceneNode(Kind.TRIANGLES, new float[]{
+                -h, h, -h, -h, h, -h,
+                -h, h, h, -h, h, h
+        }, 0f, color);
+    }
+
+    /**
+     * Lineas como en {@code Lines}: pares {x1,y1, x2,y2, ...}.
+     */
+    public static SceneNode lines(float[] coords, float width, float[] color) {
+        return new SceneNode(Kind.LINES, coords.clone(), width, color);
+    }
+
+    public static SceneNode points(float[] coords, int coordsPerVertex, float size, float[] color) {
+        return new SceneNode(Kind.POINTS, toXY(coords, coordsPerVertex), size, color);
+    }
+
+    private static float[] toXY(float[] coords, int coordsPerVertex) {
+        float[] xy = new float[coords.length / coordsPerVertex * 2];
+        for (int i = 0, j = 0; j < xy.length; i += coordsPerVertex, j += 2) {
+            xy[j] = coords[i];
+            xy[j + 1] = coords[i + 1];
+        }
+        return xy;
+    }
+
+    // ==================== TRANSFORMACION ====================
+
+    public void setPosition(float x, float y) {
+        this.x = x;
+        this.y = y;
+        changed(true);
+    }
+
+    public void setScale(float scale) {
+        this.scale = scale;
+        changed(true);
+    }
+
+    /**
+     * @param radians giro alrededor del origen local, antes de trasladar
+     */
+    public void setRotation(float radians) {
+        this.rotation = radians;
+        this.cos = (float) Math.cos(radians);
+        this.sin = (float) Math.sin(radians);
+        changed(true);
+    }
+
+    public void setColor(float r, float g, float b, float a) {
+        color[0] = r;
+        color[1] = g;
+        color[2] = b;
+        color[3] = a;
+        changed(false);
+    }
+
+    /**
+     * {@code true}: se dibuja con {@link SdfBatch} si la escena tiene uno
+     * (ver {@link Scene#draw(ShapeBatch, SdfBatch)}). Las lineas quedan con
+     * las puntas redondas. Los triangulos no tienen version SDF.
+     */
+    public void setSdf(boolean sdf) {
+        if (sdf && kind == Kind.TRIANGLES) {
+            throw new IllegalStateException("Los triangulos no se pueden dibujar con SDF");
+        }
+        this.sdf = sdf;
+        changed(false);
+    }
+
+    public boolean isSdf() {
+        return sdf;
+    }
+
+    private void changed(boolean moved) {
+        if (scene != null) {
+            scene.onNodeChanged(this, moved);
+        }
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public float getX() {
+        return x;
+    }
+
+    public float getY() {
+        return y;
+    }
+
+    public float getScale() {
+        return scale;
+    }
+
+    public float getRotation() {
+        return rotation;
+    }
+
+    public float[] getColor() {
+        return color;
+    }
+
+    // ==================== USO DE Scene ====================
+
+    /**
+     * Recalcula la geometria en coordenadas de mundo y escribe su caja en
+     * {@code bounds[offset..offset+3]}.
+     */
+    void updateWorld(float[] bounds, int offset) {
+        Aabb.transform(localBounds, 0, x, y, scale, cos, sin, bounds, offset);
+        if (kind == Kind.LINES || kind == Kind.POINTS) {
+            // El grosor de las lineas escala con el nodo; el tamano de los puntos no
+            Aabb.expand(bounds, offset, kind == Kind.LINES ? size * scale / 2 : size / 2);
+        }
+        for (int i = 0; i + 1 < coords.length; i += 2) {
+            float lx = coords[i] * scale;
+            float ly = coords[i + 1] * scale;
+            world[i] = x + lx * cos - ly * sin;
+            world[i + 1] = y + lx * sin + ly * cos;
+        }
+    }
+
+    /**
+     * Prueba exacta contra la figura ya transformada (no solo su caja).
+     */
+    boolean contains(float px, float py) {
+        switch (kind) {
+            case CIRCLE:
+                return HitTest.inCircle(px, py, x, y, size * scale);
+            case TRIANGLES:
+                return HitTest.triangleAt(world, 2, px, py) >= 0;
+            case LINES:
+                return HitTest.segmentAt(world, size * scale, px, py) >= 0;
+            case POINTS:
+                float h = size / 2;
+                for (int i = 0; i + 1 < world.length; i += 2) {
+                    if (Math.abs(px - world[i]) <= h && Math.abs(py - world[i + 1]) <= h) {
+                        return true;
+                    }
+                }
+                return false;
+        }
+        return false;
+    }
+
+    void emit(ShapeBatch batch) {
+        switch (kind) {
+            case CIRCLE:
+                batch.addCircle(x, y, size * scale, color);
+                break;
+            case TRIANGLES:
+                batch.addTriangles(world, 2, color);
+                break;
+            case LINES:
+                batch.addLines(world, size * scale, color);
+                break;
+            case POINTS:
+                batch.addPoints(world, 2, size, color);
+                break;
+        }
+    }
+
+    void emit(SdfBatch batch) {
+        switch (kind) {
+            case CIRCLE:
+                batch.addCircle(x, y, size * scale, color);
+                break;
+            case LINES:
+                batch.addLines(world, size * scale, color);
+                break;
+            case POINTS:
+                batch.addPoints(world, 2, size, color);
+                break;
+            default:
+                throw new IllegalStateException("Sin version SDF: " + kind);
+        }
+    }
+}
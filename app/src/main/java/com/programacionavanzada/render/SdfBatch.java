@@ -0,0 +1,259 @@
+package com.programacionavanzada.render;
+
+/**
+ * Figuras redondas como un solo rectangulo cada una: el fragment shader de
+ * {@link SdfBatchRenderer} evalua la distancia con signo a una caja de
+ * esquinas redondeadas y de ahi saca el borde antialiaseado. Circulos,
+ * anillos, rectangulos redondeados y lineas con punta redonda son la misma
+ * formula con otros parametros:
+ *
+ * <ul>
+ *     <li>circulo: caja de media anchura r con esquinas de radio r;</li>
+ *     <li>linea: caja orientada sobre el segmento, alta como el grosor y con
+ *     esquinas de radio grosor / 2 (una capsula);</li>
+ *     <li>anillo o contorno: cualquiera de las anteriores con grosor de borde.</li>
+ * </ul>
+ *
+ * <p>Son 4 vertices por figura sin importar su tamano en pantalla, contra
+ * los {@code numPoints + 2} de {@link com.programacionavanzada.primitivas.Circle}.
+ * Cada vertice lleva (x, y, lx, ly, hx, hy, radio, borde, r, g, b, a): la
+ * posicion en mundo, la posicion local en el marco de la figura y los
+ * parametros de la figura repetidos en sus 4 vertices (en GLES 2.0 no hay
+ * atributos por instancia).</p>
+ *
+ * <p>Esta clase no llama a OpenGL; {@link SdfBatchRenderer} es el Sink.</p>
+ */
+public class SdfBatch {
+
+    /**
+     * Recibe cada lote. El arreglo se reutiliza despues de flush.
+     *
+     * @param antialiasWidth ancho del borde suave, en unidades de mundo
+     */
+    public interface Sink {
+        void flush(float[] vertices, int shapeCount, float antialiasWidth);
+    }
+
+    public static final int FLOATS_PER_VERTEX = 12;
+    public static final int MAX_SHAPES = SpriteBatch.MAX_SPRITES;
+    // Un pixel con la camara por defecto en una pantalla de unos 1000 pixeles
+    public static final float DEFAULT_ANTIALIAS_WIDTH = 0.002f;
+
+    private final Sink sink;
+    private final int maxShapes;
+    private final float[] vertices;
+    private int shapeCount;
+    private float antialiasWidth = DEFAULT_ANTIALIAS_WIDTH;
+
+    private int flushCount;
+    private boolean drawing;
+
+    public SdfBatch(Sink sink) {
+        this(sink, MAX_SHAPES);
+    }
+
+    public SdfBatch(Sink sink, int maxShapes) {
+        if (maxShapes < 1 || maxShapes > MAX_SHAPES) {
+            throw new IllegalArgumentException("maxShapes fuera de rango: " + maxShapes);
+        }
+        this.sink = sink;
+        this.maxShapes = maxShapes;
+        this.vertices = new float[maxShapes * SpriteBatch.VERTICES_PER_SPRITE * FLOATS_PER_VERTEX];
+    }
+
+    /**
+     * Tamano de un pixel en unidades de mundo: el ancho visible de la camara
+     * entre el ancho del viewport. Los rectangulos crecen esto por lado para
+     * que el borde suave no se corte. Vale a partir del siguiente lote.
+     */
+    public void setAntialiasWidth(float worldUnitsPerPixel) {
+        if (!(worldUnitsPerPixel > 0f)) {
+            throw new IllegalArgumentException("Ancho de antialiasing invalido: " + worldUnitsPerPixel);
+        }
+        if (worldUnitsPerPixel != antialiasWidth) {
+            flush();
+            antialiasWidth = worldUnitsPerPixel;
+        }
+    }
+
+    public float getAntialiasWidth() {
+        return antialiasWidth;
+    }
+
+    public void begin() {
+        if (drawing) {
+            throw new IllegalStateException("begin() llamado dos veces sin end()");
+        }
+        drawing = true;
+        flushCount = 0;
+    }
+
+    public void end() {
+        if (!drawing) {
+            throw new IllegalStateException("end() sin begin()");
+        }
+        flush();
+        drawing = false;
+    }
+
+    /**
+     * Manda al Sink lo acumulado hasta ahora (si hay algo).
+     */
+    public void flush() {
+        if (shapeCount == 0) {
+            return;
+        }
+        sink.flush(vertices, shapeCount, antialiasWidth);
+        flushCount++;
+        shapeCount = 0;
+    }
+
+    // ==================== FIGURAS ====================
+
+    public void addCircle(float cx, float cy, float radius, float[] color) {
+        addShape(cx, cy, 1f, 0f, radius, radius, radius, 0f, color);
+    }
+
+    /**
+     * Circulo hueco: el borde de ancho {@code thickness} queda por dentro de {@code radius}.
+     */
+    public void addRing(float cx, float cy, float radius, float thickness, float[] color) {
+        addShape(cx, cy, 1f, 0f, radius, radius, radius, thickness, color);
+    }
+
+    /**
+     * Rectangulo con esquina inferior izquierda (x, y), como ShapeBatch.addQuad.
+     */
+    public void addRoundedRect(float x, float y, float width, float height, float cornerRadius, float[] color) {
+        addRoundedRect(x, y, width, height, cornerRadius, 0f, color);
+    }
+
+    /**
+     * @param thickness ancho del contorno por dentro del borde; 0 = relleno
+     */
+    public void addRoundedRect(float x, float y, float width, float height, float cornerRadius,
+                               float thickness, float[] color) {
+        float hw = width / 2;
+        float hh = height / 2;
+        float radius = Math.max(0f, Math.min(cornerRadius, Math.min(hw, hh)));
+        addShape(x + hw, y + hh, 1f, 0f, hw, hh, radius, thickness, color);
+    }
+
+    /**
+     * Segmento con grosor y puntas redondas.
+     */
+    public void addLine(float x1, float y1, float x2, float y2, float width, float[] color) {
+        float dx = x2 - x1;
+        float dy = y2 - y1;
+        float length = (float) Math.sqrt(dx * dx + dy * dy);
+        float h = width / 2;
+        if (length == 0f) {
+            // Un punto: la capsula se vuelve circulo
+            addShape(x1, y1, 1f, 0f, h, h, h, 0f, color);
+            return;
+        }
+        addShape((x1 + x2) / 2, (y1 + y2) / 2, dx / length, dy / length, length / 2 + h, h, h, 0f, color);
+    }
+
+    /**
+     * Varias lineas, mismo formato que {@code Lines}: pares {x1,y1, x2,y2, ...}.
+     */
+    public void addLines(float[] coords, float width, float[] color) {
+        for (int i = 0; i + 3 < coords.length; i += 4) {
+            addLine(coords[i], coords[i + 1], coords[i + 2], coords[i + 3], width, color);
+        }
+    }
+
+    /**
+     * Punto como cuadrado de lado {@code size}, igual que ShapeBatch.addPoint
+     * pero con el borde antialiaseado.
+     */
+    public void addPoint(float x, float y, float size, float[] color) {
+        float h = size / 2;
+        addShape(x, y, 1f, 0f, h, h, 0f, 0f, color);
+    }
+
+    public void addPoints(float[] coords, int coordsPerVertex, float size, float[] color) {
+        for (int i = 0; i + 1 < coords.length; i += coordsPerVertex) {
+            addPoint(coords[i], coords[i + 1], size, color);
+        }
+    }
+
+    /**
+     * Caja redondeada cualquiera centrada en (cx, cy), con su eje x en la
+     * direccion unitaria (ux, uy).
+     *
+     * @param halfWidth    media anchura sobre el eje x de la figura
+     * @param halfHeight   media altura
+     * @param cornerRadius radio de las esquinas, como mucho la menor media medida
+     * @param thickness    ancho del contorno; 0 = relleno
+     */
+    public void addShape(float cx, float cy, float ux, float uy, float halfWidth, float halfHeight,
+                         float cornerRadius, float thickness, float[] color) {
+        if (!drawing) {
+            throw new IllegalStateException("Falta llamar a begin()");
+        }
+        if (shapeCount == maxShapes) {
+            flush();
+        }
+        // El rectangulo crece un ancho de antialiasing por lado
+        float ex = halfWidth + antialiasWidth;
+        float ey = halfHeight + antialiasWidth;
+        int i = shapeCount * SpriteBatch.VERTICES_PER_SPRITE * FLOATS_PER_VERTEX;
+        // Mismo orden que Square: sup izq, inf izq, inf der, sup der
+        i = putVertex(i, cx, cy, ux, uy, -ex, ey, halfWidth, halfHeight, cornerRadius, thickness, color);
+        i = putVertex(i, cx, cy, ux, uy, -ex, -ey, halfWidth, halfHeight, cornerRadius, thickness, color);
+        i = putVertex(i, cx, cy, ux, uy, ex, -ey, halfWidth, halfHeight, cornerRadius, thickness, color);
+        putVertex(i, cx, cy, ux, uy, ex, ey, halfWidth, halfHeight, cornerRadius, thickness, color);
+        shapeCount++;
+    }
+
+    // ==================== ESTADO ====================
+
+    public int getShapeCount() {
+        return shapeCount;
+    }
+
+    /**
+     * Lotes enviados desde el ultimo begin(); en el renderer es el numero de draw calls.
+     */
+    public int getFlushCount() {
+        return flushCount;
+    }
+
+    // ==================== INTERNOS ====================
+
+    private int putVertex(int i, float cx, float cy, float ux, float uy, float lx, float ly,
+                          float hx, float hy, float radius, float thickness, float[] color) {
+        vertices[i] = cx + lx * ux - ly * uy;
+        vertices[i + 1] = cy + lx * uy + ly * ux;
+        vertices[i + 2] = lx;
+        vertices[i + 3] = ly;
+        vertices[i + 4] = hx;
+        vertices[i + 5] = hy;
+        vertices[i + 6] = radius;
+        vertices[i + 7] = thickness;
+        vertices[i + 8] = color[0];
+        vertices[i + 9] = color[1];
+        vertices[i + 10] = color[2];
+        vertices[i + 11] = color[3];
+        return i + FLOATS_PER_VERTEX;
+    }
+
+    /**
+     * La misma distancia con signo que el shader, para pruebas y hit tests:
+     * negativa dentro, positiva fuera, en unidades de mundo.
+     */
+    public static float distance(float lx, float ly, float halfWidth, float halfHeight,
+                                 float cornerRadius, float thickness) {
+        float qx = Math.abs(lx) - halfWidth + cornerRadius;
+        float qy = Math.abs(ly) - halfHeight + cornerRadius;
+        float ox = Math.max(qx, 0f);
+        float oy = Math.max(qy, 0f);
+        float d = (float) Math.sqrt(ox * ox + oy * oy) + Math.min(Math.max(qx, qy), 0f) - cornerRadius;
+        if (thickness > 0f) {
+            d = Math.abs(d + thickness / 2) - thickness / 2;
+        }
+        return d;
+    }
+}
@@ -0,0 +1,191 @@
+package com.programacionavanzada.render;
+
+import android.opengl.GLES20;
+
+import com.programacionavanzada.gl.DirectBuffers;
+import com.programacionavanzada.gl.GLApi;
+import com.programacionavanzada.gl.Gl;
+import com.programacionavanzada.gl.GpuBuffer;
+import com.programacionavanzada.gl.PooledBuffer;
+import com.programacionavanzada.gl.ProgramBinding;
+import com.programacionavanzada.gl.ShaderProgram;
+import com.programacionavanzada.gl.ShaderProgramCache;
+import com.programacionavanzada.gl.VertexFormat;
+import com.programacionavanzada.gl.VertexPacker;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Lado GL de {@link SdfBatch}. El fragment shader calcula la distancia con
+ * signo al borde de la figura en su marco local y la convierte en alfa con
+ * una rampa de {@code antialiasWidth}: bordes suaves sin MSAA y sin
+ * OES_standard_derivatives.
+ *
+ * <p>Los indices son los de {@link SpriteBatch#quadIndices(int)} en un IBO
+ * estatico; los vertices van a un VBO GL_STREAM_DRAW.</p>
+ */
+public class SdfBatchRenderer implements SdfBatch.Sink {
+
+    static final String LOCAL = "aLocal";
+    static final String SHAPE = "aShape";
+    static final String SDF_PARAMS = "uSdfParams";
+
+    // 36 bytes: posicion, posicion local y parametros en float, color en bytes
+    private static final VertexFormat FORMAT = new VertexFormat(
+            VertexFormat.position(2, GLES20.GL_FLOAT, false),
+            new VertexFormat.Spec(LOCAL, 2, GLES20.GL_FLOAT, false),
+            new VertexFormat.Spec(SHAPE, 4, GLES20.GL_FLOAT, false),
+            VertexFormat.packedColor());
+    private static final int STRIDE = FORMAT.stride();
+
+    private final String vertexShaderCode =
+            "attribute vec4 vPosition;" +
+                    "attribute vec2 aLocal;" +
+                    "attribute vec4 aShape;" +
+                    "attribute vec4 aColor;" +
+                    "uniform mat4 uMVPMatrix;" +
+                    "varying vec2 vLocal;" +
+                    "varying vec4 vShape;" +
+                    "varying vec4 vVertexColor;" +
+                    "void main(){" +
+                    "gl_Position = uMVPMatrix * vec4(vPosition.xy, 0.0, 1.0);" +
+                    "vLocal = aLocal;" +
+                    "vShape = aShape;" +
+                    "vVertexColor = aColor;" +
+                    "}";
+
+    // vShape: media anchura (xy), radio de esquina (z), grosor del contorno (w).
+    // highp si existe: con mediump (fp16 en Mali y Adreno) la distancia de una
+    // figura de cientos de pixeles pierde fracciones de pixel y el borde se escalona
+    private final String fragmentShaderCode =
+            "#ifdef GL_FRAGMENT_PRECISION_HIGH\n" +
+                    "precision highp float;\n" +
+                    "#else\n" +
+                    "precision mediump float;\n" +
+                    "#endif\n" +
+                    "uniform vec4 uSdfParams;" + // ancho del antialiasing en unidades de mundo (x)
+                    "varying vec2 vLocal;" +
+                    "varying vec4 vShape;" +
+                    "varying vec4 vVertexColor;" +
+                    "void main(){" +
+                    "vec2 q = abs(vLocal) - vShape.xy + vShape.z;" +
+                    "float d = length(max(q, 0.0)) + min(max(q.x, q.y), 0.0) - vShape.z;" +
+                    "if (vShape.w > 0.0) d = abs(d + vShape.w * 0.5) - vShape.w * 0.5;" +
+                    "float alpha = clamp(0.5 - d / uSdfParams.x, 0.0, 1.0);" +
+                    "gl_FragColor = vec4(vVertexColor.rgb, vVertexColor.a * alpha);" +
+                    "}";
+
+    private final ShaderProgram program;
+    private final int mvpHandle;
+    private final int sdfParamsHandle;
+
+    private final PooledBuffer vertexMemory;
+    private final PooledBuffer indexMemory;
+    private final ByteBuffer vertexBuffer;
+    private final GpuBuffer vbo = GpuBuffer.vertices(GLES20.GL_STREAM_DRAW);
+    private final GpuBuffer ibo = GpuBuffer.indices(GLES20.GL_STATIC_DRAW);
+
+    private final float[] sdfParams = {0f, 0f, 0f, 0f};
+    private float[] viewProjection = ShapeBatchRenderer.IDENTITY;
+    private int drawCalls;
+    private boolean drawingLayer;
+
+    public SdfBatchRenderer() {
+        this(SdfBatch.MAX_SHAPES);
+    }
+
+    /**
+     * @param maxShapes debe coincidir con el del SdfBatch que usa este renderer
+     */
+    public SdfBatchRenderer(int maxShapes) {
+        vertexMemory = DirectBuffers.pool().acquire(maxShapes * SpriteBatch.VERTICES_PER_SPRITE * STRIDE);
+        vertexBuffer = vertexMemory.bytes();
+
+        short[] indices = SpriteBatch.quadIndices(maxShapes);
+        indexMemory = DirectBuffers.pool().acquire(indices.length * 2);
+        ShortBuffer indexBuffer = indexMemory.shorts();
+        indexBuffer.put(indices);
+        ibo.upload(indexBuffer, indices.length * 2);
+        ibo.unbind();
+
+        program = ShaderProgramCache.shared().acquire(vertexShaderCode, fragmentShaderCode);
+        mvpHandle = program.uniformLocation(ProgramBinding.MVP);
+        sdfParamsHandle = program.uniformLocation(SDF_PARAMS);
+    }
+
+    /**
+     * Igual que {@link ShapeBatchRenderer#setViewProjection(float[])}.
+     */
+    public void setViewProjection(float[] viewProjection) {
+        this.viewProjection = viewProjection != null ? viewProjection : ShapeBatchRenderer.IDENTITY;
+    }
+
+    /**
+     * Lo pone LayerRenderer mientras dibuja en una capa; cambia la mezcla
+     * (ver LayerRenderer.blend).
+     */
+    public void setDrawingLayer(boolean drawingLayer) {
+        this.drawingLayer = drawingLayer;
+    }
+
+    @Override
+    public void flush(float[] vertices, int shapeCount, float antialiasWidth) {
+        GLApi gl = Gl.api();
+        int vertexCount = shapeCount * SpriteBatch.VERTICES_PER_SPRITE;
+        pack(vertices, vertexCount);
+        sdfParams[0] = antialiasWidth;
+
+        gl.glUseProgram(program.handle);
+        gl.glUniformMatrix4fv(mvpHandle, 1, false, viewProjection, 0);
+        gl.glUniform4fv(sdfParamsHandle, 1, sdfParams, 0);
+
+        vbo.upload(vertexBuffer, vertexCount * STRIDE);
+        // El contexto pudo perderse: bind() vuelve a subir los indices
+        ibo.bind();
+        FORMAT.enable(gl, program, 0);
+
+        // El borde suave necesita mezcla
+        gl.glEnable(GLES20.GL_BLEND);
+        LayerRenderer.blend(gl, drawingLayer);
+        gl.glDrawElements(GLES20.GL_TRIANGLES, shapeCount * SpriteBatch.INDICES_PER_SPRITE,
+                GLES20.GL_UNSIGNED_SHORT, 0);
+        gl.glDisable(GLES20.GL_BLEND);
+        drawCalls++;
+
+        FORMAT.disable(gl, program);
+        vbo.unbind();
+        ibo.unbind();
+    }
+
+    private void pack(float[] vertices, int vertexCount) {
+        ByteBuffer dst = vertexBuffer;
+        dst.clear();
+        int color = FORMAT.colorAttribute().offset;
+        for (int i = 0; i < vertexCount; i++) {
+            int s = i * SdfBatch.FLOATS_PER_VERTEX;
+            int d = i * STRIDE;
+            // x, y, lx, ly, hx, hy, radio, borde seguidos en 32 bytes
+            for (int c = 0; c < 8; c++) {
+                dst.putFloat(d + c * 4, vertices[s + c]);
+            }
+            for (int c = 0; c < 4; c++) {
+                dst.put(d + color + c, VertexPacker.toUnsignedByte(vertices[s + 8 + c]));
+            }
+        }
+    }
+
+    public int takeDrawCalls() {
+        int n = drawCalls;
+        drawCalls = 0;
+        return n;
+    }
+
+    public void release() {
+        ShaderProgramCache.shared().release(program);
+        vbo.release();
+        ibo.release();
+        vertexMemory.release();
+        indexMemory.release();
+    }
+}
@@ -0,0 +1,300 @@
+package com.programacionavanzada.render;
+
+import com.programacionavanzada.geometria.CircleLod;
+import com.programacionavanzada.geometria.CircleTessellator;
+import com.programacionavanzada.primitivas.Circle;
+import com.programacionavanzada.primitivas.Square;
+
+/**
+ * Junta muchas figuras en un solo flujo de vertices intercalados
+ * (x, y, r, g, b, a) con indices de 16 bits, para dibujarlas con una sola
+ * llamada glDrawElements en vez de un draw() por figura.
+ *
+ * <p>Todo se convierte en triangulos: los puntos y las lineas se dibujan como
+ * cuadrados pequenos, asi pueden ir en el mismo lote que los triangulos y
+ * los circulos. Cuando los indices ya no caben en un short sin signo el lote
+ * se vacia en el {@link Sink} y se empieza otro.</p>
+ *
+ * <p>Esta clase no llama a OpenGL; {@link ShapeBatchRenderer} es el Sink que
+ * sube los datos a la GPU.</p>
+ */
+public class ShapeBatch {
+
+    /**
+     * Recibe cada lote lleno. Los arreglos se reutilizan despues de flush,
+     * asi que hay que consumirlos antes de regresar.
+     */
+    public interface Sink {
+        void flush(float[] vertices, int vertexCount, short[] indices, int indexCount);
+    }
+
+    public static final int FLOATS_PER_VERTEX = 6; // x, y, r, g, b, a
+
+    // El mayor indice que cabe en GL_UNSIGNED_SHORT es 65535
+    public static final int MAX_VERTICES = 65536;
+
+    // Copias de la geometria de Square, hechas una vez
+    private static final float[] SQUARE_COORDS = Square.getCoords();
+    private static final short[] SQUARE_ORDER = Square.getDrawOrder();
+
+    private final Sink sink;
+    private final int maxVertices;
+    private final int maxIndices;
+
+    private final float[] vertices;
+    private final short[] indices;
+    private int vertexCount;
+    private int indexCount;
+
+    private int flushCount;
+    private boolean drawing;
+
+    public ShapeBatch(Sink sink) {
+        this(sink, MAX_VERTICES, MAX_VERTICES * 3 / 2);
+    }
+
+    /**
+     * @param maxVertices vertices por lote, como mucho {@link #MAX_VERTICES}
+     * @param maxIndices  indices por lote
+     */
+    public ShapeBatch(Sink sink, int maxVertices, int maxIndices) {
+        if (maxVertices < 4 || maxVertices > MAX_VERTICES) {
+            throw new IllegalArgumentException("maxVertices fuera de rango: " + maxVertices);
+        }
+        if (maxIndices < 6) {
+            throw new IllegalArgumentException("maxIndices fuera de rango: " + maxIndices);
+        }
+        this.sink = sink;
+        this.maxVertices = maxVertices;
+        this.maxIndices = maxIndices;
+        this.vertices = new float[maxVertices * FLOATS_PER_VERTEX];
+        this.indices = new short[maxIndices];
+    }
+
+    public void begin() {
+        if (drawing) {
+            throw new IllegalStateException("begin() llamado dos veces sin end()");
+        }
+        drawing = true;
+        flushCount = 0;
+    }
+
+    public void end() {
+        if (!drawing) {
+            throw new IllegalStateException("end() sin begin()");
+        }
+        flush();
+        drawing = false;
+    }
+
+    /**
+     * Manda al Sink lo acumulado hasta ahora (si hay algo).
+     */
+    public void flush() {
+        if (indexCount == 0) {
+            vertexCount = 0;
+            return;
+        }
+        sink.flush(vertices, vertexCount, indices, indexCount);
+        flushCount++;
+        vertexCount = 0;
+        indexCount = 0;
+    }
+
+    // ==================== FIGURAS ====================
+
+    public void addTriangle(float x1, float y1, float x2, float y2, float x3, float y3, float[] color) {
+        int base = reserve(3, 3);
+        putVertex(x1, y1, color);
+        putVertex(x2, y2, color);
+        putVertex(x3, y3, color);
+        putTriangle(base, base + 1, base + 2);
+    }
+
+    /**
+     * Triangulos sueltos en el mismo formato que {@code Triangles}:
+     * {x1,y1,z1, x2,y2,z2, x3,y3,z3, ...}. La z se ignora.
+     */
+    public void addTriangles(float[] coords, float[] color) {
+        addTriangles(coords, 3, color);
+    }
+
+    public void addTriangles(float[] coords, int coordsPerVertex, float[] color) {
+        int total = coords.length / coordsPerVertex;
+        // De tres en tres para poder partir el lote entre triangulos
+        int perBatch = (Math.min(maxVertices, maxIndices) / 3) * 3;
+        for (int first = 0; first < total; first += perBatch) {
+            int n = Math.min(perBatch, total - first) / 3 * 3;
+            int base = reserve(n, n);
+            for (int i = 0; i < n; i++) {
+                int c = (first + i) * coordsPerVertex;
+                putVertex(coords[c], coords[c + 1], color);
+                indices[indexCount++] = (short) (base + i);
+            }
+        }
+    }
+
+    /**
+     * Geometria indexada cualquiera (como la de {@code Square}).
+     */
+    public void addIndexed(float[] coords, int coordsPerVertex, short[] order, float[] color) {
+        int n = coords.length / coordsPerVertex;
+        int base = reserve(n, order.length);
+        for (int i = 0; i < n; i++) {
+            putVertex(coords[i * coordsPerVertex], coords[i * coordsPerVertex + 1], color);
+        }
+        for (short index : order) {
+            indices[indexCount++] = (short) (base + index);
+        }
+    }
+
+    /**
+     * El cuadrado de {@link Square} (mismas coordenadas y mismo drawOrder).
+     */
+    public void addSquare(float[] color) {
+        addIndexed(SQUARE_COORDS, 3, SQUARE_ORDER, color);
+    }
+
+    public void addQuad(float x, float y, float width, float height, float[] color) {
+        int base = reserve(4, 6);
+        putVertex(x, y + height, color);
+        putVertex(x, y, color);
+        putVertex(x + width, y, color);
+        putVertex(x + width, y + height, color);
+        putTriangle(base, base + 1, base + 2);
+        putTriangle(base, base + 2, base + 3);
+    }
+
+    /**
+     * Circulo con la misma geometria que {@link Circle}, trasladado a (cx, cy).
+     * El abanico se convierte en triangulos que comparten el centro. Los
+     * vertices se escriben directo en el lote, sin arreglos temporales.
+     */
+    public void addCircle(float cx, float cy, float radius, int numPoints, float[] color) {
+        int n = CircleTessellator.fanVertexCount(numPoints);
+        int base = reserve(n, numPoints * 3);
+        CircleTessellator.fan(cx, cy, radius, numPoints, vertices, base * FLOATS_PER_VERTEX, FLOATS_PER_VERTEX);
+        for (int i = 0; i < n; i++) {
+            putColor(base + i, color);
+        }
+        vertexCount += n;
+        for (int i = 1; i <= numPoints; i++) {
+            putTriangle(base, base + i, base + i + 1);
+        }
+    }
+
+    /**
+     * Circulo con los segmentos que pide {@link CircleLod} para su tamano en pantalla.
+     */
+    public void addCircle(float cx, float cy, float radius, float[] color) {
+        addCircle(cx, cy, radius, CircleLod.segmentsFor(radius), color);
+    }
+
+    /**
+     * Punto como cuadrado de lado {@code size} (en coordenadas de pantalla -1..1).
+     */
+    public void addPoint(float x, float y, float size, float[] color) {
+        float h = size / 2;
+        addQuad(x - h, y - h, size, size, color);
+    }
+
+    /**
+     * Varios puntos, mismo formato que {@code Points}: {x1,y1,z1, x2,y2,z2, ...}.
+     */
+    public void addPoints(float[] coords, int coordsPerVertex, float size, float[] color) {
+        for (int i = 0; i + 1 < coords.length; i += coordsPerVertex) {
+            addPoint(coords[i], coords[i + 1], size, color);
+        }
+    }
+
+    /**
+     * Segmento con grosor: un rectangulo orientado sobre la linea.
+     */
+    public void addLine(float x1, float y1, float x2, float y2, float width, float[] color) {
+        float dx = x2 - x1;
+        float dy = y2 - y1;
+        float length = (float) Math.sqrt(dx * dx + dy * dy);
+        if (length == 0f) {
+            return;
+        }
+        // Normal del segmento escalada a la mitad del grosor
+        float nx = -dy / length * width / 2;
+        float ny = dx / length * width / 2;
+
+        int base = reserve(4, 6);
+        putVertex(x1 + nx, y1 + ny, color);
+        putVertex(x1 - nx, y1 - ny, color);
+        putVertex(x2 - nx, y2 - ny, color);
+        putVertex(x2 + nx, y2 + ny, color);
+        putTriangle(base, base + 1, base + 2);
+        putTriangle(base, base + 2, base + 3);
+    }
+
+    /**
+     * Varias lineas, mismo formato que {@code Lines}: pares {x1,y1, x2,y2, ...}.
+     */
+    public void addLines(float[] coords, float width, float[] color) {
+        for (int i = 0; i + 3 < coords.length; i += 4) {
+            addLine(coords[i], coords[i + 1], coords[i + 2], coords[i + 3], width, color);
+        }
+    }
+
+    // ==================== ESTADO ====================
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public int getIndexCount() {
+        return indexCount;
+    }
+
+    /**
+     * Lotes enviados desde el ultimo begin(); en el renderer es el numero de draw calls.
+     */
+    public int getFlushCount() {
+        return flushCount;
+    }
+
+    // ==================== INTERNOS ====================
+
+    /**
+     * Asegura espacio para una figura completa y devuelve el indice de su
+     * primer vertice. Si no cabe en el lote actual, lo vacia primero.
+     */
+    private int reserve(int vertexNeeded, int indexNeeded) {
+        if (!drawing) {
+            throw new IllegalStateException("Falta llamar a begin()");
+        }
+        if (vertexNeeded > maxVertices || indexNeeded > maxIndices) {
+            throw new IllegalArgumentException("La figura no cabe en un lote: "
+                    + vertexNeeded + " vertices, " + indexNeeded + " indices");
+        }
+        if (vertexCount + vertexNeeded > maxVertices || indexCount + indexNeeded > maxIndices) {
+            flush();
+        }
+        return vertexCount;
+    }
+
+    private void putVertex(float x, float y, float[] color) {
+        int i = vertexCount * FLOATS_PER_VERTEX;
+        vertices[i] = x;
+        vertices[i + 1] = y;
+        putColor(vertexCount, color);
+        vertexCount++;
+    }
+
+    private void putColor(int vertex, float[] color) {
+        int i = vertex * FLOATS_PER_VERTEX + 2;
+        vertices[i] = color[0];
+        vertices[i + 1] = color[1];
+        vertices[i + 2] = color[2];
+        vertices[i + 3] = color[3];
+    }
+
+    private void putTriangle(int a, int b, int c) {
+        indices[indexCount++] = (short) a;
+        indices[indexCount++] = (short) b;
+        indices[indexCount++] = (short) c;
+    }
+}
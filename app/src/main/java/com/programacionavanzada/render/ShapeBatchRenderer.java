@@ -0,0 +1,167 @@
+package com.programacionavanzada.render;
+
+import android.opengl.GLES20;
+
+import com.programacionavanzada.geometria.Mat4;
+import com.programacionavanzada.gl.DirectBuffers;
+import com.programacionavanzada.gl.GLApi;
+import com.programacionavanzada.gl.Gl;
+import com.programacionavanzada.gl.GpuBuffer;
+import com.programacionavanzada.gl.PooledBuffer;
+import com.programacionavanzada.gl.ProgramBinding;
+import com.programacionavanzada.gl.ShaderProgram;
+import com.programacionavanzada.gl.ShaderProgramCache;
+import com.programacionavanzada.gl.VertexFormat;
+import com.programacionavanzada.gl.VertexPacker;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Lado GL de {@link ShapeBatch}: cada lote se sube a un VBO/IBO en modo
+ * GL_STREAM_DRAW y se dibuja con un solo glDrawElements.
+ *
+ * <p>Los vertices se suben en {@link VertexFormat#POSITION_2F_COLOR_4UB}:
+ * 12 bytes por vertice en lugar de los 24 de los floats de ShapeBatch.</p>
+ *
+ * <p>Solo se activa la mezcla si algun vertice del lote tiene alfa menor
+ * que 1; los lotes opacos se dibujan sin ella.</p>
+ */
+public class ShapeBatchRenderer implements ShapeBatch.Sink {
+
+    private static final VertexFormat FORMAT = VertexFormat.POSITION_2F_COLOR_4UB;
+    private static final int STRIDE = FORMAT.stride();
+
+    private final String vertexShaderCode =
+            "attribute vec4 vPosition;" +
+                    "attribute vec4 aColor;" +
+                    "uniform mat4 uMVPMatrix;" +
+                    "varying vec4 vVertexColor;" +
+                    "void main(){" +
+                    "gl_Position = uMVPMatrix * vPosition;" +
+                    "vVertexColor = aColor;" +
+                    "}";
+
+    private final String fragmentShaderCode =
+            "precision mediump float;" +
+                    "varying vec4 vVertexColor;" +
+                    "void main(){" +
+                    "gl_FragColor = vVertexColor;" +
+                    "}";
+
+    private final ShaderProgram program;
+    private final int mvpHandle;
+
+    private final PooledBuffer vertexMemory;
+    private final PooledBuffer indexMemory;
+    private final ByteBuffer vertexBuffer;
+    private final ShortBuffer indexBuffer;
+    private final GpuBuffer vbo = GpuBuffer.vertices(GLES20.GL_STREAM_DRAW);
+    private final GpuBuffer ibo = GpuBuffer.indices(GLES20.GL_STREAM_DRAW);
+
+    private int drawCalls;
+    private boolean drawingLayer;
+
+    // Los lotes ya vienen en coordenadas de mundo: solo falta la camara
+    private float[] viewProjection = IDENTITY;
+    static final float[] IDENTITY = new float[16];
+
+    static {
+        Mat4.identity(IDENTITY);
+    }
+
+    public ShapeBatchRenderer() {
+        this(ShapeBatch.MAX_VERTICES, ShapeBatch.MAX_VERTICES * 3 / 2);
+    }
+
+    /**
+     * Los tamanos deben coincidir con los del ShapeBatch que usa este renderer.
+     */
+    public ShapeBatchRenderer(int maxVertices, int maxIndices) {
+        vertexMemory = DirectBuffers.pool().acquire(maxVertices * STRIDE);
+        indexMemory = DirectBuffers.pool().acquire(maxIndices * 2);
+        vertexBuffer = vertexMemory.bytes();
+        indexBuffer = indexMemory.shorts();
+
+        program = ShaderProgramCache.shared().acquire(vertexShaderCode, fragmentShaderCode);
+        mvpHandle = program.uniformLocation(ProgramBinding.MVP);
+    }
+
+    /**
+     * Matriz de la camara (Camera.viewProjection()) que se usa en los
+     * siguientes lotes; {@code null} dibuja en NDC. Se guarda la referencia:
+     * si la camara cambia no hace falta volver a llamarlo.
+     */
+    public void setViewProjection(float[] viewProjection) {
+        this.viewProjection = viewProjection != null ? viewProjection : IDENTITY;
+    }
+
+    /**
+     * Lo pone LayerRenderer mientras dibuja en una capa; cambia la mezcla
+     * (ver LayerRenderer.blend).
+     */
+    public void setDrawingLayer(boolean drawingLayer) {
+        this.drawingLayer = drawingLayer;
+    }
+
+    @Override
+    public void flush(float[] vertices, int vertexCount, short[] indices, int indexCount) {
+        GLApi gl = Gl.api();
+        vertexBuffer.clear();
+        VertexPacker.pack(FORMAT, vertices, ShapeBatch.FLOATS_PER_VERTEX, 2, 2, vertexCount, null, null, vertexBuffer);
+        indexBuffer.clear();
+        indexBuffer.put(indices, 0, indexCount);
+
+        gl.glUseProgram(program.handle);
+        gl.glUniformMatrix4fv(mvpHandle, 1, false, viewProjection, 0);
+
+        // glBufferData con el tamano usado: el driver puede descartar el lote anterior
+        vbo.upload(vertexBuffer, vertexCount * STRIDE);
+        ibo.upload(indexBuffer, indexCount * 2);
+
+        FORMAT.enable(gl, program, 0);
+
+        boolean translucent = hasTranslucentVertex(vertices, vertexCount);
+        if (translucent) {
+            gl.glEnable(GLES20.GL_BLEND);
+            LayerRenderer.blend(gl, drawingLayer);
+        }
+        gl.glDrawElements(GLES20.GL_TRIANGLES, indexCount, GLES20.GL_UNSIGNED_SHORT, 0);
+        if (translucent) {
+            gl.glDisable(GLES20.GL_BLEND);
+        }
+        drawCalls++;
+
+        FORMAT.disable(gl, program);
+        vbo.unbind();
+        ibo.unbind();
+    }
+
+    // El alfa es el ultimo float de cada vertice (x, y, r, g, b, a)
+    private static boolean hasTranslucentVertex(float[] vertices, int vertexCount) {
+        int end = vertexCount * ShapeBatch.FLOATS_PER_VERTEX;
+        for (int i = ShapeBatch.FLOATS_PER_VERTEX - 1; i < end; i += ShapeBatch.FLOATS_PER_VERTEX) {
+            if (vertices[i] < 1f) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Draw calls hechos desde la ultima llamada a este metodo.
+     */
+    public int takeDrawCalls() {
+        int n = drawCalls;
+        drawCalls = 0;
+        return n;
+    }
+
+    public void release() {
+        ShaderProgramCache.shared().release(program);
+        vbo.release();
+        ibo.release();
+        vertexMemory.release();
+        indexMemory.release();
+    }
+}
@@ -0,0 +1,190 @@
+package com.programacionavanzada.render;
+
+import com.programacionavanzada.primitivas.Square;
+
+/**
+ * Junta sprites (rectangulos con una region de {@link TextureAtlas}) en un
+ * solo flujo de vertices (x, y, u, v, r, g, b, a). Cada sprite usa los 4
+ * vertices y el drawOrder de {@link Square}, asi los indices son siempre
+ * los mismos y el renderer los sube una sola vez.
+ *
+ * <p>El lote se vacia en el {@link Sink} cuando se llena o cuando el
+ * siguiente sprite es de otra pagina: sprites de la misma pagina seguidos
+ * salen en un solo draw call.</p>
+ *
+ * <p>Esta clase no llama a OpenGL; {@link SpriteBatchRenderer} es el Sink.</p>
+ */
+public class SpriteBatch {
+
+    /**
+     * Recibe cada lote. El arreglo se reutiliza despues de flush.
+     */
+    public interface Sink {
+        void flush(int page, float[] vertices, int spriteCount);
+    }
+
+    public static final int FLOATS_PER_VERTEX = 8; // x, y, u, v, r, g, b, a
+    public static final int VERTICES_PER_SPRITE = 4;
+    public static final int INDICES_PER_SPRITE = 6;
+    // Los indices de 16 bits llegan a 65536 vertices
+    public static final int MAX_SPRITES = ShapeBatch.MAX_VERTICES / VERTICES_PER_SPRITE;
+
+    private final Sink sink;
+    private final int maxSprites;
+    private final float[] vertices;
+    private int spriteCount;
+    private int page = -1;
+
+    private int flushCount;
+    private boolean drawing;
+
+    public SpriteBatch(Sink sink) {
+        this(sink, MAX_SPRITES);
+    }
+
+    public SpriteBatch(Sink sink, int maxSprites) {
+        if (maxSprites < 1 || maxSprites > MAX_SPRITES) {
+            throw new IllegalArgumentException("maxSprites fuera de rango: " + maxSprites);
+        }
+        this.sink = sink;
+        this.maxSprites = maxSprites;
+        this.vertices = new float[maxSprites * VERTICES_PER_SPRITE * FLOATS_PER_VERTEX];
+    }
+
+    /**
+     * Indices de {@code sprites} sprites seguidos: el drawOrder de Square
+     * desplazado 4 vertices por sprite.
+     */
+    public static short[] quadIndices(int sprites) {
+        short[] order = Square.getDrawOrder();
+        short[] out = new short[sprites * INDICES_PER_SPRITE];
+        for (int s = 0; s < sprites; s++) {
+            for (int i = 0; i < INDICES_PER_SPRITE; i++) {
+                out[s * INDICES_PER_SPRITE + i] = (short) (s * VERTICES_PER_SPRITE + order[i]);
+            }
+        }
+        return out;
+    }
+
+    public void begin() {
+        if (drawing) {
+            throw new IllegalStateException("begin() llamado dos veces sin end()");
+        }
+        drawing = true;
+        flushCount = 0;
+    }
+
+    public void end() {
+        if (!drawing) {
+            throw new IllegalStateException("end() sin begin()");
+        }
+        flush();
+        drawing = false;
+    }
+
+    /**
+     * Manda al Sink lo acumulado hasta ahora (si hay algo).
+     */
+    public void flush() {
+        if (spriteCount == 0) {
+            return;
+        }
+        sink.flush(page, vertices, spriteCount);
+        flushCount++;
+        spriteCount = 0;
+    }
+
+    // ==================== SPRITES ====================
+
+    /**
+     * La region completa en el rectangulo con esquina inferior izquierda (x, y).
+     *
+     * @param color se multiplica por los pixeles; {1,1,1,1} los deja igual
+     */
+    public void draw(TextureAtlas.Region region, float x, float y, float width, float height, float[] color) {
+        checkValid(region);
+        draw(region.page, region.u0, region.v0, region.u1, region.v1, x, y, width, height, color);
+    }
+
+    /**
+     * La region centrada en (cx, cy) y girada {@code degrees} en sentido antihorario.
+     */
+    public void draw(TextureAtlas.Region region, float cx, float cy, float width, float height,
+                     float degrees, float[] color) {
+        checkValid(region);
+        double radians = Math.toRadians(degrees);
+        float cos = (float) Math.cos(radians);
+        float sin = (float) Math.sin(radians);
+        float hw = width / 2;
+        float hh = height / 2;
+        int v = reserve(region.page);
+        // Mismo orden que Square: sup izq, inf izq, inf der, sup der
+        v = putVertex(v, cx + (-hw * cos - hh * sin), cy + (-hw * sin + hh * cos), region.u0, region.v0, color);
+        v = putVertex(v, cx + (-hw * cos + hh * sin), cy + (-hw * sin - hh * cos), region.u0, region.v1, color);
+        v = putVertex(v, cx + (hw * cos + hh * sin), cy + (hw * sin - hh * cos), region.u1, region.v1, color);
+        putVertex(v, cx + (hw * cos - hh * sin), cy + (hw * sin + hh * cos), region.u1, region.v0, color);
+        spriteCount++;
+    }
+
+    /**
+     * Rectangulo con coordenadas de textura arbitrarias de una pagina.
+     */
+    public void draw(int page, float u0, float v0, float u1, float v1,
+                     float x, float y, float width, float height, float[] color) {
+        int v = reserve(page);
+        v = putVertex(v, x, y + height, u0, v0, color);
+        v = putVertex(v, x, y, u0, v1, color);
+        v = putVertex(v, x + width, y, u1, v1, color);
+        putVertex(v, x + width, y + height, u1, v0, color);
+        spriteCount++;
+    }
+
+    // ==================== ESTADO ====================
+
+    public int getSpriteCount() {
+        return spriteCount;
+    }
+
+    /**
+     * Lotes enviados desde el ultimo begin(); en el renderer es el numero de draw calls.
+     */
+    public int getFlushCount() {
+        return flushCount;
+    }
+
+    // ==================== INTERNOS ====================
+
+    private static void checkValid(TextureAtlas.Region region) {
+        if (!region.isValid()) {
+            throw new IllegalArgumentException("La region " + region.key
+                    + " ya no esta en el atlas; hay que volver a agregarla");
+        }
+    }
+
+    /**
+     * Vacia el lote si cambia la pagina o ya no cabe el sprite; devuelve el
+     * indice en {@link #vertices} donde empieza el sprite nuevo.
+     */
+    private int reserve(int page) {
+        if (!drawing) {
+            throw new IllegalStateException("Falta llamar a begin()");
+        }
+        if (page != this.page || spriteCount == maxSprites) {
+            flush();
+            this.page = page;
+        }
+        return spriteCount * VERTICES_PER_SPRITE * FLOATS_PER_VERTEX;
+    }
+
+    private int putVertex(int i, float x, float y, float u, float v, float[] color) {
+        vertices[i] = x;
+        vertices[i + 1] = y;
+        vertices[i + 2] = u;
+        vertices[i + 3] = v;
+        vertices[i + 4] = color[0];
+        vertices[i + 5] = color[1];
+        vertices[i + 6] = color[2];
+        vertices[i + 7] = color[3];
+        return i + FLOATS_PER_VERTEX;
+    }
+}
@@ -0,0 +1,170 @@
+package com.programacionavanzada.render;
+
+import android.opengl.GLES20;
+
+import com.programacionavanzada.gl.DirectBuffers;
+import com.programacionavanzada.gl.GLApi;
+import com.programacionavanzada.gl.Gl;
+import com.programacionavanzada.gl.GpuBuffer;
+import com.programacionavanzada.gl.PooledBuffer;
+import com.programacionavanzada.gl.ProgramBinding;
+import com.programacionavanzada.gl.ShaderProgram;
+import com.programacionavanzada.gl.ShaderProgramCache;
+import com.programacionavanzada.gl.VertexFormat;
+import com.programacionavanzada.gl.VertexPacker;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Lado GL de {@link SpriteBatch}: cada lote es un glDrawElements con la
+ * pagina del atlas enlazada en la unidad 0.
+ *
+ * <ul>
+ *     <li>Los vertices se suben en
+ *     {@link VertexFormat#POSITION_2F_TEXCOORD_2US_COLOR_4UB}, 16 bytes por
+ *     vertice, a un VBO GL_STREAM_DRAW.</li>
+ *     <li>Los indices de todos los sprites son el mismo patron: se suben una
+ *     vez a un IBO estatico y cada lote usa solo el principio.</li>
+ *     <li>Se dibuja con mezcla alfa; el color del vertice multiplica el pixel.</li>
+ * </ul>
+ */
+public class SpriteBatchRenderer implements SpriteBatch.Sink {
+
+    private static final VertexFormat FORMAT = VertexFormat.POSITION_2F_TEXCOORD_2US_COLOR_4UB;
+    private static final int STRIDE = FORMAT.stride();
+    // sampler2D de la pagina; siempre en la unidad 0
+    static final String TEXTURE = "uTexture";
+
+    private final String vertexShaderCode =
+            "attribute vec4 vPosition;" +
+                    "attribute vec2 aTexCoord;" +
+                    "attribute vec4 aColor;" +
+                    "uniform mat4 uMVPMatrix;" +
+                    "varying vec2 vTexCoord;" +
+                    "varying vec4 vVertexColor;" +
+                    "void main(){" +
+                    "gl_Position = uMVPMatrix * vPosition;" +
+                    "vTexCoord = aTexCoord;" +
+                    "vVertexColor = aColor;" +
+                    "}";
+
+    private final String fragmentShaderCode =
+            "precision mediump float;" +
+                    "uniform sampler2D uTexture;" +
+                    "varying vec2 vTexCoord;" +
+                    "varying vec4 vVertexColor;" +
+                    "void main(){" +
+                    "gl_FragColor = texture2D(uTexture, vTexCoord) * vVertexColor;" +
+                    "}";
+
+    private final AtlasTextures textures;
+    private final ShaderProgram program;
+    private final int mvpHandle;
+    private final int textureHandle;
+
+    private final PooledBuffer vertexMemory;
+    private final PooledBuffer indexMemory;
+    private final ByteBuffer vertexBuffer;
+    private final GpuBuffer vbo = GpuBuffer.vertices(GLES20.GL_STREAM_DRAW);
+    private final GpuBuffer ibo = GpuBuffer.indices(GLES20.GL_STATIC_DRAW);
+
+    private int drawCalls;
+
+    private float[] viewProjection = ShapeBatchRenderer.IDENTITY;
+
+    public SpriteBatchRenderer(AtlasTextures textures) {
+        this(textures, SpriteBatch.MAX_SPRITES);
+    }
+
+    /**
+     * @param maxSprites debe coincidir con el del SpriteBatch que usa este renderer
+     */
+    public SpriteBatchRenderer(AtlasTextures textures, int maxSprites) {
+        this.textures = textures;
+        vertexMemory = DirectBuffers.pool().acquire(maxSprites * SpriteBatch.VERTICES_PER_SPRITE * STRIDE);
+        vertexBuffer = vertexMemory.bytes();
+
+        short[] indices = SpriteBatch.quadIndices(maxSprites);
+        indexMemory = DirectBuffers.pool().acquire(indices.length * 2);
+        ShortBuffer indexBuffer = indexMemory.shorts();
+        indexBuffer.put(indices);
+        ibo.upload(indexBuffer, indices.length * 2);
+        ibo.unbind();
+
+        program = ShaderProgramCache.shared().acquire(vertexShaderCode, fragmentShaderCode);
+        mvpHandle = program.uniformLocation(ProgramBinding.MVP);
+        textureHandle = program.uniformLocation(TEXTURE);
+    }
+
+    /**
+     * Matriz de la camara (Camera.viewProjection()); {@code null} dibuja en NDC.
+     */
+    public void setViewProjection(float[] viewProjection) {
+        this.viewProjection = viewProjection != null ? viewProjection : ShapeBatchRenderer.IDENTITY;
+    }
+
+    @Override
+    public void flush(int page, float[] vertices, int spriteCount) {
+        GLApi gl = Gl.api();
+        int vertexCount = spriteCount * SpriteBatch.VERTICES_PER_SPRITE;
+        pack(vertices, vertexCount);
+
+        gl.glUseProgram(program.handle);
+        gl.glUniformMatrix4fv(mvpHandle, 1, false, viewProjection, 0);
+        textures.bind(page, 0);
+        gl.glUniform1i(textureHandle, 0);
+
+        vbo.upload(vertexBuffer, vertexCount * STRIDE);
+        // El contexto pudo perderse: bind() vuelve a subir los indices
+        ibo.bind();
+        FORMAT.enable(gl, program, 0);
+
+        gl.glEnable(GLES20.GL_BLEND);
+        gl.glBlendFunc(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
+        gl.glDrawElements(GLES20.GL_TRIANGLES, spriteCount * SpriteBatch.INDICES_PER_SPRITE,
+                GLES20.GL_UNSIGNED_SHORT, 0);
+        gl.glDisable(GLES20.GL_BLEND);
+        drawCalls++;
+
+        FORMAT.disable(gl, program);
+        vbo.unbind();
+        ibo.unbind();
+    }
+
+    // Floats de SpriteBatch al formato compacto: posicion en float, uv en short y color en bytes
+    private void pack(float[] vertices, int vertexCount) {
+        VertexFormat.Attribute texCoord = FORMAT.texCoordAttribute();
+        VertexFormat.Attribute color = FORMAT.colorAttribute();
+        vertexBuffer.clear();
+        for (int i = 0; i < vertexCount; i++) {
+            int s = i * SpriteBatch.FLOATS_PER_VERTEX;
+            int d = i * STRIDE;
+            vertexBuffer.putFloat(d, vertices[s]);
+            vertexBuffer.putFloat(d + 4, vertices[s + 1]);
+            vertexBuffer.putShort(d + texCoord.offset, VertexPacker.toUnsignedShort(vertices[s + 2]));
+            vertexBuffer.putShort(d + texCoord.offset + 2, VertexPacker.toUnsignedShort(vertices[s + 3]));
+            for (int c = 0; c < 4; c++) {
+                vertexBuffer.put(d + color.offset + c, VertexPacker.toUnsignedByte(vertices[s + 4 + c]));
+            }
+        }
+        vertexBuffer.position(0);
+    }
+
+    /**
+     * Draw calls hechos desde la ultima llamada a este metodo.
+     */
+    public int takeDrawCalls() {
+        int n = drawCalls;
+        drawCalls = 0;
+        return n;
+    }
+
+    public void release() {
+        ShaderProgramCache.shared().release(program);
+        vbo.release();
+        ibo.release();
+        vertexMemory.release();
+        indexMemory.release();
+    }
+}
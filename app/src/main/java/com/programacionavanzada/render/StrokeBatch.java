@@ -0,0 +1,182 @@
+package com.programacionavanzada.render;
+
+import com.programacionavanzada.geometria.PolylineStroker;
+
+/**
+ * Lineas con grosor real: cada trazo pasa por un {@link PolylineStroker} y
+ * sus triangulos se juntan en un flujo de vertices
+ * (x, y, ex, ey, w, r, g, b, a), donde w es la mitad del grosor. Trazos
+ * de distintos grosores y colores salen en el mismo glDrawElements.
+ *
+ * <p>Igual que {@link ShapeBatch}, esta clase no llama a OpenGL;
+ * {@link StrokeBatchRenderer} es el Sink que sube los datos y decide si el
+ * grosor esta en pixeles o en unidades del mundo.</p>
+ */
+public class StrokeBatch {
+
+    /**
+     * Recibe cada lote lleno. Los arreglos se reutilizan despues de flush.
+     */
+    public interface Sink {
+        void flush(float[] vertices, int vertexCount, short[] indices, int indexCount);
+    }
+
+    public static final int FLOATS_PER_VERTEX = 9; // x, y, ex, ey, w, r, g, b, a
+
+    private final Sink sink;
+    private final int maxVertices;
+    private final int maxIndices;
+    private final PolylineStroker stroker = new PolylineStroker();
+    // Para addLine sin crear arreglos
+    private final float[] segment = new float[4];
+
+    private final float[] vertices;
+    private final short[] indices;
+    private int vertexCount;
+    private int indexCount;
+
+    private int flushCount;
+    private boolean drawing;
+
+    public StrokeBatch(Sink sink) {
+        this(sink, ShapeBatch.MAX_VERTICES, ShapeBatch.MAX_VERTICES * 3 / 2);
+    }
+
+    public StrokeBatch(Sink sink, int maxVertices, int maxIndices) {
+        if (maxVertices < 4 || maxVertices > ShapeBatch.MAX_VERTICES) {
+            throw new IllegalArgumentException("maxVertices fuera de rango: " + maxVertices);
+        }
+        if (maxIndices < 6) {
+            throw new IllegalArgumentException("maxIndices fuera de rango: " + maxIndices);
+        }
+        this.sink = sink;
+        this.maxVertices = maxVertices;
+        this.maxIndices = maxIndices;
+        this.vertices = new float[maxVertices * FLOATS_PER_VERTEX];
+        this.indices = new short[maxIndices];
+    }
+
+    /**
+     * Uniones, remates y limite de punta de los siguientes trazos.
+     */
+    public PolylineStroker getStroker() {
+        return stroker;
+    }
+
+    public void begin() {
+        if (drawing) {
+            throw new IllegalStateException("begin() llamado dos veces sin end()");
+        }
+        drawing = true;
+        flushCount = 0;
+    }
+
+    public void end() {
+        if (!drawing) {
+            throw new IllegalStateException("end() sin begin()");
+        }
+        flush();
+        drawing = false;
+    }
+
+    public void flush() {
+        if (indexCount == 0) {
+            vertexCount = 0;
+            return;
+        }
+        sink.flush(vertices, vertexCount, indices, indexCount);
+        flushCount++;
+        vertexCount = 0;
+        indexCount = 0;
+    }
+
+    // ==================== TRAZOS ====================
+
+    /**
+     * Polilinea de {@code pointCount} puntos con {@code stride} floats cada uno.
+     *
+     * @param width grosor total, en las unidades que use el renderer
+     */
+    public void addPolyline(float[] points, int offset, int pointCount, int stride, boolean closed,
+                            float width, float[] color) {
+        stroker.clear();
+        stroker.stroke(points, offset, pointCount, stride, closed);
+        append(width, color);
+    }
+
+    public void addLine(float x1, float y1, float x2, float y2, float width, float[] color) {
+        stroker.clear();
+        segment[0] = x1;
+        segment[1] = y1;
+        segment[2] = x2;
+        segment[3] = y2;
+        stroker.stroke(segment, 0, 2, 2, false);
+        append(width, color);
+    }
+
+    /**
+     * Varias lineas, mismo formato que {@code Lines}: pares {x1,y1, x2,y2, ...}.
+     */
+    public void addLines(float[] coords, int coordsPerVertex, float width, float[] color) {
+        for (int i = 0; i + coordsPerVertex + 1 < coords.length; i += coordsPerVertex * 2) {
+            addPolyline(coords, i, 2, coordsPerVertex, false, width, color);
+        }
+    }
+
+    // ==================== ESTADO ====================
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public int getIndexCount() {
+        return indexCount;
+    }
+
+    // Lotes enviados desde el ultimo begin(); en el renderer es el numero de draw calls
+    public int getFlushCount() {
+        return flushCount;
+    }
+
+    // ==================== INTERNOS ====================
+
+    // Copia la salida del stroker al lote con el grosor y el color del trazo
+    private void append(float width, float[] color) {
+        int n = stroker.getVertexCount();
+        int m = stroker.getIndexCount();
+        if (m == 0) {
+            return;
+        }
+        if (!drawing) {
+            throw new IllegalStateException("Falta llamar a begin()");
+        }
+        if (n > maxVertices || m > maxIndices) {
+            throw new IllegalArgumentException("El trazo no cabe en un lote: "
+                    + n + " vertices, " + m + " indices");
+        }
+        if (vertexCount + n > maxVertices || indexCount + m > maxIndices) {
+            flush();
+        }
+        float half = width / 2f;
+        float[] src = stroker.getVertices();
+        int base = vertexCount;
+        for (int i = 0; i < n; i++) {
+            int s = i * PolylineStroker.FLOATS_PER_VERTEX;
+            int d = (base + i) * FLOATS_PER_VERTEX;
+            vertices[d] = src[s];
+            vertices[d + 1] = src[s + 1];
+            vertices[d + 2] = src[s + 2];
+            vertices[d + 3] = src[s + 3];
+            vertices[d + 4] = half;
+            vertices[d + 5] = color[0];
+            vertices[d + 6] = color[1];
+            vertices[d + 7] = color[2];
+            vertices[d + 8] = color[3];
+        }
+        vertexCount += n;
+        int[] order = stroker.getIndices();
+        for (int i = 0; i < m; i++) {
+            indices[indexCount++] = (short) (base + order[i]);
+        }
+    }
+}
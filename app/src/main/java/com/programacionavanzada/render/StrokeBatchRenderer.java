@@ -0,0 +1,169 @@
+package com.programacionavanzada.render;
+
+import android.opengl.GLES20;
+
+import com.programacionavanzada.gl.DirectBuffers;
+import com.programacionavanzada.gl.GLApi;
+import com.programacionavanzada.gl.Gl;
+import com.programacionavanzada.gl.GpuBuffer;
+import com.programacionavanzada.gl.PooledBuffer;
+import com.programacionavanzada.gl.ProgramBinding;
+import com.programacionavanzada.gl.ShaderProgram;
+import com.programacionavanzada.gl.ShaderProgramCache;
+import com.programacionavanzada.gl.VertexFormat;
+import com.programacionavanzada.gl.VertexPacker;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Lado GL de {@link StrokeBatch}. El shader empuja cada vertice
+ * {@code extrusion * w}: en unidades del mundo antes de la camara, o en
+ * pixeles despues de ella ({@link #setScreenSpace(boolean)}), asi una linea
+ * de 2 px mide 2 px con cualquier zoom.
+ */
+public class StrokeBatchRenderer implements StrokeBatch.Sink {
+
+    static final String EXTRUDE = "aExtrude";
+    static final String WIDTH = "aWidth";
+    static final String STROKE_PARAMS = "uStrokeParams";
+
+    // 24 bytes: posicion y extrusion en float, media anchura en float, color en bytes
+    private static final VertexFormat FORMAT = new VertexFormat(
+            VertexFormat.position(2, GLES20.GL_FLOAT, false),
+            new VertexFormat.Spec(EXTRUDE, 2, GLES20.GL_FLOAT, false),
+            new VertexFormat.Spec(WIDTH, 1, GLES20.GL_FLOAT, false),
+            VertexFormat.packedColor());
+    private static final int STRIDE = FORMAT.stride();
+
+    private final String vertexShaderCode =
+            "attribute vec4 vPosition;" +
+                    "attribute vec2 aExtrude;" +
+                    "attribute float aWidth;" +
+                    "attribute vec4 aColor;" +
+                    "uniform mat4 uMVPMatrix;" +
+                    "uniform vec4 uStrokeParams;" + // tamano de un pixel en NDC (xy), 1 = grosor en pixeles (z)
+                    "varying vec4 vVertexColor;" +
+                    "void main(){" +
+                    "vec2 offset = aExtrude * aWidth;" +
+                    "vec4 p = uMVPMatrix * vec4(vPosition.xy + offset * (1.0 - uStrokeParams.z), 0.0, 1.0);" +
+                    "p.xy += offset * uStrokeParams.xy * p.w * uStrokeParams.z;" +
+                    "gl_Position = p;" +
+                    "vVertexColor = aColor;" +
+                    "}";
+
+    private final String fragmentShaderCode =
+            "precision mediump float;" +
+                    "varying vec4 vVertexColor;" +
+                    "void main(){" +
+                    "gl_FragColor = vVertexColor;" +
+                    "}";
+
+    private final ShaderProgram program;
+    private final int mvpHandle;
+    private final int strokeParamsHandle;
+
+    private final PooledBuffer vertexMemory;
+    private final PooledBuffer indexMemory;
+    private final ByteBuffer vertexBuffer;
+    private final ShortBuffer indexBuffer;
+    private final GpuBuffer vbo = GpuBuffer.vertices(GLES20.GL_STREAM_DRAW);
+    private final GpuBuffer ibo = GpuBuffer.indices(GLES20.GL_STREAM_DRAW);
+
+    private final float[] strokeParams = {0f, 0f, 0f, 0f};
+    private float[] viewProjection = ShapeBatchRenderer.IDENTITY;
+    private int drawCalls;
+
+    public StrokeBatchRenderer() {
+        this(ShapeBatch.MAX_VERTICES, ShapeBatch.MAX_VERTICES * 3 / 2);
+    }
+
+    /**
+     * Los tamanos deben coincidir con los del StrokeBatch que usa este renderer.
+     */
+    public StrokeBatchRenderer(int maxVertices, int maxIndices) {
+        vertexMemory = DirectBuffers.pool().acquire(maxVertices * STRIDE);
+        indexMemory = DirectBuffers.pool().acquire(maxIndices * 2);
+        vertexBuffer = vertexMemory.bytes();
+        indexBuffer = indexMemory.shorts();
+
+        program = ShaderProgramCache.shared().acquire(vertexShaderCode, fragmentShaderCode);
+        mvpHandle = program.uniformLocation(ProgramBinding.MVP);
+        strokeParamsHandle = program.uniformLocation(STROKE_PARAMS);
+    }
+
+    /**
+     * Igual que {@link ShapeBatchRenderer#setViewProjection(float[])}.
+     */
+    public void setViewProjection(float[] viewProjection) {
+        this.viewProjection = viewProjection != null ? viewProjection : ShapeBatchRenderer.IDENTITY;
+    }
+
+    /**
+     * {@code true}: el grosor de los trazos esta en pixeles y no cambia con
+     * el zoom. Necesita {@link #setViewport(int, int)}.
+     */
+    public void setScreenSpace(boolean screenSpace) {
+        strokeParams[2] = screenSpace ? 1f : 0f;
+    }
+
+    // Se llama desde onSurfaceChanged
+    public void setViewport(int width, int height) {
+        strokeParams[0] = 2f / width;
+        strokeParams[1] = 2f / height;
+    }
+
+    @Override
+    public void flush(float[] vertices, int vertexCount, short[] indices, int indexCount) {
+        GLApi gl = Gl.api();
+        pack(vertices, vertexCount);
+        indexBuffer.clear();
+        indexBuffer.put(indices, 0, indexCount);
+
+        gl.glUseProgram(program.handle);
+        gl.glUniformMatrix4fv(mvpHandle, 1, false, viewProjection, 0);
+        gl.glUniform4fv(strokeParamsHandle, 1, strokeParams, 0);
+
+        vbo.upload(vertexBuffer, vertexCount * STRIDE);
+        ibo.upload(indexBuffer, indexCount * 2);
+        FORMAT.enable(gl, program, 0);
+
+        gl.glDrawElements(GLES20.GL_TRIANGLES, indexCount, GLES20.GL_UNSIGNED_SHORT, 0);
+        drawCalls++;
+
+        FORMAT.disable(gl, program);
+        vbo.unbind();
+        ibo.unbind();
+    }
+
+    private void pack(float[] vertices, int vertexCount) {
+        ByteBuffer dst = vertexBuffer;
+        dst.clear();
+        int color = FORMAT.colorAttribute().offset;
+        for (int i = 0; i < vertexCount; i++) {
+            int s = i * StrokeBatch.FLOATS_PER_VERTEX;
+            int d = i * STRIDE;
+            // x, y, ex, ey, w seguidos en 20 bytes
+            for (int c = 0; c < 5; c++) {
+                dst.putFloat(d + c * 4, vertices[s + c]);
+            }
+            for (int c = 0; c < 4; c++) {
+                dst.put(d + color + c, VertexPacker.toUnsignedByte(vertices[s + 5 + c]));
+            }
+        }
+    }
+
+    public int takeDrawCalls() {
+        int n = drawCalls;
+        drawCalls = 0;
+        return n;
+    }
+
+    public void release() {
+        ShaderProgramCache.shared().release(program);
+        vbo.release();
+        ibo.release();
+        vertexMemory.release();
+        indexMemory.release();
+    }
+}
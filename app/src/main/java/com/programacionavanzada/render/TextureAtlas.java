@@ -0,0 +1,295 @@
+package com.programacionavanzada.render;
+
+import android.graphics.Bitmap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Atlas de texturas en tiempo de ejecucion: mete muchas imagenes pequenas
+ * (iconos, glifos) en pocas paginas cuadradas, para que miles de sprites de
+ * la misma pagina salgan en un solo draw call de {@link SpriteBatch}.
+ *
+ * <ul>
+ *     <li>Cada pagina se empaqueta con {@link AtlasPacker} (skyline).</li>
+ *     <li>Alrededor de cada imagen se deja un margen con sus pixeles del
+ *     borde repetidos: el filtrado lineal y los primeros niveles de mipmap
+ *     no mezclan imagenes vecinas.</li>
+ *     <li>Con {@code maxPages} paginas llenas se desaloja la que lleva mas
+ *     tiempo sin usarse ({@link #get} y {@link #add} la marcan en el cuadro
+ *     actual). Sus regiones dejan de ser validas y hay que volver a
+ *     agregarlas; el skyline no puede liberar rectangulos sueltos.</li>
+ * </ul>
+ *
+ * <p>No llama a OpenGL: los pixeles van a un {@link PageStore}
+ * ({@link AtlasTextures} los sube a texturas).</p>
+ */
+public class TextureAtlas {
+
+    /**
+     * Donde viven los pixeles de cada pagina.
+     */
+    public interface PageStore {
+        // Pagina nueva de size x size, con el indice siguiente al ultimo
+        void createPage(int page, int size);
+
+        // Pixeles ARGB (como Bitmap.getPixels) fila por fila, sin relleno entre filas
+        void upload(int page, int x, int y, int width, int height, int[] argb);
+    }
+
+    /**
+     * Una imagen dentro del atlas: pagina y coordenadas de textura. v0 es la
+     * fila de arriba de la imagen.
+     */
+    public static final class Region {
+        public final String key;
+        public final int page;
+        public final int width;
+        public final int height;
+        public final float u0;
+        public final float v0;
+        public final float u1;
+        public final float v1;
+        private boolean valid = true;
+
+        Region(String key, int page, int x, int y, int width, int height, int pageSize) {
+            this.key = key;
+            this.page = page;
+            this.width = width;
+            this.height = height;
+            u0 = (float) x / pageSize;
+            v0 = (float) y / pageSize;
+            u1 = (float) (x + width) / pageSize;
+            v1 = (float) (y + height) / pageSize;
+        }
+
+        /**
+         * false despues de que su pagina se desalojo o se perdio el contexto.
+         */
+        public boolean isValid() {
+            return valid;
+        }
+    }
+
+    public static final int DEFAULT_PAGE_SIZE = 1024;
+    public static final int DEFAULT_MAX_PAGES = 4;
+    // Con 2 pixeles el nivel 1 de mipmap todavia no mezcla vecinos
+    public static final int DEFAULT_PADDING = 2;
+
+    private final PageStore store;
+    private final int pageSize;
+    private final int maxPages;
+    private final int padding;
+
+    private final List<AtlasPacker> packers = new ArrayList<>();
+    private final List<List<Region>> pageRegions = new ArrayList<>();
+    private final List<Integer> lastUsed = new ArrayList<>();
+    private final Map<String, Region> regions = new HashMap<>();
+
+    private final int[] position = new int[2];
+    private int[] padded = new int[0];
+    private int[] bitmapPixels = new int[0];
+    private int frame;
+    private int evictions;
+
+    public TextureAtlas(PageStore store) {
+        this(store, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES, DEFAULT_PADDING);
+    }
+
+    /**
+     * @param pageSize lado de cada pagina; potencia de dos si se usan mipmaps
+     * @param padding  pixeles repetidos alrededor de cada imagen
+     */
+    public TextureAtlas(PageStore store, int pageSize, int maxPages, int padding) {
+        if (pageSize <= 0 || maxPages <= 0 || padding < 0 || padding * 2 >= pageSize) {
+            throw new IllegalArgumentException("Atlas invalido: pagina " + pageSize
+                    + ", maxPages " + maxPages + ", padding " + padding);
+        }
+        this.store = store;
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.padding = padding;
+    }
+
+    /**
+     * Avanza el reloj del LRU; se llama una vez por cuadro antes de dibujar.
+     */
+    public void nextFrame() {
+        frame++;
+    }
+
+    /**
+     * La region de {@code key}, o {@code null} si no esta (nunca se agrego o
+     * su pagina se desalojo). Marca la pagina como usada en este cuadro.
+     */
+    public Region get(String key) {
+        Region region = regions.get(key);
+        if (region != null) {
+            lastUsed.set(region.page, frame);
+        }
+        return region;
+    }
+
+    public boolean contains(String key) {
+        return regions.containsKey(key);
+    }
+
+    /**
+     * Agrega una imagen y sube sus pixeles. Si {@code key} ya esta devuelve
+     * la region que tiene.
+     *
+     * @param argb {@code width * height} pixeles ARGB, fila por fila
+     * @throws IllegalStateException si hay que desalojar y todas las paginas se usan en este cuadro
+     */
+    public Region add(String key, int[] argb, int width, int height) {
+        Region existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        if (width <= 0 || height <= 0 || argb.length < width * height) {
+            throw new IllegalArgumentException("Imagen invalida: " + width + "x" + height
+                    + " con " + argb.length + " pixeles");
+        }
+        int paddedWidth = width + padding * 2;
+        int paddedHeight = height + padding * 2;
+        if (paddedWidth > pageSize || paddedHeight > pageSize) {
+            throw new IllegalArgumentException("La imagen " + key + " (" + width + "x" + height
+                    + ") no cabe en una pagina de " + pageSize);
+        }
+
+        int page = place(paddedWidth, paddedHeight);
+        store.upload(page, position[0], position[1], paddedWidth, paddedHeight,
+                pad(argb, width, height));
+
+        Region region = new Region(key, page, position[0] + padding, position[1] + padding,
+                width, height, pageSize);
+        regions.put(key, region);
+        pageRegions.get(page).add(region);
+        lastUsed.set(page, frame);
+        return region;
+    }
+
+    /**
+     * Igual que {@link #add(String, int[], int, int)} con los pixeles del bitmap.
+     */
+    public Region add(String key, Bitmap bitmap) {
+        Region existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        if (bitmapPixels.length < width * height) {
+            bitmapPixels = new int[width * height];
+        }
+        bitmap.getPixels(bitmapPixels, 0, width, 0, 0, width, height);
+        return add(key, bitmapPixels, width, height);
+    }
+
+    /**
+     * Pagina donde cabe el rectangulo; deja su posicion en {@link #position}.
+     */
+    private int place(int w, int h) {
+        for (int page = 0; page < packers.size(); page++) {
+            if (packers.get(page).insert(w, h, position)) {
+                return page;
+            }
+        }
+        int page;
+        if (packers.size() < maxPages) {
+            page = packers.size();
+            packers.add(new AtlasPacker(pageSize, pageSize));
+            pageRegions.add(new ArrayList<>());
+            lastUsed.add(frame);
+            store.createPage(page, pageSize);
+        } else {
+            page = leastRecentlyUsed();
+            evict(page);
+        }
+        // En una pagina vacia siempre cabe: ya se reviso contra pageSize
+        packers.get(page).insert(w, h, position);
+        return page;
+    }
+
+    private int leastRecentlyUsed() {
+        int best = -1;
+        for (int page = 0; page < lastUsed.size(); page++) {
+            int used = lastUsed.get(page);
+            if (used < frame && (best < 0 || used < lastUsed.get(best))) {
+                best = page;
+            }
+        }
+        if (best < 0) {
+            // Sus sprites ya pueden estar en el lote de este cuadro
+            throw new IllegalStateException("Las " + maxPages
+                    + " paginas del atlas se usan en este cuadro; no se puede desalojar ninguna");
+        }
+        return best;
+    }
+
+    private void evict(int page) {
+        for (Region region : pageRegions.get(page)) {
+            region.valid = false;
+            regions.remove(region.key);
+        }
+        pageRegions.get(page).clear();
+        packers.get(page).reset();
+        evictions++;
+    }
+
+    /**
+     * Vacia todas las paginas (las texturas del contexto anterior ya no
+     * tienen los pixeles). Las paginas se conservan y se llenan de nuevo.
+     */
+    public void onContextLost() {
+        for (int page = 0; page < packers.size(); page++) {
+            for (Region region : pageRegions.get(page)) {
+                region.valid = false;
+            }
+            pageRegions.get(page).clear();
+            packers.get(page).reset();
+        }
+        regions.clear();
+    }
+
+    // La imagen con el margen de pixeles del borde repetidos
+    private int[] pad(int[] argb, int width, int height) {
+        int paddedWidth = width + padding * 2;
+        int paddedHeight = height + padding * 2;
+        if (padded.length < paddedWidth * paddedHeight) {
+            padded = new int[paddedWidth * paddedHeight];
+        }
+        for (int y = 0; y < paddedHeight; y++) {
+            int sy = Math.min(Math.max(y - padding, 0), height - 1);
+            int row = y * paddedWidth;
+            for (int x = 0; x < paddedWidth; x++) {
+                int sx = Math.min(Math.max(x - padding, 0), width - 1);
+                padded[row + x] = argb[sy * width + sx];
+            }
+        }
+        return padded;
+    }
+
+    public int getPageCount() {
+        return packers.size();
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getRegionCount() {
+        return regions.size();
+    }
+
+    // Paginas vaciadas por el LRU desde que se creo el atlas
+    public int getEvictionCount() {
+        return evictions;
+    }
+
+    public float occupancy(int page) {
+        return packers.get(page).occupancy();
+    }
+}
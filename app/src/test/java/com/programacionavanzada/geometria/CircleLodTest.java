@@ -0,0 +1,59 @@
+package com.programacionavanzada.geometria;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CircleLodTest {
+
+    @Test
+    public void segments_keepErrorBelowTolerance() {
+        float[] radii = {2f, 10f, 50f, 200f, 500f};
+        for (float r : radii) {
+            int n = CircleLod.segmentsForPixelRadius(r, 0.5f);
+            double sagitta = r * (1 - Math.cos(Math.PI / n));
+            assertTrue("r=" + r + " n=" + n, sagitta <= 0.5 || n == CircleLod.BUCKETS[CircleLod.BUCKETS.length - 1]);
+        }
+    }
+
+    @Test
+    public void segments_growWithRadius() {
+        int previous = 0;
+        for (float r = 1f; r < 2000f; r *= 1.5f) {
+            int n = CircleLod.segmentsForPixelRadius(r, 0.5f);
+            assertTrue(n >= previous);
+            previous = n;
+        }
+        assertEquals(CircleLod.BUCKETS[0], CircleLod.segmentsForPixelRadius(0.1f, 0.5f));
+    }
+
+    @Test
+    public void tinyCircles_useFarFewerVerticesThanFixed() {
+        // un circulo de 4 px no necesita los 25 segmentos de antes
+        assertTrue(CircleLod.segmentsForPixelRadius(4f, 0.5f) < 25);
+    }
+
+    @Test
+    public void viewportChange_bumpsGeneration() {
+        CircleLod.setViewport(800, 600);
+        int generation = CircleLod.generation();
+        CircleLod.setViewport(800, 600);
+        assertEquals(generation, CircleLod.generation());
+        CircleLod.setViewport(1600, 1200);
+        assertEquals(generation + 1, CircleLod.generation());
+        assertEquals(400f, CircleLod.pixelRadius(0.5f), 0f);
+    }
+
+    @Test
+    public void bucketFans_areShared() {
+        assertSame(CircleLod.unitFan(32), CircleLod.unitFan(32));
+        assertNotSame(CircleLod.unitFan(33), CircleLod.unitFan(33));
+
+        float[] scaled = CircleLod.fan(0.5f, 32, null);
+        assertEquals(0.5f, scaled[3], 1e-6f);
+        assertSame(scaled, CircleLod.fan(0.25f, 32, scaled));
+    }
+}
@@ -0,0 +1,94 @@
+package com.programacionavanzada.geometria;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CircleTessellatorTest {
+
+    // Version original de Circle.createCircleCoords, como referencia
+    private static float[] legacyCircleCoords(float radius, int numPoints) {
+        List<Float> coords = new ArrayList<>();
+        coords.add(0.0f);
+        coords.add(0.0f);
+        coords.add(0.0f);
+        double angle = 2.0 * Math.PI / numPoints;
+        for (int i = 0; i <= numPoints; i++) {
+            double angle2 = angle * i;
+            coords.add((float) (radius * Math.cos(angle2)));
+            coords.add((float) (radius * Math.sin(angle2)));
+            coords.add(0.0f);
+        }
+        float[] arrayV = new float[coords.size()];
+        for (int i = 0; i < coords.size(); i++) {
+            arrayV[i] = coords.get(i);
+        }
+        return arrayV;
+    }
+
+    @Test
+    public void fan_matchesLegacyCircle() {
+        float[] expected = legacyCircleCoords(0.5f, 25);
+        float[] actual = new float[CircleTessellator.fanVertexCount(25) * 3];
+        CircleTessellator.fan(0f, 0f, 0.5f, 25, actual, 0, 3);
+        assertArrayEquals(expected, actual, 1e-6f);
+    }
+
+    @Test
+    public void fan_writesAtOffsetWithStride() {
+        float[] dst = new float[2 + 6 * CircleTessellator.fanVertexCount(4)];
+        java.util.Arrays.fill(dst, 9f);
+        int end = CircleTessellator.fan(1f, 2f, 1f, 4, dst, 2, 6);
+
+        assertEquals(2 + 6 * 6, end);
+        assertEquals(9f, dst[0], 0f);
+        assertEquals(1f, dst[2], 0f);
+        assertEquals(2f, dst[3], 0f);
+        // el resto del vertice (color) no se toca
+        assertEquals(9f, dst[4], 0f);
+        // primer punto del borde en angulo 0
+        assertEquals(2f, dst[8], 1e-6f);
+        assertEquals(2f, dst[9], 1e-6f);
+    }
+
+    @Test
+    public void recurrence_staysOnCircleForLargeSegmentCounts() {
+        int segments = CircleTessellator.MAX_CACHED_SEGMENTS * 4;
+        float[] ring = new float[segments * 2];
+        CircleTessellator.ring(0f, 0f, 1f, segments, ring, 0, 2);
+        for (int i = 0; i < segments; i++) {
+            double angle = 2.0 * Math.PI * i / segments;
+            assertEquals(Math.cos(angle), ring[i * 2], 1e-5);
+            assertEquals(Math.sin(angle), ring[i * 2 + 1], 1e-5);
+        }
+    }
+
+    @Test
+    public void fan_intoFloatBuffer() {
+        FloatBuffer buffer = FloatBuffer.allocate(CircleTessellator.fanVertexCount(8) * 3);
+        CircleTessellator.fan(0f, 0f, 0.5f, 8, buffer, 3);
+        assertEquals(buffer.capacity(), buffer.position());
+        assertArrayEquals(legacyCircleCoords(0.5f, 8), buffer.array(), 1e-6f);
+    }
+
+    @Test
+    public void indexedVariants() {
+        short[] triangles = new short[4 * 3];
+        CircleTessellator.fanIndices(10, 4, triangles, 0);
+        assertArrayEquals(new short[]{10, 11, 12, 10, 12, 13, 10, 13, 14, 10, 14, 11}, triangles);
+
+        short[] outline = new short[4 * 2];
+        CircleTessellator.outlineIndices(0, 4, outline, 0);
+        assertArrayEquals(new short[]{0, 1, 1, 2, 2, 3, 3, 0}, outline);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooFewSegments_fails() {
+        CircleTessellator.fan(0f, 0f, 1f, 2, new float[16], 0, 2);
+    }
+}
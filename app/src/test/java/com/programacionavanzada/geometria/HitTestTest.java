@@ -0,0 +1,49 @@
+package com.programacionavanzada.geometria;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HitTestTest {
+
+    // Mismo formato que Triangles: dos triangulos (x, y, z) que forman un cuadrado
+    private static final float[] TRIANGLES = {
+            -0.75f, 0.10f, 0.0f,
+            -0.75f, 0.90f, 0.0f,
+            -0.25f, 0.90f, 0.0f,
+            -0.25f, 0.90f, 0.0f,
+            -0.75f, 0.10f, 0.0f,
+            -0.25f, 0.10f, 0.0f
+    };
+
+    @Test
+    public void inTriangle_acceptsBothWindingsAndEdges() {
+        assertTrue(HitTest.inTriangle(0.2f, 0.2f, 0f, 0f, 1f, 0f, 0f, 1f));
+        assertTrue(HitTest.inTriangle(0.2f, 0.2f, 0f, 0f, 0f, 1f, 1f, 0f));
+        assertTrue(HitTest.inTriangle(0.5f, 0f, 0f, 0f, 1f, 0f, 0f, 1f));
+        assertFalse(HitTest.inTriangle(0.6f, 0.6f, 0f, 0f, 1f, 0f, 0f, 1f));
+    }
+
+    @Test
+    public void triangleAt_findsTriangleInTrianglesCoords() {
+        assertEquals(0, HitTest.triangleAt(TRIANGLES, 3, -0.7f, 0.8f));
+        assertEquals(1, HitTest.triangleAt(TRIANGLES, 3, -0.3f, 0.2f));
+        assertEquals(-1, HitTest.triangleAt(TRIANGLES, 3, 0f, 0f));
+    }
+
+    @Test
+    public void inCircle_usesCenterAndRadius() {
+        assertTrue(HitTest.inCircle(0.3f, 0.4f, 0f, 0f, 0.5f));
+        assertFalse(HitTest.inCircle(0.31f, 0.4f, 0f, 0f, 0.5f));
+    }
+
+    @Test
+    public void segmentAt_respectsLineWidth() {
+        float[] lines = {-0.5f, 0.5f, 0.5f, 0.5f, -0.5f, -0.3f, -0.5f, -0.7f};
+        assertEquals(0, HitTest.segmentAt(lines, 0.1f, 0f, 0.54f));
+        assertEquals(-1, HitTest.segmentAt(lines, 0.1f, 0f, 0.56f));
+        assertEquals(1, HitTest.segmentAt(lines, 0.1f, -0.5f, -0.74f));
+    }
+}
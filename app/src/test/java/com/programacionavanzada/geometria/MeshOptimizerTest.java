@@ -0,0 +1,138 @@
+package com.programacionavanzada.geometria;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class MeshOptimizerTest {
+
+    // El ejemplo comentado de MyGLRenderer: dos triangulos con dos vertices repetidos
+    private static final float[] QUAD_SOUP = {
+            -0.75f, 0.10f, 0.0f,
+            -0.75f, 0.90f, 0.0f,
+            -0.25f, 0.90f, 0.0f,
+            -0.25f, 0.90f, 0.0f,
+            -0.75f, 0.10f, 0.0f,
+            -0.25f, 0.10f, 0.0f
+    };
+
+    // Rejilla de n x n celdas como triangulos sueltos, en orden aleatorio
+    private static float[] shuffledGrid(int n, long seed) {
+        List<float[]> triangles = new ArrayList<>();
+        for (int y = 0; y < n; y++) {
+            for (int x = 0; x < n; x++) {
+                triangles.add(new float[]{x, y, 0, x + 1, y, 0, x + 1, y + 1, 0});
+                triangles.add(new float[]{x, y, 0, x + 1, y + 1, 0, x, y + 1, 0});
+            }
+        }
+        Collections.shuffle(triangles, new Random(seed));
+        float[] soup = new float[triangles.size() * 9];
+        for (int i = 0; i < triangles.size(); i++) {
+            System.arraycopy(triangles.get(i), 0, soup, i * 9, 9);
+        }
+        return soup;
+    }
+
+    @Test
+    public void weld_mergesRepeatedVertices() {
+        IndexedMesh mesh = MeshOptimizer.weld(QUAD_SOUP, 3, MeshOptimizer.DEFAULT_EPSILON);
+
+        assertEquals(4, mesh.vertexCount());
+        assertArrayEquals(new int[]{0, 1, 2, 2, 0, 3}, mesh.indices);
+    }
+
+    @Test
+    public void weld_findsNeighbourAcrossCellBorder() {
+        // 0.0999 y 0.1001 caen en celdas distintas de 0.001 pero estan a menos de epsilon
+        float[] soup = {0.0999f, 0f, 0.1001f, 0f, 0.5f, 0f};
+        IndexedMesh mesh = MeshOptimizer.weld(soup, 2, 0.001f);
+
+        assertEquals(2, mesh.vertexCount());
+        assertEquals(0, mesh.indices[1]);
+    }
+
+    @Test
+    public void degenerateTriangles_areRemoved() {
+        float[] soup = {0, 0, 1, 0, 1, 1, 0, 0, 0, 0, 1, 1};
+        MeshOptimizer.Report report = new MeshOptimizer.Report();
+        IndexedMesh mesh = MeshOptimizer.optimize(soup, 2, 1e-6f, report);
+
+        assertEquals(3, mesh.indexCount());
+        assertEquals(1, report.degenerateTriangles);
+    }
+
+    @Test
+    public void soupAcmr_isThree() {
+        int[] soup = new int[300];
+        for (int i = 0; i < soup.length; i++) {
+            soup[i] = i;
+        }
+        assertEquals(3f, MeshOptimizer.acmr(soup, 16), 0f);
+    }
+
+    @Test
+    public void optimize_lowersAcmrAndKeepsTriangles() {
+        float[] soup = shuffledGrid(32, 7);
+        MeshOptimizer.Report report = new MeshOptimizer.Report();
+        IndexedMesh mesh = MeshOptimizer.optimize(soup, 3, 1e-6f, report);
+
+        assertEquals(33 * 33, mesh.vertexCount());
+        assertEquals(soup.length / 3, mesh.indexCount());
+        assertTrue(report.toString(), report.acmrAfter < report.acmrBefore);
+        assertTrue(report.toString(), report.acmrAfter < 0.9f);
+        assertEquals(sortedTriangles(soup, 3), sortedTriangles(expand(mesh), 3));
+    }
+
+    @Test
+    public void fetchOrder_followsFirstUse() {
+        IndexedMesh mesh = MeshOptimizer.optimize(shuffledGrid(8, 3), 3, 1e-6f, null);
+
+        int next = 0;
+        for (int index : mesh.indices) {
+            assertTrue(index <= next);
+            if (index == next) {
+                next++;
+            }
+        }
+        assertEquals(mesh.vertexCount(), next);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void largeMesh_needsIntIndices() {
+        IndexedMesh mesh = new IndexedMesh(new float[(IndexedMesh.MAX_SHORT_VERTICES + 1) * 2], 2, new int[3]);
+        assertTrue(mesh.needsIntIndices());
+        mesh.toShortIndices();
+    }
+
+    private static float[] expand(IndexedMesh mesh) {
+        int cpv = mesh.coordsPerVertex;
+        float[] soup = new float[mesh.indexCount() * cpv];
+        for (int i = 0; i < mesh.indexCount(); i++) {
+            System.arraycopy(mesh.vertices, mesh.indices[i] * cpv, soup, i * cpv, cpv);
+        }
+        return soup;
+    }
+
+    // Cada triangulo como texto con sus vertices ordenados, y la lista ordenada
+    private static List<String> sortedTriangles(float[] soup, int cpv) {
+        List<String> out = new ArrayList<>();
+        for (int t = 0; t < soup.length; t += cpv * 3) {
+            List<String> corners = new ArrayList<>();
+            for (int c = 0; c < 3; c++) {
+                int o = t + c * cpv;
+                corners.add(soup[o] + "," + soup[o + 1]);
+            }
+            Collections.sort(corners);
+            out.add(String.join(" ", corners));
+        }
+        Collections.sort(out);
+        return out;
+    }
+}
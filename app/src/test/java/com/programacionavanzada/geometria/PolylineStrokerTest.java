@@ -0,0 +1,175 @@
+package com.programacionavanzada.geometria;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PolylineStrokerTest {
+
+    private static final float EPS = 1e-5f;
+
+    private PolylineStroker stroker;
+
+    @Before
+    public void setUp() {
+        stroker = new PolylineStroker(4, 6);
+    }
+
+    // Posicion final del vertice i con media anchura h
+    private float x(int i, float h) {
+        float[] v = stroker.getVertices();
+        return v[i * 4] + v[i * 4 + 2] * h;
+    }
+
+    private float y(int i, float h) {
+        float[] v = stroker.getVertices();
+        return v[i * 4 + 1] + v[i * 4 + 3] * h;
+    }
+
+    private float extrusionLength(int i) {
+        float[] v = stroker.getVertices();
+        return (float) Math.hypot(v[i * 4 + 2], v[i * 4 + 3]);
+    }
+
+    // Area total de los triangulos con media anchura h
+    private float area(float h) {
+        int[] idx = stroker.getIndices();
+        float total = 0f;
+        for (int i = 0; i < stroker.getIndexCount(); i += 3) {
+            int a = idx[i];
+            int b = idx[i + 1];
+            int c = idx[i + 2];
+            total += Math.abs((x(b, h) - x(a, h)) * (y(c, h) - y(a, h))
+                    - (x(c, h) - x(a, h)) * (y(b, h) - y(a, h))) / 2f;
+        }
+        return total;
+    }
+
+    @Test
+    public void segment_isRectangleAroundLine() {
+        stroker.stroke(new float[]{0f, 0f, 2f, 0f}, 0, 2, 2, false);
+
+        assertEquals(4, stroker.getVertexCount());
+        assertEquals(6, stroker.getIndexCount());
+        assertEquals(0.5f, y(0, 0.5f), EPS);
+        assertEquals(-0.5f, y(1, 0.5f), EPS);
+        assertEquals(2f, x(2, 0.5f), EPS);
+        assertEquals(2f * 1f, area(0.5f), EPS);
+    }
+
+    @Test
+    public void collinearPoints_needNoJoin() {
+        stroker.stroke(new float[]{0f, 0f, 1f, 0f, 2f, 0f}, 0, 3, 2, false);
+
+        assertEquals(8, stroker.getVertexCount());
+        assertEquals(12, stroker.getIndexCount());
+    }
+
+    @Test
+    public void rightAngleMiter_reachesOuterCorner() {
+        stroker.setJoin(PolylineStroker.Join.MITER);
+        // A la izquierda: el exterior queda abajo a la derecha
+        stroker.stroke(new float[]{0f, 0f, 1f, 0f, 1f, 1f}, 0, 3, 2, false);
+
+        // 2 segmentos + centro + punta
+        assertEquals(10, stroker.getVertexCount());
+        int tip = 9;
+        assertEquals(Math.sqrt(2), extrusionLength(tip), EPS);
+        assertEquals(1.5f, x(tip, 0.5f), EPS);
+        assertEquals(-0.5f, y(tip, 0.5f), EPS);
+    }
+
+    @Test
+    public void sharpMiter_overLimit_fallsBackToBevel() {
+        stroker.setJoin(PolylineStroker.Join.MITER);
+        stroker.setMiterLimit(2f);
+        // Casi media vuelta: la punta mediria mucho mas de 2
+        stroker.stroke(new float[]{0f, 0f, 1f, 0f, 0f, 0.05f}, 0, 3, 2, false);
+
+        assertEquals(9, stroker.getVertexCount());
+        assertEquals(12 + 3, stroker.getIndexCount());
+    }
+
+    @Test
+    public void roundJoin_staysOnCircle() {
+        stroker.setJoin(PolylineStroker.Join.ROUND);
+        stroker.setRoundSegments(8);
+        stroker.stroke(new float[]{0f, 0f, 1f, 0f, 1f, 1f}, 0, 3, 2, false);
+
+        // Un cuarto de vuelta con 8 segmentos por media: 4 pasos, 3 vertices intermedios
+        assertEquals(8 + 1 + 3, stroker.getVertexCount());
+        for (int i = 9; i < stroker.getVertexCount(); i++) {
+            assertEquals(1f, extrusionLength(i), EPS);
+        }
+    }
+
+    @Test
+    public void squareCap_extendsByHalfWidth() {
+        stroker.setCap(PolylineStroker.Cap.SQUARE);
+        stroker.stroke(new float[]{0f, 0f, 2f, 0f}, 0, 2, 2, false);
+
+        assertEquals(8, stroker.getVertexCount());
+        // (2 + 2 * 0.5) x 1
+        assertEquals(3f, area(0.5f), EPS);
+        float minX = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        for (int i = 0; i < stroker.getVertexCount(); i++) {
+            minX = Math.min(minX, x(i, 0.5f));
+            maxX = Math.max(maxX, x(i, 0.5f));
+        }
+        assertEquals(-0.5f, minX, EPS);
+        assertEquals(2.5f, maxX, EPS);
+    }
+
+    @Test
+    public void roundCap_addsHalfDiscAtEachEnd() {
+        stroker.setCap(PolylineStroker.Cap.ROUND);
+        stroker.setRoundSegments(64);
+        stroker.stroke(new float[]{0f, 0f, 2f, 0f}, 0, 2, 2, false);
+
+        // Rectangulo + un circulo completo de radio 0.5
+        float expected = 2f + (float) Math.PI * 0.25f;
+        assertEquals(expected, area(0.5f), 0.01f);
+    }
+
+    @Test
+    public void closedSquare_joinsEveryCorner() {
+        stroker.setJoin(PolylineStroker.Join.BEVEL);
+        stroker.stroke(new float[]{0f, 0f, 1f, 0f, 1f, 1f, 0f, 1f}, 0, 4, 2, true);
+
+        // 4 segmentos (16) + 4 centros
+        assertEquals(20, stroker.getVertexCount());
+        assertEquals(4 * 6 + 4 * 3, stroker.getIndexCount());
+    }
+
+    @Test
+    public void repeatedPoints_areIgnored() {
+        stroker.stroke(new float[]{0f, 0f, 0f, 0f, 1f, 0f, 1f, 0f}, 0, 4, 2, false);
+
+        assertEquals(4, stroker.getVertexCount());
+    }
+
+    @Test
+    public void strokeSegments_readsLinesFormat() {
+        stroker.strokeSegments(new float[]{0f, 0f, 1f, 0f, 0f, 1f, 1f, 1f}, 2);
+
+        assertEquals(8, stroker.getVertexCount());
+        int[] idx = stroker.getIndices();
+        for (int i = 0; i < stroker.getIndexCount(); i++) {
+            assertTrue(idx[i] < stroker.getVertexCount());
+        }
+    }
+
+    @Test
+    public void clear_reusesArrays() {
+        stroker.stroke(new float[]{0f, 0f, 1f, 0f, 1f, 1f, 2f, 1f, 2f, 2f}, 0, 5, 2, false);
+        float[] grown = stroker.getVertices();
+        stroker.clear();
+        stroker.stroke(new float[]{0f, 0f, 1f, 0f}, 0, 2, 2, false);
+
+        assertEquals(4, stroker.getVertexCount());
+        assertTrue(grown == stroker.getVertices());
+    }
+}
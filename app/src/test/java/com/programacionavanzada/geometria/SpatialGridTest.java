@@ -0,0 +1,113 @@
+package com.programacionavanzada.geometria;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class SpatialGridTest {
+
+    // Respuesta de referencia: revisar todas las cajas
+    private static int[] bruteForce(float[] boxes, boolean[] alive, float minX, float minY, float maxX, float maxY) {
+        int[] out = new int[alive.length];
+        int n = 0;
+        for (int i = 0; i < alive.length; i++) {
+            if (alive[i] && Aabb.intersects(boxes, i, minX, minY, maxX, maxY)) {
+                out[n++] = i;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int[] sorted(int[] ids, int n) {
+        int[] copy = Arrays.copyOf(ids, n);
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    @Test
+    public void query_matchesBruteForceAfterRandomChanges() {
+        Random random = new Random(42);
+        SpatialGrid grid = new SpatialGrid(1f, 256, 16);
+        int total = 2000;
+        float[] boxes = new float[total * Aabb.FLOATS];
+        boolean[] alive = new boolean[total];
+
+        for (int i = 0; i < total; i++) {
+            float x = random.nextFloat() * 100f - 50f;
+            float y = random.nextFloat() * 100f - 50f;
+            // Algunas cajas grandes caen en la lista aparte
+            float w = i % 50 == 0 ? 30f : random.nextFloat() * 2f;
+            Aabb.set(boxes, i * Aabb.FLOATS, x, y, x + w, y + w);
+            assertEquals(i, grid.insert(x, y, x + w, y + w));
+            alive[i] = true;
+        }
+        for (int i = 0; i < total; i += 3) {
+            float x = random.nextFloat() * 100f - 50f;
+            float y = random.nextFloat() * 100f - 50f;
+            Aabb.set(boxes, i * Aabb.FLOATS, x, y, x + 1f, y + 1f);
+            grid.update(i, x, y, x + 1f, y + 1f);
+        }
+        for (int i = 1; i < total; i += 7) {
+            grid.remove(i);
+            alive[i] = false;
+        }
+
+        int[] out = new int[total];
+        for (int q = 0; q < 200; q++) {
+            float x = random.nextFloat() * 120f - 60f;
+            float y = random.nextFloat() * 120f - 60f;
+            float s = q == 0 ? 1000f : random.nextFloat() * 10f;
+            int n = grid.query(x, y, x + s, y + s, out);
+            assertArrayEquals(bruteForce(boxes, alive, x, y, x + s, y + s), sorted(out, n));
+        }
+    }
+
+    @Test
+    public void query_reportsTotalWhenOutIsFull() {
+        SpatialGrid grid = new SpatialGrid(1f);
+        for (int i = 0; i < 10; i++) {
+            grid.insert(0f, 0f, 0.5f, 0.5f);
+        }
+        int[] out = new int[4];
+        assertEquals(10, grid.queryPoint(0.25f, 0.25f, out));
+    }
+
+    @Test
+    public void remove_reusesIds() {
+        SpatialGrid grid = new SpatialGrid(1f);
+        int a = grid.insert(0f, 0f, 1f, 1f);
+        grid.insert(2f, 2f, 3f, 3f);
+        grid.remove(a);
+        assertFalse(grid.contains(a));
+        assertEquals(1, grid.size());
+        assertEquals(0, grid.queryPoint(0.5f, 0.5f, new int[4]));
+        assertEquals(a, grid.insert(5f, 5f, 6f, 6f));
+    }
+
+    @Test
+    public void nearest_usesExactDistanceWhenGiven() {
+        SpatialGrid grid = new SpatialGrid(1f);
+        final float[] circles = {0f, 0f, 1f, 3f, 0f, 0.5f}; // cx, cy, r
+        for (int i = 0; i < circles.length; i += 3) {
+            float r = circles[i + 2];
+            grid.insert(circles[i] - r, circles[i + 1] - r, circles[i] + r, circles[i + 1] + r);
+        }
+        SpatialGrid.Distance toCircle = (id, x, y) -> Math.max(0f, (float) Math.hypot(
+                x - circles[id * 3], y - circles[id * 3 + 1]) - circles[id * 3 + 2]);
+
+        assertEquals(1, grid.nearest(2.2f, 0f, 5f, toCircle));
+        assertEquals(0, grid.nearest(1.5f, 0f, 5f, toCircle));
+        assertEquals(-1, grid.nearest(10f, 10f, 1f, toCircle));
+        assertEquals(0, grid.nearest(0.9f, 0.9f, 1f, null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void update_rejectsUnknownId() {
+        new SpatialGrid(1f).update(3, 0f, 0f, 1f, 1f);
+    }
+}
@@ -0,0 +1,102 @@
+package com.programacionavanzada.geometria;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class TransformTest {
+
+    private static final float EPS = 1e-5f;
+
+    @Test
+    public void model_scalesRotatesThenTranslates() {
+        Transform t = new Transform();
+        t.setPosition(1f, 2f);
+        t.setScale(2f);
+        t.setRotation((float) (Math.PI / 2));
+
+        float[] out = new float[2];
+        Mat4.mapPoint(t.model(), 1f, 0f, out);
+        assertEquals(1f, out[0], EPS);
+        assertEquals(4f, out[1], EPS);
+    }
+
+    @Test
+    public void multiply_matchesApplyingInOrder() {
+        float[] a = new float[16];
+        float[] b = new float[16];
+        float[] ab = new float[16];
+        Mat4.transform2D(a, 3f, -1f, 1f, 1f, 0.7f);
+        Mat4.transform2D(b, 0.5f, 0.25f, 2f, 3f, -1.2f);
+        Mat4.multiply(ab, a, b);
+
+        float[] step = new float[2];
+        float[] direct = new float[2];
+        Mat4.mapPoint(b, 0.3f, -0.8f, step);
+        Mat4.mapPoint(a, step[0], step[1], step);
+        Mat4.mapPoint(ab, 0.3f, -0.8f, direct);
+        assertEquals(step[0], direct[0], EPS);
+        assertEquals(step[1], direct[1], EPS);
+    }
+
+    @Test
+    public void mvp_isRecomputedOnlyWhenSomethingChanges() {
+        Camera camera = new Camera();
+        camera.setViewport(800, 400);
+        Transform t = new Transform();
+
+        float[] first = t.mvp(camera);
+        t.mvp(camera);
+        t.setPosition(0f, 0f); // mismo valor: no ensucia
+        t.mvp(camera);
+        assertEquals(1, t.getRecomputes());
+
+        t.translate(0.1f, 0f);
+        assertSame(first, t.mvp(camera));
+        assertEquals(2, t.getRecomputes());
+
+        camera.setZoom(2f);
+        t.mvp(camera);
+        assertEquals(3, t.getRecomputes());
+    }
+
+    @Test
+    public void mvp_withoutCamera_isModel() {
+        Transform t = new Transform();
+        t.setPosition(0.5f, 0f);
+        assertSame(t.model(), t.mvp(null));
+    }
+
+    @Test
+    public void camera_keepsAspectRatio() {
+        Camera camera = new Camera();
+        camera.setViewport(1000, 500);
+        float[] out = new float[2];
+
+        // Un circulo de radio 1 toca arriba y abajo pero no los lados
+        Mat4.mapPoint(camera.viewProjection(), 1f, 1f, out);
+        assertEquals(0.5f, out[0], EPS);
+        assertEquals(1f, out[1], EPS);
+
+        float[] bounds = new float[4];
+        camera.getVisibleBounds(bounds);
+        assertEquals(-2f, bounds[0], EPS);
+        assertEquals(1f, bounds[3], EPS);
+    }
+
+    @Test
+    public void camera_screenToWorld_invertsViewProjection() {
+        Camera camera = new Camera();
+        camera.setViewport(400, 800);
+        camera.setCenter(3f, -2f);
+        camera.setZoom(4f);
+
+        float[] world = new float[2];
+        camera.screenToWorld(100f, 600f, world);
+        float[] ndc = new float[2];
+        Mat4.mapPoint(camera.viewProjection(), world[0], world[1], ndc);
+        assertEquals(-0.5f, ndc[0], EPS);
+        assertEquals(-0.5f, ndc[1], EPS);
+    }
+}
@@ -0,0 +1,136 @@
+package com.programacionavanzada.geometria;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class TriangulatorTest {
+
+    private final Triangulator triangulator = new Triangulator();
+
+    // Poligono regular (o estrella si inner != 1) de n vertices, antihorario
+    private static float[] star(int n, float outer, float inner, float cx, float cy) {
+        float[] out = new float[n * 2];
+        for (int i = 0; i < n; i++) {
+            double a = 2 * Math.PI * i / n;
+            float r = i % 2 == 0 ? outer : inner;
+            out[i * 2] = cx + (float) (r * Math.cos(a));
+            out[i * 2 + 1] = cy + (float) (r * Math.sin(a));
+        }
+        return out;
+    }
+
+    private static float[] concat(float[]... rings) {
+        int length = 0;
+        for (float[] ring : rings) {
+            length += ring.length;
+        }
+        float[] out = new float[length];
+        int o = 0;
+        for (float[] ring : rings) {
+            System.arraycopy(ring, 0, out, o, ring.length);
+            o += ring.length;
+        }
+        return out;
+    }
+
+    private void assertTriangulated(float[] coords, int[] holes, int expectedTriangles) {
+        int[] indices = triangulator.triangulate(coords, holes, 2);
+        assertEquals(expectedTriangles * 3, indices.length);
+        assertEquals(0, Triangulator.deviation(coords, holes, 2, indices), 1e-6);
+    }
+
+    @Test
+    public void square_givesTwoTriangles() {
+        assertTriangulated(new float[]{0, 0, 1, 0, 1, 1, 0, 1}, null, 2);
+    }
+
+    @Test
+    public void concavePolygon_coversItsArea() {
+        // Una L: el vertice (1,1) es reflejo
+        float[] l = {0, 0, 2, 0, 2, 1, 1, 1, 1, 2, 0, 2};
+        assertTriangulated(l, null, 4);
+        assertTriangulated(star(24, 1f, 0.3f, 0, 0), null, 22);
+    }
+
+    @Test
+    public void clockwiseInput_givesSameTriangleCount() {
+        float[] ccw = star(10, 1f, 0.5f, 0, 0);
+        float[] cw = new float[ccw.length];
+        for (int i = 0; i < 10; i++) {
+            cw[i * 2] = ccw[(9 - i) * 2];
+            cw[i * 2 + 1] = ccw[(9 - i) * 2 + 1];
+        }
+        assertTriangulated(cw, null, 8);
+    }
+
+    @Test
+    public void holes_areBridged() {
+        float[] outer = {0, 0, 10, 0, 10, 10, 0, 10};
+        float[] hole1 = {2, 2, 4, 2, 4, 4, 2, 4};
+        float[] hole2 = {6, 6, 8, 6, 8, 8, 6, 8};
+        float[] coords = concat(outer, hole1, hole2);
+        // n - 2 + 2h triangulos
+        assertTriangulated(coords, new int[]{4, 8}, 12 - 2 + 4);
+    }
+
+    @Test
+    public void collinearAndRepeatedPoints_areDropped() {
+        float[] coords = {0, 0, 1, 0, 1, 0, 2, 0, 2, 2, 0, 2};
+        int[] indices = triangulator.triangulate(coords, 2);
+        assertEquals(0, Triangulator.deviation(coords, null, 2, indices), 1e-6);
+        assertTrue(indices.length <= 3 * 3);
+    }
+
+    @Test
+    public void degenerateInput_givesNoTriangles() {
+        assertEquals(0, triangulator.triangulate(new float[]{0, 0, 1, 1}, 2).length);
+        assertEquals(0, triangulator.triangulate(new float[]{0, 0, 1, 1, 2, 2}, 2).length);
+    }
+
+    @Test
+    public void coordsPerVertex_skipsExtraComponents() {
+        float[] xyz = {0, 0, 5, 1, 0, 5, 1, 1, 5, 0, 1, 5};
+        int[] indices = triangulator.triangulate(xyz, 3);
+        assertEquals(6, indices.length);
+        float[] soup = Triangulator.toTriangleCoords(xyz, 3, indices);
+        assertEquals(18, soup.length);
+        assertEquals(0f, soup[2], 0f);
+
+        IndexedMesh mesh = Triangulator.toIndexedMesh(xyz, 3, indices);
+        assertEquals(4, mesh.vertexCount());
+        assertEquals(2, mesh.coordsPerVertex);
+    }
+
+    @Test
+    public void largePolygons_useHashAndStayCorrect() {
+        // Por encima de 80 vertices se usa la curva Z; cada tamanio reutiliza la instancia
+        for (int n : new int[]{1_000, 10_000, 100_000}) {
+            float[] coords = star(n, 100f, 90f, 0, 0);
+            assertTriangulated(coords, null, n - 2);
+        }
+    }
+
+    @Test
+    public void largePolygonWithManyHoles_staysCorrect() {
+        Random random = new Random(5);
+        float[] outer = star(2_000, 1000f, 1000f, 0, 0);
+        int holeCount = 50;
+        float[][] rings = new float[holeCount + 1][];
+        int[] starts = new int[holeCount];
+        rings[0] = outer;
+        int vertices = outer.length / 2;
+        for (int h = 0; h < holeCount; h++) {
+            // Hoyos en una rejilla de 10 x 5 para que no se toquen
+            float cx = -450 + (h % 10) * 100 + random.nextFloat() * 10;
+            float cy = -250 + (h / 10) * 100 + random.nextFloat() * 10;
+            rings[h + 1] = star(20, 30f, 15f, cx, cy);
+            starts[h] = vertices;
+            vertices += 20;
+        }
+        assertTriangulated(concat(rings), starts, vertices - 2 + 2 * holeCount);
+    }
+}
@@ -0,0 +1,61 @@
+package com.programacionavanzada.geometria;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ViewportCullerTest {
+
+    private static final float EPS = 1e-5f;
+
+    @Test
+    public void cull_keepsBoxesTouchingTheView() {
+        float[] boxes = new float[4 * Aabb.FLOATS];
+        Aabb.set(boxes, 0, -0.5f, -0.5f, 0.5f, 0.5f);     // dentro
+        Aabb.set(boxes, 4, 2f, 2f, 3f, 3f);               // fuera
+        Aabb.set(boxes, 8, 0.9f, -3f, 1.5f, 3f);          // cruza el borde
+        Aabb.set(boxes, 12, 1f, 1f, 2f, 2f);              // solo toca la esquina
+        int[] visible = new int[4];
+
+        int n = new ViewportCuller().cull(boxes, 4, visible);
+
+        assertEquals(3, n);
+        assertEquals(0, visible[0]);
+        assertEquals(2, visible[1]);
+        assertEquals(3, visible[2]);
+    }
+
+    @Test
+    public void setViewport_movesTheView() {
+        float[] boxes = new float[Aabb.FLOATS];
+        Aabb.set(boxes, 0, 10f, 10f, 11f, 11f);
+        ViewportCuller culler = new ViewportCuller();
+        assertFalse(culler.isVisible(boxes, 0));
+
+        culler.setViewport(9f, 9f, 12f, 12f);
+        assertTrue(culler.isVisible(boxes, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setViewport_rejectsInvertedRect() {
+        new ViewportCuller().setViewport(1f, 0f, -1f, 1f);
+    }
+
+    @Test
+    public void transform_rotatedBoxContainsCorners() {
+        float[] local = new float[Aabb.FLOATS];
+        Aabb.set(local, 0, -1f, -0.5f, 1f, 0.5f);
+        float[] world = new float[Aabb.FLOATS];
+        float angle = (float) (Math.PI / 2);
+
+        Aabb.transform(local, 0, 3f, 4f, 2f, (float) Math.cos(angle), (float) Math.sin(angle), world, 0);
+
+        // Girado 90 grados y escalado al doble: 2 de ancho y 4 de alto
+        assertEquals(2f, world[Aabb.MIN_X], EPS);
+        assertEquals(4f, world[Aabb.MAX_X], EPS);
+        assertEquals(2f, world[Aabb.MIN_Y], EPS);
+        assertEquals(6f, world[Aabb.MAX_Y], EPS);
+    }
+}
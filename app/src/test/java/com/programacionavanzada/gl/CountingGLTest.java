@@ -0,0 +1,98 @@
+package com.programacionavanzada.gl;
+
+import static org.junit.Assert.assertEquals;
+
+import android.opengl.GLES20;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+
+public class CountingGLTest {
+
+    private FakeGL fake;
+    private CountingGL gl;
+
+    @Before
+    public void setUp() {
+        fake = new FakeGL();
+        gl = new CountingGL(fake);
+        GlCounters.endFrame();
+    }
+
+    @Test
+    public void draws_countCallsAndVertices() {
+        gl.glDrawArrays(GLES20.GL_TRIANGLE_FAN, 0, 27);
+        gl.glDrawElements(GLES20.GL_TRIANGLES, 6, GLES20.GL_UNSIGNED_SHORT, 0);
+        gl.glDrawArraysInstanced(GLES20.GL_TRIANGLE_FAN, 0, 27, 100);
+        GlCounters.endFrame();
+
+        assertEquals(3, GlCounters.drawCallsLastFrame());
+        assertEquals(27 + 6 + 2700, GlCounters.verticesLastFrame());
+        // Las llamadas llegan igual al GL envuelto
+        assertEquals(1, fake.count("glDrawArrays"));
+        assertEquals(1, fake.count("glDrawArraysInstanced"));
+    }
+
+    @Test
+    public void useProgram_countsOnlySwitches() {
+        gl.glUseProgram(1);
+        gl.glUseProgram(1);
+        gl.glUseProgram(2);
+        gl.glUseProgram(2);
+        gl.glUseProgram(1);
+        GlCounters.endFrame();
+
+        assertEquals(3, GlCounters.programSwitchesLastFrame());
+        assertEquals(5, fake.count("glUseProgram"));
+    }
+
+    @Test
+    public void uploads_countCallsAndBytes() {
+        FloatBuffer data = DirectBuffers.allocate(64).asFloatBuffer();
+        gl.glBufferData(GLES20.GL_ARRAY_BUFFER, 64, data, GLES20.GL_STREAM_DRAW);
+        gl.glBufferSubData(GLES20.GL_ARRAY_BUFFER, 0, 16, data);
+        GlCounters.endFrame();
+
+        assertEquals(2, GlCounters.bufferUploadsLastFrame());
+        assertEquals(80, GlCounters.uploadBytesLastFrame());
+        assertEquals(64, GlCounters.directBytesLastFrame());
+    }
+
+    @Test
+    public void gpuBuffer_uploadsThroughCountingGL() {
+        GpuBuffer vbo = new GpuBuffer(gl, GLES20.GL_ARRAY_BUFFER, GLES20.GL_STATIC_DRAW);
+        vbo.upload(DirectBuffers.allocate(36).asFloatBuffer());
+        for (int i = 0; i < 10; i++) {
+            vbo.bind();
+        }
+        GlCounters.endFrame();
+
+        assertEquals(1, GlCounters.bufferUploadsLastFrame());
+        assertEquals(36, GlCounters.uploadBytesLastFrame());
+    }
+
+    @Test
+    public void paused_countsNothing() {
+        gl.setPaused(true);
+        gl.glUseProgram(7);
+        gl.glDrawArrays(GLES20.GL_TRIANGLES, 0, 3);
+        gl.setPaused(false);
+        GlCounters.endFrame();
+
+        assertEquals(0, GlCounters.drawCallsLastFrame());
+        assertEquals(0, GlCounters.programSwitchesLastFrame());
+        assertEquals(1, fake.count("glDrawArrays"));
+    }
+
+    @Test
+    public void endFrame_resetsCounters() {
+        gl.glDrawArrays(GLES20.GL_TRIANGLES, 0, 3);
+        GlCounters.endFrame();
+        GlCounters.endFrame();
+
+        assertEquals(0, GlCounters.drawCallsLastFrame());
+        assertEquals(0, GlCounters.verticesLastFrame());
+    }
+}
@@ -0,0 +1,132 @@
+package com.programacionavanzada.gl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+public class DirectBufferPoolTest {
+
+    @Test
+    public void sizeClass_roundsUpToPowerOfTwo() {
+        assertEquals(0, DirectBufferPool.sizeClass(1));
+        assertEquals(0, DirectBufferPool.sizeClass(64));
+        assertEquals(1, DirectBufferPool.sizeClass(65));
+        assertEquals(1, DirectBufferPool.sizeClass(128));
+        assertEquals(-1, DirectBufferPool.sizeClass(DirectBufferPool.MAX_POOLED_BYTES + 1));
+    }
+
+    @Test
+    public void release_thenAcquire_reusesSameMemory() {
+        DirectBufferPool pool = new DirectBufferPool();
+        PooledBuffer a = pool.acquire(100);
+        a.release();
+        PooledBuffer b = pool.acquire(120);
+
+        assertSame(a, b);
+        assertEquals(1, pool.getHits());
+        assertEquals(1, pool.getMisses());
+        assertEquals(0.5f, pool.getHitRate(), 1e-6f);
+    }
+
+    @Test
+    public void views_matchRequestedSize() {
+        DirectBufferPool pool = new DirectBufferPool();
+        PooledBuffer buffer = pool.acquire(36);
+        FloatBuffer floats = buffer.floats();
+
+        assertEquals(9, floats.capacity());
+        assertEquals(18, buffer.shorts().capacity());
+        assertEquals(ByteOrder.nativeOrder(), buffer.bytes().order());
+        assertEquals(64, buffer.capacityBytes());
+    }
+
+    @Test
+    public void byteViews_haveIndependentCursors() {
+        DirectBufferPool pool = new DirectBufferPool();
+        PooledBuffer buffer = pool.acquire(36);
+        ByteBuffer first = buffer.bytes();
+        first.putInt(7);
+        ByteBuffer second = buffer.bytes();
+
+        assertEquals(4, first.position());
+        assertEquals(0, second.position());
+        assertEquals(36, second.limit());
+        assertEquals(7, second.getInt(0));
+    }
+
+    @Test
+    public void stats_trackBytesInUseAndRetained() {
+        DirectBufferPool pool = new DirectBufferPool();
+        PooledBuffer a = pool.acquire(1000);
+        PooledBuffer b = pool.acquire(10);
+        assertEquals(1024 + 64, pool.getBytesInUse());
+
+        a.release();
+        assertEquals(64, pool.getBytesInUse());
+        assertEquals(1024, pool.getBytesRetained());
+
+        pool.trim();
+        assertEquals(0, pool.getBytesRetained());
+        b.release();
+    }
+
+    @Test
+    public void maxRetained_dropsExtraBuffers() {
+        DirectBufferPool pool = new DirectBufferPool(128);
+        PooledBuffer a = pool.acquire(64);
+        PooledBuffer b = pool.acquire(64);
+        PooledBuffer c = pool.acquire(64);
+        a.release();
+        b.release();
+        c.release();
+        assertEquals(128, pool.getBytesRetained());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void doubleRelease_throws() {
+        PooledBuffer buffer = new DirectBufferPool().acquire(8);
+        buffer.release();
+        buffer.release();
+    }
+
+    @Test
+    public void otherThread_isRejected() throws Exception {
+        DirectBufferPool pool = new DirectBufferPool();
+        boolean[] rejected = new boolean[1];
+        Thread thread = new Thread(() -> {
+            try {
+                pool.acquire(8);
+            } catch (IllegalStateException e) {
+                rejected[0] = true;
+            }
+        });
+        thread.start();
+        thread.join();
+        assertTrue(rejected[0]);
+    }
+
+    @Test
+    public void leakDetection_reportsBufferCollectedWithoutRelease() throws Exception {
+        DirectBufferPool pool = new DirectBufferPool();
+        int[] leaked = new int[1];
+        pool.setLeakDetection(true, (sizeBytes, acquiredAt) -> leaked[0] += sizeBytes);
+
+        pool.acquire(200).release();
+        pool.acquire(300); // se pierde sin release()
+
+        for (int i = 0; i < 50 && leaked[0] == 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+            pool.pollLeaks();
+        }
+        assertEquals(300, leaked[0]);
+        assertEquals(1, pool.getLeakCount());
+        assertEquals(0, pool.getBytesInUse());
+    }
+}
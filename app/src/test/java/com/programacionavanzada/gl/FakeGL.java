@@ -0,0 +1,365 @@
+package com.programacionavanzada.gl;
+
+import java.nio.Buffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * GLApi falso para pruebas en la JVM: asigna identificadores, guarda cada
+ * llamada en {@link #calls} y permite simular errores de compilacion.
+ */
+public class FakeGL implements GLApi {
+
+    public final List<String> calls = new ArrayList<>();
+    public final Set<Integer> liveShaders = new HashSet<>();
+    public final Set<Integer> livePrograms = new HashSet<>();
+    public final Set<Integer> liveBuffers = new HashSet<>();
+    public final Set<Integer> liveTextures = new HashSet<>();
+    public final Set<Integer> liveFramebuffers = new HashSet<>();
+    public long bufferBytesUploaded;
+    // Pixeles subidos con glTexImage2D (con datos) y glTexSubImage2D
+    public long texturePixelsUploaded;
+    // Ultimo glBufferSubData: offset y tamano en bytes, y posicion del Buffer de origen
+    public int lastSubDataOffset;
+    public int lastSubDataSize;
+    public int lastSubDataPosition;
+
+    // Si el codigo fuente contiene este texto la compilacion falla
+    public String failCompileOn;
+    public boolean failLink;
+    // Estado que devuelve glCheckFramebufferStatus; 0x8CD5 es GL_FRAMEBUFFER_COMPLETE
+    public int framebufferStatus = 0x8CD5;
+
+    private int nextId = 1;
+    private final Map<Integer, String> sources = new HashMap<>();
+
+    public int count(String call) {
+        int n = 0;
+        for (String c : calls) {
+            if (c.equals(call) || c.startsWith(call + "(")) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public int glCreateShader(int type) {
+        calls.add("glCreateShader");
+        int id = nextId++;
+        liveShaders.add(id);
+        return id;
+    }
+
+    @Override
+    public void glShaderSource(int shader, String source) {
+        calls.add("glShaderSource");
+        sources.put(shader, source);
+    }
+
+    @Override
+    public void glCompileShader(int shader) {
+        calls.add("glCompileShader");
+    }
+
+    @Override
+    public void glGetShaderiv(int shader, int pname, int[] params, int offset) {
+        String source = sources.get(shader);
+        boolean failed = failCompileOn != null && source != null && source.contains(failCompileOn);
+        params[offset] = failed ? 0 : 1;
+    }
+
+    @Override
+    public String glGetShaderInfoLog(int shader) {
+        return "ERROR: 0:1: syntax error";
+    }
+
+    @Override
+    public void glDeleteShader(int shader) {
+        calls.add("glDeleteShader");
+        liveShaders.remove(shader);
+    }
+
+    @Override
+    public int glCreateProgram() {
+        calls.add("glCreateProgram");
+        int id = nextId++;
+        livePrograms.add(id);
+        return id;
+    }
+
+    @Override
+    public void glAttachShader(int program, int shader) {
+        calls.add("glAttachShader");
+    }
+
+    @Override
+    public void glDetachShader(int program, int shader) {
+        calls.add("glDetachShader");
+    }
+
+    @Override
+    public void glLinkProgram(int program) {
+        calls.add("glLinkProgram");
+    }
+
+    @Override
+    public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+        params[offset] = failLink ? 0 : 1;
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int program) {
+        return "link failed";
+    }
+
+    @Override
+    public void glDeleteProgram(int program) {
+        calls.add("glDeleteProgram");
+        livePrograms.remove(program);
+    }
+
+    @Override
+    public int glGetAttribLocation(int program, String name) {
+        calls.add("glGetAttribLocation(" + name + ")");
+        return 0;
+    }
+
+    @Override
+    public int glGetUniformLocation(int program, String name) {
+        calls.add("glGetUniformLocation(" + name + ")");
+        return 1;
+    }
+
+    @Override
+    public void glGenBuffers(int n, int[] buffers, int offset) {
+        calls.add("glGenBuffers");
+        for (int i = 0; i < n; i++) {
+            buffers[offset + i] = nextId++;
+            liveBuffers.add(buffers[offset + i]);
+        }
+    }
+
+    @Override
+    public void glDeleteBuffers(int n, int[] buffers, int offset) {
+        calls.add("glDeleteBuffers");
+        for (int i = 0; i < n; i++) {
+            liveBuffers.remove(buffers[offset + i]);
+        }
+    }
+
+    @Override
+    public void glBindBuffer(int target, int buffer) {
+        calls.add("glBindBuffer(" + buffer + ")");
+    }
+
+    @Override
+    public void glBufferData(int target, int size, Buffer data, int usage) {
+        calls.add("glBufferData");
+        bufferBytesUploaded += size;
+    }
+
+    @Override
+    public void glBufferSubData(int target, int offset, int size, Buffer data) {
+        calls.add("glBufferSubData");
+        bufferBytesUploaded += size;
+        lastSubDataOffset = offset;
+        lastSubDataSize = size;
+        lastSubDataPosition = data.position();
+    }
+
+    @Override
+    public void glGenTextures(int n, int[] textures, int offset) {
+        calls.add("glGenTextures");
+        for (int i = 0; i < n; i++) {
+            textures[offset + i] = nextId++;
+            liveTextures.add(textures[offset + i]);
+        }
+    }
+
+    @Override
+    public void glDeleteTextures(int n, int[] textures, int offset) {
+        calls.add("glDeleteTextures");
+        for (int i = 0; i < n; i++) {
+            liveTextures.remove(textures[offset + i]);
+        }
+    }
+
+    @Override
+    public void glActiveTexture(int texture) {
+        calls.add("glActiveTexture");
+    }
+
+    @Override
+    public void glBindTexture(int target, int texture) {
+        calls.add("glBindTexture(" + texture + ")");
+    }
+
+    @Override
+    public void glTexParameteri(int target, int pname, int param) {
+        calls.add("glTexParameteri");
+    }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                             int format, int type, Buffer pixels) {
+        calls.add("glTexImage2D");
+        if (pixels != null) {
+            texturePixelsUploaded += (long) width * height;
+        }
+    }
+
+    @Override
+    public void glTexSubImage2D(int target, int level, int xoffset, int yoffset, int width, int height,
+                                int format, int type, Buffer pixels) {
+        calls.add("glTexSubImage2D");
+        texturePixelsUploaded += (long) width * height;
+    }
+
+    @Override
+    public void glGenerateMipmap(int target) {
+        calls.add("glGenerateMipmap");
+    }
+
+    @Override
+    public void glGenFramebuffers(int n, int[] framebuffers, int offset) {
+        calls.add("glGenFramebuffers");
+        for (int i = 0; i < n; i++) {
+            framebuffers[offset + i] = nextId++;
+            liveFramebuffers.add(framebuffers[offset + i]);
+        }
+    }
+
+    @Override
+    public void glDeleteFramebuffers(int n, int[] framebuffers, int offset) {
+        calls.add("glDeleteFramebuffers");
+        for (int i = 0; i < n; i++) {
+            liveFramebuffers.remove(framebuffers[offset + i]);
+        }
+    }
+
+    @Override
+    public void glBindFramebuffer(int target, int framebuffer) {
+        calls.add("glBindFramebuffer(" + framebuffer + ")");
+    }
+
+    @Override
+    public void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level) {
+        calls.add("glFramebufferTexture2D(" + texture + ")");
+    }
+
+    @Override
+    public int glCheckFramebufferStatus(int target) {
+        calls.add("glCheckFramebufferStatus");
+        return framebufferStatus;
+    }
+
+    @Override
+    public void glClearColor(float red, float green, float blue, float alpha) {
+        calls.add("glClearColor");
+    }
+
+    @Override
+    public void glClear(int mask) {
+        calls.add("glClear");
+    }
+
+    @Override
+    public void glUseProgram(int program) {
+        calls.add("glUseProgram(" + program + ")");
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int index) {
+        calls.add("glEnableVertexAttribArray(" + index + ")");
+    }
+
+    @Override
+    public void glDisableVertexAttribArray(int index) {
+        calls.add("glDisableVertexAttribArray(" + index + ")");
+    }
+
+    @Override
+    public void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, Buffer data) {
+        calls.add("glVertexAttribPointer");
+    }
+
+    @Override
+    public void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, int offset) {
+        calls.add("glVertexAttribPointer");
+    }
+
+    @Override
+    public void glUniform4fv(int location, int count, float[] value, int offset) {
+        calls.add("glUniform4fv");
+    }
+
+    @Override
+    public void glUniform1i(int location, int x) {
+        calls.add("glUniform1i");
+    }
+
+    @Override
+    public void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset) {
+        calls.add("glUniformMatrix4fv");
+    }
+
+    @Override
+    public void glDrawArrays(int mode, int first, int count) {
+        calls.add("glDrawArrays");
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, Buffer indices) {
+        calls.add("glDrawElements");
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, int offset) {
+        calls.add("glDrawElements");
+    }
+
+    @Override
+    public void glLineWidth(float width) {
+        calls.add("glLineWidth(" + width + ")");
+    }
+
+    @Override
+    public void glEnable(int cap) {
+        calls.add("glEnable(" + cap + ")");
+    }
+
+    @Override
+    public void glDisable(int cap) {
+        calls.add("glDisable(" + cap + ")");
+    }
+
+    @Override
+    public void glBlendFunc(int sfactor, int dfactor) {
+        calls.add("glBlendFunc(" + sfactor + "," + dfactor + ")");
+    }
+
+    @Override
+    public void glBlendFuncSeparate(int srcRGB, int dstRGB, int srcAlpha, int dstAlpha) {
+        calls.add("glBlendFuncSeparate(" + srcRGB + "," + dstRGB + "," + srcAlpha + "," + dstAlpha + ")");
+    }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height) {
+        calls.add("glViewport(" + width + "x" + height + ")");
+    }
+
+    @Override
+    public void glDrawArraysInstanced(int mode, int first, int count, int instanceCount) {
+        calls.add("glDrawArraysInstanced");
+    }
+
+    @Override
+    public void glVertexAttribDivisor(int index, int divisor) {
+        calls.add("glVertexAttribDivisor(" + index + "," + divisor + ")");
+    }
+}
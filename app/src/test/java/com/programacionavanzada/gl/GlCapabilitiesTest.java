@@ -0,0 +1,16 @@
+package com.programacionavanzada.gl;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class GlCapabilitiesTest {
+
+    @Test
+    public void majorVersion_isParsedFromGlVersion() {
+        assertEquals(3, GlCapabilities.parseMajorVersion("OpenGL ES 3.2 V@0502.0"));
+        assertEquals(2, GlCapabilities.parseMajorVersion("OpenGL ES 2.0 build 1.9"));
+        assertEquals(2, GlCapabilities.parseMajorVersion(null));
+        assertEquals(2, GlCapabilities.parseMajorVersion("OpenGL ES-CM 1.1"));
+    }
+}
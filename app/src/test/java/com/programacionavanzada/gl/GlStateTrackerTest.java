@@ -0,0 +1,193 @@
+package com.programacionavanzada.gl;
+
+import static org.junit.Assert.assertEquals;
+
+import android.opengl.GLES20;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class GlStateTrackerTest {
+
+    private FakeGL fake;
+    private GlStateTracker gl;
+
+    @Before
+    public void setUp() {
+        fake = new FakeGL();
+        gl = new GlStateTracker(fake);
+        GlCounters.endFrame();
+    }
+
+    // Lo que hace cada primitiva con VBO en draw()
+    private void drawShape(int program, int vbo) {
+        gl.glUseProgram(program);
+        gl.glEnableVertexAttribArray(0);
+        gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, vbo);
+        gl.glVertexAttribPointer(0, 3, GLES20.GL_FLOAT, false, 12, 0);
+        gl.glLineWidth(10);
+        gl.glDrawArrays(GLES20.GL_LINES, 0, 2);
+        gl.glDisableVertexAttribArray(0);
+        gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 0);
+    }
+
+    @Test
+    public void repeatedDraws_sendStateOnce() {
+        drawShape(1, 7);
+        drawShape(1, 7);
+        drawShape(1, 7);
+
+        assertEquals(1, fake.count("glUseProgram"));
+        assertEquals(1, fake.count("glEnableVertexAttribArray"));
+        assertEquals(0, fake.count("glDisableVertexAttribArray"));
+        assertEquals(1, fake.count("glLineWidth"));
+        assertEquals(3, fake.count("glDrawArrays"));
+    }
+
+    @Test
+    public void blendFuncSeparate_isTrackedWithBlendFunc() {
+        int src = GLES20.GL_SRC_ALPHA;
+        int dst = GLES20.GL_ONE_MINUS_SRC_ALPHA;
+        gl.glBlendFunc(src, dst);
+        gl.glBlendFuncSeparate(src, dst, src, dst);
+        gl.glBlendFuncSeparate(src, dst, GLES20.GL_ONE, dst);
+        gl.glBlendFuncSeparate(src, dst, GLES20.GL_ONE, dst);
+        gl.glBlendFunc(src, dst);
+
+        assertEquals(2, fake.count("glBlendFunc"));
+        assertEquals(1, fake.count("glBlendFuncSeparate"));
+    }
+
+    @Test
+    public void deferredBind_isAppliedBeforePointer() {
+        drawShape(1, 7);
+        drawShape(1, 8);
+
+        assertEquals(Arrays.asList("glBindBuffer(7)", "glBindBuffer(8)"), bindCalls());
+        int bind = fake.calls.lastIndexOf("glBindBuffer(8)");
+        assertEquals("glVertexAttribPointer", fake.calls.get(bind + 1));
+    }
+
+    @Test
+    public void clientMemoryPointer_unbindsPendingBuffer() {
+        drawShape(1, 7);
+        FloatBuffer data = DirectBuffers.allocate(24).asFloatBuffer();
+        gl.glEnableVertexAttribArray(0);
+        gl.glVertexAttribPointer(0, 3, GLES20.GL_FLOAT, false, 12, data);
+
+        assertEquals(Arrays.asList("glBindBuffer(7)", "glBindBuffer(0)"), bindCalls());
+    }
+
+    @Test
+    public void unusedAttribute_isDisabledAtNextDraw() {
+        gl.glEnableVertexAttribArray(0);
+        gl.glEnableVertexAttribArray(1);
+        gl.glDrawArrays(GLES20.GL_TRIANGLES, 0, 3);
+        gl.glDisableVertexAttribArray(0);
+        gl.glDisableVertexAttribArray(1);
+
+        gl.glEnableVertexAttribArray(0);
+        gl.glDrawArrays(GLES20.GL_TRIANGLES, 0, 3);
+
+        assertEquals(2, fake.count("glEnableVertexAttribArray"));
+        assertEquals(1, fake.count("glDisableVertexAttribArray(1)"));
+        assertEquals(0, fake.count("glDisableVertexAttribArray(0)"));
+    }
+
+    @Test
+    public void upload_flushesPendingBind() {
+        FloatBuffer data = DirectBuffers.allocate(16).asFloatBuffer();
+        gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 3);
+        gl.glBufferData(GLES20.GL_ARRAY_BUFFER, 16, data, GLES20.GL_STATIC_DRAW);
+
+        assertEquals(fake.calls.indexOf("glBindBuffer(3)") + 1, fake.calls.indexOf("glBufferData"));
+    }
+
+    @Test
+    public void blendAndViewport_skipRepeats() {
+        gl.glEnable(GLES20.GL_BLEND);
+        gl.glBlendFunc(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
+        gl.glViewport(0, 0, 1080, 1920);
+        gl.glEnable(GLES20.GL_BLEND);
+        gl.glBlendFunc(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
+        gl.glViewport(0, 0, 1080, 1920);
+        gl.glDisable(GLES20.GL_BLEND);
+
+        assertEquals(1, fake.count("glEnable"));
+        assertEquals(1, fake.count("glDisable"));
+        assertEquals(1, fake.count("glBlendFunc"));
+        assertEquals(1, fake.count("glViewport"));
+    }
+
+    @Test
+    public void invalidate_forgetsState() {
+        drawShape(1, 7);
+        gl.invalidate();
+        drawShape(1, 7);
+
+        assertEquals(2, fake.count("glUseProgram"));
+        assertEquals(2, fake.count("glLineWidth"));
+        assertEquals(2, fake.count("glBindBuffer(7)"));
+    }
+
+    @Test
+    public void deletedBuffer_isBoundAgain() {
+        drawShape(1, 7);
+        gl.glDeleteBuffers(1, new int[]{7}, 0);
+        drawShape(1, 7);
+
+        assertEquals(2, fake.count("glBindBuffer(7)"));
+    }
+
+    @Test
+    public void counters_reportIssuedAndElided() {
+        drawShape(1, 7);
+        drawShape(1, 7);
+        GlCounters.endFrame();
+
+        // program, enable, bind, lineWidth la primera vez; nada la segunda.
+        // El disable y el unbind del final siguen pendientes y no cuentan
+        assertEquals(4, GlCounters.stateCallsIssuedLastFrame());
+        assertEquals(2 * 6 - 4 - 2, GlCounters.stateCallsElidedLastFrame());
+    }
+
+    @Test
+    public void deferredBind_countsInFrameWhereItResolves() {
+        gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 7);
+        GlCounters.endFrame();
+        assertEquals(0, GlCounters.stateCallsIssuedLastFrame());
+        assertEquals(0, GlCounters.stateCallsElidedLastFrame());
+
+        gl.glBufferData(GLES20.GL_ARRAY_BUFFER, 4, null, GLES20.GL_STATIC_DRAW);
+        GlCounters.endFrame();
+        assertEquals(1, GlCounters.stateCallsIssuedLastFrame());
+        assertEquals(0, GlCounters.stateCallsElidedLastFrame());
+    }
+
+    @Test
+    public void supersededBind_countsAsElided() {
+        gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 7);
+        gl.glBindBuffer(GLES20.GL_ARRAY_BUFFER, 8);
+        gl.glBufferData(GLES20.GL_ARRAY_BUFFER, 4, null, GLES20.GL_STATIC_DRAW);
+        GlCounters.endFrame();
+
+        assertEquals(1, GlCounters.stateCallsIssuedLastFrame());
+        assertEquals(1, GlCounters.stateCallsElidedLastFrame());
+        assertEquals(0, fake.count("glBindBuffer(7)"));
+    }
+
+    private List<String> bindCalls() {
+        List<String> binds = new ArrayList<>();
+        for (String call : fake.calls) {
+            if (call.startsWith("glBindBuffer")) {
+                binds.add(call);
+            }
+        }
+        return binds;
+    }
+}
@@ -0,0 +1,100 @@
+package com.programacionavanzada.gl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.opengl.GLES20;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+public class GpuBufferTest {
+
+    private FakeGL gl;
+    private FloatBuffer vertices;
+
+    @Before
+    public void setUp() {
+        gl = new FakeGL();
+        vertices = ByteBuffer.allocateDirect(9 * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        vertices.put(new float[]{0, 0, 0, 1, 0, 0, 0, 1, 0});
+    }
+
+    @Test
+    public void upload_happensOnce() {
+        GpuBuffer vbo = new GpuBuffer(gl, GLES20.GL_ARRAY_BUFFER, GLES20.GL_STATIC_DRAW);
+        vbo.upload(vertices);
+        for (int i = 0; i < 100; i++) {
+            vbo.bind();
+        }
+        assertEquals(1, gl.count("glBufferData"));
+        assertEquals(36, gl.bufferBytesUploaded);
+        assertTrue(vbo.isValid());
+    }
+
+    @Test
+    public void contextLoss_reuploadsOnNextBind() {
+        GpuBuffer vbo = new GpuBuffer(gl, GLES20.GL_ARRAY_BUFFER, GLES20.GL_STATIC_DRAW);
+        vbo.upload(vertices);
+        GpuBuffer.onContextLost();
+        assertFalse(vbo.isValid());
+
+        vbo.bind();
+        assertTrue(vbo.isValid());
+        assertEquals(2, gl.count("glGenBuffers"));
+        assertEquals(2, gl.count("glBufferData"));
+    }
+
+    @Test
+    public void contextLoss_survivingBufferGoesThroughTheNewTracker() {
+        GLApi previous = Gl.api();
+        try {
+            Gl.setApi(new GlStateTracker(gl));
+            GpuBuffer vbo = GpuBuffer.vertices(GLES20.GL_STATIC_DRAW);
+            vbo.upload(vertices);
+            vbo.unbind();
+
+            // Contexto nuevo con otra cadena de decoradores, como InstrumentedRenderer
+            GpuBuffer.onContextLost();
+            FakeGL fresh = new FakeGL();
+            GlStateTracker tracker = new GlStateTracker(fresh);
+            Gl.setApi(tracker);
+            int oldCalls = gl.calls.size();
+
+            vbo.bind();
+            tracker.glVertexAttribPointer(0, 3, GLES20.GL_FLOAT, false, 12, 0);
+
+            assertEquals(oldCalls, gl.calls.size());
+            assertEquals(1, fresh.count("glBufferData"));
+            assertTrue(fresh.calls.contains("glBindBuffer(" + vbo.getHandle() + ")"));
+            assertFalse(fresh.calls.contains("glBindBuffer(0)"));
+        } finally {
+            Gl.setApi(previous);
+        }
+    }
+
+    @Test
+    public void release_deletesOnlyLiveBuffers() {
+        GpuBuffer vbo = new GpuBuffer(gl, GLES20.GL_ARRAY_BUFFER, GLES20.GL_STATIC_DRAW);
+        vbo.upload(vertices);
+        vbo.release();
+        assertEquals(1, gl.count("glDeleteBuffers"));
+        assertTrue(gl.liveBuffers.isEmpty());
+
+        GpuBuffer lost = new GpuBuffer(gl, GLES20.GL_ARRAY_BUFFER, GLES20.GL_STATIC_DRAW);
+        lost.upload(vertices);
+        GpuBuffer.onContextLost();
+        lost.release();
+        assertEquals(1, gl.count("glDeleteBuffers"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void bindWithoutUpload_fails() {
+        new GpuBuffer(gl, GLES20.GL_ARRAY_BUFFER, GLES20.GL_STATIC_DRAW).bind();
+    }
+}
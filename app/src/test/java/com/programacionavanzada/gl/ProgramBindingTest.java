@@ -0,0 +1,62 @@
+package com.programacionavanzada.gl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProgramBindingTest {
+
+    private static final String VERTEX = "attribute vec4 vPosition;void main(){gl_Position = vPosition;}";
+    private static final String FRAGMENT = "precision mediump float;uniform vec4 vColor;void main(){gl_FragColor = vColor;}";
+
+    private FakeGL gl;
+    private ShaderProgramCache cache;
+
+    @Before
+    public void setUp() {
+        gl = new FakeGL();
+        cache = new ShaderProgramCache(gl);
+        GlCounters.endFrame();
+    }
+
+    @Test
+    public void binding_isSharedByProgram() {
+        ShaderProgram a = cache.acquire(VERTEX, FRAGMENT);
+        ShaderProgram b = cache.acquire(VERTEX, FRAGMENT);
+        assertSame(a.binding(), b.binding());
+        assertEquals(a.handle, a.binding().program);
+        assertEquals(0, a.binding().positionHandle);
+        assertEquals(1, a.binding().colorHandle);
+    }
+
+    @Test
+    public void binding_looksUpOnlyTheFlatColorLayout() {
+        cache.acquire(VERTEX, FRAGMENT).binding();
+
+        assertEquals(1, gl.count("glGetAttribLocation"));
+        assertEquals(1, gl.count("glGetAttribLocation(" + ProgramBinding.POSITION + ")"));
+        // vColor y uMVPMatrix
+        assertEquals(2, gl.count("glGetUniformLocation"));
+    }
+
+    @Test
+    public void lookups_dropToZeroInSteadyState() {
+        ShaderProgram program = cache.acquire(VERTEX, FRAGMENT);
+        program.binding();
+        GlCounters.endFrame();
+        assertTrue(GlCounters.locationLookupsLastFrame() > 0);
+        int attribLookups = gl.count("glGetAttribLocation");
+        int uniformLookups = gl.count("glGetUniformLocation");
+
+        for (int i = 0; i < 1000; i++) {
+            program.binding();
+        }
+        GlCounters.endFrame();
+        assertEquals(0, GlCounters.locationLookupsLastFrame());
+        assertEquals(attribLookups, gl.count("glGetAttribLocation"));
+        assertEquals(uniformLookups, gl.count("glGetUniformLocation"));
+    }
+}
@@ -0,0 +1,82 @@
+package com.programacionavanzada.gl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class RenderTargetTest {
+
+    private FakeGL gl;
+
+    @Before
+    public void setUp() {
+        gl = new FakeGL();
+    }
+
+    @Test
+    public void begin_createsOnceThenOnlyBinds() {
+        RenderTarget target = new RenderTarget(gl, 300, 200);
+        target.begin();
+        target.end(1080, 1920);
+        target.begin();
+        target.end(1080, 1920);
+
+        assertEquals(1, gl.count("glGenFramebuffers"));
+        assertEquals(1, gl.count("glTexImage2D"));
+        assertEquals(1, gl.count("glCheckFramebufferStatus"));
+        assertEquals(2, gl.count("glViewport(300x200)"));
+        assertEquals(2, gl.count("glViewport(1080x1920)"));
+        assertEquals(2, gl.count("glBindFramebuffer(0)"));
+        assertEquals(2, gl.count("glClear"));
+        assertEquals(240000, target.sizeBytes());
+    }
+
+    @Test
+    public void contextLoss_recreatesFramebufferAndTexture() {
+        RenderTarget target = new RenderTarget(gl, 64, 64);
+        target.begin();
+        target.end(64, 64);
+        assertTrue(target.isValid());
+
+        Texture.onContextLost();
+        RenderTarget.onContextLost();
+        assertFalse(target.isValid());
+        target.begin();
+
+        assertEquals(2, gl.count("glGenFramebuffers"));
+        assertEquals(2, gl.count("glTexImage2D"));
+        // Los handles viejos no se borran: murieron con el contexto
+        assertEquals(0, gl.count("glDeleteFramebuffers"));
+    }
+
+    @Test
+    public void incompleteFramebuffer_throwsAndFreesEverything() {
+        gl.framebufferStatus = 0;
+        RenderTarget target = new RenderTarget(gl, 64, 64);
+        try {
+            target.begin();
+            fail("deberia fallar");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("incompleto"));
+        }
+        assertTrue(gl.liveFramebuffers.isEmpty());
+        assertTrue(gl.liveTextures.isEmpty());
+        assertEquals(1, gl.count("glBindFramebuffer(0)"));
+    }
+
+    @Test
+    public void release_deletesFramebufferAndTexture() {
+        RenderTarget target = new RenderTarget(gl, 64, 64);
+        target.begin();
+        target.end(64, 64);
+        target.release();
+
+        assertTrue(gl.liveFramebuffers.isEmpty());
+        assertTrue(gl.liveTextures.isEmpty());
+        assertFalse(target.isValid());
+    }
+}
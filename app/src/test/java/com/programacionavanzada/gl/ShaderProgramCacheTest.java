@@ -0,0 +1,134 @@
+package com.programacionavanzada.gl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ShaderProgramCacheTest {
+
+    private static final String VERTEX = "attribute vec4 vPosition;void main(){gl_Position = vPosition;}";
+    private static final String FRAGMENT = "precision mediump float;uniform vec4 vColor;void main(){gl_FragColor = vColor;}";
+
+    private FakeGL gl;
+    private ShaderProgramCache cache;
+
+    @Before
+    public void setUp() {
+        gl = new FakeGL();
+        cache = new ShaderProgramCache(gl);
+    }
+
+    @Test
+    public void sameSources_areLinkedOnce() {
+        ShaderProgram a = cache.acquire(VERTEX, FRAGMENT);
+        for (int i = 0; i < 1999; i++) {
+            assertSame(a, cache.acquire(VERTEX, FRAGMENT));
+        }
+        assertEquals(1, gl.count("glLinkProgram"));
+        assertEquals(2, gl.count("glCompileShader"));
+        assertEquals(2000, a.getRefCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void shaders_areDeletedAfterLink() {
+        cache.acquire(VERTEX, FRAGMENT);
+        assertTrue(gl.liveShaders.isEmpty());
+        assertEquals(1, gl.livePrograms.size());
+    }
+
+    @Test
+    public void program_isDeletedOnLastRelease() {
+        ShaderProgram a = cache.acquire(VERTEX, FRAGMENT);
+        cache.acquire(VERTEX, FRAGMENT);
+        cache.release(a);
+        assertEquals(0, gl.count("glDeleteProgram"));
+        cache.release(a);
+        assertEquals(1, gl.count("glDeleteProgram"));
+        assertEquals(0, cache.size());
+        // liberar de mas no debe borrar dos veces
+        cache.release(a);
+        assertEquals(1, gl.count("glDeleteProgram"));
+    }
+
+    @Test
+    public void differentSources_giveDifferentPrograms() {
+        ShaderProgram a = cache.acquire(VERTEX, FRAGMENT);
+        ShaderProgram b = cache.acquire(VERTEX.replace("}", "gl_PointSize = 50.0;}"), FRAGMENT);
+        assertNotSame(a, b);
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void locations_areQueriedOnce() {
+        ShaderProgram a = cache.acquire(VERTEX, FRAGMENT);
+        for (int i = 0; i < 10; i++) {
+            a.attribLocation("vPosition");
+            a.uniformLocation("vColor");
+        }
+        assertEquals(1, gl.count("glGetAttribLocation"));
+        assertEquals(1, gl.count("glGetUniformLocation"));
+    }
+
+    @Test
+    public void compileError_includesInfoLog() {
+        gl.failCompileOn = "gl_FragColor";
+        try {
+            cache.acquire(VERTEX, FRAGMENT);
+            fail("deberia fallar");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("fragment"));
+            assertTrue(e.getMessage().contains("syntax error"));
+        }
+        assertTrue(gl.liveShaders.isEmpty());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void linkError_deletesProgram() {
+        gl.failLink = true;
+        try {
+            cache.acquire(VERTEX, FRAGMENT);
+            fail("deberia fallar");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("link failed"));
+        }
+        assertTrue(gl.livePrograms.isEmpty());
+    }
+
+    @Test
+    public void invalidate_forgetsWithoutGlCalls() {
+        ShaderProgram a = cache.acquire(VERTEX, FRAGMENT);
+        cache.invalidate();
+        assertEquals(0, gl.count("glDeleteProgram"));
+        assertEquals(0, cache.size());
+        assertNotSame(a, cache.acquire(VERTEX, FRAGMENT));
+        // la referencia vieja ya no pertenece a la cache
+        cache.release(a);
+        assertEquals(0, gl.count("glDeleteProgram"));
+    }
+
+    @Test
+    public void sharedCache_callsThroughCurrentApi() {
+        GLApi previous = Gl.api();
+        ShaderProgramCache.shared().invalidate();
+        // Como InstrumentedRenderer: el GLApi cambia despues de crear la cache
+        Gl.setApi(gl);
+        try {
+            ShaderProgram program = ShaderProgramCache.shared().acquire(VERTEX, FRAGMENT);
+            program.attribLocation("vPosition");
+            ShaderProgramCache.shared().release(program);
+        } finally {
+            Gl.setApi(previous);
+            ShaderProgramCache.shared().invalidate();
+        }
+        assertEquals(1, gl.count("glLinkProgram"));
+        assertEquals(1, gl.count("glGetAttribLocation"));
+        assertEquals(1, gl.count("glDeleteProgram"));
+    }
+}
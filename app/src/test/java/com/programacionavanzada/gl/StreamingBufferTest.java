@@ -0,0 +1,127 @@
+package com.programacionavanzada.gl;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+public class StreamingBufferTest {
+
+    private FakeGL gl;
+    private StreamingBuffer buffer;
+    private float[] coords;
+
+    @Before
+    public void setUp() {
+        gl = new FakeGL();
+        buffer = new StreamingBuffer(gl, 1000, 3);
+        coords = new float[1000];
+        buffer.write(coords, 0, 0, coords.length);
+        buffer.bind();
+        gl.calls.clear();
+        gl.bufferBytesUploaded = 0;
+    }
+
+    @Test
+    public void firstBind_uploadsEverything() {
+        StreamingBuffer fresh = new StreamingBuffer(gl, 10, 3);
+        fresh.bind();
+        assertEquals(1, gl.count("glBufferData"));
+        assertEquals(40, gl.bufferBytesUploaded);
+    }
+
+    @Test
+    public void smallChange_usesSubDataOfThatRange() {
+        coords[100] = 1f;
+        coords[101] = 2f;
+        // Los VBOs 2 y 3 del anillo todavia no tienen nada: se suben enteros
+        buffer.write(coords, 100, 100, 2);
+        buffer.bind();
+        buffer.write(coords, 100, 100, 2);
+        buffer.bind();
+        gl.calls.clear();
+
+        buffer.write(coords, 100, 100, 2);
+        buffer.bind();
+        assertEquals(0, gl.count("glBufferData"));
+        assertEquals(1, gl.count("glBufferSubData"));
+        assertEquals(400, gl.lastSubDataOffset);
+        assertEquals(8, gl.lastSubDataSize);
+        assertEquals(100, gl.lastSubDataPosition);
+    }
+
+    @Test
+    public void unchangedData_isNotUploadedAgain() {
+        for (int i = 0; i < 10; i++) {
+            buffer.bind();
+        }
+        assertEquals(0, gl.count("glBufferData"));
+        assertEquals(0, gl.count("glBufferSubData"));
+    }
+
+    @Test
+    public void changes_rotateThroughTheRing() {
+        for (int i = 0; i < 6; i++) {
+            buffer.write(coords, 0, 0, 1);
+            buffer.bind();
+        }
+        List<String> binds = new ArrayList<>();
+        for (String call : gl.calls) {
+            if (call.startsWith("glBindBuffer(")) {
+                binds.add(call);
+            }
+        }
+        // Tres VBOs distintos, cada uno se vuelve a usar tres cuadros despues
+        assertEquals(6, binds.size());
+        assertEquals(3, new HashSet<>(binds.subList(0, 3)).size());
+        assertEquals(binds.subList(0, 3), binds.subList(3, 6));
+    }
+
+    @Test
+    public void rangeMissedByOlderVbo_isAccumulated() {
+        // Los otros dos VBOs del anillo reciben su primera subida completa
+        for (int i = 0; i < 2; i++) {
+            buffer.write(coords, 0, 0, 1);
+            buffer.bind();
+        }
+        gl.calls.clear();
+        // Cada cuadro cambia un rango distinto; el VBO que vuelve a tocar debe recibir ambos
+        buffer.write(coords, 10, 10, 5);
+        buffer.bind();
+        buffer.write(coords, 50, 50, 5);
+        buffer.bind();
+        buffer.write(coords, 90, 90, 5);
+        buffer.bind();
+        buffer.write(coords, 200, 200, 5);
+        buffer.bind();
+
+        assertEquals(4, gl.count("glBufferSubData"));
+        // El ultimo VBO no vio los cambios en 50 y 90
+        assertEquals(50 * 4, gl.lastSubDataOffset);
+        assertEquals((205 - 50) * 4, gl.lastSubDataSize);
+    }
+
+    @Test
+    public void bigChange_orphansWithBufferData() {
+        for (int i = 0; i < 3; i++) {
+            buffer.write(coords, 0, 0, 1000);
+            buffer.bind();
+        }
+        gl.calls.clear();
+        buffer.write(coords, 0, 0, 900);
+        buffer.bind();
+        assertEquals(1, gl.count("glBufferData"));
+        assertEquals(0, gl.count("glBufferSubData"));
+    }
+
+    @Test
+    public void contextLoss_reuploadsWholeBuffer() {
+        GpuBuffer.onContextLost();
+        buffer.bind();
+        assertEquals(1, gl.count("glBufferData"));
+    }
+}
@@ -0,0 +1,75 @@
+package com.programacionavanzada.gl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public class TextureTest {
+
+    private FakeGL gl;
+    private ByteBuffer pixels;
+
+    @Before
+    public void setUp() {
+        gl = new FakeGL();
+        pixels = ByteBuffer.allocateDirect(8 * 8 * 4);
+    }
+
+    @Test
+    public void manyUploads_regenerateMipmapsOncePerBind() {
+        Texture texture = new Texture(gl, 64, 64, true);
+        for (int i = 0; i < 10; i++) {
+            texture.upload(i * 4, 0, 4, 4, pixels);
+        }
+        texture.bind(0);
+        texture.bind(0);
+
+        assertEquals(1, gl.count("glTexImage2D"));
+        assertEquals(10, gl.count("glTexSubImage2D"));
+        assertEquals(1, gl.count("glGenerateMipmap"));
+        assertEquals(160, gl.texturePixelsUploaded);
+    }
+
+    @Test
+    public void withoutMipmaps_neverGenerates() {
+        Texture texture = new Texture(gl, 100, 30, false);
+        texture.upload(0, 0, 8, 8, pixels);
+        texture.bind(0);
+        assertEquals(0, gl.count("glGenerateMipmap"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mipmapsOnNonPowerOfTwo_throw() {
+        new Texture(gl, 100, 64, true);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void uploadOutsideTexture_throws() {
+        new Texture(gl, 16, 16, false).upload(12, 12, 8, 8, pixels);
+    }
+
+    @Test
+    public void contextLoss_recreatesOnBind() {
+        Texture texture = new Texture(gl, 16, 16, false);
+        assertTrue(texture.create());
+        Texture.onContextLost();
+        assertFalse(texture.isValid());
+
+        texture.bind(0);
+        assertTrue(texture.isValid());
+        assertEquals(2, gl.count("glGenTextures"));
+    }
+
+    @Test
+    public void release_deletesTexture() {
+        Texture texture = new Texture(gl, 16, 16, false);
+        texture.create();
+        texture.release();
+        assertTrue(gl.liveTextures.isEmpty());
+    }
+}
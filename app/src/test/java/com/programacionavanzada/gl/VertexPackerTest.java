@@ -0,0 +1,124 @@
+package com.programacionavanzada.gl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import android.opengl.GLES20;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+public class VertexPackerTest {
+
+    private static ByteBuffer bytes(int size) {
+        return ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+    }
+
+    @Test
+    public void formats_haveAlignedOffsetsAndStride() {
+        assertEquals(12, VertexFormat.POSITION_3F.stride());
+        assertEquals(8, VertexFormat.POSITION_2F.stride());
+        assertEquals(4, VertexFormat.POSITION_2S.stride());
+        assertEquals(12, VertexFormat.POSITION_2F_COLOR_4UB.stride());
+        assertEquals(8, VertexFormat.POSITION_2S_COLOR_4UB.stride());
+        assertEquals(8, VertexFormat.POSITION_2F_COLOR_4UB.colorAttribute().offset);
+        assertNull(VertexFormat.POSITION_2S.colorAttribute());
+
+        // Un short suelto ocupa 2 bytes pero el siguiente atributo empieza en 4
+        VertexFormat odd = new VertexFormat(
+                VertexFormat.position(1, GLES20.GL_SHORT, true), VertexFormat.packedColor());
+        assertEquals(4, odd.colorAttribute().offset);
+        assertEquals(8, odd.stride());
+    }
+
+    @Test
+    public void shortPositions_roundTripWithinOneStepOfExtent() {
+        float[] src = {-3f, 10f, 0f, 5f, 2.5f, 0f, 1.234f, 7.777f, 0f};
+        float[] so = new float[4];
+        VertexPacker.bounds(src, 3, 3, so);
+        ByteBuffer dst = bytes(3 * 4);
+        VertexPacker.pack(VertexFormat.POSITION_2S, src, 3, 3, -1, 3, so, null, dst);
+        assertEquals(12, dst.position());
+
+        float extentX = 8f;
+        float extentY = 7.5f;
+        for (int i = 0; i < 3; i++) {
+            float x = dst.getShort(i * 4) / 32767f * so[0] + so[2];
+            float y = dst.getShort(i * 4 + 2) / 32767f * so[1] + so[3];
+            assertEquals(src[i * 3], x, extentX / 32767f);
+            assertEquals(src[i * 3 + 1], y, extentY / 32767f);
+        }
+    }
+
+    @Test
+    public void color_isPackedAsRgbaBytes() {
+        float[] src = {0.5f, -0.5f, 1f, 0f, 0.5f, 2f};
+        ByteBuffer dst = bytes(12);
+        VertexPacker.pack(VertexFormat.POSITION_2F_COLOR_4UB, src, 6, 2, 2, 1, null, null, dst);
+
+        assertEquals(0.5f, dst.getFloat(0), 0f);
+        assertEquals(-0.5f, dst.getFloat(4), 0f);
+        assertEquals(255, dst.get(8) & 0xFF);
+        assertEquals(0, dst.get(9) & 0xFF);
+        assertEquals(128, dst.get(10) & 0xFF);
+        // Fuera de 0..1 se recorta
+        assertEquals(255, dst.get(11) & 0xFF);
+    }
+
+    @Test
+    public void constantColor_isUsedWithoutColorInSource() {
+        float[] src = {0f, 0f, 1f, 1f};
+        ByteBuffer dst = bytes(24);
+        VertexPacker.pack(VertexFormat.POSITION_2F_COLOR_4UB, src, 2, 2, -1, 2, null,
+                new float[]{0f, 1f, 0f, 1f}, dst);
+
+        assertEquals(255, dst.get(12 + 9) & 0xFF);
+        assertEquals(0, dst.get(12 + 8) & 0xFF);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shortPositions_withoutBounds_throw() {
+        VertexPacker.pack(VertexFormat.POSITION_2S, new float[]{0f, 0f}, 2, 2, -1, 1, null, null, bytes(4));
+    }
+
+    @Test
+    public void halfFloat_roundTrips() {
+        float[] values = {0f, 1f, -2.5f, 0.1f, 1000f, 65504f, 6.1035156e-5f, 5.9604645e-8f};
+        for (float v : values) {
+            float back = VertexPacker.fromHalf(VertexPacker.toHalf(v));
+            // 10 bits de mantisa: error relativo de 2^-11
+            assertEquals(v, back, Math.max(Math.abs(v) / 2048f, 3e-8f));
+        }
+        assertEquals(Float.POSITIVE_INFINITY, VertexPacker.fromHalf(VertexPacker.toHalf(1e6f)), 0f);
+        assertEquals(0f, VertexPacker.fromHalf(VertexPacker.toHalf(1e-10f)), 0f);
+    }
+
+    @Test
+    public void enable_pointsEachAttributeAtItsOffset() {
+        List<String> pointers = new ArrayList<>();
+        FakeGL gl = new FakeGL() {
+            @Override
+            public int glGetAttribLocation(int program, String name) {
+                return ProgramBinding.POSITION.equals(name) ? 0 : 1;
+            }
+
+            @Override
+            public void glVertexAttribPointer(int index, int size, int type, boolean normalized,
+                                              int stride, int offset) {
+                pointers.add(index + ":" + size + ":" + type + ":" + normalized + ":" + stride + ":" + offset);
+            }
+        };
+        ShaderProgram program = new ShaderProgram(new ShaderProgramCache(gl), "k", 1);
+
+        VertexFormat.POSITION_2S_COLOR_4UB.enable(gl, program, 64);
+
+        assertEquals(2, pointers.size());
+        assertEquals("0:2:" + GLES20.GL_SHORT + ":true:8:64", pointers.get(0));
+        assertEquals("1:4:" + GLES20.GL_UNSIGNED_BYTE + ":true:8:68", pointers.get(1));
+        assertEquals(2, gl.count("glEnableVertexAttribArray"));
+    }
+}
@@ -0,0 +1,119 @@
+package com.programacionavanzada.metricas;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+
+public class FrameHistoryTest {
+
+    private static long[] frame(long cpu, long gpu) {
+        long[] f = new long[FrameHistory.FIELDS];
+        f[FrameHistory.CPU_NANOS] = cpu;
+        f[FrameHistory.GPU_NANOS] = gpu;
+        return f;
+    }
+
+    @Test
+    public void ring_keepsLastFramesOldestFirst() {
+        FrameHistory history = new FrameHistory(4);
+        for (int i = 1; i <= 10; i++) {
+            history.record(frame(i, -1));
+        }
+        long[] cpu = new long[8];
+        int n = history.copyField(FrameHistory.CPU_NANOS, cpu);
+
+        assertEquals(4, n);
+        assertArrayEquals(new long[]{7, 8, 9, 10}, Arrays.copyOf(cpu, n));
+        assertEquals(10, history.frameCount());
+        assertEquals(4, history.snapshot().length);
+        assertEquals(7, history.snapshot()[0][FrameHistory.CPU_NANOS]);
+    }
+
+    @Test
+    public void summarize_nearestRankPercentiles() {
+        FrameHistory history = new FrameHistory(100);
+        for (int i = 1; i <= 100; i++) {
+            history.record(frame(i, -1));
+        }
+        FrameHistory.Summary s = history.summarize(FrameHistory.CPU_NANOS);
+
+        assertEquals(100, s.samples);
+        assertEquals(50, s.p50);
+        assertEquals(95, s.p95);
+        assertEquals(99, s.p99);
+    }
+
+    @Test
+    public void summarize_ignoresUnmeasuredGpuFrames() {
+        FrameHistory history = new FrameHistory(8);
+        history.record(frame(1, -1));
+        history.record(frame(1, 300));
+        history.record(frame(1, 100));
+
+        FrameHistory.Summary s = history.summarize(FrameHistory.GPU_NANOS);
+        assertEquals(2, s.samples);
+        assertEquals(100, s.p50);
+        assertEquals(300, s.p99);
+        assertEquals(-1, new FrameHistory(8).summarize(FrameHistory.GPU_NANOS).p50);
+    }
+
+    @Test
+    public void concurrentReader_neverSeesTornFrames() throws Exception {
+        final FrameHistory history = new FrameHistory(16);
+        Thread writer = new Thread(() -> {
+            long[] f = new long[FrameHistory.FIELDS];
+            for (int i = 0; i < 200_000; i++) {
+                // Todos los campos del cuadro i valen i
+                Arrays.fill(f, i);
+                history.record(f);
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            long[][] frames = history.snapshot();
+            for (int i = 0; i < frames.length; i++) {
+                for (long v : frames[i]) {
+                    assertEquals(frames[i][0], v);
+                }
+                if (i > 0) {
+                    assertEquals(frames[i - 1][0] + 1, frames[i][0]);
+                }
+            }
+        }
+        writer.join();
+    }
+
+    @Test
+    public void exporter_writesCsvHeaderAndRows() throws Exception {
+        FrameHistory history = new FrameHistory(4);
+        history.record(frame(5, 6));
+        StringWriter out = new StringWriter();
+        FrameStatsExporter.writeCsv(history, out);
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("cpuNanos,gpuNanos,drawCalls,programSwitches,bufferUploads,uploadBytes,vertices,directBytes,stateCalls,stateCallsElided,layerHits,layerMisses,layerBytes", lines[0]);
+        assertEquals("5,6,0,0,0,0,0,0,0,0,0,0,0", lines[1]);
+    }
+
+    @Test
+    public void exporter_reportsLayerHitRate() throws Exception {
+        FrameHistory history = new FrameHistory(4);
+        long[] f = frame(5, 6);
+        f[FrameHistory.LAYER_MISSES] = 1;
+        history.record(f);
+        f[FrameHistory.LAYER_MISSES] = 0;
+        f[FrameHistory.LAYER_HITS] = 3;
+        history.record(f);
+        StringWriter out = new StringWriter();
+        FrameStatsExporter.writeJson(history, out);
+
+        assertTrue(out.toString().contains("\"layerHitRate\": 0.75"));
+        assertEquals(-1, FrameStatsExporter.layerHitRate(new long[0][]), 0);
+    }
+}
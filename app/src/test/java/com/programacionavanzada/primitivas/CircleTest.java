@@ -0,0 +1,95 @@
+package com.programacionavanzada.primitivas;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import com.programacionavanzada.geometria.CircleLod;
+import com.programacionavanzada.gl.FakeGL;
+import com.programacionavanzada.gl.GLApi;
+import com.programacionavanzada.gl.Gl;
+import com.programacionavanzada.gl.ShaderProgramCache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CircleTest {
+
+    private final float[] lastMvp = new float[16];
+    private FakeGL gl;
+    private GLApi previous;
+
+    @Before
+    public void setUp() {
+        gl = new FakeGL() {
+            @Override
+            public void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset) {
+                super.glUniformMatrix4fv(location, count, transpose, value, offset);
+                System.arraycopy(value, offset, lastMvp, 0, 16);
+            }
+        };
+        previous = Gl.api();
+        Gl.setApi(gl);
+        ShaderProgramCache.shared().invalidate();
+        Circle.onContextLost();
+        CircleLod.setViewport(1000, 1000);
+    }
+
+    @After
+    public void tearDown() {
+        Circle.onContextLost();
+        Gl.setApi(previous);
+    }
+
+    @Test
+    public void autoLod_circlesOfOneBucketShareOneVbo() {
+        Circle a = new Circle(0.5f);
+        Circle b = new Circle(0.51f);
+        a.draw();
+        b.draw();
+
+        assertNotEquals(0, a.getBufferHandle());
+        assertEquals(a.getBufferHandle(), b.getBufferHandle());
+        assertEquals(1, gl.count("glBufferData"));
+    }
+
+    @Test
+    public void lodChange_usesTheOtherBucketWithoutUploadingPerCircle() {
+        Circle a = new Circle(0.5f);
+        Circle b = new Circle(0.51f);
+        a.draw();
+        b.draw();
+        int before = a.getBufferHandle();
+
+        CircleLod.setViewport(4000, 4000);
+        a.draw();
+        b.draw();
+
+        assertNotEquals(before, a.getBufferHandle());
+        assertEquals(a.getBufferHandle(), b.getBufferHandle());
+        // Un abanico por bucket, no uno por circulo
+        assertEquals(2, gl.count("glBufferData"));
+    }
+
+    @Test
+    public void autoLod_scalesTheUnitFanByTheRadius() {
+        Circle circle = new Circle(0.25f);
+        circle.getTransform().setScale(2f);
+        circle.draw();
+
+        assertEquals(0.5f, lastMvp[0], 1e-6f);
+        assertEquals(0.5f, lastMvp[5], 1e-6f);
+        assertEquals(1f, lastMvp[10], 1e-6f);
+    }
+
+    @Test
+    public void fixedSegments_keepTheirOwnVertices() {
+        Circle circle = new Circle(0.25f, 16);
+        circle.draw();
+
+        assertEquals(0, circle.getBufferHandle());
+        assertEquals(0, gl.count("glBufferData"));
+        assertEquals(1f, lastMvp[0], 1e-6f);
+        circle.release();
+    }
+}
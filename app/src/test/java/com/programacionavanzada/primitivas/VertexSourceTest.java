@@ -0,0 +1,85 @@
+package com.programacionavanzada.primitivas;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.opengl.GLES20;
+
+import com.programacionavanzada.gl.FakeGL;
+import com.programacionavanzada.gl.GLApi;
+import com.programacionavanzada.gl.Gl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+public class VertexSourceTest {
+
+    private FakeGL gl;
+    private GLApi previous;
+
+    @Before
+    public void setUp() {
+        gl = new FakeGL();
+        previous = Gl.api();
+        // GpuBuffer.vertices() toma el GLApi activo
+        Gl.setApi(gl);
+    }
+
+    @After
+    public void tearDown() {
+        Gl.setApi(previous);
+    }
+
+    private static FloatBuffer floats(int count) {
+        return ByteBuffer.allocateDirect(count * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    private static ShortBuffer shorts(int count) {
+        return ByteBuffer.allocateDirect(count * 2).order(ByteOrder.nativeOrder()).asShortBuffer();
+    }
+
+    @Test
+    public void clientMemory_hasNoBufferAndBindsNothing() {
+        VertexSource source = new VertexSource(floats(9));
+
+        source.enable(gl, 0, 3, 12);
+        source.disable(gl, 0);
+
+        assertEquals(0, source.getBufferHandle());
+        assertEquals(0, gl.count("glBindBuffer"));
+        assertEquals(1, gl.count("glVertexAttribPointer"));
+    }
+
+    @Test
+    public void gpuBuffers_uploadOnceAndBindOnDraw() {
+        VertexSource source = new VertexSource(floats(12), shorts(6));
+        source.useGpuBuffers(GLES20.GL_STATIC_DRAW);
+        int handle = source.getBufferHandle();
+        assertNotEquals(0, handle);
+        assertEquals(2, gl.count("glBufferData"));
+
+        source.enable(gl, 0, 3, 12);
+        source.drawElements(gl, GLES20.GL_TRIANGLES, 6);
+        source.disable(gl, 0);
+
+        assertEquals(2, gl.count("glBufferData"));
+        assertTrue(gl.calls.contains("glBindBuffer(" + handle + ")"));
+    }
+
+    @Test
+    public void releaseGpuBuffers_deletesBothAndFallsBackToClient() {
+        VertexSource source = new VertexSource(floats(12), shorts(6));
+        source.useGpuBuffers(GLES20.GL_STATIC_DRAW);
+        source.releaseGpuBuffers();
+
+        assertEquals(0, source.getBufferHandle());
+        assertEquals(0, gl.liveBuffers.size());
+    }
+}
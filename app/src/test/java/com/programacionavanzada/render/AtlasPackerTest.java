@@ -0,0 +1,71 @@
+package com.programacionavanzada.render;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class AtlasPackerTest {
+
+    @Test
+    public void firstRect_goesToTopLeft() {
+        AtlasPacker packer = new AtlasPacker(64, 64);
+        int[] out = new int[2];
+        assertTrue(packer.insert(10, 20, out));
+        assertEquals(0, out[0]);
+        assertEquals(0, out[1]);
+    }
+
+    @Test
+    public void randomRects_neverOverlapOrLeaveThePage() {
+        AtlasPacker packer = new AtlasPacker(256, 256);
+        Random random = new Random(11);
+        List<int[]> placed = new ArrayList<>();
+        int[] out = new int[2];
+        for (int i = 0; i < 500; i++) {
+            int w = 4 + random.nextInt(28);
+            int h = 4 + random.nextInt(28);
+            if (!packer.insert(w, h, out)) {
+                continue;
+            }
+            assertTrue(out[0] >= 0 && out[1] >= 0 && out[0] + w <= 256 && out[1] + h <= 256);
+            for (int[] r : placed) {
+                boolean apart = out[0] + w <= r[0] || r[0] + r[2] <= out[0]
+                        || out[1] + h <= r[1] || r[1] + r[3] <= out[1];
+                assertTrue("rectangulos encimados", apart);
+            }
+            placed.add(new int[]{out[0], out[1], w, h});
+        }
+        // El skyline desperdicia los huecos de abajo, pero no tanto
+        assertTrue("ocupacion " + packer.occupancy(), packer.occupancy() > 0.7f);
+    }
+
+    @Test
+    public void sameHeights_mergeIntoOneSegment() {
+        AtlasPacker packer = new AtlasPacker(64, 64);
+        int[] out = new int[2];
+        for (int i = 0; i < 4; i++) {
+            assertTrue(packer.insert(16, 8, out));
+        }
+        assertEquals(1, packer.segmentCount());
+        assertTrue(packer.insert(16, 8, out));
+        assertEquals(8, out[1]);
+    }
+
+    @Test
+    public void fullPage_rejectsAndResetEmptiesIt() {
+        AtlasPacker packer = new AtlasPacker(32, 32);
+        int[] out = new int[2];
+        assertTrue(packer.insert(32, 32, out));
+        assertFalse(packer.insert(1, 1, out));
+        assertEquals(1f, packer.occupancy(), 0f);
+
+        packer.reset();
+        assertTrue(packer.insert(32, 32, out));
+    }
+}
@@ -0,0 +1,109 @@
+package com.programacionavanzada.render;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CircleInstancesTest {
+
+    @Test
+    public void updates_writeInPlace() {
+        CircleInstances circles = new CircleInstances(4);
+        int a = circles.add(0f, 0f, 0.1f, 1f, 0f, 0f, 1f);
+        float[] data = circles.getData();
+        circles.clearDirty();
+
+        circles.setCenter(a, 0.5f, -0.5f);
+        circles.setRadius(a, 0.2f);
+
+        assertSame(data, circles.getData());
+        assertTrue(circles.isDirty());
+        assertEquals(0.5f, circles.getCenterX(a), 0f);
+        assertEquals(-0.5f, circles.getCenterY(a), 0f);
+        assertEquals(0.2f, circles.getRadius(a), 0f);
+    }
+
+    @Test
+    public void add_growsOnlyPastCapacity() {
+        CircleInstances circles = new CircleInstances(2);
+        circles.add(0f, 0f, 1f, 0f, 0f, 0f, 1f);
+        circles.add(1f, 0f, 1f, 0f, 0f, 0f, 1f);
+        float[] before = circles.getData();
+        circles.add(2f, 0f, 1f, 0f, 0f, 0f, 1f);
+        assertEquals(4, circles.capacity());
+        assertEquals(2f, circles.getCenterX(2), 0f);
+        assertFalse(before == circles.getData());
+    }
+
+    @Test
+    public void remove_movesLastIntoHole() {
+        CircleInstances circles = new CircleInstances(4);
+        circles.add(0f, 0f, 1f, 0f, 0f, 0f, 1f);
+        circles.add(1f, 0f, 1f, 0f, 0f, 0f, 1f);
+        circles.add(2f, 0f, 1f, 0f, 0f, 0f, 1f);
+
+        assertEquals(2, circles.remove(0));
+        assertEquals(2, circles.size());
+        assertEquals(2f, circles.getCenterX(0), 0f);
+        assertEquals(-1, circles.remove(1));
+    }
+
+    @Test
+    public void modifiedSince_coversOnlyChangedInstances() {
+        CircleInstances circles = new CircleInstances(8);
+        for (int i = 0; i < 6; i++) {
+            circles.add(i, 0f, 1f, 0f, 0f, 0f, 1f);
+        }
+        int uploaded = circles.version();
+        assertEquals(6, circles.firstModifiedSince(uploaded));
+        assertEquals(0, circles.endModifiedSince(uploaded));
+
+        circles.setRadius(4, 2f);
+        circles.setColor(2, 1f, 1f, 1f, 1f);
+
+        assertEquals(2, circles.firstModifiedSince(uploaded));
+        assertEquals(5, circles.endModifiedSince(uploaded));
+    }
+
+    @Test
+    public void modifiedSince_servesEachReaderFromItsOwnVersion() {
+        CircleInstances circles = new CircleInstances(4);
+        circles.add(0f, 0f, 1f, 0f, 0f, 0f, 1f);
+        circles.add(1f, 0f, 1f, 0f, 0f, 0f, 1f);
+        circles.add(2f, 0f, 1f, 0f, 0f, 0f, 1f);
+        int first = circles.version();
+        circles.setRadius(0, 2f);
+        int second = circles.version();
+        circles.setRadius(2, 2f);
+
+        assertEquals(0, circles.firstModifiedSince(first));
+        assertEquals(3, circles.endModifiedSince(first));
+        assertEquals(2, circles.firstModifiedSince(second));
+        assertEquals(3, circles.endModifiedSince(second));
+    }
+
+    @Test
+    public void remove_marksOnlyTheFilledHole() {
+        CircleInstances circles = new CircleInstances(4);
+        circles.add(0f, 0f, 1f, 0f, 0f, 0f, 1f);
+        circles.add(1f, 0f, 1f, 0f, 0f, 0f, 1f);
+        circles.add(2f, 0f, 1f, 0f, 0f, 0f, 1f);
+        int uploaded = circles.version();
+
+        circles.remove(2);
+        assertTrue(circles.version() != uploaded);
+        assertEquals(0, circles.endModifiedSince(uploaded));
+
+        circles.remove(0);
+        assertEquals(0, circles.firstModifiedSince(uploaded));
+        assertEquals(1, circles.endModifiedSince(uploaded));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void invalidIndex_fails() {
+        new CircleInstances(4).setRadius(0, 1f);
+    }
+}
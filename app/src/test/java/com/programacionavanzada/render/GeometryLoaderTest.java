@@ -0,0 +1,115 @@
+package com.programacionavanzada.render;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class GeometryLoaderTest {
+
+    private long now;
+    private int notifications;
+
+    // Corre los trabajos en el mismo hilo; cada subida tarda 1 ms del reloj falso
+    private GeometryLoader directLoader() {
+        GeometryLoader loader = new GeometryLoader(Runnable::run, () -> now);
+        loader.setListener(() -> notifications++);
+        return loader;
+    }
+
+    @Test
+    public void uploads_areSlicedByBudget() {
+        GeometryLoader loader = directLoader();
+        List<Integer> uploaded = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final int id = i;
+            loader.submit(() -> id, value -> {
+                uploaded.add(value);
+                now += 1_000_000L;
+            });
+        }
+        assertEquals(5, loader.getInFlight());
+
+        assertEquals(2, loader.uploadPending(2_000_000L));
+        assertEquals(2, loader.uploadPending(2_000_000L));
+        assertEquals(1, loader.uploadPending(2_000_000L));
+        assertEquals(0, loader.uploadPending(2_000_000L));
+
+        assertEquals(List.of(0, 1, 2, 3, 4), uploaded);
+        assertEquals(0, loader.getInFlight());
+    }
+
+    @Test
+    public void slowUpload_stillMakesProgress() {
+        GeometryLoader loader = directLoader();
+        loader.submit(() -> 1, value -> now += 50_000_000L);
+        loader.submit(() -> 2, value -> now += 50_000_000L);
+
+        assertEquals(1, loader.uploadPending(1_000_000L));
+        assertEquals(1, loader.uploadPending(1_000_000L));
+    }
+
+    @Test
+    public void leftovers_requestAnotherFrame() {
+        GeometryLoader loader = directLoader();
+        loader.submit(() -> 1, value -> now += 1_000_000L);
+        loader.submit(() -> 2, value -> now += 1_000_000L);
+        assertEquals(2, notifications);
+
+        loader.uploadPending(0);
+        assertEquals(3, notifications);
+        loader.uploadPending(0);
+        assertEquals(3, notifications);
+    }
+
+    @Test
+    public void failedJob_isRethrownOnUpload() {
+        GeometryLoader loader = directLoader();
+        loader.submit(() -> {
+            throw new IllegalArgumentException("radio negativo");
+        }, value -> fail("no se debe subir"));
+        try {
+            loader.uploadPending(1_000_000L);
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+        assertEquals(0, loader.getInFlight());
+    }
+
+    @Test
+    public void jobs_runOffUploadThread() throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(2);
+        GeometryLoader loader = new GeometryLoader(workers, System::nanoTime);
+        Thread glThread = Thread.currentThread();
+        List<Thread> buildThreads = new ArrayList<>();
+        List<Thread> uploadThreads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            loader.submit(() -> {
+                synchronized (buildThreads) {
+                    buildThreads.add(Thread.currentThread());
+                }
+                return new float[64];
+            }, value -> uploadThreads.add(Thread.currentThread()));
+        }
+        workers.shutdown();
+        assertTrue(workers.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(8, loader.getReadyCount());
+        assertEquals(8, loader.uploadPending(Long.MAX_VALUE));
+        for (Thread t : buildThreads) {
+            assertNotEquals(glThread, t);
+        }
+        for (Thread t : uploadThreads) {
+            assertEquals(glThread, t);
+        }
+    }
+}
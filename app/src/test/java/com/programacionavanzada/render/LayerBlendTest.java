@@ -0,0 +1,131 @@
+package com.programacionavanzada.render;
+
+import static org.junit.Assert.assertEquals;
+
+import android.opengl.GLES20;
+
+import com.programacionavanzada.gl.FakeGL;
+import com.programacionavanzada.gl.GLApi;
+import com.programacionavanzada.gl.Gl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LayerBlendTest {
+
+    // Fondo opaco de la pantalla y dos figuras translucidas encimadas (un canal de color basta)
+    private static final float BACKGROUND = 0.2f;
+    private static final float[] COLORS = {0.9f, 0.3f};
+    private static final float[] ALPHAS = {0.5f, 0.25f};
+
+    private FakeGL gl;
+    private GLApi previous;
+
+    @Before
+    public void setUp() {
+        gl = new FakeGL();
+        previous = Gl.api();
+        Gl.setApi(gl);
+    }
+
+    @After
+    public void tearDown() {
+        Gl.setApi(previous);
+    }
+
+    @Test
+    public void shapeBatch_compositeMatchesDirect() {
+        ShapeBatchRenderer renderer = new ShapeBatchRenderer(3, 3);
+        assertCompositeMatchesDirect(blendOf(renderer, false), blendOf(renderer, true));
+        renderer.release();
+    }
+
+    @Test
+    public void sdfBatch_compositeMatchesDirect() {
+        SdfBatchRenderer renderer = new SdfBatchRenderer(1);
+        assertCompositeMatchesDirect(blendOf(renderer, false), blendOf(renderer, true));
+        renderer.release();
+    }
+
+    @Test
+    public void opaqueShapeBatch_doesNotBlend() {
+        ShapeBatchRenderer renderer = new ShapeBatchRenderer(3, 3);
+        renderer.flush(triangle(1f), 3, new short[]{0, 1, 2}, 3);
+
+        assertEquals(0, gl.count("glEnable(" + GLES20.GL_BLEND + ")"));
+        renderer.release();
+    }
+
+    private static float[] triangle(float alpha) {
+        return new float[]{
+                0f, 0f, 1f, 1f, 1f, alpha,
+                1f, 0f, 1f, 1f, 1f, alpha,
+                0f, 1f, 1f, 1f, 1f, alpha};
+    }
+
+    // Factores {srcRGB, dstRGB, srcAlpha, dstAlpha} del ultimo glBlendFunc*
+    private int[] blendOf(ShapeBatchRenderer renderer, boolean layer) {
+        renderer.setDrawingLayer(layer);
+        renderer.flush(triangle(0.5f), 3, new short[]{0, 1, 2}, 3);
+        return lastBlend();
+    }
+
+    private int[] blendOf(SdfBatchRenderer renderer, boolean layer) {
+        renderer.setDrawingLayer(layer);
+        renderer.flush(new float[SdfBatch.FLOATS_PER_VERTEX * SpriteBatch.VERTICES_PER_SPRITE], 1, 1f);
+        return lastBlend();
+    }
+
+    private int[] lastBlend() {
+        for (int i = gl.calls.size() - 1; i >= 0; i--) {
+            String call = gl.calls.get(i);
+            if (call.startsWith("glBlendFunc")) {
+                String[] args = call.substring(call.indexOf('(') + 1, call.length() - 1).split(",");
+                int[] f = new int[4];
+                for (int j = 0; j < 4; j++) {
+                    // glBlendFunc usa los mismos factores para el alfa
+                    f[j] = Integer.parseInt(args[j % args.length]);
+                }
+                return f;
+            }
+        }
+        throw new AssertionError("No hubo glBlendFunc");
+    }
+
+    private static float factor(int f, float srcAlpha) {
+        switch (f) {
+            case GLES20.GL_ZERO:
+                return 0f;
+            case GLES20.GL_ONE:
+                return 1f;
+            case GLES20.GL_SRC_ALPHA:
+                return srcAlpha;
+            case GLES20.GL_ONE_MINUS_SRC_ALPHA:
+                return 1f - srcAlpha;
+            default:
+                throw new AssertionError("Factor sin simular: " + f);
+        }
+    }
+
+    // Mezcla color c con alfa a sobre {rgb, alfa}
+    private static void blend(int[] f, float c, float a, float[] dst) {
+        float rgb = c * factor(f[0], a) + dst[0] * factor(f[1], a);
+        float alpha = a * factor(f[2], a) + dst[1] * factor(f[3], a);
+        dst[0] = rgb;
+        dst[1] = alpha;
+    }
+
+    private static void assertCompositeMatchesDirect(int[] direct, int[] layer) {
+        float[] screen = {BACKGROUND, 1f};
+        float[] texture = {0f, 0f}; // clear de RenderTarget
+        for (int i = 0; i < COLORS.length; i++) {
+            blend(direct, COLORS[i], ALPHAS[i], screen);
+            blend(layer, COLORS[i], ALPHAS[i], texture);
+        }
+        // TexturedQuad premultiplicado: GL_ONE, GL_ONE_MINUS_SRC_ALPHA
+        float composite = texture[0] + BACKGROUND * (1f - texture[1]);
+
+        assertEquals(screen[0], composite, 1e-6f);
+    }
+}
@@ -0,0 +1,210 @@
+package com.programacionavanzada.render;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LayerCacheTest {
+
+    private static final float[] RED = {1f, 0f, 0f, 1f};
+
+    // Guarda cada llamada como texto: "render 0 512x512", "composite 0", ...
+    private static class RecordingBackend implements LayerCache.Backend {
+        final List<String> calls = new ArrayList<>();
+
+        @Override
+        public void render(int slot, Layer layer, int width, int height) {
+            calls.add("render " + slot + " " + width + "x" + height);
+        }
+
+        @Override
+        public void composite(int slot, Layer layer) {
+            calls.add("composite " + slot);
+        }
+
+        @Override
+        public void drawDirect(Layer layer) {
+            calls.add("direct");
+        }
+
+        @Override
+        public void release(int slot) {
+            calls.add("release " + slot);
+        }
+
+        int count(String prefix) {
+            int n = 0;
+            for (String call : calls) {
+                if (call.startsWith(prefix)) {
+                    n++;
+                }
+            }
+            return n;
+        }
+    }
+
+    private RecordingBackend backend;
+    private LayerCache cache;
+
+    @Before
+    public void setUp() {
+        backend = new RecordingBackend();
+        cache = new LayerCache(backend);
+        // 256 pixeles por unidad
+        cache.setPixelSize(1f / 256);
+    }
+
+    private void frame(Layer... layers) {
+        cache.nextFrame();
+        for (Layer layer : layers) {
+            cache.draw(layer);
+        }
+    }
+
+    @Test
+    public void staticLayer_rendersOnceThenOnlyComposites() {
+        Layer layer = new Layer(-1f, -1f, 1f, 1f);
+        layer.getScene().add(SceneNode.circle(0.5f, RED));
+        for (int i = 0; i < 10; i++) {
+            frame(layer);
+        }
+
+        assertEquals(1, backend.count("render"));
+        assertEquals("render 0 512x512", backend.calls.get(0));
+        assertEquals(10, backend.count("composite"));
+        assertEquals(9, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.9f, cache.getHitRate(), 1e-6f);
+        assertEquals(512 * 512 * 4, cache.getBytesHeld());
+    }
+
+    @Test
+    public void changedNode_marksLayerDirty() {
+        Layer layer = new Layer(-1f, -1f, 1f, 1f);
+        SceneNode node = layer.getScene().add(SceneNode.circle(0.5f, RED));
+        frame(layer);
+        frame(layer);
+        node.setPosition(0.25f, 0f);
+        assertFalse(cache.isCached(layer));
+        frame(layer);
+        frame(layer);
+
+        assertEquals(2, backend.count("render"));
+        assertEquals(2, cache.getHitCount());
+        assertTrue(cache.isCached(layer));
+    }
+
+    @Test
+    public void updateBeforeDraw_rendersOnceAndCountsAMiss() {
+        Layer layer = new Layer(-1f, -1f, 1f, 1f);
+        cache.nextFrame();
+        cache.update(layer);
+        cache.draw(layer);
+
+        assertEquals(1, backend.count("render"));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void smallZoom_keepsTheResolution() {
+        Layer layer = new Layer(0f, 0f, 1f, 1f);
+        frame(layer);
+        // 300 pixeles por unidad se redondea a 512: otra resolucion
+        cache.setPixelSize(1f / 300);
+        frame(layer);
+        // 400 tambien cae en 512: la capa solo se escala al pegarla
+        cache.setPixelSize(1f / 400);
+        frame(layer);
+
+        assertEquals(2, backend.count("render"));
+        assertEquals("render 0 512x512", backend.calls.get(3));
+        assertEquals(1, backend.count("release"));
+    }
+
+    @Test
+    public void overBudget_evictsLeastRecentlyUsed() {
+        // Cada capa de 1x1 a 256 pixeles por unidad ocupa 256 KB; caben dos
+        cache = new LayerCache(backend, 2 * 256 * 256 * 4);
+        cache.setPixelSize(1f / 256);
+        cache.setView(-10f, -10f, 10f, 10f);
+        Layer a = new Layer(0f, 0f, 1f, 1f);
+        Layer b = new Layer(1f, 0f, 2f, 1f);
+        Layer c = new Layer(2f, 0f, 3f, 1f);
+        frame(a);
+        frame(b);
+        frame(a);
+        frame(c);
+
+        assertEquals(1, cache.getEvictionCount());
+        assertTrue(cache.isCached(a));
+        assertFalse(cache.isCached(b));
+        assertTrue(cache.isCached(c));
+        // c reutiliza el slot de b
+        assertEquals("render 1 256x256", backend.calls.get(backend.calls.size() - 2));
+        assertEquals(2 * 256 * 256 * 4, cache.getBytesHeld());
+    }
+
+    @Test
+    public void layersUsedThisFrame_areNotEvicted() {
+        cache = new LayerCache(backend, 256 * 256 * 4);
+        cache.setPixelSize(1f / 256);
+        Layer a = new Layer(0f, 0f, 1f, 1f);
+        Layer b = new Layer(-1f, -1f, 0f, 0f);
+        frame(a, b);
+
+        assertEquals(0, cache.getEvictionCount());
+        assertEquals(1, backend.count("direct"));
+        assertTrue(cache.isCached(a));
+        assertFalse(cache.isCached(b));
+    }
+
+    @Test
+    public void layerOutsideView_isNotDrawnNorCounted() {
+        Layer layer = new Layer(5f, 5f, 6f, 6f);
+        frame(layer);
+
+        assertTrue(backend.calls.isEmpty());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void contextLoss_rendersEveryLayerAgain() {
+        Layer layer = new Layer(-1f, -1f, 1f, 1f);
+        frame(layer);
+        cache.onContextLost();
+        frame(layer);
+
+        assertEquals(2, backend.count("render"));
+        assertEquals(1, backend.count("release"));
+        assertEquals(512 * 512 * 4, cache.getBytesHeld());
+    }
+
+    @Test
+    public void lowerBudget_evictsDownToIt() {
+        cache.setView(-10f, -10f, 10f, 10f);
+        Layer a = new Layer(0f, 0f, 1f, 1f);
+        Layer b = new Layer(1f, 0f, 2f, 1f);
+        frame(a, b);
+        cache.setBudgetBytes(256 * 256 * 4);
+
+        assertEquals(1, cache.getLayerCount());
+        assertEquals(256 * 256 * 4, cache.getBytesHeld());
+    }
+
+    @Test
+    public void hugeLayer_isClampedToMaxSize() {
+        Layer layer = new Layer(-1f, -1f, 1f, 1f);
+        cache.setPixelSize(1f / 4096);
+        cache.setBudgetBytes(64L * 1024 * 1024);
+        frame(layer);
+
+        assertEquals("render 0 2048x2048", backend.calls.get(0));
+    }
+}
@@ -0,0 +1,124 @@
+package com.programacionavanzada.render;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.programacionavanzada.geometria.Camera;
+import com.programacionavanzada.primitivas.Drawable;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class RenderQueueTest {
+
+    private final List<String> drawn = new ArrayList<>();
+
+    private Drawable shape(String name, int program, int buffer) {
+        return new Drawable() {
+            @Override
+            public void draw(Camera camera) {
+                drawn.add(name);
+            }
+
+            @Override
+            public int getProgramHandle() {
+                return program;
+            }
+
+            @Override
+            public int getBufferHandle() {
+                return buffer;
+            }
+        };
+    }
+
+    @Test
+    public void flush_groupsByProgramWithinLayer() {
+        RenderQueue queue = new RenderQueue(4);
+        queue.submit(0, shape("a1", 1, 0));
+        queue.submit(0, shape("b1", 2, 0));
+        queue.submit(0, shape("a2", 1, 0));
+        queue.submit(0, shape("b2", 2, 0));
+        queue.flush(null);
+
+        assertEquals(Arrays.asList("a1", "a2", "b1", "b2"), drawn);
+        assertEquals(2, queue.getLastProgramSwitches());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void flush_keepsLayerOrder() {
+        RenderQueue queue = new RenderQueue();
+        queue.submit(2, shape("top", 1, 0));
+        queue.submit(0, shape("back", 9, 0));
+        queue.submit(1, shape("middle", 1, 0));
+        queue.flush(null);
+
+        assertEquals(Arrays.asList("back", "middle", "top"), drawn);
+    }
+
+    @Test
+    public void translucent_drawsAfterOpaqueBackToFront() {
+        RenderQueue queue = new RenderQueue();
+        queue.submit(RenderQueue.translucentKey(0, 10, 1, 0), shape("near", 1, 0));
+        queue.submit(RenderQueue.translucentKey(0, 900, 2, 0), shape("far", 2, 0));
+        queue.submit(RenderQueue.opaqueKey(0, 3, 0, 0), shape("opaque", 3, 0));
+        queue.flush(null);
+
+        assertEquals(Arrays.asList("opaque", "far", "near"), drawn);
+    }
+
+    @Test
+    public void equalKeys_keepSubmissionOrder() {
+        RenderQueue queue = new RenderQueue();
+        for (int i = 0; i < 10; i++) {
+            queue.submit(0, shape("s" + i, 1, 1));
+        }
+        queue.flush(null);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("s" + i, drawn.get(i));
+        }
+    }
+
+    @Test
+    public void sort_100kRandomKeys_matchesArraysSort() {
+        int n = 100_000;
+        RenderQueue queue = new RenderQueue(n);
+        Drawable d = shape("x", 0, 0);
+        Random random = new Random(17);
+        long[] expected = new long[n];
+        long[] submitted = new long[n];
+        for (int frame = 0; frame < 3; frame++) {
+            for (int i = 0; i < n; i++) {
+                long key = RenderQueue.opaqueKey(random.nextInt(4), random.nextInt(64),
+                        random.nextInt(256), random.nextInt(RenderQueue.MAX_DEPTH));
+                submitted[i] = key;
+                expected[i] = key;
+                queue.submit(key, d);
+            }
+            queue.sort();
+            Arrays.sort(expected);
+            for (int i = 0; i < n; i++) {
+                assertEquals(expected[i], submitted[queue.sortedIndex(i)]);
+            }
+            queue.clear();
+            // Reutiliza los mismos arreglos en cada cuadro
+            assertEquals(n, queue.capacity());
+        }
+    }
+
+    @Test
+    public void keys_orderLayerAboveEverything() {
+        assertTrue(RenderQueue.opaqueKey(0, 0xFFFF, 0xFFFF, RenderQueue.MAX_DEPTH)
+                < RenderQueue.opaqueKey(1, 0, 0, 0));
+        // La capa mas alta usa el bit de signo: el orden es sin signo
+        assertTrue(Long.compareUnsigned(RenderQueue.opaqueKey(127, 0, 0, 0),
+                RenderQueue.opaqueKey(RenderQueue.MAX_LAYER, 0, 0, 0)) < 0);
+        assertEquals(RenderQueue.MAX_DEPTH, RenderQueue.quantizeDepth(5f, 0f, 1f));
+    }
+}
@@ -0,0 +1,95 @@
+package com.programacionavanzada.render;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class RenderSchedulerTest {
+
+    private static final long FRAME = 16_666_667L;
+
+    private int requests;
+    private boolean continuous;
+    private long now;
+    private RenderScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new RenderScheduler(new RenderScheduler.Host() {
+            @Override
+            public void requestRender() {
+                requests++;
+            }
+
+            @Override
+            public void setContinuous(boolean c) {
+                continuous = c;
+            }
+        }, () -> now, FRAME);
+    }
+
+    @Test
+    public void burstOfChanges_requestsOneFrame() {
+        for (int i = 0; i < 50; i++) {
+            scheduler.onSceneChanged();
+        }
+        assertEquals(1, requests);
+        assertEquals(49, scheduler.getChangesCoalesced());
+
+        scheduler.onFrame();
+        scheduler.onSceneChanged();
+        assertEquals(2, requests);
+    }
+
+    @Test
+    public void circleInstances_notifyScheduler() {
+        CircleInstances circles = new CircleInstances(4);
+        circles.setListener(scheduler);
+        int i = circles.add(0, 0, 0.1f, 1, 0, 0, 1);
+        circles.setCenter(i, 0.5f, 0.5f);
+        circles.setColor(i, 0, 1, 0, 1);
+
+        assertEquals(1, requests);
+    }
+
+    @Test
+    public void animateFor_isContinuousUntilDeadline() {
+        scheduler.animateFor(100);
+        assertTrue(continuous);
+
+        now += 50_000_000L;
+        scheduler.onFrame();
+        assertTrue(continuous);
+
+        now += 60_000_000L;
+        scheduler.onFrame();
+        assertFalse(continuous);
+        assertFalse(scheduler.isContinuous());
+    }
+
+    @Test
+    public void animateFor_keepsFurthestDeadline() {
+        scheduler.animateFor(1000);
+        scheduler.animateFor(10);
+        now += 500_000_000L;
+        scheduler.onFrame();
+        assertTrue(continuous);
+    }
+
+    @Test
+    public void idleTime_countsSkippedFrames() {
+        scheduler.onFrame();
+        now += FRAME;
+        scheduler.onFrame();
+        assertEquals(0, scheduler.getFramesSkipped());
+
+        // Un segundo sin cambios: 59 refrescos sin dibujar
+        now += 60 * FRAME;
+        scheduler.onFrame();
+        assertEquals(59, scheduler.getFramesSkipped());
+        assertEquals(3, scheduler.getFramesRendered());
+    }
+}
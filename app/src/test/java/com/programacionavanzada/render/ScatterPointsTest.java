@@ -0,0 +1,71 @@
+package com.programacionavanzada.render;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+public class ScatterPointsTest {
+
+    @Test
+    public void append_adoptsArraysWithoutCopy() {
+        ScatterPoints points = new ScatterPoints();
+        float[] xy = {0f, 0f, 1f, 1f, 2f, 2f};
+        float[] sizes = {1f, 2f, 3f};
+
+        points.append(xy, sizes, null);
+
+        ScatterPoints.Chunk chunk = points.getChunk(0);
+        assertEquals(3, chunk.count);
+        assertSame(xy, chunk.positions.array());
+        assertSame(sizes, chunk.sizes.array());
+        assertNull(chunk.colors);
+    }
+
+    @Test
+    public void chunks_accumulate() {
+        ScatterPoints points = new ScatterPoints();
+        points.append(new float[2000], null, null);
+        FloatBuffer direct = ByteBuffer.allocateDirect(500 * 8).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        points.append(direct, null, null);
+
+        assertEquals(2, points.chunkCount());
+        assertEquals(1500, points.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingColors_throw() {
+        new ScatterPoints().append(new float[6], null, new int[2]);
+    }
+
+    @Test
+    public void clear_changesVersionAndNotifies() {
+        ScatterPoints points = new ScatterPoints();
+        int[] changes = new int[1];
+        points.setListener(() -> changes[0]++);
+        points.append(new float[4], null, null);
+        int version = points.version();
+
+        points.clear();
+
+        assertEquals(0, points.size());
+        assertEquals(version + 1, points.version());
+        assertEquals(2, changes[0]);
+    }
+
+    @Test
+    public void rgba_isReadAsRgbaBytes() {
+        ByteBuffer bytes = ByteBuffer.allocate(4).order(ByteOrder.nativeOrder());
+        bytes.asIntBuffer().put(ScatterPoints.rgba(1f, 0.5f, 0f, 0.2f));
+
+        assertEquals(255, bytes.get(0) & 0xFF);
+        assertEquals(128, bytes.get(1) & 0xFF);
+        assertEquals(0, bytes.get(2) & 0xFF);
+        assertEquals(51, bytes.get(3) & 0xFF);
+    }
+}
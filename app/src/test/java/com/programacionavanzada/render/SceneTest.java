@@ -0,0 +1,136 @@
+package com.programacionavanzada.render;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SceneTest {
+
+    private static final float[] RED = {1f, 0f, 0f, 1f};
+
+    private int vertices;
+    private ShapeBatch batch;
+    private Scene scene;
+
+    @Before
+    public void setUp() {
+        batch = new ShapeBatch((v, vertexCount, i, indexCount) -> vertices += vertexCount);
+        scene = new Scene();
+    }
+
+    private int drawnVertices() {
+        vertices = 0;
+        batch.begin();
+        scene.draw(batch);
+        batch.end();
+        return vertices;
+    }
+
+    @Test
+    public void nodesOutsideView_areNotDrawn() {
+        scene.add(SceneNode.square(0.5f, RED));
+        scene.add(SceneNode.square(0.5f, RED)).setPosition(5f, 5f);
+        scene.add(SceneNode.circle(0.2f, RED)).setPosition(-3f, 0f);
+
+        assertEquals(6, drawnVertices());
+        assertEquals(1, scene.getVisibleCount());
+        assertEquals(2, scene.getCulledCount());
+    }
+
+    @Test
+    public void movingNode_updatesItsBounds() {
+        SceneNode node = scene.add(SceneNode.square(0.5f, RED));
+        node.setPosition(5f, 0f);
+        assertEquals(0, scene.cull());
+
+        node.setPosition(1.2f, 0f); // la mitad izquierda entra por el borde
+        assertEquals(1, scene.cull());
+
+        scene.setView(4f, -1f, 6f, 1f);
+        node.setPosition(5f, 0f);
+        assertEquals(1, scene.cull());
+    }
+
+    @Test
+    public void scaleAndLineWidth_growBounds() {
+        SceneNode line = scene.add(SceneNode.lines(new float[]{0f, 0f, 0.1f, 0f}, 0.2f, RED));
+        line.setPosition(0f, 1.05f);
+        // El grosor (0.1 hacia cada lado) alcanza el borde superior
+        assertEquals(1, scene.cull());
+
+        SceneNode circle = scene.add(SceneNode.circle(0.1f, RED));
+        circle.setPosition(1.5f, 0f);
+        assertEquals(1, scene.cull());
+        circle.setScale(6f);
+        assertEquals(2, scene.cull());
+    }
+
+    @Test
+    public void remove_keepsDrawOrder() {
+        SceneNode a = scene.add(SceneNode.circle(0.1f, RED));
+        SceneNode b = scene.add(SceneNode.circle(0.1f, RED));
+        SceneNode c = scene.add(SceneNode.circle(0.1f, RED));
+        c.setPosition(9f, 9f);
+        scene.cull();
+
+        scene.remove(a);
+        assertEquals(2, scene.size());
+        assertSame(b, scene.get(0));
+        assertSame(c, scene.get(1));
+        // La caja de c se movio junto con el nodo
+        assertEquals(1, scene.cull());
+    }
+
+    @Test
+    public void remove_keepsTopmostNodeOnTop() {
+        SceneNode back = scene.add(SceneNode.square(1f, RED));
+        SceneNode middle = scene.add(SceneNode.square(1f, RED));
+        SceneNode top = scene.add(SceneNode.square(1f, RED));
+
+        scene.remove(back);
+
+        assertSame(top, scene.hitTest(0f, 0f));
+        scene.remove(top);
+        assertSame(middle, scene.hitTest(0f, 0f));
+    }
+
+    @Test
+    public void changes_notifyListener() {
+        int[] changes = new int[1];
+        scene.setListener(() -> changes[0]++);
+        SceneNode node = scene.add(SceneNode.circle(0.1f, RED));
+        node.setColor(0f, 1f, 0f, 1f);
+        node.setRotation(1f);
+        scene.remove(node);
+        node.setPosition(1f, 1f); // ya no esta en la escena
+
+        assertEquals(4, changes[0]);
+    }
+
+    @Test
+    public void largeScene_onlyVisibleNodesAreEmitted() {
+        // 100k nodos en una cuadricula de 200x200 unidades; la vista ve ~1%
+        for (int i = 0; i < 100_000; i++) {
+            scene.add(SceneNode.square(0.5f, RED)).setPosition(i % 317 * 0.63f - 100f, i / 317 * 0.63f - 100f);
+        }
+        drawnVertices();
+        assertTrue(scene.getVisibleCount() < 100_000 / 50);
+        assertEquals(scene.getVisibleCount() * 6, vertices);
+    }
+
+    @Test
+    public void hitTest_returnsTopmostExactHit() {
+        SceneNode back = scene.add(SceneNode.square(1f, RED));
+        SceneNode circle = scene.add(SceneNode.circle(0.2f, RED));
+        circle.setPosition(0.3f, 0.3f);
+
+        assertSame(circle, scene.hitTest(0.3f, 0.3f));
+        // Dentro de la caja del circulo pero fuera del circulo
+        assertSame(back, scene.hitTest(0.45f, 0.45f));
+        assertNull(scene.hitTest(0.8f, 0.8f));
+    }
+}
@@ -0,0 +1,161 @@
+package com.programacionavanzada.render;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SdfBatchTest {
+
+    private static final float[] RED = {1f, 0f, 0f, 1f};
+    private static final float EPS = 1e-5f;
+
+    // Guarda (figuras, ancho de antialiasing) de cada flush y los vertices del primero
+    private static class RecordingSink implements SdfBatch.Sink {
+        final List<float[]> flushes = new ArrayList<>();
+        float[] firstVertices;
+
+        @Override
+        public void flush(float[] vertices, int shapeCount, float antialiasWidth) {
+            flushes.add(new float[]{shapeCount, antialiasWidth});
+            if (firstVertices == null) {
+                firstVertices = vertices.clone();
+            }
+        }
+    }
+
+    private RecordingSink sink;
+
+    @Before
+    public void setUp() {
+        sink = new RecordingSink();
+    }
+
+    @Test
+    public void circleDistance_isZeroOnTheEdge() {
+        assertEquals(-1f, SdfBatch.distance(0f, 0f, 1f, 1f, 1f, 0f), EPS);
+        assertEquals(0f, SdfBatch.distance(0.6f, 0.8f, 1f, 1f, 1f, 0f), EPS);
+        // La esquina de la caja queda fuera del circulo
+        assertEquals((float) Math.sqrt(2) - 1f, SdfBatch.distance(1f, 1f, 1f, 1f, 1f, 0f), EPS);
+    }
+
+    @Test
+    public void ringDistance_isNegativeOnlyInsideTheBorder() {
+        assertTrue(SdfBatch.distance(0.9f, 0f, 1f, 1f, 1f, 0.2f) < 0f);
+        assertTrue(SdfBatch.distance(0.5f, 0f, 1f, 1f, 1f, 0.2f) > 0f);
+        assertEquals(0f, SdfBatch.distance(0.8f, 0f, 1f, 1f, 1f, 0.2f), EPS);
+    }
+
+    @Test
+    public void roundedRectDistance_roundsOnlyTheCorners() {
+        // Lado recto
+        assertEquals(0f, SdfBatch.distance(2f, 0f, 2f, 1f, 0.5f, 0f), EPS);
+        // Centro del arco de la esquina
+        assertEquals(-0.5f, SdfBatch.distance(1.5f, 0.5f, 2f, 1f, 0.5f, 0f), EPS);
+        assertTrue(SdfBatch.distance(1.95f, 0.95f, 2f, 1f, 0.5f, 0f) > 0f);
+    }
+
+    @Test
+    public void circle_isOneQuadGrownByTheAntialiasWidth() {
+        SdfBatch batch = new SdfBatch(sink);
+        batch.setAntialiasWidth(0.1f);
+        batch.begin();
+        batch.addCircle(3f, 4f, 1f, RED);
+        batch.end();
+
+        float[] v = sink.firstVertices;
+        int f = SdfBatch.FLOATS_PER_VERTEX;
+        // Orden de Square: sup izq, inf izq, inf der, sup der
+        float[][] expected = {{1.9f, 5.1f}, {1.9f, 2.9f}, {4.1f, 2.9f}, {4.1f, 5.1f}};
+        for (int i = 0; i < 4; i++) {
+            assertEquals(expected[i][0], v[i * f], EPS);
+            assertEquals(expected[i][1], v[i * f + 1], EPS);
+            assertEquals(1f, v[i * f + 6], EPS);
+        }
+        assertEquals(1, sink.flushes.size());
+        assertEquals(0.1f, sink.flushes.get(0)[1], EPS);
+    }
+
+    @Test
+    public void line_isAlignedWithTheSegment() {
+        SdfBatch batch = new SdfBatch(sink);
+        batch.setAntialiasWidth(0.01f);
+        batch.begin();
+        batch.addLine(0f, 0f, 0f, 2f, 0.2f, RED);
+        batch.end();
+
+        float[] v = sink.firstVertices;
+        int f = SdfBatch.FLOATS_PER_VERTEX;
+        // Eje x de la figura hacia arriba: media anchura = mitad del largo + punta
+        assertEquals(1.1f, v[4], EPS);
+        assertEquals(0.1f, v[5], EPS);
+        assertEquals(0.1f, v[6], EPS);
+        // Las esquinas quedan a lo largo del segmento, no de traves
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0.11f, Math.abs(v[i * f]), EPS);
+            assertEquals(1.11f, Math.abs(v[i * f + 1] - 1f), EPS);
+        }
+    }
+
+    @Test
+    public void fullBatch_flushes() {
+        SdfBatch batch = new SdfBatch(sink, 10);
+        batch.begin();
+        for (int i = 0; i < 25; i++) {
+            batch.addPoint(i, 0f, 1f, RED);
+        }
+        batch.end();
+        assertEquals(3, sink.flushes.size());
+        assertEquals(5f, sink.flushes.get(2)[0], EPS);
+    }
+
+    @Test
+    public void antialiasChange_flushesOnlyWhenItChanges() {
+        SdfBatch batch = new SdfBatch(sink);
+        batch.begin();
+        batch.addCircle(0f, 0f, 1f, RED);
+        batch.setAntialiasWidth(SdfBatch.DEFAULT_ANTIALIAS_WIDTH);
+        batch.addCircle(0f, 0f, 1f, RED);
+        batch.setAntialiasWidth(0.5f);
+        batch.addCircle(0f, 0f, 1f, RED);
+        batch.end();
+
+        assertEquals(2, batch.getFlushCount());
+        assertEquals(2f, sink.flushes.get(0)[0], EPS);
+        assertEquals(0.5f, sink.flushes.get(1)[1], EPS);
+    }
+
+    @Test
+    public void scene_routesSdfNodesToTheSdfBatch() {
+        int[] tessellated = new int[1];
+        ShapeBatch shapes = new ShapeBatch((v, vertexCount, i, indexCount) -> tessellated[0] += vertexCount);
+        SdfBatch sdf = new SdfBatch(sink);
+        Scene scene = new Scene();
+        scene.add(SceneNode.circle(0.2f, RED)).setSdf(true);
+        scene.add(SceneNode.lines(new float[]{0f, 0f, 0.5f, 0f, 0f, 0f, 0f, 0.5f}, 0.05f, RED)).setSdf(true);
+        scene.add(SceneNode.square(0.5f, RED));
+
+        shapes.begin();
+        sdf.begin();
+        scene.draw(shapes, sdf);
+        shapes.end();
+        sdf.end();
+
+        assertEquals(6, tessellated[0]);
+        assertEquals(3f, sink.flushes.get(0)[0], EPS);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void triangles_haveNoSdfVersion() {
+        SceneNode.square(0.5f, RED).setSdf(true);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroAntialiasWidth_isRejected() {
+        new SdfBatch(sink).setAntialiasWidth(0f);
+    }
+}
@@ -0,0 +1,135 @@
+package com.programacionavanzada.render;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.programacionavanzada.primitivas.Square;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ShapeBatchTest {
+
+    private static final float[] RED = {1f, 0f, 0f, 1f};
+
+    // Guarda lo que recibiria la GPU en cada flush
+    private static class RecordingSink implements ShapeBatch.Sink {
+        final List<int[]> flushes = new ArrayList<>();
+        int maxIndexSeen;
+        float firstX;
+
+        @Override
+        public void flush(float[] vertices, int vertexCount, short[] indices, int indexCount) {
+            flushes.add(new int[]{vertexCount, indexCount});
+            firstX = vertices[0];
+            for (int i = 0; i < indexCount; i++) {
+                int index = indices[i] & 0xFFFF;
+                assertTrue("indice fuera del lote", index < vertexCount);
+                maxIndexSeen = Math.max(maxIndexSeen, index);
+            }
+        }
+    }
+
+    private RecordingSink sink;
+    private ShapeBatch batch;
+
+    @Before
+    public void setUp() {
+        sink = new RecordingSink();
+        batch = new ShapeBatch(sink);
+    }
+
+    @Test
+    public void mixedShapes_flushOnce() {
+        batch.begin();
+        batch.addPoint(0f, 0f, 0.1f, RED);
+        batch.addLine(-1f, 0f, 1f, 0f, 0.02f, RED);
+        batch.addTriangle(0f, 0f, 1f, 0f, 0f, 1f, RED);
+        batch.addSquare(RED);
+        batch.addCircle(0f, 0f, 0.5f, 25, RED);
+        batch.end();
+
+        assertEquals(1, sink.flushes.size());
+        // punto 4 + linea 4 + triangulo 3 + cuadrado 4 + circulo 27
+        assertEquals(42, sink.flushes.get(0)[0]);
+        // 6 + 6 + 3 + 6 + 25 * 3
+        assertEquals(96, sink.flushes.get(0)[1]);
+    }
+
+    @Test
+    public void squareCoords_cannotBeChangedByCallers() {
+        float[] coords = Square.getCoords();
+        float firstX = coords[0];
+        coords[0] = 99f;
+        Square.getDrawOrder()[0] = 3;
+
+        batch.begin();
+        batch.addSquare(RED);
+        batch.end();
+
+        assertEquals(firstX, Square.getCoords()[0], 0f);
+        assertEquals(0, Square.getDrawOrder()[0]);
+        assertEquals(firstX, sink.firstX, 0f);
+    }
+
+    @Test
+    public void vertexData_isInterleaved() {
+        batch.begin();
+        batch.addTriangle(0.25f, 0.5f, 1f, 0f, 0f, 1f, RED);
+        batch.end();
+        assertEquals(0.25f, sink.firstX, 0f);
+    }
+
+    @Test
+    public void indexOverflow_startsNewBatch() {
+        batch.begin();
+        // 2000 circulos de 27 vertices no caben en 65536 vertices
+        for (int i = 0; i < 2000; i++) {
+            batch.addCircle(0f, 0f, 0.01f, 25, RED);
+        }
+        batch.end();
+
+        assertEquals(2, sink.flushes.size());
+        assertEquals(2, batch.getFlushCount());
+        int total = sink.flushes.get(0)[0] + sink.flushes.get(1)[0];
+        assertEquals(2000 * 27, total);
+        assertTrue(sink.maxIndexSeen <= 65535);
+        // ningun circulo queda partido entre dos lotes
+        assertEquals(0, sink.flushes.get(0)[0] % 27);
+    }
+
+    @Test
+    public void largeTriangleSoup_isSplitOnTriangleBoundaries() {
+        ShapeBatch small = new ShapeBatch(sink, 10, 10);
+        float[] coords = new float[7 * 9];
+        small.begin();
+        small.addTriangles(coords, RED);
+        small.end();
+        for (int[] flush : sink.flushes) {
+            assertEquals(0, flush[1] % 3);
+        }
+        assertEquals(3, sink.flushes.size());
+    }
+
+    @Test
+    public void emptyFrame_doesNotFlush() {
+        batch.begin();
+        batch.end();
+        assertEquals(0, sink.flushes.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void addWithoutBegin_fails() {
+        batch.addPoint(0f, 0f, 0.1f, RED);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shapeLargerThanBatch_fails() {
+        ShapeBatch small = new ShapeBatch(sink, 16, 64);
+        small.begin();
+        small.addCircle(0f, 0f, 1f, 100, RED);
+    }
+}
@@ -0,0 +1,135 @@
+package com.programacionavanzada.render;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class SpriteBatchTest {
+
+    private static final float[] WHITE = {1f, 1f, 1f, 1f};
+
+    // Guarda (pagina, sprites) de cada flush y los vertices del primero
+    private static class RecordingSink implements SpriteBatch.Sink {
+        final List<int[]> flushes = new ArrayList<>();
+        float[] firstVertices;
+
+        @Override
+        public void flush(int page, float[] vertices, int spriteCount) {
+            flushes.add(new int[]{page, spriteCount});
+            if (firstVertices == null) {
+                firstVertices = vertices.clone();
+            }
+        }
+    }
+
+    private RecordingSink sink;
+    private TextureAtlas atlas;
+
+    @Before
+    public void setUp() {
+        sink = new RecordingSink();
+        TextureAtlas.PageStore store = new TextureAtlas.PageStore() {
+            @Override
+            public void createPage(int page, int size) {
+            }
+
+            @Override
+            public void upload(int page, int x, int y, int width, int height, int[] argb) {
+            }
+        };
+        atlas = new TextureAtlas(store, 64, 4, 0);
+    }
+
+    @Test
+    public void thousandsOfSpritesFromOnePage_areOneDrawCall() {
+        TextureAtlas.Region icon = atlas.add("icon", new int[16 * 16], 16, 16);
+        SpriteBatch batch = new SpriteBatch(sink);
+        batch.begin();
+        for (int i = 0; i < 5000; i++) {
+            batch.draw(icon, i * 0.001f, 0f, 0.01f, 0.01f, WHITE);
+        }
+        batch.end();
+
+        assertEquals(1, sink.flushes.size());
+        assertArrayEquals(new int[]{0, 5000}, sink.flushes.get(0));
+    }
+
+    @Test
+    public void pageChange_flushes() {
+        TextureAtlas.Region a = atlas.add("a", new int[64 * 64], 64, 64);
+        TextureAtlas.Region b = atlas.add("b", new int[64 * 64], 64, 64);
+        SpriteBatch batch = new SpriteBatch(sink);
+        batch.begin();
+        batch.draw(a, 0f, 0f, 1f, 1f, WHITE);
+        batch.draw(a, 0f, 0f, 1f, 1f, WHITE);
+        batch.draw(b, 0f, 0f, 1f, 1f, WHITE);
+        batch.end();
+
+        assertEquals(2, batch.getFlushCount());
+        assertArrayEquals(new int[]{0, 2}, sink.flushes.get(0));
+        assertArrayEquals(new int[]{1, 1}, sink.flushes.get(1));
+    }
+
+    @Test
+    public void fullBatch_flushes() {
+        SpriteBatch batch = new SpriteBatch(sink, 10);
+        batch.begin();
+        for (int i = 0; i < 25; i++) {
+            batch.draw(0, 0f, 0f, 1f, 1f, 0f, 0f, 1f, 1f, WHITE);
+        }
+        batch.end();
+        assertEquals(3, sink.flushes.size());
+        assertEquals(5, sink.flushes.get(2)[1]);
+    }
+
+    @Test
+    public void vertices_followSquareOrder() {
+        SpriteBatch batch = new SpriteBatch(sink);
+        batch.begin();
+        batch.draw(0, 0.1f, 0.2f, 0.3f, 0.4f, 1f, 2f, 3f, 4f, WHITE);
+        batch.end();
+
+        float[] v = sink.firstVertices;
+        int f = SpriteBatch.FLOATS_PER_VERTEX;
+        // Sup izq con (u0, v0) e inf der con (u1, v1)
+        assertArrayEquals(new float[]{1f, 6f, 0.1f, 0.2f}, new float[]{v[0], v[1], v[2], v[3]}, 0f);
+        assertArrayEquals(new float[]{4f, 2f, 0.3f, 0.4f},
+                new float[]{v[2 * f], v[2 * f + 1], v[2 * f + 2], v[2 * f + 3]}, 0f);
+    }
+
+    @Test
+    public void rotatedSprite_keepsItsCenter() {
+        TextureAtlas.Region icon = atlas.add("icon", new int[4], 2, 2);
+        SpriteBatch batch = new SpriteBatch(sink);
+        batch.begin();
+        batch.draw(icon, 5f, 5f, 2f, 1f, 90f, WHITE);
+        batch.end();
+
+        float[] v = sink.firstVertices;
+        int f = SpriteBatch.FLOATS_PER_VERTEX;
+        // A 90 grados la esquina sup izq (-1, 0.5) queda en (-0.5, -1)
+        assertEquals(4.5f, v[0], 1e-5f);
+        assertEquals(4f, v[1], 1e-5f);
+        assertEquals(10f, v[0] + v[2 * f], 1e-5f);
+        assertEquals(10f, v[1] + v[2 * f + 1], 1e-5f);
+    }
+
+    @Test
+    public void quadIndices_repeatSquareDrawOrder() {
+        assertArrayEquals(new short[]{0, 1, 2, 0, 2, 3, 4, 5, 6, 4, 6, 7}, SpriteBatch.quadIndices(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void evictedRegion_isRejected() {
+        TextureAtlas.Region icon = atlas.add("icon", new int[4], 2, 2);
+        atlas.onContextLost();
+        SpriteBatch batch = new SpriteBatch(sink);
+        batch.begin();
+        batch.draw(icon, 0f, 0f, 1f, 1f, WHITE);
+    }
+}
@@ -0,0 +1,92 @@
+package com.programacionavanzada.render;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class StrokeBatchTest {
+
+    private static final float[] RED = {1f, 0f, 0f, 1f};
+    private static final float[] BLUE = {0f, 0f, 1f, 1f};
+
+    private static class RecordingSink implements StrokeBatch.Sink {
+        final List<int[]> flushes = new ArrayList<>();
+        float[] lastVertices;
+
+        @Override
+        public void flush(float[] vertices, int vertexCount, short[] indices, int indexCount) {
+            flushes.add(new int[]{vertexCount, indexCount});
+            lastVertices = vertices.clone();
+            for (int i = 0; i < indexCount; i++) {
+                assertTrue("indice fuera del lote", (indices[i] & 0xFFFF) < vertexCount);
+            }
+        }
+    }
+
+    private RecordingSink sink;
+    private StrokeBatch batch;
+
+    @Before
+    public void setUp() {
+        sink = new RecordingSink();
+        batch = new StrokeBatch(sink);
+    }
+
+    @Test
+    public void differentWidthsAndColors_flushOnce() {
+        batch.begin();
+        batch.addLine(0f, 0f, 1f, 0f, 2f, RED);
+        batch.addLine(0f, 1f, 1f, 1f, 8f, BLUE);
+        batch.end();
+
+        assertEquals(1, sink.flushes.size());
+        assertEquals(8, sink.flushes.get(0)[0]);
+        int f = StrokeBatch.FLOATS_PER_VERTEX;
+        // w es la mitad del grosor; despues va el color
+        assertEquals(1f, sink.lastVertices[4], 0f);
+        assertEquals(4f, sink.lastVertices[4 * f + 4], 0f);
+        assertEquals(1f, sink.lastVertices[4 * f + 8], 0f);
+        assertEquals(0f, sink.lastVertices[4 * f + 5], 0f);
+    }
+
+    @Test
+    public void secondStroke_indicesStartAfterFirst() {
+        List<short[]> indices = new ArrayList<>();
+        StrokeBatch b = new StrokeBatch((vertices, vertexCount, idx, indexCount) ->
+                indices.add(java.util.Arrays.copyOf(idx, indexCount)));
+        b.begin();
+        b.addLine(0f, 0f, 1f, 0f, 1f, RED);
+        b.addLine(0f, 1f, 1f, 1f, 1f, RED);
+        b.end();
+
+        short[] flushed = indices.get(0);
+        assertEquals(12, flushed.length);
+        for (int i = 6; i < 12; i++) {
+            assertTrue(flushed[i] >= 4);
+        }
+    }
+
+    @Test
+    public void fullBatch_flushesBeforeStroke() {
+        StrokeBatch small = new StrokeBatch(sink, 10, 100);
+        small.begin();
+        small.addLine(0f, 0f, 1f, 0f, 1f, RED);
+        small.addLine(0f, 0f, 1f, 0f, 1f, RED);
+        small.addLine(0f, 0f, 1f, 0f, 1f, RED);
+        small.end();
+
+        assertEquals(2, small.getFlushCount());
+        assertEquals(8, sink.flushes.get(0)[0]);
+        assertEquals(4, sink.flushes.get(1)[0]);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void addWithoutBegin_throws() {
+        batch.addLine(0f, 0f, 1f, 0f, 1f, RED);
+    }
+}
@@ -0,0 +1,147 @@
+package com.programacionavanzada.render;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TextureAtlasTest {
+
+    // Guarda las paginas creadas y la ultima subida
+    private static class RecordingStore implements TextureAtlas.PageStore {
+        int pages;
+        final List<int[]> uploads = new ArrayList<>();
+        int[] lastPixels;
+
+        @Override
+        public void createPage(int page, int size) {
+            assertEquals(pages, page);
+            pages++;
+        }
+
+        @Override
+        public void upload(int page, int x, int y, int width, int height, int[] argb) {
+            uploads.add(new int[]{page, x, y, width, height});
+            lastPixels = argb.clone();
+        }
+    }
+
+    private RecordingStore store;
+
+    @Before
+    public void setUp() {
+        store = new RecordingStore();
+    }
+
+    private static int[] image(int w, int h) {
+        int[] argb = new int[w * h];
+        for (int i = 0; i < argb.length; i++) {
+            argb[i] = 0xFF000000 | i;
+        }
+        return argb;
+    }
+
+    @Test
+    public void region_hasUvsInsideThePadding() {
+        TextureAtlas atlas = new TextureAtlas(store, 64, 1, 2);
+        TextureAtlas.Region region = atlas.add("a", image(8, 4), 8, 4);
+
+        assertEquals(0, region.page);
+        assertEquals(2 / 64f, region.u0, 0f);
+        assertEquals(2 / 64f, region.v0, 0f);
+        assertEquals(10 / 64f, region.u1, 0f);
+        assertEquals(6 / 64f, region.v1, 0f);
+        // Se sube con el margen
+        assertEquals(12, store.uploads.get(0)[3]);
+        assertEquals(8, store.uploads.get(0)[4]);
+    }
+
+    @Test
+    public void padding_repeatsEdgePixels() {
+        TextureAtlas atlas = new TextureAtlas(store, 64, 1, 1);
+        atlas.add("a", new int[]{1, 2, 3, 4}, 2, 2);
+
+        // 4 x 4 con la imagen 2 x 2 en el centro
+        int[] expected = {
+                1, 1, 2, 2,
+                1, 1, 2, 2,
+                3, 3, 4, 4,
+                3, 3, 4, 4
+        };
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], store.lastPixels[i]);
+        }
+    }
+
+    @Test
+    public void sameKey_isUploadedOnce() {
+        TextureAtlas atlas = new TextureAtlas(store, 64, 1, 0);
+        TextureAtlas.Region first = atlas.add("a", image(4, 4), 4, 4);
+        assertSame(first, atlas.add("a", image(4, 4), 4, 4));
+        assertEquals(1, store.uploads.size());
+    }
+
+    @Test
+    public void fullPages_openNewOnesUpToMax() {
+        TextureAtlas atlas = new TextureAtlas(store, 32, 3, 0);
+        atlas.add("a", image(32, 32), 32, 32);
+        atlas.add("b", image(32, 32), 32, 32);
+        atlas.add("c", image(16, 16), 16, 16);
+        assertEquals(3, atlas.getPageCount());
+        assertEquals(3, store.pages);
+        assertEquals(0, atlas.getEvictionCount());
+    }
+
+    @Test
+    public void leastRecentlyUsedPage_isEvicted() {
+        TextureAtlas atlas = new TextureAtlas(store, 32, 2, 0);
+        TextureAtlas.Region a = atlas.add("a", image(32, 32), 32, 32);
+        atlas.nextFrame();
+        atlas.add("b", image(32, 32), 32, 32);
+        atlas.nextFrame();
+        // "a" se usa en este cuadro: el desalojado es "b"
+        assertNotNull(atlas.get("a"));
+        atlas.nextFrame();
+        atlas.get("a");
+
+        TextureAtlas.Region c = atlas.add("c", image(32, 32), 32, 32);
+        assertEquals(1, c.page);
+        assertNull(atlas.get("b"));
+        assertTrue(a.isValid());
+        assertEquals(1, atlas.getEvictionCount());
+        assertEquals(2, store.pages);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void evictingPageUsedThisFrame_throws() {
+        TextureAtlas atlas = new TextureAtlas(store, 32, 1, 0);
+        atlas.add("a", image(32, 32), 32, 32);
+        atlas.add("b", image(32, 32), 32, 32);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void imageBiggerThanPage_throws() {
+        new TextureAtlas(store, 32, 1, 2).add("a", image(30, 30), 30, 30);
+    }
+
+    @Test
+    public void contextLoss_invalidatesRegions() {
+        TextureAtlas atlas = new TextureAtlas(store, 64, 1, 0);
+        TextureAtlas.Region a = atlas.add("a", image(8, 8), 8, 8);
+        atlas.onContextLost();
+
+        assertFalse(a.isValid());
+        assertFalse(atlas.contains("a"));
+        TextureAtlas.Region again = atlas.add("a", image(8, 8), 8, 8);
+        assertEquals(0, again.page);
+        assertEquals(1, atlas.getPageCount());
+    }
+}